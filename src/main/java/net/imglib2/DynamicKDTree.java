@@ -0,0 +1,451 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A spatial index over RealLocalizable positions that supports insertion,
+ * removal, and moving of points.
+ *
+ * <p>
+ * Points are kept in a forest of static kd-trees ("buckets") using the
+ * logarithmic method: bucket {@code i} holds at most {@code 2^i} points in the
+ * left-balanced, flat layout of {@link FlatKDTree}. Inserting a point merges
+ * it with the smaller buckets into the first empty bucket that is large
+ * enough, which costs amortized {@code O(log^2 n)}. Removing a point only
+ * marks its slot as dead; a bucket is rebuilt from its live points when more
+ * than half of its slots are dead. Moving a point that is a leaf of its bucket
+ * and stays within its cell is done in place, otherwise it is removed and
+ * re-inserted.
+ * </p>
+ *
+ * <p>
+ * Every point is represented by an {@link Entry}, which is returned by
+ * {@link #insert(RealLocalizable, Object)} and identifies the point for
+ * {@link #remove(Entry)} and {@link #move(Entry, RealLocalizable)}. Searches
+ * are provided by
+ * {@link net.imglib2.neighborsearch.NearestNeighborSearchOnDynamicKDTree},
+ * {@link net.imglib2.neighborsearch.KNearestNeighborSearchOnDynamicKDTree},
+ * and {@link net.imglib2.neighborsearch.RadiusNeighborSearchOnDynamicKDTree}.
+ * </p>
+ *
+ * @param <T>
+ *            type of values stored in the tree.
+ */
+public class DynamicKDTree< T > implements EuclideanSpace
+{
+	/**
+	 * the number of dimensions.
+	 */
+	final protected int n;
+
+	/**
+	 * the number of (live) points in the tree.
+	 */
+	protected int size;
+
+	/**
+	 * bucket {@code i} is {@code null} or holds at most {@code 2^i} live
+	 * points.
+	 */
+	protected Bucket[] buckets;
+
+	/**
+	 * A point in the tree, with its position and value.
+	 */
+	public final class Entry implements RealLocalizable, Sampler< T >
+	{
+		private final double[] pos;
+
+		private final T value;
+
+		/**
+		 * the bucket containing this entry, or {@code null} if the entry is
+		 * not in the tree.
+		 */
+		private Bucket bucket;
+
+		/**
+		 * the node index of this entry in {@link #bucket}.
+		 */
+		private int slot;
+
+		private Entry( final RealLocalizable position, final T value )
+		{
+			this.pos = new double[ n ];
+			position.localize( pos );
+			this.value = value;
+		}
+
+		/**
+		 * Whether this entry is currently in the tree.
+		 */
+		public boolean isInTree()
+		{
+			return bucket != null;
+		}
+
+		@Override
+		public int numDimensions()
+		{
+			return n;
+		}
+
+		@Override
+		public void localize( final float[] position )
+		{
+			for ( int d = 0; d < n; ++d )
+				position[ d ] = ( float ) pos[ d ];
+		}
+
+		@Override
+		public void localize( final double[] position )
+		{
+			System.arraycopy( pos, 0, position, 0, n );
+		}
+
+		@Override
+		public float getFloatPosition( final int d )
+		{
+			return ( float ) pos[ d ];
+		}
+
+		@Override
+		public double getDoublePosition( final int d )
+		{
+			return pos[ d ];
+		}
+
+		@Override
+		public T get()
+		{
+			return value;
+		}
+
+		@Override
+		public Entry copy()
+		{
+			return this;
+		}
+
+		@Override
+		public String toString()
+		{
+			return Arrays.toString( pos ) + " | " + value;
+		}
+	}
+
+	/**
+	 * A static kd-tree over a set of entries in the layout of
+	 * {@link FlatKDTree}. Slots of removed (or moved) entries stay in the tree
+	 * for splitting, but are skipped by searches.
+	 */
+	protected final class Bucket
+	{
+		final double[] positions;
+
+		final Entry[] entries;
+
+		int numDead;
+
+		@SuppressWarnings( { "unchecked", "rawtypes" } )
+		Bucket( final List< Entry > list )
+		{
+			final int m = list.size();
+			positions = new double[ m * n ];
+			for ( int i = 0; i < m; ++i )
+				System.arraycopy( list.get( i ).pos, 0, positions, i * n, n );
+			final int[] order = FlatKDTree.build( positions, n );
+			entries = ( Entry[] ) new DynamicKDTree.Entry[ m ];
+			for ( int i = 0; i < m; ++i )
+			{
+				final Entry entry = list.get( order[ i ] );
+				entries[ i ] = entry;
+				entry.bucket = this;
+				entry.slot = i;
+			}
+		}
+
+		int numSlots()
+		{
+			return entries.length;
+		}
+
+		/**
+		 * Add the live entries of this bucket to {@code list}.
+		 */
+		void collect( final List< Entry > list )
+		{
+			for ( int i = 0; i < entries.length; ++i )
+				if ( isLive( i ) )
+					list.add( entries[ i ] );
+		}
+
+		boolean isLive( final int slot )
+		{
+			final Entry entry = entries[ slot ];
+			return entry.bucket == this && entry.slot == slot;
+		}
+	}
+
+	/**
+	 * Create an empty tree.
+	 *
+	 * @param n
+	 *            number of dimensions
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public DynamicKDTree( final int n )
+	{
+		this.n = n;
+		this.size = 0;
+		this.buckets = ( Bucket[] ) new DynamicKDTree.Bucket[ 1 ];
+	}
+
+	/**
+	 * Insert a point.
+	 *
+	 * @param position
+	 *            position of the point
+	 * @param value
+	 *            value of the point
+	 * @return an entry representing the point in the tree
+	 */
+	public Entry insert( final RealLocalizable position, final T value )
+	{
+		assert position.numDimensions() == n;
+		final Entry entry = new Entry( position, value );
+		insert( entry );
+		return entry;
+	}
+
+	/**
+	 * Insert (an entry not currently in the tree) by merging it with buckets
+	 * {@code 0, 1, ...} into the first empty bucket that can hold all their
+	 * live entries.
+	 */
+	private void insert( final Entry entry )
+	{
+		final ArrayList< Entry > carry = new ArrayList< Entry >();
+		carry.add( entry );
+		for ( int i = 0;; ++i )
+		{
+			if ( i == buckets.length )
+				buckets = Arrays.copyOf( buckets, i + 1 );
+			final Bucket bucket = buckets[ i ];
+			if ( bucket == null && ( i >= 30 || carry.size() <= 1 << i ) )
+			{
+				buckets[ i ] = new Bucket( carry );
+				break;
+			}
+			if ( bucket != null )
+			{
+				bucket.collect( carry );
+				buckets[ i ] = null;
+			}
+		}
+		++size;
+	}
+
+	/**
+	 * Remove a point.
+	 *
+	 * @param entry
+	 *            the entry representing the point
+	 * @return {@code true} if the entry was in the tree
+	 */
+	public boolean remove( final Entry entry )
+	{
+		if ( !contains( entry ) )
+			return false;
+		final Bucket bucket = entry.bucket;
+		entry.bucket = null;
+		--size;
+		++bucket.numDead;
+		if ( 2 * bucket.numDead > bucket.numSlots() )
+			rebuild( bucket );
+		return true;
+	}
+
+	/**
+	 * Move a point to a new position.
+	 *
+	 * @param entry
+	 *            the entry representing the point
+	 * @param position
+	 *            new position of the point
+	 * @throws IllegalArgumentException
+	 *             if the entry is not in the tree
+	 */
+	public void move( final Entry entry, final RealLocalizable position )
+	{
+		if ( !contains( entry ) )
+			throw new IllegalArgumentException( "entry is not in the tree" );
+
+		final Bucket bucket = entry.bucket;
+		if ( isLeaf( bucket, entry.slot ) && staysInCell( bucket, entry.slot, position ) )
+		{
+			position.localize( entry.pos );
+			System.arraycopy( entry.pos, 0, bucket.positions, entry.slot * n, n );
+			return;
+		}
+
+		remove( entry );
+		position.localize( entry.pos );
+		insert( entry );
+	}
+
+	/**
+	 * Remove all points.
+	 */
+	public void clear()
+	{
+		for ( final Bucket bucket : buckets )
+			if ( bucket != null )
+				for ( int i = 0; i < bucket.numSlots(); ++i )
+					if ( bucket.isLive( i ) )
+						bucket.entries[ i ].bucket = null;
+		Arrays.fill( buckets, null );
+		size = 0;
+	}
+
+	/**
+	 * Whether the given entry is in this tree.
+	 */
+	public boolean contains( final Entry entry )
+	{
+		final Bucket bucket = entry.bucket;
+		if ( bucket == null )
+			return false;
+		for ( final Bucket b : buckets )
+			if ( b == bucket )
+				return true;
+		return false;
+	}
+
+	private void rebuild( final Bucket bucket )
+	{
+		for ( int i = 0; i < buckets.length; ++i )
+		{
+			if ( buckets[ i ] == bucket )
+			{
+				final ArrayList< Entry > live = new ArrayList< Entry >( bucket.numSlots() - bucket.numDead );
+				bucket.collect( live );
+				buckets[ i ] = live.isEmpty() ? null : new Bucket( live );
+				return;
+			}
+		}
+	}
+
+	private static boolean isLeaf( final DynamicKDTree< ? >.Bucket bucket, final int slot )
+	{
+		return FlatKDTree.left( slot ) >= bucket.numSlots();
+	}
+
+	/**
+	 * Check whether {@code position} satisfies the split constraints of all
+	 * ancestors of node {@code slot} in {@code bucket}.
+	 */
+	private boolean staysInCell( final Bucket bucket, final int slot, final RealLocalizable position )
+	{
+		for ( int child = slot; child > 0; )
+		{
+			final int parent = ( child - 1 ) / 2;
+			final int d = ( 31 - Integer.numberOfLeadingZeros( parent + 1 ) ) % n;
+			final double split = bucket.positions[ parent * n + d ];
+			final double x = position.getDoublePosition( d );
+			if ( child == FlatKDTree.left( parent ) ? x > split : x < split )
+				return false;
+			child = parent;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the number of points in the tree.
+	 */
+	public long size()
+	{
+		return size;
+	}
+
+	@Override
+	public int numDimensions()
+	{
+		return n;
+	}
+
+	/**
+	 * Get the number of buckets (some of which may be empty).
+	 */
+	public int numBuckets()
+	{
+		return buckets.length;
+	}
+
+	/**
+	 * Get the number of nodes (including dead ones) of bucket {@code b}, or 0
+	 * if the bucket is empty.
+	 */
+	public int getBucketSize( final int b )
+	{
+		final Bucket bucket = buckets[ b ];
+		return bucket == null ? 0 : bucket.numSlots();
+	}
+
+	/**
+	 * Get the interleaved node coordinates of bucket {@code b} in the layout
+	 * of {@link FlatKDTree#getFlatPositions()}. The array is the tree's
+	 * storage and must not be modified.
+	 */
+	public double[] getBucketPositions( final int b )
+	{
+		final Bucket bucket = buckets[ b ];
+		return bucket == null ? null : bucket.positions;
+	}
+
+	/**
+	 * Get the entry at node {@code i} of bucket {@code b}, or {@code null} if
+	 * that node is dead.
+	 */
+	public Entry getBucketEntry( final int b, final int i )
+	{
+		final Bucket bucket = buckets[ b ];
+		return bucket.isLive( i ) ? bucket.entries[ i ] : null;
+	}
+}
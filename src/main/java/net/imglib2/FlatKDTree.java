@@ -0,0 +1,688 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * KDTree to access values at RealLocalizable positions, with the tree
+ * structure stored in flat arrays instead of per-node objects.
+ *
+ * <p>
+ * The tree is left-balanced (complete) and laid out implicitly in heap order:
+ * the root is node 0, the children of node {@code i} are {@code 2i+1} and
+ * {@code 2i+2}, and nodes at depth {@code l} split along dimension
+ * {@code l % n}. Node coordinates are stored interleaved in a single
+ * {@code double[]} (coordinate {@code d} of node {@code i} is at
+ * {@code n*i+d}), and values are stored in a parallel list.
+ * </p>
+ *
+ * <p>
+ * Compared to {@link KDTree}, which allocates a {@link KDTreeNode} (holding a
+ * position array and child references) for every point, a tree constructed
+ * from lists needs {@code 8n+4} bytes per point plus the value references,
+ * and the search traversal does not chase pointers. A tree constructed from an
+ * {@link IterableRealInterval} additionally keeps one {@link RealCursor} per
+ * point to access its value. See
+ * {@link net.imglib2.neighborsearch.NearestNeighborSearchOnFlatKDTree},
+ * {@link net.imglib2.neighborsearch.KNearestNeighborSearchOnFlatKDTree}, and
+ * {@link net.imglib2.neighborsearch.RadiusNeighborSearchOnFlatKDTree}.
+ * </p>
+ *
+ * @param <T>
+ *            type of values stored in the tree.
+ */
+public class FlatKDTree< T > implements EuclideanSpace, IterableRealInterval< T >
+{
+	/**
+	 * the number of dimensions.
+	 */
+	final protected int n;
+
+	/**
+	 * the number of nodes in the tree.
+	 */
+	final protected int size;
+
+	/**
+	 * node coordinates, interleaved in heap order.
+	 */
+	final protected double[] positions;
+
+	/**
+	 * node values in heap order.
+	 */
+	final protected List< T > values;
+
+	/**
+	 * the index in the input (list or iteration order) of each node.
+	 */
+	final protected int[] inputIndices;
+
+	/**
+	 * minimum of each dimension.
+	 */
+	final protected double[] min;
+
+	/**
+	 * maximum of each dimension.
+	 */
+	final protected double[] max;
+
+	/**
+	 * Construct a FlatKDTree from the elements in the given list.
+	 *
+	 * <p>
+	 * Note that the constructor can be called with the same list for both
+	 * {@code values == positions} if {@code T extends RealLocalizable}.
+	 * </p>
+	 *
+	 * @param values
+	 *            a list of values
+	 * @param positions
+	 *            a list of positions corresponding to the values
+	 */
+	public < L extends RealLocalizable > FlatKDTree( final List< T > values, final List< L > positions )
+	{
+		assert values.size() == positions.size();
+
+		this.n = positions.get( 0 ).numDimensions();
+		this.size = positions.size();
+
+		final double[] points = KDTreePartition.coordinates( positions, n );
+
+		final int[] order = build( points, n );
+
+		this.positions = points;
+		this.inputIndices = order;
+		final ArrayList< T > list = new ArrayList< T >( size );
+		for ( int i = 0; i < size; ++i )
+			list.add( values.get( order[ i ] ) );
+		this.values = list;
+
+		this.min = new double[ n ];
+		this.max = new double[ n ];
+		computeMinMax();
+	}
+
+	/**
+	 * Construct a FlatKDTree from the elements of the given
+	 * {@link IterableRealInterval}.
+	 *
+	 * <p>
+	 * Values are accessed through a copy of the cursor at each element, as in
+	 * {@link KDTree}, so this keeps one {@link RealCursor} object per point in
+	 * addition to the flat coordinate array.
+	 * </p>
+	 *
+	 * @param interval
+	 *            elements in the tree are obtained by iterating this
+	 */
+	public FlatKDTree( final IterableRealInterval< T > interval )
+	{
+		this.n = interval.numDimensions();
+		KDTreePartition.checkSize( interval.size(), n );
+		this.size = ( int ) interval.size();
+
+		final double[] points = new double[ size * n ];
+		final ArrayList< RealCursor< T > > cursors = new ArrayList< RealCursor< T > >( size );
+		final RealCursor< T > cursor = interval.localizingCursor();
+		for ( int o = 0; cursor.hasNext(); )
+		{
+			cursor.fwd();
+			cursors.add( cursor.copyCursor() );
+			for ( int d = 0; d < n; ++d )
+				points[ o++ ] = cursor.getDoublePosition( d );
+		}
+
+		final int[] order = build( points, n );
+
+		this.positions = points;
+		this.inputIndices = order;
+		final ArrayList< RealCursor< T > > samplers = new ArrayList< RealCursor< T > >( size );
+		for ( int i = 0; i < size; ++i )
+			samplers.add( cursors.get( order[ i ] ) );
+		this.values = new SamplerList< T >( samplers );
+
+		this.min = new double[ n ];
+		interval.realMin( this.min );
+		this.max = new double[ n ];
+		interval.realMax( this.max );
+	}
+
+	/**
+	 * A read-only list view of the values of a list of {@link Sampler}s.
+	 */
+	private static final class SamplerList< T > extends AbstractList< T >
+	{
+		private final List< ? extends Sampler< T > > samplers;
+
+		SamplerList( final List< ? extends Sampler< T > > samplers )
+		{
+			this.samplers = samplers;
+		}
+
+		@Override
+		public T get( final int index )
+		{
+			return samplers.get( index ).get();
+		}
+
+		@Override
+		public int size()
+		{
+			return samplers.size();
+		}
+	}
+
+	private void computeMinMax()
+	{
+		for ( int d = 0; d < n; ++d )
+		{
+			min[ d ] = Double.MAX_VALUE;
+			max[ d ] = -Double.MAX_VALUE;
+		}
+		for ( int o = 0; o < positions.length; )
+		{
+			for ( int d = 0; d < n; ++d, ++o )
+			{
+				final double x = positions[ o ];
+				if ( x < min[ d ] )
+					min[ d ] = x;
+				if ( x > max[ d ] )
+					max[ d ] = x;
+			}
+		}
+	}
+
+	/**
+	 * Rearrange {@code points} (interleaved coordinates of {@code n}-dimensional
+	 * points) into left-balanced kd-tree heap order.
+	 *
+	 * @return the permutation that was applied, i.e., the original index of
+	 *         the point that is now node {@code i} is at index {@code i}.
+	 */
+	protected static int[] build( final double[] points, final int n )
+	{
+		final int size = points.length / n;
+		final int[] permutation = KDTreePartition.identity( size );
+
+		// arrange points such that the sublist for each subtree is split at its
+		// root, then gather the roots into heap order.
+		final int[] order = new int[ size ];
+		new MakeNodeTask( points, n, permutation, 0, size, 0, 0, order ).invoke();
+
+		final double[] tmp = points.clone();
+		for ( int i = 0; i < size; ++i )
+		{
+			final int k = order[ i ];
+			System.arraycopy( tmp, k * n, points, i * n, n );
+			order[ i ] = permutation[ k ];
+		}
+		return order;
+	}
+
+	/**
+	 * Recursively split the sublist of points between indices {@code i}
+	 * (inclusive) and {@code j} (exclusive) along dimension {@code d}, such
+	 * that the point which becomes the root of the subtree with heap index
+	 * {@code node} is at its final (left-balanced) position. The sublist index
+	 * of that point is stored in {@code order[node]}. Subtrees larger than
+	 * {@link KDTreePartition#PARALLEL_BUILD_CUTOFF} are split in parallel.
+	 */
+	private static void makeNode( final double[] points, final int n, final int[] permutation, final int i, final int j, final int d, final int node, final int[] order )
+	{
+		final int m = j - i;
+		if ( m <= 0 )
+			return;
+		final int k = i + leftSubtreeSize( m );
+		if ( m > 1 )
+			KDTreePartition.kthElement( points, n, permutation, i, j - 1, k, d );
+		order[ node ] = k;
+
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		if ( m > KDTreePartition.PARALLEL_BUILD_CUTOFF )
+		{
+			final ForkJoinTask< ? > left = new MakeNodeTask( points, n, permutation, i, k, dChild, 2 * node + 1, order ).fork();
+			makeNode( points, n, permutation, k + 1, j, dChild, 2 * node + 2, order );
+			left.join();
+		}
+		else
+		{
+			makeNode( points, n, permutation, i, k, dChild, 2 * node + 1, order );
+			makeNode( points, n, permutation, k + 1, j, dChild, 2 * node + 2, order );
+		}
+	}
+
+	private static final class MakeNodeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final double[] points;
+
+		private final int n;
+
+		private final int[] permutation;
+
+		private final int i;
+
+		private final int j;
+
+		private final int d;
+
+		private final int node;
+
+		private final int[] order;
+
+		MakeNodeTask( final double[] points, final int n, final int[] permutation, final int i, final int j, final int d, final int node, final int[] order )
+		{
+			this.points = points;
+			this.n = n;
+			this.permutation = permutation;
+			this.i = i;
+			this.j = j;
+			this.d = d;
+			this.node = node;
+			this.order = order;
+		}
+
+		@Override
+		protected void compute()
+		{
+			makeNode( points, n, permutation, i, j, d, node, order );
+		}
+	}
+
+	/**
+	 * Get the number of nodes in the left subtree of a left-balanced binary
+	 * tree with {@code m} nodes.
+	 */
+	static int leftSubtreeSize( final int m )
+	{
+		if ( m <= 1 )
+			return 0;
+		final int p = Integer.highestOneBit( m );
+		final int half = p >> 1;
+		return half - 1 + Math.min( m - p + 1, half );
+	}
+
+	/**
+	 * Get the interleaved node coordinates in heap order. Coordinate {@code d}
+	 * of node {@code i} is at index {@code n*i+d}. The array is the tree's
+	 * storage and must not be modified.
+	 *
+	 * @return node coordinates.
+	 */
+	public double[] getFlatPositions()
+	{
+		return positions;
+	}
+
+	/**
+	 * Get the value of node {@code i}.
+	 */
+	public T getValue( final int i )
+	{
+		return values.get( i );
+	}
+
+	/**
+	 * Get the index of node {@code i} in the input the tree was constructed
+	 * from, i.e., the index in the values/positions lists, or the iteration
+	 * index in the {@link IterableRealInterval}.
+	 */
+	public int getInputIndex( final int i )
+	{
+		return inputIndices[ i ];
+	}
+
+	/**
+	 * Get coordinate {@code d} of node {@code i}.
+	 */
+	public double getDoublePosition( final int i, final int d )
+	{
+		return positions[ i * n + d ];
+	}
+
+	/**
+	 * Get the dimension along which node {@code i} splits space.
+	 */
+	public int getSplitDimension( final int i )
+	{
+		return ( 31 - Integer.numberOfLeadingZeros( i + 1 ) ) % n;
+	}
+
+	/**
+	 * Get the left child of node {@code i}, or a value {@code >= size()} if
+	 * there is none.
+	 */
+	public static int left( final int i )
+	{
+		return 2 * i + 1;
+	}
+
+	/**
+	 * Get the right child of node {@code i}, or a value {@code >= size()} if
+	 * there is none.
+	 */
+	public static int right( final int i )
+	{
+		return 2 * i + 2;
+	}
+
+	/**
+	 * Get the square Euclidean distance between node {@code i} and the
+	 * position {@code p}.
+	 */
+	public double squDistance( final int i, final double[] p )
+	{
+		double sum = 0;
+		final int o = i * n;
+		for ( int d = 0; d < n; ++d )
+		{
+			final double diff = positions[ o + d ] - p[ d ];
+			sum += diff * diff;
+		}
+		return sum;
+	}
+
+	/**
+	 * Get a {@link RealLocalizable} {@link Sampler} for node {@code i}.
+	 */
+	public Node getNode( final int i )
+	{
+		return new Node( i );
+	}
+
+	/**
+	 * Position and value of a node.
+	 */
+	public final class Node implements RealLocalizable, Sampler< T >
+	{
+		private final int index;
+
+		private Node( final int index )
+		{
+			this.index = index;
+		}
+
+		/**
+		 * Get the heap index of this node in the tree.
+		 */
+		public int getIndex()
+		{
+			return index;
+		}
+
+		@Override
+		public int numDimensions()
+		{
+			return n;
+		}
+
+		@Override
+		public void localize( final float[] position )
+		{
+			final int o = index * n;
+			for ( int d = 0; d < n; ++d )
+				position[ d ] = ( float ) positions[ o + d ];
+		}
+
+		@Override
+		public void localize( final double[] position )
+		{
+			System.arraycopy( positions, index * n, position, 0, n );
+		}
+
+		@Override
+		public float getFloatPosition( final int d )
+		{
+			return ( float ) positions[ index * n + d ];
+		}
+
+		@Override
+		public double getDoublePosition( final int d )
+		{
+			return positions[ index * n + d ];
+		}
+
+		@Override
+		public T get()
+		{
+			return values.get( index );
+		}
+
+		@Override
+		public Node copy()
+		{
+			return this;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "node " + index + " | " + values.get( index );
+		}
+	}
+
+	@Override
+	public int numDimensions()
+	{
+		return n;
+	}
+
+	@Override
+	public double realMin( final int d )
+	{
+		return min[ d ];
+	}
+
+	@Override
+	public void realMin( final double[] m )
+	{
+		for ( int d = 0; d < n; ++d )
+			m[ d ] = min[ d ];
+	}
+
+	@Override
+	public void realMin( final RealPositionable m )
+	{
+		m.setPosition( min );
+	}
+
+	@Override
+	public double realMax( final int d )
+	{
+		return max[ d ];
+	}
+
+	@Override
+	public void realMax( final double[] m )
+	{
+		for ( int d = 0; d < n; ++d )
+			m[ d ] = max[ d ];
+	}
+
+	@Override
+	public void realMax( final RealPositionable m )
+	{
+		m.setPosition( max );
+	}
+
+	@Override
+	public long size()
+	{
+		return size;
+	}
+
+	@Override
+	public Object iterationOrder()
+	{
+		return this; // iteration order is only compatible with ourselves
+	}
+
+	/**
+	 * Iterates the nodes in heap order.
+	 */
+	public final class FlatKDTreeCursor implements RealCursor< T >
+	{
+		private int index;
+
+		public FlatKDTreeCursor()
+		{
+			reset();
+		}
+
+		private FlatKDTreeCursor( final FlatKDTreeCursor c )
+		{
+			this.index = c.index;
+		}
+
+		@Override
+		public void localize( final float[] position )
+		{
+			final int o = index * n;
+			for ( int d = 0; d < n; ++d )
+				position[ d ] = ( float ) positions[ o + d ];
+		}
+
+		@Override
+		public void localize( final double[] position )
+		{
+			System.arraycopy( positions, index * n, position, 0, n );
+		}
+
+		@Override
+		public float getFloatPosition( final int d )
+		{
+			return ( float ) positions[ index * n + d ];
+		}
+
+		@Override
+		public double getDoublePosition( final int d )
+		{
+			return positions[ index * n + d ];
+		}
+
+		@Override
+		public int numDimensions()
+		{
+			return n;
+		}
+
+		@Override
+		public T get()
+		{
+			return values.get( index );
+		}
+
+		@Override
+		public FlatKDTreeCursor copy()
+		{
+			return new FlatKDTreeCursor( this );
+		}
+
+		@Override
+		public void jumpFwd( final long steps )
+		{
+			index += ( int ) steps;
+		}
+
+		@Override
+		public void fwd()
+		{
+			++index;
+		}
+
+		@Override
+		public void reset()
+		{
+			index = -1;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return index < size - 1;
+		}
+
+		@Override
+		public T next()
+		{
+			fwd();
+			return get();
+		}
+
+		@Override
+		public void remove()
+		{
+			// NB: no action.
+		}
+
+		@Override
+		public FlatKDTreeCursor copyCursor()
+		{
+			return copy();
+		}
+	}
+
+	@Override
+	public FlatKDTreeCursor iterator()
+	{
+		return new FlatKDTreeCursor();
+	}
+
+	@Override
+	public FlatKDTreeCursor cursor()
+	{
+		return new FlatKDTreeCursor();
+	}
+
+	@Override
+	public FlatKDTreeCursor localizingCursor()
+	{
+		return new FlatKDTreeCursor();
+	}
+
+	@Override
+	public T firstElement()
+	{
+		return values.get( 0 );
+	}
+}
@@ -36,9 +36,12 @@ package net.imglib2;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import net.imglib2.util.KthElement;
 
@@ -99,6 +102,24 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 			this.value = value;
 		}
 
+		/**
+		 * @param value
+		 *            reference to the node's value
+		 * @param position
+		 *            coordinates of this node (used directly, not copied)
+		 * @param dimension
+		 *            dimension along which this node divides the space
+		 * @param left
+		 *            left child node
+		 * @param right
+		 *            right child node
+		 */
+		public ValueNode( final T value, final double[] position, final int dimension, final ValueNode< T > left, final ValueNode< T > right )
+		{
+			super( position, dimension, left, right );
+			this.value = value;
+		}
+
 		protected ValueNode( final ValueNode< T > node )
 		{
 			super( node );
@@ -149,6 +170,24 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 			this.sampler = sampler;
 		}
 
+		/**
+		 * @param sampler
+		 *            a sampler providing the node's value
+		 * @param position
+		 *            coordinates of this node (used directly, not copied)
+		 * @param dimension
+		 *            dimension along which this node divides the space
+		 * @param left
+		 *            left child node
+		 * @param right
+		 *            right child node
+		 */
+		public SamplerNode( final Sampler< T > sampler, final double[] position, final int dimension, final SamplerNode< T > left, final SamplerNode< T > right )
+		{
+			super( position, dimension, left, right );
+			this.sampler = sampler;
+		}
+
 		protected SamplerNode( final SamplerNode< T > node )
 		{
 			super( node );
@@ -182,6 +221,11 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 	 * {@code values == positions} if {@code T extends RealLocalizable}.
 	 * </p>
 	 *
+	 * <p>
+	 * Large trees are built in parallel, using the {@link ForkJoinPool} of
+	 * the calling task or the common pool.
+	 * </p>
+	 *
 	 * @param values
 	 *            a list of values
 	 * @param positions
@@ -197,6 +241,7 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 		// test that dimensionality is preserved
 		assert ( verifyDimensions( positions, n ) );
 
+		final double[] points = KDTreePartition.coordinates( positions, n );
 		this.min = new double[ n ];
 		this.max = new double[ n ];
 		for ( int d = 0; d < n; ++d )
@@ -204,12 +249,11 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 			min[ d ] = Double.MAX_VALUE;
 			max[ d ] = -Double.MAX_VALUE;
 		}
-		for ( final L position : positions )
+		for ( int o = 0; o < points.length; )
 		{
-			for ( int d = 0; d < n; ++d )
+			for ( int d = 0; d < n; ++d, ++o )
 			{
-				final double x = position.getDoublePosition( d );
-
+				final double x = points[ o ];
 				if ( x < min[ d ] )
 					min[ d ] = x;
 				if ( x > max[ d ] )
@@ -217,24 +261,9 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 			}
 		}
 
-		if ( values == positions )
-		{
-			if ( positions instanceof java.util.RandomAccess )
-				root = makeNode( positions, 0, positions.size() - 1, 0 );
-			else
-				root = makeNode( positions.listIterator(), positions.listIterator( positions.size() ), 0 );
-		}
-		else
-		{
-			final int[] permutation = new int[ positions.size() ];
-			for ( int k = 0; k < permutation.length; ++k )
-				permutation[ k ] = k;
-
-			if ( positions instanceof java.util.RandomAccess )
-				root = makeNode( positions, 0, positions.size() - 1, 0, values, permutation );
-			else
-				root = makeNode( positions.listIterator(), positions.listIterator( positions.size() ), 0, values, permutation );
-		}
+		final List< T > valueList = ( values instanceof java.util.RandomAccess ) ? values : new ArrayList< T >( values );
+		final int[] permutation = KDTreePartition.identity( ( int ) size );
+		root = new MakeNodeTask< ValueNode< T > >( points, n, permutation, ( k, position, d, left, right ) -> new ValueNode< T >( valueList.get( k ), position, d, left, right ) ).invoke();
 	}
 
 	/**
@@ -252,14 +281,105 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 		interval.realMin( this.min );
 		this.max = new double[ n ];
 		interval.realMax( this.max );
-		final ArrayList< RealCursor< T > > values = new ArrayList< RealCursor< T > >( ( int ) interval.size() );
+		KDTreePartition.checkSize( size, n );
+		final double[] points = new double[ ( int ) size * n ];
+		final ArrayList< RealCursor< T > > values = new ArrayList< RealCursor< T > >( ( int ) size );
 		final RealCursor< T > cursor = interval.localizingCursor();
-		while ( cursor.hasNext() )
+		for ( int o = 0; cursor.hasNext(); )
 		{
-			cursor.next();
+			cursor.fwd();
 			values.add( cursor.copyCursor() );
+			for ( int d = 0; d < n; ++d )
+				points[ o++ ] = cursor.getDoublePosition( d );
+		}
+		final int[] permutation = KDTreePartition.identity( ( int ) size );
+		root = new MakeNodeTask< SamplerNode< T > >( points, n, permutation, ( k, position, d, left, right ) -> new SamplerNode< T >( values.get( k ), position, d, left, right ) ).invoke();
+	}
+
+	/**
+	 * Creates a node from the index of its position in the original input,
+	 * its coordinates, split dimension, and children.
+	 */
+	private interface NodeFactory< N >
+	{
+		N create( int index, double[] position, int dimension, N left, N right );
+	}
+
+	/**
+	 * Builds the (sub-)tree over the points between indices {@code i} and
+	 * {@code j} (inclusive) of the interleaved {@code points} array, by
+	 * recursively splitting at the median element with respect to coordinates
+	 * in dimension {@code d}. The left and right partitions are processed in
+	 * parallel if they are larger than
+	 * {@link KDTreePartition#PARALLEL_BUILD_CUTOFF}.
+	 */
+	private static final class MakeNodeTask< N > extends RecursiveTask< N >
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final double[] points;
+
+		private final int n;
+
+		private final int[] permutation;
+
+		private final NodeFactory< N > factory;
+
+		private final int i;
+
+		private final int j;
+
+		private final int d;
+
+		MakeNodeTask( final double[] points, final int n, final int[] permutation, final NodeFactory< N > factory )
+		{
+			this( points, n, permutation, factory, 0, permutation.length - 1, 0 );
+		}
+
+		private MakeNodeTask( final double[] points, final int n, final int[] permutation, final NodeFactory< N > factory, final int i, final int j, final int d )
+		{
+			this.points = points;
+			this.n = n;
+			this.permutation = permutation;
+			this.factory = factory;
+			this.i = i;
+			this.j = j;
+			this.d = d;
+		}
+
+		@Override
+		protected N compute()
+		{
+			return makeNode( i, j, d );
+		}
+
+		private N makeNode( final int i, final int j, final int d )
+		{
+			if ( j < i )
+				return null;
+
+			final int k = i + ( j - i ) / 2;
+			if ( j > i )
+				KDTreePartition.kthElement( points, n, permutation, i, j, k, d );
+
+			final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+			final N left;
+			final N right;
+			if ( j - i > KDTreePartition.PARALLEL_BUILD_CUTOFF )
+			{
+				final MakeNodeTask< N > leftTask = new MakeNodeTask< N >( points, n, permutation, factory, i, k - 1, dChild );
+				leftTask.fork();
+				right = makeNode( k + 1, j, dChild );
+				left = leftTask.join();
+			}
+			else
+			{
+				left = makeNode( i, k - 1, dChild );
+				right = makeNode( k + 1, j, dChild );
+			}
+			final double[] position = Arrays.copyOfRange( points, k * n, k * n + n );
+			return factory.create( permutation[ k ], position, d, left, right );
 		}
-		root = makeSamplerNode( values, 0, values.size() - 1, 0 );
 	}
 
 	/**
@@ -317,7 +437,11 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 	 *            the index of the values element at index k is permutation[k]
 	 * @return a new node containing the subtree of the given sublist of
 	 *         positions.
+	 * @deprecated Not used by the constructors, which build the tree from
+	 *             primitive coordinate arrays. Overriding this method has no
+	 *             effect on how a {@link KDTree} is constructed.
 	 */
+	@Deprecated
 	protected < L extends RealLocalizable > ValueNode< T > makeNode( final List< L > positions, final int i, final int j, final int d, final List< T > values, final int[] permutation )
 	{
 		if ( j > i )
@@ -358,7 +482,11 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 	 *            the index of the values element at index k is permutation[k]
 	 * @return a new node containing the subtree of the given sublist of
 	 *         positions.
+	 * @deprecated Not used by the constructors, which build the tree from
+	 *             primitive coordinate arrays. Overriding this method has no
+	 *             effect on how a {@link KDTree} is constructed.
 	 */
+	@Deprecated
 	protected < L extends RealLocalizable > ValueNode< T > makeNode( final ListIterator< L > first, final ListIterator< L > last, final int d, final List< T > values, final int[] permutation )
 	{
 		final int i = first.nextIndex();
@@ -409,7 +537,11 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 	 *            end index of sublist to process
 	 * @param d
 	 *            dimension along which to split the sublist
+	 * @deprecated Not used by the constructors, which build the tree from
+	 *             primitive coordinate arrays. Overriding this method has no
+	 *             effect on how a {@link KDTree} is constructed.
 	 */
+	@Deprecated
 	@SuppressWarnings( "unchecked" )
 	protected < L extends RealLocalizable > ValueNode< T > makeNode( final List< L > elements, final int i, final int j, final int d )
 	{
@@ -442,7 +574,11 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 	 *            last element of the sublist to process
 	 * @param d
 	 *            dimension along which to split the sublist
+	 * @deprecated Not used by the constructors, which build the tree from
+	 *             primitive coordinate arrays. Overriding this method has no
+	 *             effect on how a {@link KDTree} is constructed.
 	 */
+	@Deprecated
 	@SuppressWarnings( "unchecked" )
 	protected < L extends RealLocalizable > ValueNode< T > makeNode( final ListIterator< L > first, final ListIterator< L > last, final int d )
 	{
@@ -501,7 +637,11 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 	 *            dimension along which to split the sublist
 	 * @return a new node containing the subtree of the given sublist of
 	 *         elements
+	 * @deprecated Not used by the constructors, which build the tree from
+	 *             primitive coordinate arrays. Overriding this method has no
+	 *             effect on how a {@link KDTree} is constructed.
 	 */
+	@Deprecated
 	protected SamplerNode< T > makeSamplerNode( final List< RealCursor< T > > elements, final int i, final int j, final int d )
 	{
 		if ( j > i )
@@ -95,6 +95,26 @@ public abstract class KDTreeNode< T > implements RealLocalizable, Sampler< T >
 		this.right = right;
 	}
 
+	/**
+	 * @param position
+	 *            coordinates of this node. The array is used directly, not
+	 *            copied.
+	 * @param dimension
+	 *            dimension along which this node divides the space
+	 * @param left
+	 *            left child node
+	 * @param right
+	 *            right child node
+	 */
+	public KDTreeNode( final double[] position, final int dimension, final KDTreeNode< T > left, final KDTreeNode< T > right )
+	{
+		this.n = position.length;
+		this.pos = position;
+		this.splitDimension = dimension;
+		this.left = left;
+		this.right = right;
+	}
+
 	protected KDTreeNode( final KDTreeNode< T > node )
 	{
 		this.n = node.n;
@@ -0,0 +1,143 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2;
+
+import java.util.List;
+
+/**
+ * Primitive-array partitioning used to build {@link KDTree}s and
+ * {@link FlatKDTree}s. Point coordinates are stored interleaved in a
+ * {@code double[]}, coordinate {@code d} of point {@code i} is at
+ * {@code n*i+d}.
+ */
+final class KDTreePartition
+{
+	/**
+	 * Subtrees with more than this many points are built in parallel.
+	 */
+	static final int PARALLEL_BUILD_CUTOFF = 1 << 14;
+
+	private KDTreePartition()
+	{}
+
+	/**
+	 * Check that coordinates of {@code size} {@code n}-dimensional points fit
+	 * into a single array.
+	 */
+	static void checkSize( final long size, final int n )
+	{
+		if ( size * n > Integer.MAX_VALUE - 8 )
+			throw new IllegalArgumentException( "too many points (" + size + ") to store " + n + "-dimensional coordinates in a single array" );
+	}
+
+	/**
+	 * Copy the coordinates of {@code positions} into an interleaved array.
+	 */
+	static double[] coordinates( final List< ? extends RealLocalizable > positions, final int n )
+	{
+		checkSize( positions.size(), n );
+		final double[] points = new double[ positions.size() * n ];
+		int o = 0;
+		for ( final RealLocalizable position : positions )
+		{
+			assert position.numDimensions() == n;
+			for ( int d = 0; d < n; ++d )
+				points[ o++ ] = position.getDoublePosition( d );
+		}
+		return points;
+	}
+
+	/**
+	 * Create the identity permutation of the given size.
+	 */
+	static int[] identity( final int size )
+	{
+		final int[] permutation = new int[ size ];
+		for ( int i = 0; i < size; ++i )
+			permutation[ i ] = i;
+		return permutation;
+	}
+
+	/**
+	 * Partially sort the sublist of points between indices {@code i} and
+	 * {@code j} (inclusive) by coordinate {@code d}, such that the k-th
+	 * smallest point is at index {@code k}, points before {@code k} are not
+	 * larger, and points after {@code k} are not smaller. Coordinates and
+	 * {@code permutation} are swapped in sync.
+	 */
+	static void kthElement( final double[] points, final int n, final int[] permutation, int i, int j, final int k, final int d )
+	{
+		while ( j > i )
+		{
+			final double pivot = points[ ( i + ( j - i ) / 2 ) * n + d ];
+			int l = i;
+			int r = j;
+			while ( l <= r )
+			{
+				while ( points[ l * n + d ] < pivot )
+					++l;
+				while ( points[ r * n + d ] > pivot )
+					--r;
+				if ( l <= r )
+				{
+					swap( points, n, permutation, l, r );
+					++l;
+					--r;
+				}
+			}
+			if ( k <= r )
+				j = r;
+			else if ( k >= l )
+				i = l;
+			else
+				return;
+		}
+	}
+
+	private static void swap( final double[] points, final int n, final int[] permutation, final int a, final int b )
+	{
+		final int oa = a * n;
+		final int ob = b * n;
+		for ( int d = 0; d < n; ++d )
+		{
+			final double tmp = points[ oa + d ];
+			points[ oa + d ] = points[ ob + d ];
+			points[ ob + d ] = tmp;
+		}
+		final int tmp = permutation[ a ];
+		permutation[ a ] = permutation[ b ];
+		permutation[ b ] = tmp;
+	}
+}
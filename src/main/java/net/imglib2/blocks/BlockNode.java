@@ -0,0 +1,499 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.ComposedConverter;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.read.ConvertedRandomAccessible;
+import net.imglib2.converter.read.ConvertedRandomAccessibleInterval;
+import net.imglib2.img.WrappedImg;
+import net.imglib2.outofbounds.OutOfBoundsConstantValueFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.transform.integer.Mixed;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.ExtendedRandomAccessibleInterval;
+import net.imglib2.view.IntervalView;
+import net.imglib2.view.TransformedRandomAccessible;
+
+/**
+ * One stage of an analyzed view chain that copies blocks of
+ * {@link RealType} values into a {@link BlockTarget}.
+ * <p>
+ * {@link #of(RandomAccessible)} walks a chain of views down to its source.
+ * Integer transforms ({@link Mixed}) only remap the position and strides of the
+ * block in the target. Out-of-bounds extensions copy the part of the block
+ * inside their source and fill the rest row by row, with a constant value or
+ * through a {@link RandomAccess}. Converters are applied pixel by pixel to a
+ * block fetched from their source. Native images are copied run by run from
+ * their primitive storage arrays. Anything else is read through a
+ * {@link RandomAccess}.
+ */
+abstract class BlockNode
+{
+	/**
+	 * Copy the values in {@code interval} (in the coordinates of this node)
+	 * into {@code target}. The value at {@code interval.min} is written to
+	 * index {@code offset}, and moving one pixel along dimension {@code d}
+	 * moves {@code strides[d]} in the target.
+	 */
+	abstract void copy( Interval interval, BlockTarget target, int offset, int[] strides );
+
+	/**
+	 * Analyze the view chain ending in {@code source}.
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	static BlockNode of( final RandomAccessible< ? > source )
+	{
+		if ( source instanceof IntervalView )
+			return of( ( ( IntervalView< ? > ) source ).getSource() );
+		else if ( source instanceof WrappedImg )
+			return of( ( ( WrappedImg< ? > ) source ).getImg() );
+		else if ( source instanceof TransformedRandomAccessible )
+		{
+			final TransformedRandomAccessible< ? > transformed = ( TransformedRandomAccessible< ? > ) source;
+			if ( transformed.getTransformToSource() instanceof Mixed )
+			{
+				final Mixed t = ( Mixed ) transformed.getTransformToSource();
+				if ( TransformNode.isSupported( t ) )
+					return new TransformNode( t, of( transformed.getSource() ) );
+			}
+		}
+		else if ( source instanceof ExtendedRandomAccessibleInterval )
+		{
+			final ExtendedRandomAccessibleInterval< ?, ? > extended = ( ExtendedRandomAccessibleInterval< ?, ? > ) source;
+			return new ExtensionNode( extended, of( extended.getSource() ) );
+		}
+		else if ( source instanceof ConvertedRandomAccessible )
+		{
+			final ConvertedRandomAccessible converted = ( ConvertedRandomAccessible ) source;
+			if ( converted.getDestinationType() instanceof RealType )
+				return new ConverterNode( source, converted.getSource(), converted.getConverter(), ( RealType ) converted.getDestinationType() );
+		}
+		else if ( source instanceof ConvertedRandomAccessibleInterval )
+		{
+			final ConvertedRandomAccessibleInterval converted = ( ConvertedRandomAccessibleInterval ) source;
+			if ( converted.getDestinationType() instanceof RealType )
+				return new ConverterNode( source, converted.getSource(), converted.getConverter(), ( RealType ) converted.getDestinationType() );
+		}
+		else if ( NativeImgRuns.nativeRealType( source ) != null )
+			return new NativeImgNode( source );
+		return new RandomAccessNode( source );
+	}
+
+	/**
+	 * @return strides of a block of the size of {@code interval} stored in
+	 *         flat order.
+	 */
+	static int[] flatStrides( final Interval interval )
+	{
+		final int n = interval.numDimensions();
+		final int[] strides = new int[ n ];
+		int stride = 1;
+		for ( int d = 0; d < n; ++d )
+		{
+			strides[ d ] = stride;
+			stride *= ( int ) interval.dimension( d );
+		}
+		return strides;
+	}
+
+	/**
+	 * @return index in the target of {@code position} in {@code interval}.
+	 */
+	static int index( final long[] position, final Interval interval, final int offset, final int[] strides )
+	{
+		int index = offset;
+		for ( int d = 0; d < position.length; ++d )
+			index += ( int ) ( position[ d ] - interval.min( d ) ) * strides[ d ];
+		return index;
+	}
+
+	/**
+	 * Native image with primitive storage.
+	 */
+	static class NativeImgNode extends BlockNode
+	{
+		private final RandomAccessible< ? > img;
+
+		private final NativeRealType type;
+
+		NativeImgNode( final RandomAccessible< ? > img )
+		{
+			this.img = img;
+			this.type = NativeImgRuns.nativeRealType( img );
+		}
+
+		@Override
+		void copy( final Interval interval, final BlockTarget target, final int offset, final int[] strides )
+		{
+			final NativeImgRuns runs = NativeImgRuns.of( img, interval );
+			if ( runs == null )
+			{
+				new RandomAccessNode( img ).copy( interval, target, offset, strides );
+				return;
+			}
+
+			final int n = interval.numDimensions();
+			final long[] position = new long[ n ];
+			interval.min( position );
+			final long min0 = position[ 0 ];
+			final int rowLength = ( int ) interval.dimension( 0 );
+			final long numRows = Intervals.numElements( interval ) / rowLength;
+			for ( long row = 0; row < numRows; ++row )
+			{
+				int index = index( position, interval, offset, strides );
+				for ( int remaining = rowLength; remaining > 0; )
+				{
+					final int length = runs.locate( position, remaining );
+					target.read( type, runs.array(), runs.offset(), index, strides[ 0 ], length );
+					position[ 0 ] += length;
+					index += length * strides[ 0 ];
+					remaining -= length;
+				}
+				position[ 0 ] = min0;
+				RealBlocks.nextRow( position, interval );
+			}
+		}
+	}
+
+	/**
+	 * Anything that is not analyzed further, read through a
+	 * {@link RandomAccess}.
+	 */
+	static class RandomAccessNode extends BlockNode
+	{
+		private final RandomAccessible< ? > source;
+
+		RandomAccessNode( final RandomAccessible< ? > source )
+		{
+			this.source = source;
+		}
+
+		@Override
+		void copy( final Interval interval, final BlockTarget target, final int offset, final int[] strides )
+		{
+			final RandomAccess< ? > access = source.randomAccess( interval );
+			final long[] position = new long[ interval.numDimensions() ];
+			interval.min( position );
+			final int rowLength = ( int ) interval.dimension( 0 );
+			final long numRows = Intervals.numElements( interval ) / rowLength;
+			for ( long row = 0; row < numRows; ++row )
+			{
+				access.setPosition( position );
+				copyRow( access, rowLength, target, index( position, interval, offset, strides ), strides[ 0 ] );
+				RealBlocks.nextRow( position, interval );
+			}
+		}
+
+		/**
+		 * Copy {@code length} values, moving {@code access} forward in
+		 * dimension 0.
+		 */
+		static void copyRow( final RandomAccess< ? > access, final int length, final BlockTarget target, final int index, final int stride )
+		{
+			for ( int i = 0, j = index; i < length; ++i, j += stride )
+			{
+				target.set( j, ( ( RealType< ? > ) access.get() ).getRealDouble() );
+				access.fwd( 0 );
+			}
+		}
+	}
+
+	/**
+	 * Bijective or slicing integer transform. Every dimension of the block is
+	 * either mapped to one source dimension, or not used by the transform, in
+	 * which case the source block is replicated along it.
+	 */
+	static class TransformNode extends BlockNode
+	{
+		private final Mixed transform;
+
+		private final BlockNode source;
+
+		TransformNode( final Mixed transform, final BlockNode source )
+		{
+			this.transform = transform;
+			this.source = source;
+		}
+
+		/**
+		 * @return whether no dimension of the block is mapped to more than one
+		 *         source dimension.
+		 */
+		static boolean isSupported( final Mixed t )
+		{
+			final boolean[] mapped = new boolean[ t.numSourceDimensions() ];
+			for ( int d = 0; d < t.numTargetDimensions(); ++d )
+			{
+				if ( !t.getComponentZero( d ) )
+				{
+					final int c = t.getComponentMapping( d );
+					if ( mapped[ c ] )
+						return false;
+					mapped[ c ] = true;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		void copy( final Interval interval, final BlockTarget target, final int offset, final int[] strides )
+		{
+			final int n = transform.numSourceDimensions();
+			final int m = transform.numTargetDimensions();
+			final long[] min = new long[ m ];
+			final long[] max = new long[ m ];
+			final int[] sourceStrides = new int[ m ];
+			final boolean[] mapped = new boolean[ n ];
+			int sourceOffset = offset;
+			for ( int d = 0; d < m; ++d )
+			{
+				final long t = transform.getTranslation( d );
+				if ( transform.getComponentZero( d ) )
+				{
+					min[ d ] = max[ d ] = t;
+					sourceStrides[ d ] = 0;
+				}
+				else
+				{
+					final int c = transform.getComponentMapping( d );
+					mapped[ c ] = true;
+					if ( transform.getComponentInversion( d ) )
+					{
+						min[ d ] = t - interval.max( c );
+						max[ d ] = t - interval.min( c );
+						sourceStrides[ d ] = -strides[ c ];
+						sourceOffset += ( int ) ( interval.dimension( c ) - 1 ) * strides[ c ];
+					}
+					else
+					{
+						min[ d ] = t + interval.min( c );
+						max[ d ] = t + interval.max( c );
+						sourceStrides[ d ] = strides[ c ];
+					}
+				}
+			}
+			final FinalInterval sourceInterval = new FinalInterval( min, max );
+
+			// replicate along dimensions that the transform does not use
+			final long[] replica = new long[ n ];
+			final long numReplicas = numReplicas( interval, mapped );
+			for ( long r = 0; r < numReplicas; ++r )
+			{
+				int replicaOffset = sourceOffset;
+				for ( int d = 0; d < n; ++d )
+					replicaOffset += ( int ) replica[ d ] * strides[ d ];
+				source.copy( sourceInterval, target, replicaOffset, sourceStrides );
+				for ( int d = 0; d < n; ++d )
+				{
+					if ( mapped[ d ] )
+						continue;
+					if ( ++replica[ d ] < interval.dimension( d ) )
+						break;
+					replica[ d ] = 0;
+				}
+			}
+		}
+
+		private static long numReplicas( final Interval interval, final boolean[] mapped )
+		{
+			long num = 1;
+			for ( int d = 0; d < mapped.length; ++d )
+				if ( !mapped[ d ] )
+					num *= interval.dimension( d );
+			return num;
+		}
+	}
+
+	/**
+	 * Out-of-bounds extension. The part of the block inside the source is
+	 * copied from the source, the rest is filled row by row.
+	 */
+	static class ExtensionNode extends BlockNode
+	{
+		private final ExtendedRandomAccessibleInterval< ?, ? > extended;
+
+		private final BlockNode source;
+
+		ExtensionNode( final ExtendedRandomAccessibleInterval< ?, ? > extended, final BlockNode source )
+		{
+			this.extended = extended;
+			this.source = source;
+		}
+
+		@Override
+		void copy( final Interval interval, final BlockTarget target, final int offset, final int[] strides )
+		{
+			final RandomAccessibleInterval< ? > bounds = extended.getSource();
+			if ( Intervals.contains( bounds, interval ) )
+			{
+				source.copy( interval, target, offset, strides );
+				return;
+			}
+
+			final int n = interval.numDimensions();
+			final FinalInterval inside = Intervals.intersect( interval, bounds );
+			final boolean hasInside = !Intervals.isEmpty( inside );
+			if ( hasInside )
+			{
+				final long[] insideMin = new long[ n ];
+				inside.min( insideMin );
+				source.copy( inside, target, index( insideMin, interval, offset, strides ), strides );
+			}
+
+			final OutOfBoundsFactory< ?, ? > factory = extended.getOutOfBoundsFactory();
+			final Object value = factory instanceof OutOfBoundsConstantValueFactory
+					? ( ( OutOfBoundsConstantValueFactory< ?, ? > ) factory ).getValue()
+					: null;
+			final boolean constant = value instanceof RealType;
+			final double constantValue = constant ? ( ( RealType< ? > ) value ).getRealDouble() : 0;
+			final RandomAccess< ? > access = constant ? null : extended.randomAccess( interval );
+
+			final long[] position = new long[ n ];
+			interval.min( position );
+			final long min0 = interval.min( 0 );
+			final long max0 = interval.max( 0 );
+			final int stride0 = strides[ 0 ];
+			final long numRows = Intervals.numElements( interval ) / interval.dimension( 0 );
+			for ( long row = 0; row < numRows; ++row )
+			{
+				boolean rowInside = hasInside;
+				for ( int d = 1; d < n && rowInside; ++d )
+					rowInside = position[ d ] >= inside.min( d ) && position[ d ] <= inside.max( d );
+
+				final int index = index( position, interval, offset, strides );
+				if ( rowInside )
+				{
+					final int left = ( int ) ( inside.min( 0 ) - min0 );
+					final int right = ( int ) ( max0 - inside.max( 0 ) );
+					if ( left > 0 )
+						fill( access, position, constant, constantValue, target, index, stride0, left );
+					if ( right > 0 )
+					{
+						position[ 0 ] = inside.max( 0 ) + 1;
+						fill( access, position, constant, constantValue, target, index + ( int ) ( position[ 0 ] - min0 ) * stride0, stride0, right );
+						position[ 0 ] = min0;
+					}
+				}
+				else
+					fill( access, position, constant, constantValue, target, index, stride0, ( int ) interval.dimension( 0 ) );
+
+				RealBlocks.nextRow( position, interval );
+			}
+		}
+
+		private static void fill( final RandomAccess< ? > access, final long[] position, final boolean constant, final double constantValue, final BlockTarget target, final int index, final int stride, final int length )
+		{
+			if ( constant )
+				target.fill( index, stride, length, constantValue );
+			else
+			{
+				access.setPosition( position );
+				RandomAccessNode.copyRow( access, length, target, index, stride );
+			}
+		}
+	}
+
+	/**
+	 * Converter between {@link RealType}s. The source block is fetched into a
+	 * scratch array and converted pixel by pixel.
+	 */
+	static class ConverterNode extends BlockNode
+	{
+		private final RandomAccessible< ? > converted;
+
+		private final RandomAccessible< ? > sourceAccessible;
+
+		private final BlockNode source;
+
+		private final Converter< Object, Object > converter;
+
+		private final RealType< ? > destination;
+
+		@SuppressWarnings( "unchecked" )
+		ConverterNode( final RandomAccessible< ? > converted, final RandomAccessible< ? > sourceAccessible, final Converter< ?, ? > converter, final RealType< ? > destination )
+		{
+			this.converted = converted;
+			this.sourceAccessible = sourceAccessible;
+			this.source = of( sourceAccessible );
+			this.converter = ( Converter< Object, Object > ) ComposedConverter.copyOf( converter );
+			this.destination = destination;
+		}
+
+		@Override
+		void copy( final Interval interval, final BlockTarget target, final int offset, final int[] strides )
+		{
+			final RandomAccess< ? > sourceAccess = sourceAccessible.randomAccess( interval );
+			sourceAccess.setPosition( Intervals.minAsLongArray( interval ) );
+			final Object sourceType = sourceAccess.get();
+
+			// source values pass through a double[], which is exact for all
+			// real types except integers wider than 32 bit
+			if ( !( sourceType instanceof RealType ) ||
+					( sourceType instanceof IntegerType && ( ( RealType< ? > ) sourceType ).getBitsPerPixel() > 32 ) )
+			{
+				new RandomAccessNode( converted ).copy( interval, target, offset, strides );
+				return;
+			}
+
+			final RealType< ? > a = ( ( RealType< ? > ) sourceType ).createVariable();
+			final RealType< ? > b = destination.createVariable();
+			final double[] values = new double[ ( int ) Intervals.numElements( interval ) ];
+			source.copy( interval, new BlockTarget.DoubleTarget( values ), 0, flatStrides( interval ) );
+
+			final int n = interval.numDimensions();
+			final long[] position = new long[ n ];
+			interval.min( position );
+			final int rowLength = ( int ) interval.dimension( 0 );
+			for ( int i = 0; i < values.length; i += rowLength )
+			{
+				for ( int x = 0, j = index( position, interval, offset, strides ); x < rowLength; ++x, j += strides[ 0 ] )
+				{
+					a.setReal( values[ i + x ] );
+					converter.convert( a, b );
+					target.set( j, b.getRealDouble() );
+				}
+				RealBlocks.nextRow( position, interval );
+			}
+		}
+	}
+}
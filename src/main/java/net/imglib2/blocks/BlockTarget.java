@@ -0,0 +1,145 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+/**
+ * A flat primitive {@code double[]} or {@code float[]} array that blocks are
+ * copied into. Positions in the array are addressed by an index and a stride,
+ * so that runs can be written in any direction and along any dimension of the
+ * block.
+ * <p>
+ * Instances hold a scratch buffer and must not be shared between threads.
+ */
+abstract class BlockTarget
+{
+	/**
+	 * Set the value at {@code index}.
+	 */
+	abstract void set( int index, double value );
+
+	/**
+	 * Set {@code length} values, starting at {@code index} and advancing by
+	 * {@code stride}, to {@code value}.
+	 */
+	abstract void fill( int index, int stride, int length, double value );
+
+	/**
+	 * Read {@code length} consecutive values of {@code type} from the
+	 * primitive array {@code src}, starting at {@code srcPos}, and write them
+	 * starting at {@code index}, advancing by {@code stride}.
+	 */
+	abstract void read( NativeRealType type, Object src, int srcPos, int index, int stride, int length );
+
+	static class DoubleTarget extends BlockTarget
+	{
+		private final double[] array;
+
+		private double[] buffer = new double[ 0 ];
+
+		DoubleTarget( final double[] array )
+		{
+			this.array = array;
+		}
+
+		@Override
+		void set( final int index, final double value )
+		{
+			array[ index ] = value;
+		}
+
+		@Override
+		void fill( final int index, final int stride, final int length, final double value )
+		{
+			for ( int i = 0, j = index; i < length; ++i, j += stride )
+				array[ j ] = value;
+		}
+
+		@Override
+		void read( final NativeRealType type, final Object src, final int srcPos, final int index, final int stride, final int length )
+		{
+			if ( stride == 1 )
+				type.read( src, srcPos, array, index, length );
+			else
+			{
+				if ( buffer.length < length )
+					buffer = new double[ length ];
+				type.read( src, srcPos, buffer, 0, length );
+				for ( int i = 0, j = index; i < length; ++i, j += stride )
+					array[ j ] = buffer[ i ];
+			}
+		}
+	}
+
+	static class FloatTarget extends BlockTarget
+	{
+		private final float[] array;
+
+		private float[] buffer = new float[ 0 ];
+
+		FloatTarget( final float[] array )
+		{
+			this.array = array;
+		}
+
+		@Override
+		void set( final int index, final double value )
+		{
+			array[ index ] = ( float ) value;
+		}
+
+		@Override
+		void fill( final int index, final int stride, final int length, final double value )
+		{
+			final float v = ( float ) value;
+			for ( int i = 0, j = index; i < length; ++i, j += stride )
+				array[ j ] = v;
+		}
+
+		@Override
+		void read( final NativeRealType type, final Object src, final int srcPos, final int index, final int stride, final int length )
+		{
+			if ( stride == 1 )
+				type.read( src, srcPos, array, index, length );
+			else
+			{
+				if ( buffer.length < length )
+					buffer = new float[ length ];
+				type.read( src, srcPos, buffer, 0, length );
+				for ( int i = 0, j = index; i < length; ++i, j += stride )
+					array[ j ] = buffer[ i ];
+			}
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import net.imglib2.Dirty;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.NativeImg;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.IntervalIndexer;
+
+/**
+ * Locates runs of pixels along dimension 0 in the primitive storage arrays of
+ * an {@link ArrayImg}, {@link PlanarImg} or {@link AbstractCellImg}.
+ * <p>
+ * After {@link #locate(long[], int)}, {@link #array()} and {@link #offset()}
+ * describe where the first pixel of the run is stored, and subsequent pixels
+ * of the run are stored at consecutive indices.
+ * <p>
+ * Instances are stateful and must not be shared between threads.
+ */
+abstract class NativeImgRuns
+{
+	protected Object access;
+
+	protected Object array;
+
+	protected int offset;
+
+	/**
+	 * Locate the run of pixels starting at {@code position} along dimension 0.
+	 *
+	 * @param position
+	 *            position of the first pixel of the run, must be inside the
+	 *            image.
+	 * @param maxLength
+	 *            maximum length of the run.
+	 * @return the length of the run that is stored contiguously, at most
+	 *         {@code maxLength}.
+	 */
+	abstract int locate( long[] position, int maxLength );
+
+	/**
+	 * @return the primitive storage array containing the current run.
+	 */
+	Object array()
+	{
+		return array;
+	}
+
+	/**
+	 * @return the index of the first pixel of the current run in
+	 *         {@link #array()}.
+	 */
+	int offset()
+	{
+		return offset;
+	}
+
+	/**
+	 * Flag the access containing the current run as modified, if it tracks
+	 * modifications.
+	 */
+	void setDirty()
+	{
+		if ( access instanceof Dirty )
+			( ( Dirty ) access ).setDirty();
+	}
+
+	/**
+	 * Get the {@link NativeRealType} of a native image.
+	 *
+	 * @return the type or {@code null} if {@code img} is not a
+	 *         {@link NativeImg} of a supported type.
+	 */
+	static NativeRealType nativeRealType( final Object img )
+	{
+		if ( !( img instanceof NativeImg ) )
+			return null;
+		final Object type = ( ( NativeImg< ?, ? > ) img ).createLinkedType();
+		if ( !( type instanceof NativeType ) )
+			return null;
+		return NativeRealType.of( ( NativeType< ? > ) type );
+	}
+
+	/**
+	 * Create {@link NativeImgRuns} for {@code img}.
+	 *
+	 * @return runs over the storage of {@code img} or {@code null} if
+	 *         {@code img} is not a supported native image or {@code interval}
+	 *         is not contained in {@code img}.
+	 */
+	static NativeImgRuns of( final Object img, final Interval interval )
+	{
+		if ( nativeRealType( img ) == null )
+			return null;
+
+		final Interval bounds = ( Interval ) img;
+		for ( int d = 0; d < bounds.numDimensions(); ++d )
+			if ( interval.min( d ) < bounds.min( d ) || interval.max( d ) > bounds.max( d ) )
+				return null;
+
+		if ( img instanceof ArrayImg )
+		{
+			final Object access = ( ( ArrayImg< ?, ? > ) img ).update( null );
+			return access instanceof ArrayDataAccess ? new ArrayRuns( ( ArrayImg< ?, ? > ) img, access ) : null;
+		}
+		else if ( img instanceof PlanarImg )
+			return new PlanarRuns( ( PlanarImg< ?, ? > ) img );
+		else if ( img instanceof AbstractCellImg )
+		{
+			// probe the access type of the first cell, cells of lazy images
+			// may be backed by arbitrary accesses
+			final CellRuns runs = new CellRuns( ( AbstractCellImg< ?, ?, ?, ? > ) img );
+			final long[] min = new long[ interval.numDimensions() ];
+			interval.min( min );
+			runs.grid.getCellPosition( min, runs.cellPosition );
+			runs.cells.setPosition( runs.cellPosition );
+			return runs.cells.get().getData() instanceof ArrayDataAccess ? runs : null;
+		}
+		return null;
+	}
+
+	static class ArrayRuns extends NativeImgRuns
+	{
+		private final long[] dimensions;
+
+		ArrayRuns( final ArrayImg< ?, ? > img, final Object access )
+		{
+			dimensions = new long[ img.numDimensions() ];
+			img.dimensions( dimensions );
+			this.access = access;
+			this.array = ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray();
+		}
+
+		@Override
+		int locate( final long[] position, final int maxLength )
+		{
+			offset = ( int ) IntervalIndexer.positionToIndex( position, dimensions );
+			return maxLength;
+		}
+	}
+
+	static class PlanarRuns extends NativeImgRuns
+	{
+		private final PlanarImg< ?, ? > img;
+
+		private final int n;
+
+		private final long dim0;
+
+		PlanarRuns( final PlanarImg< ?, ? > img )
+		{
+			this.img = img;
+			n = img.numDimensions();
+			dim0 = img.dimension( 0 );
+		}
+
+		@Override
+		int locate( final long[] position, final int maxLength )
+		{
+			int slice = 0;
+			for ( int d = n - 1; d >= 2; --d )
+				slice = slice * ( int ) img.dimension( d ) + ( int ) position[ d ];
+			access = img.getPlane( slice );
+			array = ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray();
+			offset = ( int ) ( n > 1 ? position[ 1 ] * dim0 + position[ 0 ] : position[ 0 ] );
+			return maxLength;
+		}
+	}
+
+	static class CellRuns extends NativeImgRuns
+	{
+		private final CellGrid grid;
+
+		private final RandomAccess< ? extends Cell< ? > > cells;
+
+		private final long[] cellPosition;
+
+		CellRuns( final AbstractCellImg< ?, ?, ?, ? > img )
+		{
+			grid = img.getCellGrid();
+			cells = img.getCells().randomAccess();
+			cellPosition = new long[ img.numDimensions() ];
+		}
+
+		@Override
+		int locate( final long[] position, final int maxLength )
+		{
+			grid.getCellPosition( position, cellPosition );
+			cells.setPosition( cellPosition );
+			final Cell< ? > cell = cells.get();
+			access = cell.getData();
+			array = ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray();
+			offset = cell.globalPositionToIndex( position );
+			return ( int ) Math.min( maxLength, cell.min( 0 ) + cell.dimension( 0 ) - position[ 0 ] );
+		}
+	}
+}
@@ -0,0 +1,481 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.blocks;
+
+import net.imglib2.type.Type;
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.integer.ShortType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedIntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Util;
+
+/**
+ * The {@link net.imglib2.type.numeric.RealType}s that store exactly one
+ * primitive value per pixel, with tight loops to copy runs of pixels between
+ * their primitive storage arrays and {@code double[]} or {@code float[]}
+ * arrays.
+ * <p>
+ * Reading produces the same values as
+ * {@link net.imglib2.type.numeric.RealType#getRealDouble()} and
+ * {@link net.imglib2.type.numeric.RealType#getRealFloat()}, writing the same
+ * values as {@link net.imglib2.type.numeric.RealType#setReal(double)} and
+ * {@link net.imglib2.type.numeric.RealType#setReal(float)}.
+ */
+enum NativeRealType
+{
+	BYTE
+	{
+		@Override
+		void read( final Object src, final int srcPos, final double[] dest, final int destPos, final int length )
+		{
+			final byte[] s = ( byte[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void read( final Object src, final int srcPos, final float[] dest, final int destPos, final int length )
+		{
+			final byte[] s = ( byte[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void write( final double[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final byte[] d = ( byte[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final double v = src[ i ];
+				d[ j ] = ( byte ) Util.round( v );
+			}
+		}
+
+		@Override
+		void write( final float[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final byte[] d = ( byte[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final float v = src[ i ];
+				d[ j ] = ( byte ) Util.round( v );
+			}
+		}
+	},
+	UNSIGNED_BYTE
+	{
+		@Override
+		void read( final Object src, final int srcPos, final double[] dest, final int destPos, final int length )
+		{
+			final byte[] s = ( byte[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ] & 0xff;
+		}
+
+		@Override
+		void read( final Object src, final int srcPos, final float[] dest, final int destPos, final int length )
+		{
+			final byte[] s = ( byte[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ] & 0xff;
+		}
+
+		@Override
+		void write( final double[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final byte[] d = ( byte[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final double v = src[ i ];
+				d[ j ] = ( byte ) Util.round( v );
+			}
+		}
+
+		@Override
+		void write( final float[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final byte[] d = ( byte[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final float v = src[ i ];
+				d[ j ] = ( byte ) Util.round( v );
+			}
+		}
+	},
+	SHORT
+	{
+		@Override
+		void read( final Object src, final int srcPos, final double[] dest, final int destPos, final int length )
+		{
+			final short[] s = ( short[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void read( final Object src, final int srcPos, final float[] dest, final int destPos, final int length )
+		{
+			final short[] s = ( short[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void write( final double[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final short[] d = ( short[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final double v = src[ i ];
+				d[ j ] = ( short ) Util.round( v );
+			}
+		}
+
+		@Override
+		void write( final float[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final short[] d = ( short[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final float v = src[ i ];
+				d[ j ] = ( short ) Util.round( v );
+			}
+		}
+	},
+	UNSIGNED_SHORT
+	{
+		@Override
+		void read( final Object src, final int srcPos, final double[] dest, final int destPos, final int length )
+		{
+			final short[] s = ( short[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ] & 0xffff;
+		}
+
+		@Override
+		void read( final Object src, final int srcPos, final float[] dest, final int destPos, final int length )
+		{
+			final short[] s = ( short[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ] & 0xffff;
+		}
+
+		@Override
+		void write( final double[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final short[] d = ( short[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final double v = src[ i ];
+				d[ j ] = ( short ) Util.round( v );
+			}
+		}
+
+		@Override
+		void write( final float[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final short[] d = ( short[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final float v = src[ i ];
+				d[ j ] = ( short ) Util.round( v );
+			}
+		}
+	},
+	INT
+	{
+		@Override
+		void read( final Object src, final int srcPos, final double[] dest, final int destPos, final int length )
+		{
+			final int[] s = ( int[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void read( final Object src, final int srcPos, final float[] dest, final int destPos, final int length )
+		{
+			final int[] s = ( int[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void write( final double[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final int[] d = ( int[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final double v = src[ i ];
+				d[ j ] = ( int ) Util.round( v );
+			}
+		}
+
+		@Override
+		void write( final float[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final int[] d = ( int[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final float v = src[ i ];
+				d[ j ] = Util.round( v );
+			}
+		}
+	},
+	UNSIGNED_INT
+	{
+		@Override
+		void read( final Object src, final int srcPos, final double[] dest, final int destPos, final int length )
+		{
+			final int[] s = ( int[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ] & 0xffffffffL;
+		}
+
+		@Override
+		void read( final Object src, final int srcPos, final float[] dest, final int destPos, final int length )
+		{
+			final int[] s = ( int[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ] & 0xffffffffL;
+		}
+
+		@Override
+		void write( final double[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final int[] d = ( int[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final double v = src[ i ];
+				d[ j ] = ( int ) Util.round( v );
+			}
+		}
+
+		@Override
+		void write( final float[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final int[] d = ( int[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final float v = src[ i ];
+				d[ j ] = Util.round( v );
+			}
+		}
+	},
+	LONG
+	{
+		@Override
+		void read( final Object src, final int srcPos, final double[] dest, final int destPos, final int length )
+		{
+			final long[] s = ( long[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void read( final Object src, final int srcPos, final float[] dest, final int destPos, final int length )
+		{
+			final long[] s = ( long[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void write( final double[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final long[] d = ( long[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final double v = src[ i ];
+				d[ j ] = Util.round( v );
+			}
+		}
+
+		@Override
+		void write( final float[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final long[] d = ( long[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final float v = src[ i ];
+				d[ j ] = Util.round( v );
+			}
+		}
+	},
+	FLOAT
+	{
+		@Override
+		void read( final Object src, final int srcPos, final double[] dest, final int destPos, final int length )
+		{
+			final float[] s = ( float[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void read( final Object src, final int srcPos, final float[] dest, final int destPos, final int length )
+		{
+			final float[] s = ( float[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void write( final double[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final float[] d = ( float[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final double v = src[ i ];
+				d[ j ] = ( float ) v;
+			}
+		}
+
+		@Override
+		void write( final float[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final float[] d = ( float[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final float v = src[ i ];
+				d[ j ] = v;
+			}
+		}
+	},
+	DOUBLE
+	{
+		@Override
+		void read( final Object src, final int srcPos, final double[] dest, final int destPos, final int length )
+		{
+			final double[] s = ( double[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = s[ i ];
+		}
+
+		@Override
+		void read( final Object src, final int srcPos, final float[] dest, final int destPos, final int length )
+		{
+			final double[] s = ( double[] ) src;
+			for ( int i = srcPos, j = destPos; j < destPos + length; ++i, ++j )
+				dest[ j ] = ( float ) s[ i ];
+		}
+
+		@Override
+		void write( final double[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final double[] d = ( double[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final double v = src[ i ];
+				d[ j ] = v;
+			}
+		}
+
+		@Override
+		void write( final float[] src, final int srcPos, final Object dest, final int destPos, final int length )
+		{
+			final double[] d = ( double[] ) dest;
+			for ( int i = srcPos, j = destPos; i < srcPos + length; ++i, ++j )
+			{
+				final float v = src[ i ];
+				d[ j ] = v;
+			}
+		}
+	};
+
+	/**
+	 * Copy {@code length} values from the primitive storage array {@code src}
+	 * (starting at {@code srcPos}) into {@code dest} (starting at
+	 * {@code destPos}).
+	 */
+	abstract void read( Object src, int srcPos, double[] dest, int destPos, int length );
+
+	/**
+	 * Copy {@code length} values from the primitive storage array {@code src}
+	 * (starting at {@code srcPos}) into {@code dest} (starting at
+	 * {@code destPos}).
+	 */
+	abstract void read( Object src, int srcPos, float[] dest, int destPos, int length );
+
+	/**
+	 * Copy {@code length} values from {@code src} (starting at
+	 * {@code srcPos}) into the primitive storage array {@code dest} (starting
+	 * at {@code destPos}).
+	 */
+	abstract void write( double[] src, int srcPos, Object dest, int destPos, int length );
+
+	/**
+	 * Copy {@code length} values from {@code src} (starting at
+	 * {@code srcPos}) into the primitive storage array {@code dest} (starting
+	 * at {@code destPos}).
+	 */
+	abstract void write( float[] src, int srcPos, Object dest, int destPos, int length );
+
+	/**
+	 * @return the {@link NativeRealType} of {@code type}, or {@code null} if
+	 *         {@code type} is not one of the supported types. Subclasses of
+	 *         the supported types are not supported.
+	 */
+	static NativeRealType of( final Type< ? > type )
+	{
+		final Class< ? > c = type.getClass();
+		if ( c == ByteType.class )
+			return BYTE;
+		if ( c == UnsignedByteType.class )
+			return UNSIGNED_BYTE;
+		if ( c == ShortType.class )
+			return SHORT;
+		if ( c == UnsignedShortType.class )
+			return UNSIGNED_SHORT;
+		if ( c == IntType.class )
+			return INT;
+		if ( c == UnsignedIntType.class )
+			return UNSIGNED_INT;
+		if ( c == LongType.class )
+			return LONG;
+		if ( c == FloatType.class )
+			return FLOAT;
+		if ( c == DoubleType.class )
+			return DOUBLE;
+		return null;
+	}
+}
@@ -0,0 +1,294 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import java.lang.reflect.Array;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.converter.BatchConverter;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+
+/**
+ * Copy blocks of {@link RealType} values between {@link RandomAccessible}s
+ * and flat primitive {@code double[]} or {@code float[]} arrays.
+ * <p>
+ * The arrays are in flat order of the {@link Interval}, i.e. dimension 0
+ * varies fastest, and must hold at least {@link Intervals#numElements} values.
+ * <p>
+ * If the {@link RandomAccessible} is an {@link ArrayImg}, {@link PlanarImg}
+ * or {@link AbstractCellImg} of a {@link RealType} that stores one primitive
+ * value per pixel (byte, short, int, long, float and double based types,
+ * signed or unsigned), and the interval lies inside the image, values are
+ * copied row by row directly from or to the backing primitive arrays.
+ * Otherwise, rows are copied through a {@link RandomAccess}.
+ * <p>
+ * When copying into arrays, the {@link RandomAccessible} may also be a chain
+ * of views on such images: interval views, integer transforms (translation,
+ * axis permutation and inversion, slicing, added dimensions), out-of-bounds
+ * extensions and {@link RealType} converters. Parts of the chain that cannot
+ * be copied in bulk are read through a {@link RandomAccess}.
+ * <p>
+ * Values can also be passed through a {@link BatchConverter} on the way, to
+ * produce e.g. ARGB pixels for display directly from the source.
+ *
+ * @see NativeRealType
+ */
+public class RealBlocks
+{
+	/**
+	 * Maximum number of values buffered by
+	 * {@link #convert(RandomAccessible, Interval, BatchConverter, Object)}.
+	 */
+	private static final int CHUNK_SIZE = 1 << 14;
+
+	/**
+	 * Copy the values of {@code source} in {@code interval} into
+	 * {@code dest}.
+	 */
+	public static < T extends RealType< T > > void copy( final RandomAccessible< T > source, final Interval interval, final double[] dest )
+	{
+		checkSize( source, interval, dest.length );
+		if ( Intervals.numElements( interval ) > 0 )
+			BlockNode.of( source ).copy( interval, new BlockTarget.DoubleTarget( dest ), 0, BlockNode.flatStrides( interval ) );
+	}
+
+	/**
+	 * Copy the values of {@code source} in {@code interval} into
+	 * {@code dest}.
+	 */
+	public static < T extends RealType< T > > void copy( final RandomAccessible< T > source, final Interval interval, final float[] dest )
+	{
+		checkSize( source, interval, dest.length );
+		if ( Intervals.numElements( interval ) > 0 )
+			BlockNode.of( source ).copy( interval, new BlockTarget.FloatTarget( dest ), 0, BlockNode.flatStrides( interval ) );
+	}
+
+	/**
+	 * Convert the values of {@code source} in {@code interval} with
+	 * {@code converter} into the primitive array {@code dest}. The values are
+	 * copied in chunks into a scratch {@code double[]}, along the highest
+	 * dimension of {@code interval} that has more than one element.
+	 */
+	public static < T extends RealType< T >, P > void convert( final RandomAccessible< T > source, final Interval interval, final BatchConverter< P > converter, final P dest )
+	{
+		convert( source, interval, converter, dest, 0 );
+	}
+
+	/**
+	 * Convert the values of {@code source} in {@code interval} with
+	 * {@code converter} into the primitive array {@code dest}, starting at
+	 * index {@code destPos}.
+	 */
+	public static < T extends RealType< T >, P > void convert( final RandomAccessible< T > source, final Interval interval, final BatchConverter< P > converter, final P dest, final int destPos )
+	{
+		checkSize( source, interval, Array.getLength( dest ) - destPos );
+		final long size = Intervals.numElements( interval );
+		if ( size == 0 )
+			return;
+
+		final int n = interval.numDimensions();
+		int d = n - 1;
+		while ( d > 0 && interval.dimension( d ) == 1 )
+			--d;
+		final long sliceSize = size / interval.dimension( d );
+		final int slicesPerChunk = ( int ) Math.max( 1, CHUNK_SIZE / sliceSize );
+
+		final double[] values = new double[ ( int ) Math.min( size, sliceSize * slicesPerChunk ) ];
+		final BlockTarget target = new BlockTarget.DoubleTarget( values );
+		final BlockNode node = BlockNode.of( source );
+		final long[] min = Intervals.minAsLongArray( interval );
+		final long[] max = Intervals.maxAsLongArray( interval );
+		for ( long s = interval.min( d ), pos = destPos; s <= interval.max( d ); s += slicesPerChunk )
+		{
+			min[ d ] = s;
+			max[ d ] = Math.min( s + slicesPerChunk - 1, interval.max( d ) );
+			final FinalInterval chunk = new FinalInterval( min, max );
+			final int length = ( int ) Intervals.numElements( chunk );
+			node.copy( chunk, target, 0, BlockNode.flatStrides( chunk ) );
+			converter.convert( values, 0, dest, ( int ) pos, length );
+			pos += length;
+		}
+	}
+
+	/**
+	 * Copy the values of {@code src} into {@code target} in
+	 * {@code interval}, as by {@link RealType#setReal(double)}.
+	 */
+	public static < T extends RealType< T > > void copy( final double[] src, final RandomAccessible< T > target, final Interval interval )
+	{
+		copyRows( target, interval, src.length, new RowCopy< T >()
+		{
+			@Override
+			public void copy( final NativeRealType type, final NativeImgRuns runs, final int pos, final int length )
+			{
+				type.write( src, pos, runs.array(), runs.offset(), length );
+				runs.setDirty();
+			}
+
+			@Override
+			public void copy( final RandomAccess< T > access, final int pos, final int length )
+			{
+				for ( int i = pos; i < pos + length; ++i )
+				{
+					access.get().setReal( src[ i ] );
+					access.fwd( 0 );
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Copy the values of {@code src} into {@code target} in
+	 * {@code interval}, as by {@link RealType#setReal(float)}.
+	 */
+	public static < T extends RealType< T > > void copy( final float[] src, final RandomAccessible< T > target, final Interval interval )
+	{
+		copyRows( target, interval, src.length, new RowCopy< T >()
+		{
+			@Override
+			public void copy( final NativeRealType type, final NativeImgRuns runs, final int pos, final int length )
+			{
+				type.write( src, pos, runs.array(), runs.offset(), length );
+				runs.setDirty();
+			}
+
+			@Override
+			public void copy( final RandomAccess< T > access, final int pos, final int length )
+			{
+				for ( int i = pos; i < pos + length; ++i )
+				{
+					access.get().setReal( src[ i ] );
+					access.fwd( 0 );
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Copies one row (or the part of a row that is stored contiguously)
+	 * between an image and a flat array.
+	 */
+	interface RowCopy< T >
+	{
+		/**
+		 * Copy {@code length} values between the current run of
+		 * {@code runs} and the flat array, starting at {@code pos} in the
+		 * flat array.
+		 */
+		void copy( NativeRealType type, NativeImgRuns runs, int pos, int length );
+
+		/**
+		 * Copy {@code length} values between the flat array, starting at
+		 * {@code pos}, and {@code access}, moving {@code access} forward in
+		 * dimension 0.
+		 */
+		void copy( RandomAccess< T > access, int pos, int length );
+	}
+
+	static void checkSize( final RandomAccessible< ? > img, final Interval interval, final int arrayLength )
+	{
+		final int n = interval.numDimensions();
+		if ( img.numDimensions() != n )
+			throw new IllegalArgumentException( "Interval has " + n + " dimensions, image has " + img.numDimensions() + "." );
+
+		final long size = Intervals.numElements( interval );
+		if ( size > arrayLength )
+			throw new IllegalArgumentException( "Array of length " + arrayLength + " is too small for " + size + " elements." );
+	}
+
+	static < T > void copyRows( final RandomAccessible< T > img, final Interval interval, final int arrayLength, final RowCopy< T > rowCopy )
+	{
+		checkSize( img, interval, arrayLength );
+		final int n = interval.numDimensions();
+		final long size = Intervals.numElements( interval );
+		if ( size == 0 )
+			return;
+
+		final int rowLength = ( int ) interval.dimension( 0 );
+		final int numRows = ( int ) ( size / rowLength );
+		final long[] position = new long[ n ];
+		interval.min( position );
+
+		final NativeImgRuns runs = NativeImgRuns.of( img, interval );
+		if ( runs != null )
+		{
+			final NativeRealType type = NativeImgRuns.nativeRealType( img );
+			final long min0 = position[ 0 ];
+			for ( int row = 0, pos = 0; row < numRows; ++row )
+			{
+				for ( int remaining = rowLength; remaining > 0; )
+				{
+					final int length = runs.locate( position, remaining );
+					rowCopy.copy( type, runs, pos, length );
+					position[ 0 ] += length;
+					pos += length;
+					remaining -= length;
+				}
+				position[ 0 ] = min0;
+				nextRow( position, interval );
+			}
+		}
+		else
+		{
+			final RandomAccess< T > access = img.randomAccess( interval );
+			for ( int row = 0, pos = 0; row < numRows; ++row, pos += rowLength )
+			{
+				access.setPosition( position );
+				rowCopy.copy( access, pos, rowLength );
+				nextRow( position, interval );
+			}
+		}
+	}
+
+	/**
+	 * Move {@code position} to the start of the next row of {@code interval}.
+	 */
+	static void nextRow( final long[] position, final Interval interval )
+	{
+		for ( int d = 1; d < position.length; ++d )
+		{
+			if ( ++position[ d ] <= interval.max( d ) )
+				return;
+			position[ d ] = interval.min( d );
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.converter;
+
+import net.imglib2.display.AbstractLinearRange;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.IntegerType;
+
+/**
+ * Base class for {@link Converter Converters} from unsigned integer types of
+ * at most 16 bits to {@link ARGBType} that look up each value in a
+ * precomputed table. The table holds one ARGB value for each of the
+ * 2<sup><em>numBits</em></sup> possible inputs and is rebuilt whenever the
+ * mapping changes, e.g. when {@link #setMin(double)} or
+ * {@link #setMax(double)} are called. Converting a sample is then a single
+ * array access.
+ *
+ * @param <T>
+ *            source type, e.g. {@code UnsignedByteType} or
+ *            {@code UnsignedShortType}
+ */
+public abstract class AbstractLookupARGBConverter< T extends IntegerType< T > > extends AbstractLinearRange implements Converter< T, ARGBType >, BatchConverter< int[] >
+{
+	private final int numBits;
+
+	private volatile int[] table;
+
+	/**
+	 * @param numBits
+	 *            number of bits of the source values, at most 16. Source
+	 *            values must be in [0, 2<sup><em>numBits</em></sup>-1].
+	 */
+	public AbstractLookupARGBConverter( final int numBits, final double min, final double max )
+	{
+		super( min, max );
+		if ( numBits < 1 || numBits > 16 )
+			throw new IllegalArgumentException( "Lookup tables are supported for 1 to 16 bit values, not " + numBits + "." );
+		this.numBits = numBits;
+	}
+
+	/**
+	 * Compute the ARGB value for a source value.
+	 */
+	protected abstract int argb( double value );
+
+	/**
+	 * Recompute the lookup table. Subclasses call this when a parameter of
+	 * {@link #argb(double)} changes. The new table replaces the old one
+	 * atomically, so concurrent conversions see either.
+	 */
+	protected void updateTable()
+	{
+		final int[] t = new int[ 1 << numBits ];
+		for ( int i = 0; i < t.length; ++i )
+			t[ i ] = argb( i );
+		table = t;
+	}
+
+	public int getNumBits()
+	{
+		return numBits;
+	}
+
+	@Override
+	public void setMin( final double min )
+	{
+		super.setMin( min );
+		updateTable();
+	}
+
+	@Override
+	public void setMax( final double max )
+	{
+		super.setMax( max );
+		updateTable();
+	}
+
+	@Override
+	public void convert( final T input, final ARGBType output )
+	{
+		output.set( table[ input.getInteger() ] );
+	}
+
+	@Override
+	public void convert( final double[] src, final int srcPos, final int[] dest, final int destPos, final int length )
+	{
+		final int[] t = table;
+		for ( int i = 0; i < length; ++i )
+			dest[ destPos + i ] = t[ ( int ) src[ srcPos + i ] ];
+	}
+}
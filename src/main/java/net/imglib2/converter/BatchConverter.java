@@ -0,0 +1,88 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.converter;
+
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.RealType;
+
+/**
+ * Optional extension of a {@link Converter} from {@link RealType} that
+ * converts runs of values in a tight loop. Input values are given in a
+ * {@code double[]}, as returned by {@link RealType#getRealDouble()}, and the
+ * results are written into the primitive array {@code P} that backs the
+ * destination type, e.g. {@code int[]} for {@link ARGBType}.
+ * <p>
+ * Implementations must produce the same values as converting each sample
+ * through {@link Converter#convert(Object, Object)}.
+ * </p>
+ *
+ * @param <P>
+ *            primitive array type of the destination storage
+ */
+public interface BatchConverter< P >
+{
+	/**
+	 * Convert {@code length} values starting at {@code src[srcPos]} and store
+	 * the results starting at {@code dest[destPos]}.
+	 */
+	public void convert( double[] src, int srcPos, P dest, int destPos, int length );
+
+	/**
+	 * Whether {@link #convert(double[], int, Object, int, int)} produces the
+	 * same values as the per-sample {@link Converter#convert(Object, Object)}
+	 * of this converter. Subclasses that override the per-sample method (as
+	 * {@link VolatileRealTypeARGBConverter} does, to check validity) must
+	 * return {@code false}, unless they override the batch method
+	 * accordingly.
+	 */
+	public default boolean supportsBatch()
+	{
+		return true;
+	}
+
+	/**
+	 * Check whether values may be converted through the batch method of
+	 * {@code converter} instead of its per-sample
+	 * {@link Converter#convert(Object, Object)}, i.e., whether
+	 * {@code converter} is a {@link BatchConverter} that
+	 * {@link #supportsBatch() supports it}.
+	 *
+	 * @return whether the batch method of {@code converter} may be used.
+	 */
+	public static boolean isApplicable( final Object converter )
+	{
+		return converter instanceof BatchConverter && ( ( BatchConverter< ? > ) converter ).supportsBatch();
+	}
+}
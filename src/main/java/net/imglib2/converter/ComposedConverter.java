@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.converter;
+
+import net.imglib2.type.Type;
+
+/**
+ * A {@link Converter} that applies two {@link Converter Converters} in
+ * sequence, passing values through a single intermediate {@link Type}. Used by
+ * {@link Converters} to collapse nested converted views into one.
+ * <p>
+ * The intermediate value is state, so a {@link ComposedConverter} must not be
+ * shared between threads. Samplers that use it obtain their own instance
+ * through {@link #copyOf(Converter)}.
+ * </p>
+ * <p>
+ * Composing removes the per-level sampler wrappers of nested views, but each
+ * level still costs one {@link Converter#convert(Object, Object)} call and a
+ * write to its intermediate value, so the cost of a chain still grows with its
+ * length.
+ * </p>
+ *
+ * @param <A>
+ *            source type
+ * @param <I>
+ *            intermediate type
+ * @param <B>
+ *            destination type
+ */
+public final class ComposedConverter< A, I extends Type< I >, B > implements Converter< A, B >
+{
+	private final Converter< ? super A, ? super I > first;
+
+	private final Converter< ? super I, ? super B > second;
+
+	private final I intermediate;
+
+	/**
+	 * @param first
+	 *            converts from the source to the intermediate type.
+	 * @param intermediate
+	 *            an instance of the intermediate type. It is copied.
+	 * @param second
+	 *            converts from the intermediate to the destination type.
+	 */
+	public ComposedConverter( final Converter< ? super A, ? super I > first, final I intermediate, final Converter< ? super I, ? super B > second )
+	{
+		this.first = copyOf( first );
+		this.intermediate = intermediate.copy();
+		this.second = copyOf( second );
+	}
+
+	@Override
+	public void convert( final A input, final B output )
+	{
+		first.convert( input, intermediate );
+		second.convert( intermediate, output );
+	}
+
+	/**
+	 * @return a {@link ComposedConverter} with the same converters and its own
+	 *         intermediate value.
+	 */
+	public ComposedConverter< A, I, B > copy()
+	{
+		return new ComposedConverter< A, I, B >( first, intermediate, second );
+	}
+
+	/**
+	 * Get an instance of {@code converter} that is safe to use from a new
+	 * sampler. This is a copy for {@link ComposedConverter}s and
+	 * {@code converter} itself otherwise.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public static < A, B > Converter< A, B > copyOf( final Converter< A, B > converter )
+	{
+		if ( converter instanceof ComposedConverter )
+			return ( ( ComposedConverter< A, ?, B > ) converter ).copy();
+		return converter;
+	}
+}
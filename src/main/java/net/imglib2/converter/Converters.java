@@ -74,6 +74,10 @@ public class Converters
 	 * RandomAccesses} {@link RandomAccess#get()} you a converted sample.
 	 * Conversion is done on-the-fly when reading values. Writing to the
 	 * converted {@link RandomAccessibleInterval} has no effect.
+	 * <p>
+	 * If {@code source} is itself a converted view, the two conversions are
+	 * fused into a single {@link ComposedConverter} over the original source.
+	 * </p>
 	 *
 	 * @param source
 	 * @param converter
@@ -82,7 +86,7 @@ public class Converters
 	 *         RandomAccesses} perform on-the-fly value conversion using the
 	 *         provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > RandomAccessible< B > convert(
 			final RandomAccessible< A > source,
 			final Converter< ? super A, ? super B > converter,
@@ -90,6 +94,10 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( RandomAccessible< B > ) source;
+		if ( source.getClass() == ConvertedRandomAccessible.class )
+			return fuse( ( ConvertedRandomAccessible ) source, ( Converter ) converter, b );
+		if ( source.getClass() == ConvertedRandomAccessibleInterval.class )
+			return fuse( ( ConvertedRandomAccessibleInterval ) source, ( Converter ) converter, b );
 		return new ConvertedRandomAccessible< A, B >( source, converter, b );
 	}
 
@@ -116,6 +124,10 @@ public class Converters
 	 * RandomAccesses} {@link RandomAccess#get()} you a converted sample.
 	 * Conversion is done on-the-fly when reading values. Writing to the
 	 * converted {@link RandomAccessibleInterval} has no effect.
+	 * <p>
+	 * If {@code source} is itself a converted view, the two conversions are
+	 * fused into a single {@link ComposedConverter} over the original source.
+	 * </p>
 	 *
 	 * @param source
 	 * @param converter
@@ -124,7 +136,7 @@ public class Converters
 	 *         {@link RandomAccess RandomAccesses} perform on-the-fly value
 	 *         conversion using the provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > RandomAccessibleInterval< B > convert(
 			final RandomAccessibleInterval< A > source,
 			final Converter< ? super A, ? super B > converter,
@@ -132,6 +144,8 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( RandomAccessibleInterval< B > ) source;
+		if ( source.getClass() == ConvertedRandomAccessibleInterval.class )
+			return fuse( ( ConvertedRandomAccessibleInterval ) source, ( Converter ) converter, b );
 		return new ConvertedRandomAccessibleInterval< A, B >( source, converter, b );
 	}
 
@@ -158,6 +172,10 @@ public class Converters
 	 * {@link Cursor#get()} you a converted sample. Conversion is done
 	 * on-the-fly when reading values. Writing to the converted
 	 * {@link IterableInterval} has no effect.
+	 * <p>
+	 * If {@code source} is itself a converted view, the two conversions are
+	 * fused into a single {@link ComposedConverter} over the original source.
+	 * </p>
 	 *
 	 * @param source
 	 * @param converter
@@ -165,7 +183,7 @@ public class Converters
 	 * @return a converted {@link IterableInterval} whose {@link Cursor Cursors}
 	 *         perform on-the-fly value conversion using the provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > IterableInterval< B > convert(
 			final IterableInterval< A > source,
 			final Converter< ? super A, ? super B > converter,
@@ -173,6 +191,8 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( IterableInterval< B > ) source;
+		if ( source.getClass() == ConvertedIterableInterval.class )
+			return fuse( ( ConvertedIterableInterval ) source, ( Converter ) converter, b );
 		return new ConvertedIterableInterval< A, B >( source, converter, b );
 	}
 
@@ -218,6 +238,10 @@ public class Converters
 	 * RealRandomAccesses} {@link RealRandomAccess#get()} you a converted sample.
 	 * Conversion is done on-the-fly when reading values. Writing to the
 	 * converted {@link RealRandomAccessibleRealInterval} has no effect.
+	 * <p>
+	 * If {@code source} is itself a converted view, the two conversions are
+	 * fused into a single {@link ComposedConverter} over the original source.
+	 * </p>
 	 *
 	 * @param source
 	 * @param converter
@@ -226,7 +250,7 @@ public class Converters
 	 *         {@link RealRandomAccess RealRandomAccesses} perform on-the-fly value
 	 *         conversion using the provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > RealRandomAccessibleRealInterval< B > convert(
 			final RealRandomAccessibleRealInterval< A > source,
 			final  Converter< ? super A, ? super B > converter,
@@ -234,6 +258,8 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( RealRandomAccessibleRealInterval< B > ) source;
+		if ( source.getClass() == ConvertedRealRandomAccessibleRealInterval.class )
+			return fuse( ( ConvertedRealRandomAccessibleRealInterval ) source, ( Converter ) converter, b );
 		return new ConvertedRealRandomAccessibleRealInterval< A, B >( source, converter, b );
 	}
 
@@ -242,6 +268,10 @@ public class Converters
 	 * RealRandomAccesses} {@link RealRandomAccess#get()} you a converted sample.
 	 * Conversion is done on-the-fly when reading values. Writing to the
 	 * converted {@link RandomAccessibleInterval} has no effect.
+	 * <p>
+	 * If {@code source} is itself a converted view, the two conversions are
+	 * fused into a single {@link ComposedConverter} over the original source.
+	 * </p>
 	 *
 	 * @param source
 	 * @param converter
@@ -250,7 +280,7 @@ public class Converters
 	 *         RealRandomAccesses} perform on-the-fly value conversion using the
 	 *         provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > RealRandomAccessible< B > convert(
 			final RealRandomAccessible< A > source,
 			final  Converter< ? super A, ? super B > converter,
@@ -258,6 +288,10 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( RealRandomAccessible< B > ) source;
+		if ( source.getClass() == ConvertedRealRandomAccessible.class )
+			return fuse( ( ConvertedRealRandomAccessible ) source, ( Converter ) converter, b );
+		if ( source.getClass() == ConvertedRealRandomAccessibleRealInterval.class )
+			return fuse( ( ConvertedRealRandomAccessibleRealInterval ) source, ( Converter ) converter, b );
 		return new ConvertedRealRandomAccessible< A, B >( source, converter, b );
 	}
 
@@ -350,4 +384,50 @@ public class Converters
 
 		return Views.stack( hyperSlices );
 	}
+
+	/*
+	 * Collapse a converted view and a subsequent conversion into one view
+	 * over the original source. This saves one level of sampler indirection
+	 * and one intermediate sample per access.
+	 */
+
+	private static < X, I extends Type< I >, B extends Type< B > > ConvertedRandomAccessible< X, B > fuse(
+			final ConvertedRandomAccessible< X, I > inner,
+			final Converter< ? super I, ? super B > converter,
+			final B b )
+	{
+		return new ConvertedRandomAccessible< X, B >( inner.getSource(), new ComposedConverter< X, I, B >( inner.getConverter(), inner.getDestinationType(), converter ), b );
+	}
+
+	private static < X, I extends Type< I >, B extends Type< B > > ConvertedRandomAccessibleInterval< X, B > fuse(
+			final ConvertedRandomAccessibleInterval< X, I > inner,
+			final Converter< ? super I, ? super B > converter,
+			final B b )
+	{
+		return new ConvertedRandomAccessibleInterval< X, B >( inner.getSource(), new ComposedConverter< X, I, B >( inner.getConverter(), inner.getDestinationType(), converter ), b );
+	}
+
+	private static < X, I extends Type< I >, B extends Type< B > > ConvertedIterableInterval< X, B > fuse(
+			final ConvertedIterableInterval< X, I > inner,
+			final Converter< ? super I, ? super B > converter,
+			final B b )
+	{
+		return new ConvertedIterableInterval< X, B >( inner.getSource(), new ComposedConverter< X, I, B >( inner.getConverter(), inner.getDestinationType(), converter ), b );
+	}
+
+	private static < X, I extends Type< I >, B extends Type< B > > ConvertedRealRandomAccessible< X, B > fuse(
+			final ConvertedRealRandomAccessible< X, I > inner,
+			final Converter< ? super I, ? super B > converter,
+			final B b )
+	{
+		return new ConvertedRealRandomAccessible< X, B >( inner.getSource(), new ComposedConverter< X, I, B >( inner.getConverter(), inner.getDestinationType(), converter ), b );
+	}
+
+	private static < X, I extends Type< I >, B extends Type< B > > ConvertedRealRandomAccessibleRealInterval< X, B > fuse(
+			final ConvertedRealRandomAccessibleRealInterval< X, I > inner,
+			final Converter< ? super I, ? super B > converter,
+			final B b )
+	{
+		return new ConvertedRealRandomAccessibleRealInterval< X, B >( inner.getSource(), new ComposedConverter< X, I, B >( inner.getConverter(), inner.getDestinationType(), converter ), b );
+	}
 }
@@ -42,7 +42,7 @@ import net.imglib2.type.numeric.RealType;
  * 
  * @author Stephan Saalfeld
  */
-public class RealARGBConverter< R extends RealType< ? > > extends AbstractLinearRange implements Converter< R, ARGBType >
+public class RealARGBConverter< R extends RealType< ? > > extends AbstractLinearRange implements Converter< R, ARGBType >, BatchConverter< int[] >
 {
 	public RealARGBConverter()
 	{
@@ -62,4 +62,14 @@ public class RealARGBConverter< R extends RealType< ? > > extends AbstractLinear
 		final int argb = 0xff000000 | ( ( ( b << 8 ) | b ) << 8 ) | b;
 		output.set( argb );
 	}
+
+	@Override
+	public void convert( final double[] src, final int srcPos, final int[] dest, final int destPos, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+		{
+			final int b = Math.min( 255, roundPositive( Math.max( 0, ( ( src[ srcPos + i ] - min ) / scale * 255.0 ) ) ) );
+			dest[ destPos + i ] = 0xff000000 | ( ( ( b << 8 ) | b ) << 8 ) | b;
+		}
+	}
 }
@@ -43,11 +43,18 @@ import net.imglib2.type.numeric.real.FloatType;
  * @author Stephan Saalfeld
  * @author Stephan Preibisch
  */
-public class RealFloatConverter< R extends RealType< R > > implements Converter< R, FloatType >
+public class RealFloatConverter< R extends RealType< R > > implements Converter< R, FloatType >, BatchConverter< float[] >
 {
 	@Override
 	public void convert( final R input, final FloatType output )
 	{
 		output.set( input.getRealFloat() );
 	}
+
+	@Override
+	public void convert( final double[] src, final int srcPos, final float[] dest, final int destPos, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ destPos + i ] = ( float ) src[ srcPos + i ];
+	}
 }
@@ -53,7 +53,7 @@ import net.imglib2.type.numeric.RealType;
  * @author Curtis Rueden
  */
 public class RealLUTConverter< R extends RealType< R >> extends
-		AbstractLinearRange implements Converter< R, ARGBType >
+		AbstractLinearRange implements Converter< R, ARGBType >, BatchConverter< int[] >
 {
 
 	private ColorTable lut = null;
@@ -88,4 +88,11 @@ public class RealLUTConverter< R extends RealType< R >> extends
 		output.set( argb );
 	}
 
+	@Override
+	public void convert( final double[] src, final int srcPos, final int[] dest, final int destPos, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ destPos + i ] = lut.lookupARGB( min, max, src[ srcPos + i ] );
+	}
+
 }
@@ -43,7 +43,7 @@ import net.imglib2.type.numeric.integer.UnsignedByteType;
  * 
  * @author Stephan Saalfeld
  */
-public class RealUnsignedByteConverter< R extends RealType< R > > extends AbstractLinearRange implements Converter< R, UnsignedByteType >
+public class RealUnsignedByteConverter< R extends RealType< R > > extends AbstractLinearRange implements Converter< R, UnsignedByteType >, BatchConverter< byte[] >
 {
 	public RealUnsignedByteConverter()
 	{
@@ -61,4 +61,11 @@ public class RealUnsignedByteConverter< R extends RealType< R > > extends Abstra
 		final double a = input.getRealDouble();
 		output.set( Math.min( 255, roundPositive( Math.max( 0, ( ( a - min ) / scale * 255.0 ) ) ) ) );
 	}
+
+	@Override
+	public void convert( final double[] src, final int srcPos, final byte[] dest, final int destPos, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ destPos + i ] = ( byte ) Math.min( 255, roundPositive( Math.max( 0, ( ( src[ srcPos + i ] - min ) / scale * 255.0 ) ) ) );
+	}
 }
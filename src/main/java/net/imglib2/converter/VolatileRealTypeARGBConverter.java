@@ -77,4 +77,13 @@ public class VolatileRealTypeARGBConverter extends RealARGBConverter< VolatileRe
 			output.set( background );
 	}
 
+	/**
+	 * The inherited batch method does not check validity.
+	 */
+	@Override
+	public boolean supportsBatch()
+	{
+		return false;
+	}
+
 }
@@ -36,6 +36,7 @@ package net.imglib2.converter.read;
 
 import net.imglib2.Cursor;
 import net.imglib2.converter.AbstractConvertedCursor;
+import net.imglib2.converter.ComposedConverter;
 import net.imglib2.converter.Converter;
 import net.imglib2.type.Type;
 
@@ -60,7 +61,7 @@ public class ConvertedCursor< A, B extends Type< B > > extends AbstractConverted
 	public ConvertedCursor( final Cursor< A > source, final Converter< ? super A, ? super B > converter, final B b )
 	{
 		super( source );
-		this.converter = converter;
+		this.converter = ComposedConverter.copyOf( converter );
 		this.converted = b.copy();
 	}
 
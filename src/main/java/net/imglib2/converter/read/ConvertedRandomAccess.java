@@ -36,6 +36,7 @@ package net.imglib2.converter.read;
 
 import net.imglib2.RandomAccess;
 import net.imglib2.converter.AbstractConvertedRandomAccess;
+import net.imglib2.converter.ComposedConverter;
 import net.imglib2.converter.Converter;
 import net.imglib2.type.Type;
 
@@ -52,7 +53,7 @@ final public class ConvertedRandomAccess< A, B extends Type< B > > extends Abstr
 	public ConvertedRandomAccess( final RandomAccess< A > source, final Converter< ? super A, ? super B > converter, final B b )
 	{
 		super( source );
-		this.converter = converter;
+		this.converter = ComposedConverter.copyOf( converter );
 		this.converted = b.copy();
 	}
 
@@ -70,6 +70,14 @@ public class ConvertedRandomAccessibleInterval< A, B extends Type< B > > extends
 		return new ConvertedRandomAccess< A, B >( sourceInterval.randomAccess( interval ), converter, converted );
 	}
 
+	/**
+	 * @return the source {@link RandomAccessibleInterval}.
+	 */
+	public RandomAccessibleInterval< A > getSource()
+	{
+		return sourceInterval;
+	}
+
 	/**
 	 * @return an instance of the destination {@link Type}.
 	 */
@@ -0,0 +1,107 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.converter.readwrite;
+
+import net.imglib2.Sampler;
+
+/**
+ * A {@link SamplerConverter} that applies two {@link SamplerConverter
+ * SamplerConverters} in sequence. The proxy produced by the first is wrapped
+ * into a {@link Sampler} and passed to the second, so reading and writing the
+ * result goes through both conversions to the original {@link Sampler}.
+ * <p>
+ * Used by the write-converted views to collapse nested conversions onto the
+ * innermost source.
+ * </p>
+ *
+ * @param <A>
+ *            source type
+ * @param <I>
+ *            intermediate type
+ * @param <B>
+ *            destination type
+ */
+public final class ComposedSamplerConverter< A, I, B > implements SamplerConverter< A, B >
+{
+	private final SamplerConverter< ? super A, I > first;
+
+	private final SamplerConverter< ? super I, B > second;
+
+	public ComposedSamplerConverter( final SamplerConverter< ? super A, I > first, final SamplerConverter< ? super I, B > second )
+	{
+		this.first = first;
+		this.second = second;
+	}
+
+	@Override
+	public B convert( final Sampler< ? extends A > sampler )
+	{
+		return second.convert( new ProxySampler< A, I >( first, sampler ) );
+	}
+
+	/**
+	 * Presents the intermediate proxy of a {@link Sampler} as a
+	 * {@link Sampler}. The proxy is bound to the original {@link Sampler} and
+	 * follows it. {@link #copy()} converts a copy of the original
+	 * {@link Sampler}, so the copy is independent.
+	 */
+	private static final class ProxySampler< A, I > implements Sampler< I >
+	{
+		private final SamplerConverter< ? super A, I > converter;
+
+		private final Sampler< ? extends A > source;
+
+		private final I proxy;
+
+		ProxySampler( final SamplerConverter< ? super A, I > converter, final Sampler< ? extends A > source )
+		{
+			this.converter = converter;
+			this.source = source;
+			this.proxy = converter.convert( source );
+		}
+
+		@Override
+		public I get()
+		{
+			return proxy;
+		}
+
+		@Override
+		public ProxySampler< A, I > copy()
+		{
+			return new ProxySampler< A, I >( converter, source.copy() );
+		}
+	}
+}
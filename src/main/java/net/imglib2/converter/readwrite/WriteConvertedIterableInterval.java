@@ -43,23 +43,43 @@ import net.imglib2.converter.AbstractConvertedIterableInterval;
  */
 public class WriteConvertedIterableInterval< A, B > extends AbstractConvertedIterableInterval< A, B >
 {
-	private final SamplerConverter< ? super A, B > converter;
+	/**
+	 * If {@code source} is itself a {@link WriteConvertedIterableInterval},
+	 * samplers are created directly on the innermost source with the composed
+	 * converter. The declared type {@code A} of {@link #fusedSource} is then
+	 * not its actual type, which is safe because the samplers never expose
+	 * their source.
+	 */
+	private final IterableInterval< A > fusedSource;
 
+	private final SamplerConverter< ? super A, B > fusedConverter;
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	public WriteConvertedIterableInterval( final IterableInterval< A > source, final SamplerConverter< ? super A, B > converter )
 	{
 		super( source );
-		this.converter = converter;
+		if ( source.getClass() == WriteConvertedIterableInterval.class )
+		{
+			final WriteConvertedIterableInterval< ?, A > inner = ( WriteConvertedIterableInterval< ?, A > ) source;
+			fusedSource = ( IterableInterval ) inner.fusedSource;
+			fusedConverter = new ComposedSamplerConverter( inner.fusedConverter, converter );
+		}
+		else
+		{
+			fusedSource = source;
+			fusedConverter = converter;
+		}
 	}
 
 	@Override
 	public WriteConvertedCursor< A, B > cursor()
 	{
-		return new WriteConvertedCursor< A, B >( sourceInterval.cursor(), converter );
+		return new WriteConvertedCursor< A, B >( fusedSource.cursor(), fusedConverter );
 	}
 
 	@Override
 	public WriteConvertedCursor< A, B > localizingCursor()
 	{
-		return new WriteConvertedCursor< A, B >( sourceInterval.localizingCursor(), converter );
+		return new WriteConvertedCursor< A, B >( fusedSource.localizingCursor(), fusedConverter );
 	}
 }
@@ -44,23 +44,43 @@ import net.imglib2.converter.AbstractConvertedRandomAccessible;
  */
 public class WriteConvertedRandomAccessible< A, B > extends AbstractConvertedRandomAccessible< A, B >
 {
-	private final SamplerConverter< ? super A, B > converter;
+	/**
+	 * If {@code source} is itself a {@link WriteConvertedRandomAccessible},
+	 * samplers are created directly on the innermost source with the composed
+	 * converter. The declared type {@code A} of {@link #fusedSource} is then
+	 * not its actual type, which is safe because the samplers never expose
+	 * their source.
+	 */
+	private final RandomAccessible< A > fusedSource;
 
+	private final SamplerConverter< ? super A, B > fusedConverter;
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	public WriteConvertedRandomAccessible( final RandomAccessible< A > source, final SamplerConverter< ? super A, B > converter )
 	{
 		super( source );
-		this.converter = converter;
+		if ( source.getClass() == WriteConvertedRandomAccessible.class )
+		{
+			final WriteConvertedRandomAccessible< ?, A > inner = ( WriteConvertedRandomAccessible< ?, A > ) source;
+			fusedSource = ( RandomAccessible ) inner.fusedSource;
+			fusedConverter = new ComposedSamplerConverter( inner.fusedConverter, converter );
+		}
+		else
+		{
+			fusedSource = source;
+			fusedConverter = converter;
+		}
 	}
 
 	@Override
 	public WriteConvertedRandomAccess< A, B > randomAccess()
 	{
-		return new WriteConvertedRandomAccess< A, B >( source.randomAccess(), converter );
+		return new WriteConvertedRandomAccess< A, B >( fusedSource.randomAccess(), fusedConverter );
 	}
 
 	@Override
 	public WriteConvertedRandomAccess< A, B > randomAccess( final Interval interval )
 	{
-		return new WriteConvertedRandomAccess< A, B >( source.randomAccess( interval ), converter );
+		return new WriteConvertedRandomAccess< A, B >( fusedSource.randomAccess( interval ), fusedConverter );
 	}
 }
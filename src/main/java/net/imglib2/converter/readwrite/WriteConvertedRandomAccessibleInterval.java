@@ -44,23 +44,43 @@ import net.imglib2.RandomAccessibleInterval;
  */
 public class WriteConvertedRandomAccessibleInterval< A, B > extends AbstractWrappedInterval< RandomAccessibleInterval< A > > implements RandomAccessibleInterval< B >
 {
-	private final SamplerConverter< ? super A, B > converter;
+	/**
+	 * If {@code source} is itself a
+	 * {@link WriteConvertedRandomAccessibleInterval}, samplers are created
+	 * directly on the innermost source with the composed converter. The
+	 * declared type {@code A} of {@link #fusedSource} is then not its actual
+	 * type, which is safe because the samplers never expose their source.
+	 */
+	private final RandomAccessibleInterval< A > fusedSource;
 
+	private final SamplerConverter< ? super A, B > fusedConverter;
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	public WriteConvertedRandomAccessibleInterval( final RandomAccessibleInterval< A > source, final SamplerConverter< ? super A, B > converter )
 	{
 		super( source );
-		this.converter = converter;
+		if ( source.getClass() == WriteConvertedRandomAccessibleInterval.class )
+		{
+			final WriteConvertedRandomAccessibleInterval< ?, A > inner = ( WriteConvertedRandomAccessibleInterval< ?, A > ) source;
+			fusedSource = ( RandomAccessibleInterval ) inner.fusedSource;
+			fusedConverter = new ComposedSamplerConverter( inner.fusedConverter, converter );
+		}
+		else
+		{
+			fusedSource = source;
+			fusedConverter = converter;
+		}
 	}
 
 	@Override
 	public WriteConvertedRandomAccess< A, B > randomAccess()
 	{
-		return new WriteConvertedRandomAccess< A, B >( sourceInterval.randomAccess(), converter );
+		return new WriteConvertedRandomAccess< A, B >( fusedSource.randomAccess(), fusedConverter );
 	}
 
 	@Override
 	public WriteConvertedRandomAccess< A, B > randomAccess( final Interval interval )
 	{
-		return new WriteConvertedRandomAccess< A, B >( sourceInterval.randomAccess( interval ), converter );
+		return new WriteConvertedRandomAccess< A, B >( fusedSource.randomAccess( interval ), fusedConverter );
 	}
 }
@@ -33,7 +33,18 @@
  */
 package net.imglib2.display.projector;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import net.imglib2.Point;
+import net.imglib2.converter.ComposedConverter;
+import net.imglib2.converter.Converter;
 import net.imglib2.display.projector.sampler.SamplingProjector2D;
 import net.imglib2.display.projector.specialized.ArrayImgXYByteProjector;
 
@@ -47,6 +58,13 @@ import net.imglib2.display.projector.specialized.ArrayImgXYByteProjector;
  * point to project data into a 2 dimensional representation. <br>
  * A basic example is the extraction of a data plain (containing the reference
  * point) by sampling two axes
+ * <p>
+ * If an {@link ExecutorService} is {@link #setExecutorService set}, sub
+ * classes that support it render the target in horizontal stripes in
+ * parallel. Each stripe uses its own source accesses and converter copies
+ * (see {@link ComposedConverter#copyOf(Converter)}), so converters must
+ * otherwise be safe to share between threads.
+ * </p>
  * 
  * @author Michael Zinsmaier
  * @author Martin Horn
@@ -74,4 +92,112 @@ public abstract class AbstractProjector2D extends Point implements Projector
 		max = new long[ n ];
 	}
 
+	/**
+	 * Renders rows {@code minY} to {@code maxY} (inclusive) of the target.
+	 */
+	protected interface Stripe
+	{
+		/**
+		 * @return whether the stripe is complete. Projectors that do not track
+		 *         completeness return {@code true}.
+		 */
+		public boolean map( long minY, long maxY );
+	}
+
+	protected ExecutorService executorService = null;
+
+	protected int numTasks = 1;
+
+	/**
+	 * Render subsequent {@link #map()} calls in {@code numTasks} horizontal
+	 * stripes on {@code executorService}. With {@code null}, {@link #map()}
+	 * renders on the calling thread.
+	 */
+	public void setExecutorService( final ExecutorService executorService, final int numTasks )
+	{
+		this.executorService = executorService;
+		this.numTasks = Math.max( 1, numTasks );
+	}
+
+	public ExecutorService getExecutorService()
+	{
+		return executorService;
+	}
+
+	public int getNumTasks()
+	{
+		return numTasks;
+	}
+
+	/**
+	 * Split rows {@code minY} to {@code maxY} into {@link #numTasks} stripes
+	 * of similar height and render them on the {@link #executorService}, or
+	 * render all rows on the calling thread if there is none. Returns when all
+	 * stripes are done.
+	 * <p>
+	 * The calling thread renders stripes as well, and only waits for stripes
+	 * that other threads have started. So this does not deadlock if called
+	 * from a task running on the same (bounded) {@link #executorService}.
+	 * </p>
+	 *
+	 * @return whether all stripes are complete.
+	 */
+	protected boolean mapStripes( final long minY, final long maxY, final Stripe stripe )
+	{
+		final long height = maxY - minY + 1;
+		final int tasks = ( int ) Math.min( numTasks, height );
+		if ( executorService == null || tasks <= 1 )
+			return stripe.map( minY, maxY );
+
+		final long stripeHeight = ( height + tasks - 1 ) / tasks;
+		final int numStripes = ( int ) ( ( height + stripeHeight - 1 ) / stripeHeight );
+		final AtomicInteger nextStripe = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch( numStripes );
+		final AtomicBoolean complete = new AtomicBoolean( true );
+		final AtomicReference< Throwable > failure = new AtomicReference<>();
+		final Runnable worker = () -> {
+			for ( int i = nextStripe.getAndIncrement(); i < numStripes; i = nextStripe.getAndIncrement() )
+			{
+				try
+				{
+					final long y0 = minY + i * stripeHeight;
+					if ( !stripe.map( y0, Math.min( y0 + stripeHeight - 1, maxY ) ) )
+						complete.set( false );
+				}
+				catch ( final Throwable t )
+				{
+					failure.compareAndSet( null, t );
+				}
+				finally
+				{
+					done.countDown();
+				}
+			}
+		};
+
+		final List< Future< ? > > futures = new ArrayList<>();
+		try
+		{
+			for ( int t = 1; t < numStripes; ++t )
+				futures.add( executorService.submit( worker ) );
+			worker.run();
+			done.await();
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+		finally
+		{
+			// tasks that did not start yet have nothing left to do
+			for ( final Future< ? > future : futures )
+				future.cancel( false );
+		}
+
+		final Throwable cause = failure.get();
+		if ( cause != null )
+			throw cause instanceof RuntimeException ? ( RuntimeException ) cause : new RuntimeException( cause );
+		return complete.get();
+	}
 }
@@ -39,7 +39,15 @@ import net.imglib2.FlatIterationOrder;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
+import net.imglib2.blocks.RealBlocks;
+import net.imglib2.converter.BatchConverter;
+import net.imglib2.converter.ComposedConverter;
 import net.imglib2.converter.Converter;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
 import net.imglib2.view.RandomAccessibleIntervalCursor;
 import net.imglib2.view.Views;
 
@@ -48,6 +56,10 @@ import net.imglib2.view.Views;
  * result. The output of the projection is written into a {@link IterableInterval}.
  * 
  * Depending on input and output an optimal strategy is chosen in the map() method.
+ * If the converter is a {@link BatchConverter} that
+ * {@link BatchConverter#isApplicable(Object) may be used in bulk}, the target is an
+ * {@link ArrayImg} and the source values are {@link RealType}s, the plane is
+ * converted in bulk into the target's primitive array.
  * 
  * Starting from the reference point two dimensions are sampled such
  * that a plain gets cut out of a higher dimensional data volume. <br>
@@ -114,6 +126,42 @@ public class IterableIntervalProjector2D< A, B > extends AbstractProjector2D
 		max[ dimX ] = target.max( 0 );
 		max[ dimY ] = target.max( 1 );
 
+		// stripes are located in the target by their offset in flat
+		// iteration order
+		if ( target.iterationOrder() instanceof FlatIterationOrder )
+			mapStripes( target.min( 1 ), target.max( 1 ), new Stripe()
+			{
+				@Override
+				public boolean map( final long minY, final long maxY )
+				{
+					mapRows( minY, maxY );
+					return true;
+				}
+			} );
+		else
+			mapRows( target.min( 1 ), target.max( 1 ) );
+	}
+
+	/**
+	 * Map the target rows {@code minY} to {@code maxY}. If these are not all
+	 * rows, the target must be in flat iteration order.
+	 */
+	protected void mapRows( final long minY, final long maxY )
+	{
+		final long[] sourceMin = min.clone();
+		final long[] sourceMax = max.clone();
+		sourceMin[ dimY ] = minY;
+		sourceMax[ dimY ] = maxY;
+		final FinalInterval sourceInterval = new FinalInterval( sourceMin, sourceMax );
+
+		final long width = target.dimension( 0 );
+		final long height = maxY - minY + 1;
+		final long offset = ( minY - target.min( 1 ) ) * width;
+		final Converter< ? super A, B > converter = ComposedConverter.copyOf( this.converter );
+
+		if ( BatchConverter.isApplicable( converter ) && mapBatch( sourceInterval, converter, offset ) )
+			return;
+
 		// TODO: this is ugly, but the only way to make sure, that iteration
 		// order fits in the case of one sized dims. Tobi?
 		final IterableInterval< A > ii = Views.iterable( Views.interval( source, new FinalInterval( min, max ) ) );
@@ -123,7 +171,9 @@ public class IterableIntervalProjector2D< A, B > extends AbstractProjector2D
 		if ( target.iterationOrder().equals( ii.iterationOrder() ) && !( sourceCursor instanceof RandomAccessibleIntervalCursor ) )
 		{
 			final Cursor< B > targetCursor = target.cursor();
-			while ( targetCursor.hasNext() )
+			sourceCursor.jumpFwd( offset );
+			targetCursor.jumpFwd( offset );
+			for ( long i = width * height; i > 0; --i )
 			{
 				converter.convert( sourceCursor.next(), targetCursor.next() );
 			}
@@ -131,19 +181,14 @@ public class IterableIntervalProjector2D< A, B > extends AbstractProjector2D
 		else if ( target.iterationOrder() instanceof FlatIterationOrder )
 		{
 			final Cursor< B > targetCursor = target.cursor();
-			targetCursor.fwd();
-			final FinalInterval sourceInterval = new FinalInterval( min, max );
+			targetCursor.jumpFwd( offset + 1 );
 
 			// use localizing cursor
 			final RandomAccess< A > sourceRandomAccess = source.randomAccess( sourceInterval );
-			sourceRandomAccess.setPosition( position );
-
-			final long cr = -target.dimension( 0 );
 
-			final long width = target.dimension( 0 );
-			final long height = target.dimension( 1 );
+			final long cr = -width;
 
-			sourceRandomAccess.setPosition( min );
+			sourceRandomAccess.setPosition( sourceMin );
 			for ( long y = 0; y < height; ++y )
 			{
 				for ( long x = 0; x < width; ++x )
@@ -174,4 +219,43 @@ public class IterableIntervalProjector2D< A, B > extends AbstractProjector2D
 			}
 		}
 	}
+
+	/**
+	 * Convert {@code sourceInterval} with the {@link BatchConverter} directly
+	 * into the primitive array of the target, starting at {@code offset}, if
+	 * possible.
+	 *
+	 * @return whether the interval was converted.
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private boolean mapBatch( final FinalInterval sourceInterval, final Converter< ? super A, B > converter, final long offset )
+	{
+		if ( !( target instanceof ArrayImg ) || target.numDimensions() != 2 || numDimensions != min.length || dimX == dimY )
+			return false;
+		final Object access = ( ( ArrayImg< ?, ? > ) target ).update( null );
+		if ( !( access instanceof ArrayDataAccess ) )
+			return false;
+
+		final RandomAccess< A > sourceRandomAccess = source.randomAccess( sourceInterval );
+		sourceRandomAccess.setPosition( Intervals.minAsLongArray( sourceInterval ) );
+		final A a = sourceRandomAccess.get();
+		if ( !( a instanceof RealType ) || ( a instanceof IntegerType && ( ( RealType< ? > ) a ).getBitsPerPixel() > 32 ) )
+			return false;
+
+		// the block is copied in flat order, so dimX must come first
+		final Object array = ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray();
+		if ( dimX < dimY )
+			RealBlocks.convert( ( RandomAccessible ) source, sourceInterval, ( BatchConverter ) converter, array, ( int ) offset );
+		else
+		{
+			final long[] permutedMin = Intervals.minAsLongArray( sourceInterval );
+			final long[] permutedMax = Intervals.maxAsLongArray( sourceInterval );
+			permutedMin[ dimX ] = sourceInterval.min( dimY );
+			permutedMin[ dimY ] = sourceInterval.min( dimX );
+			permutedMax[ dimX ] = sourceInterval.max( dimY );
+			permutedMax[ dimY ] = sourceInterval.max( dimX );
+			RealBlocks.convert( ( RandomAccessible ) Views.permute( source, dimX, dimY ), new FinalInterval( permutedMin, permutedMax ), ( BatchConverter ) converter, array, ( int ) offset );
+		}
+		return true;
+	}
 }
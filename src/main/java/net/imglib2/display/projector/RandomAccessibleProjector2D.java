@@ -39,6 +39,7 @@ import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.ComposedConverter;
 import net.imglib2.converter.Converter;
 
 /**
@@ -119,7 +120,29 @@ public class RandomAccessibleProjector2D< A, B > extends AbstractProjector2D
 		min[ dimY ] = target.min( dimY );
 		max[ dimX ] = target.max( dimX );
 		max[ dimY ] = target.max( dimY );
-		final FinalInterval sourceInterval = new FinalInterval( min, max );
+
+		mapStripes( min[ dimY ], max[ dimY ], new Stripe()
+		{
+			@Override
+			public boolean map( final long minY, final long maxY )
+			{
+				mapRows( minY, maxY );
+				return true;
+			}
+		} );
+	}
+
+	/**
+	 * Map the rows {@code minY} to {@code maxY} of the target.
+	 */
+	protected void mapRows( final long minY, final long maxY )
+	{
+		final long[] sourceMin = min.clone();
+		final long[] sourceMax = max.clone();
+		sourceMin[ dimY ] = minY;
+		sourceMax[ dimY ] = maxY;
+		final FinalInterval sourceInterval = new FinalInterval( sourceMin, sourceMax );
+		final Converter< ? super A, B > converter = ComposedConverter.copyOf( this.converter );
 
 		final long cr = -target.dimension( dimX );
 
@@ -127,11 +150,11 @@ public class RandomAccessibleProjector2D< A, B > extends AbstractProjector2D
 		final RandomAccess< A > sourceRandomAccess = source.randomAccess( sourceInterval );
 
 		final long width = target.dimension( dimX );
-		final long height = target.dimension( dimY );
+		final long height = maxY - minY + 1;
 
-		sourceRandomAccess.setPosition( min );
-		targetRandomAccess.setPosition( min[ dimX ], dimX );
-		targetRandomAccess.setPosition( min[ dimY ], dimY );
+		sourceRandomAccess.setPosition( sourceMin );
+		targetRandomAccess.setPosition( sourceMin[ dimX ], dimX );
+		targetRandomAccess.setPosition( minY, dimY );
 		for ( long y = 0; y < height; ++y )
 		{
 			for ( long x = 0; x < width; ++x )
@@ -38,12 +38,21 @@ import java.util.ArrayList;
 
 import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
+import net.imglib2.FlatIterationOrder;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.blocks.RealBlocks;
+import net.imglib2.converter.BatchConverter;
+import net.imglib2.converter.ComposedConverter;
 import net.imglib2.converter.Converter;
 import net.imglib2.display.projector.AbstractProjector2D;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
 import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
 
 /**
  * Creates a composite image from across multiple dimensional positions along an
@@ -81,6 +90,12 @@ public class CompositeXYProjector< A > extends AbstractProjector2D
 
 	private final RandomAccessibleInterval< A > source;
 
+	/**
+	 * Number of pixels per channel that are converted in one go when mapping
+	 * to a target in flat iteration order.
+	 */
+	private static final int CHUNK_SIZE = 1 << 14;
+
 	@SuppressWarnings( "unchecked" )
 	public CompositeXYProjector( final RandomAccessibleInterval< A > source, final IterableInterval< ARGBType > target, final ArrayList< Converter< A, ARGBType >> converters, final int dimIndex )
 	{
@@ -153,39 +168,167 @@ public class CompositeXYProjector< A > extends AbstractProjector2D
 		max[ 0 ] = target.max( 0 );
 		max[ 1 ] = target.max( 1 );
 
+		final int size;
 		if ( dimIndex < 0 )
 		{
 			// there is only converter[0]
 			// use it to map the current position
-			final RandomAccess< A > sourceRandomAccess = source.randomAccess( new FinalInterval( min, max ) );
-			sourceRandomAccess.setPosition( min );
-			mapSingle( sourceRandomAccess, converters.get( 0 ) );
+			currentConverters[ 0 ] = converters.get( 0 );
+			size = 1;
+		}
+		else
+		{
+			size = updateCurrentArrays();
+
+			min[ dimIndex ] = max[ dimIndex ] = currentPositions[ 0 ];
+			for ( int i = 1; i < size; ++i )
+				if ( currentPositions[ i ] < min[ dimIndex ] )
+					min[ dimIndex ] = currentPositions[ i ];
+				else if ( currentPositions[ i ] > max[ dimIndex ] )
+					max[ dimIndex ] = currentPositions[ i ];
+		}
+
+		final Stripe stripe = new Stripe()
+		{
+			@Override
+			public boolean map( final long minY, final long maxY )
+			{
+				mapRows( minY, maxY, size );
+				return true;
+			}
+		};
+
+		// stripes are located in the target by their offset in flat
+		// iteration order
+		if ( target.iterationOrder() instanceof FlatIterationOrder )
+			mapStripes( target.min( 1 ), target.max( 1 ), stripe );
+		else
+			stripe.map( target.min( 1 ), target.max( 1 ) );
+	}
+
+	/**
+	 * Map the target rows {@code minY} to {@code maxY} using the first
+	 * {@code size} {@link #currentConverters}. If these are not all rows, the
+	 * target must be in flat iteration order.
+	 *
+	 * For targets in flat iteration order, the rows are processed in chunks of
+	 * about {@link #CHUNK_SIZE} pixels. Each channel of a chunk is converted
+	 * into an {@code int[]} buffer (in bulk, if the converter is a
+	 * {@link BatchConverter}) and the buffers are then summed and clamped
+	 * component-wise.
+	 */
+	protected void mapRows( final long minY, final long maxY, final int size )
+	{
+		if ( !( target.iterationOrder() instanceof FlatIterationOrder ) )
+		{
+			mapPixels( minY, maxY, size );
 			return;
 		}
 
-		final int size = updateCurrentArrays();
+		final int width = ( int ) target.dimension( 0 );
+		final int rowsPerChunk = Math.max( 1, CHUNK_SIZE / width );
+		final int capacity = rowsPerChunk * width;
+
+		final long[] chunkMin = min.clone();
+		final long[] chunkMax = max.clone();
+		chunkMin[ 1 ] = minY;
+		chunkMax[ 1 ] = maxY;
+		final RandomAccess< A > sourceRandomAccess = source.randomAccess( new FinalInterval( chunkMin, chunkMax ) );
+		sourceRandomAccess.setPosition( chunkMin );
+		final A a = sourceRandomAccess.get();
+		final boolean batch = a instanceof RealType && !( a instanceof IntegerType && ( ( RealType< ? > ) a ).getBitsPerPixel() > 32 );
+
+		final Converter< A, ARGBType >[] stripeConverters = copyCurrentConverters( size );
+		final ARGBType bi = new ARGBType();
+
+		final int[] argb = new int[ capacity ];
+		final int[] channel = size == 1 ? argb : new int[ capacity ];
+		final int[] aSum = size == 1 ? null : new int[ capacity ];
+		final int[] rSum = size == 1 ? null : new int[ capacity ];
+		final int[] gSum = size == 1 ? null : new int[ capacity ];
+		final int[] bSum = size == 1 ? null : new int[ capacity ];
+
+		long offset = ( minY - target.min( 1 ) ) * width;
+		final int[] targetArray = targetArray();
+		final Cursor< ARGBType > targetCursor = targetArray == null ? target.cursor() : null;
+		if ( targetCursor != null )
+			targetCursor.jumpFwd( offset );
+
+		for ( long y = minY; y <= maxY; y += rowsPerChunk )
+		{
+			final int rows = ( int ) Math.min( rowsPerChunk, maxY - y + 1 );
+			final int n = rows * width;
+			chunkMin[ 1 ] = y;
+			chunkMax[ 1 ] = y + rows - 1;
+
+			if ( size == 1 )
+				convertChannel( sourceRandomAccess, chunkMin, chunkMax, currentPositions[ 0 ], stripeConverters[ 0 ], batch, bi, argb );
+			else
+			{
+				for ( int i = 0; i < size; ++i )
+				{
+					convertChannel( sourceRandomAccess, chunkMin, chunkMax, currentPositions[ i ], stripeConverters[ i ], batch, bi, channel );
+					if ( i == 0 )
+						for ( int j = 0; j < n; ++j )
+						{
+							final int v = channel[ j ];
+							aSum[ j ] = v >>> 24;
+							rSum[ j ] = ( v >> 16 ) & 0xff;
+							gSum[ j ] = ( v >> 8 ) & 0xff;
+							bSum[ j ] = v & 0xff;
+						}
+					else
+						for ( int j = 0; j < n; ++j )
+						{
+							final int v = channel[ j ];
+							aSum[ j ] += v >>> 24;
+							rSum[ j ] += ( v >> 16 ) & 0xff;
+							gSum[ j ] += ( v >> 8 ) & 0xff;
+							bSum[ j ] += v & 0xff;
+						}
+				}
+				for ( int j = 0; j < n; ++j )
+					argb[ j ] = ( Math.min( aSum[ j ], 255 ) << 24 ) | ( Math.min( rSum[ j ], 255 ) << 16 ) | ( Math.min( gSum[ j ], 255 ) << 8 ) | Math.min( bSum[ j ], 255 );
+			}
+
+			if ( targetArray != null )
+				System.arraycopy( argb, 0, targetArray, ( int ) offset, n );
+			else
+				for ( int j = 0; j < n; ++j )
+					targetCursor.next().set( argb[ j ] );
+			offset += n;
+		}
+	}
+
+	/**
+	 * Map the target rows {@code minY} to {@code maxY} pixel by pixel, using
+	 * the first {@code size} {@link #currentConverters}.
+	 */
+	protected void mapPixels( final long minY, final long maxY, final int size )
+	{
+		final long[] sourceMin = min.clone();
+		final long[] sourceMax = max.clone();
+		sourceMin[ 1 ] = minY;
+		sourceMax[ 1 ] = maxY;
+		final RandomAccess< A > sourceRandomAccess = source.randomAccess( new FinalInterval( sourceMin, sourceMax ) );
+		sourceRandomAccess.setPosition( sourceMin );
 
-		min[ dimIndex ] = max[ dimIndex ] = currentPositions[ 0 ];
-		for ( int i = 1; i < size; ++i )
-			if ( currentPositions[ i ] < min[ dimIndex ] )
-				min[ dimIndex ] = currentPositions[ i ];
-			else if ( currentPositions[ i ] > max[ dimIndex ] )
-				max[ dimIndex ] = currentPositions[ i ];
-		final RandomAccess< A > sourceRandomAccess = source.randomAccess( new FinalInterval( min, max ) );
-		sourceRandomAccess.setPosition( min );
+		final Cursor< ARGBType > targetCursor = target.localizingCursor();
+		targetCursor.jumpFwd( ( minY - target.min( 1 ) ) * target.dimension( 0 ) );
+		final long count = ( maxY - minY + 1 ) * target.dimension( 0 );
 
 		if ( size == 1 )
 		{
 			// there is only one active converter: converter[0]
 			// use it to map the slice at currentPositions[0]
-			mapSingle( sourceRandomAccess, currentConverters[ 0 ] );
+			mapSingle( sourceRandomAccess, ComposedConverter.copyOf( currentConverters[ 0 ] ), targetCursor, count );
 			return;
 		}
 
-		final Cursor< ARGBType > targetCursor = target.localizingCursor();
+		final Converter< A, ARGBType >[] stripeConverters = copyCurrentConverters( size );
 		final ARGBType bi = new ARGBType();
 
-		while ( targetCursor.hasNext() )
+		for ( long j = 0; j < count; ++j )
 		{
 			targetCursor.fwd();
 			sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), 0 );
@@ -194,7 +337,7 @@ public class CompositeXYProjector< A > extends AbstractProjector2D
 			for ( int i = 0; i < size; i++ )
 			{
 				sourceRandomAccess.setPosition( currentPositions[ i ], dimIndex );
-				currentConverters[ i ].convert( sourceRandomAccess.get(), bi );
+				stripeConverters[ i ].convert( sourceRandomAccess.get(), bi );
 
 				// accumulate converted result
 				final int value = bi.get();
@@ -263,10 +406,80 @@ public class CompositeXYProjector< A > extends AbstractProjector2D
 		return currentSize;
 	}
 
+	/**
+	 * Convert the source block {@code chunkMin} to {@code chunkMax} at
+	 * position {@code channelPosition} (in dimension {@link #dimIndex}) into
+	 * {@code dest}, in flat order.
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private void convertChannel( final RandomAccess< A > sourceRandomAccess, final long[] chunkMin, final long[] chunkMax, final long channelPosition, final Converter< A, ARGBType > converter, final boolean batch, final ARGBType bi, final int[] dest )
+	{
+		if ( dimIndex >= 0 )
+			chunkMin[ dimIndex ] = chunkMax[ dimIndex ] = channelPosition;
+
+		if ( batch && BatchConverter.isApplicable( converter ) )
+		{
+			RealBlocks.convert( ( RandomAccessible ) source, new FinalInterval( chunkMin, chunkMax ), ( BatchConverter ) converter, dest );
+			return;
+		}
+
+		final int width = ( int ) ( chunkMax[ 0 ] - chunkMin[ 0 ] + 1 );
+		final long rows = chunkMax[ 1 ] - chunkMin[ 1 ] + 1;
+		sourceRandomAccess.setPosition( chunkMin );
+		int j = 0;
+		for ( long y = 0; y < rows; ++y )
+		{
+			for ( int x = 0; x < width; ++x )
+			{
+				converter.convert( sourceRandomAccess.get(), bi );
+				dest[ j++ ] = bi.get();
+				sourceRandomAccess.fwd( 0 );
+			}
+			sourceRandomAccess.move( -width, 0 );
+			sourceRandomAccess.fwd( 1 );
+		}
+	}
+
+	/**
+	 * Get own instances of the first {@code size} current converters for
+	 * rendering one stripe.
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private Converter< A, ARGBType >[] copyCurrentConverters( final int size )
+	{
+		final Converter< A, ARGBType >[] copies = new Converter[ size ];
+		for ( int i = 0; i < size; ++i )
+			copies[ i ] = ComposedConverter.copyOf( currentConverters[ i ] );
+		return copies;
+	}
+
+	/**
+	 * @return the {@code int[]} storage of {@link #target}, if it is a
+	 *         2D {@link ArrayImg}, or {@code null} otherwise.
+	 */
+	private int[] targetArray()
+	{
+		if ( !( target instanceof ArrayImg ) || target.numDimensions() != 2 )
+			return null;
+		final Object access = ( ( ArrayImg< ?, ? > ) target ).update( null );
+		if ( !( access instanceof ArrayDataAccess ) )
+			return null;
+		final Object array = ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray();
+		return array instanceof int[] ? ( int[] ) array : null;
+	}
+
 	protected void mapSingle( final RandomAccess< A > sourceRandomAccess, final Converter< A, ARGBType > conv )
 	{
-		final Cursor< ARGBType > targetCursor = target.localizingCursor();
-		while ( targetCursor.hasNext() )
+		mapSingle( sourceRandomAccess, conv, target.localizingCursor(), target.size() );
+	}
+
+	/**
+	 * Map the next {@code count} pixels of {@code targetCursor} with a single
+	 * converter.
+	 */
+	protected void mapSingle( final RandomAccess< A > sourceRandomAccess, final Converter< A, ARGBType > conv, final Cursor< ARGBType > targetCursor, final long count )
+	{
+		for ( long j = 0; j < count; ++j )
 		{
 			targetCursor.fwd();
 			sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), 0 );
@@ -33,13 +33,18 @@
  */
 package net.imglib2.display.projector.volatiles;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
 import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
+import net.imglib2.FlatIterationOrder;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.Volatile;
+import net.imglib2.converter.ComposedConverter;
 import net.imglib2.converter.Converter;
 import net.imglib2.display.projector.IterableIntervalProjector2D;
 import net.imglib2.view.Views;
@@ -48,6 +53,13 @@ import net.imglib2.view.Views;
  * {@link IterableIntervalProjector2D} for {@link Volatile} input. After each
  * {@link #map()} call, the projector has a {@link #isValid() state} that
  * signalizes whether all projected pixels were valid.
+ * <p>
+ * In {@link #setProgressive(boolean) progressive} mode, {@link #map()}
+ * re-renders only pixels that were invalid in the previous {@link #map()}, so
+ * repeated calls cost in proportion to the data that is still missing.
+ * Progressive rendering can be limited by a
+ * {@link #setTimeBudget(long, TimeUnit) time budget}.
+ * </p>
  *
  * @author Stephan Saalfeld
  */
@@ -55,9 +67,33 @@ public class Volatile2DRandomAccessibleProjector< T, A extends Volatile< T >, B
 {
 	protected boolean valid = false;
 
+	protected final RandomAccessibleInterval< B > targetInterval;
+
+	protected boolean progressive = false;
+
+	protected long timeBudgetNanos = 0;
+
+	/**
+	 * Pixels of the target, in flat order, that were invalid or not rendered
+	 * after the last progressive {@link #map()}. {@code null} if the next
+	 * progressive {@link #map()} must render all pixels.
+	 */
+	private boolean[] invalidPixels = null;
+
+	/**
+	 * Number of {@link #invalidPixels} per target row.
+	 */
+	private int[] invalidPerRow = null;
+
+	/**
+	 * Source position at which {@link #invalidPixels} were rendered.
+	 */
+	private long[] invalidPixelsPosition = null;
+
 	public Volatile2DRandomAccessibleProjector( final int dimX, final int dimY, final RandomAccessible< A > source, final RandomAccessibleInterval< B > target, final Converter< ? super A, B > converter )
 	{
 		super( dimX, dimY, source, Views.iterable( target ), converter );
+		this.targetInterval = target;
 	}
 
 	/**
@@ -68,6 +104,43 @@ public class Volatile2DRandomAccessibleProjector< T, A extends Volatile< T >, B
 		return valid;
 	}
 
+	/**
+	 * In progressive mode, {@link #map()} re-renders only the pixels that
+	 * were invalid after the previous {@link #map()} at the same position,
+	 * and pixels that a {@link #setTimeBudget time budget} did not let it
+	 * reach. Call {@link #invalidateAll()} when anything else changes, e.g.
+	 * the converter.
+	 */
+	public void setProgressive( final boolean progressive )
+	{
+		this.progressive = progressive;
+		invalidateAll();
+	}
+
+	public boolean isProgressive()
+	{
+		return progressive;
+	}
+
+	/**
+	 * Limit the time that a progressive {@link #map()} spends rendering.
+	 * Rows that are not rendered within the budget stay invalid and are
+	 * rendered by the next {@link #map()}. A non-positive {@code time} means
+	 * no limit.
+	 */
+	public void setTimeBudget( final long time, final TimeUnit unit )
+	{
+		timeBudgetNanos = Math.max( 0, unit.toNanos( time ) );
+	}
+
+	/**
+	 * Render all pixels in the next progressive {@link #map()}.
+	 */
+	public void invalidateAll()
+	{
+		invalidPixels = null;
+	}
+
 	/**
 	 * projects data from the source to the target and applies the former
 	 * specified {@link Converter} e.g. for normalization.
@@ -84,30 +157,155 @@ public class Volatile2DRandomAccessibleProjector< T, A extends Volatile< T >, B
 		max[ 0 ] = target.max( 0 );
 		max[ 1 ] = target.max( 1 );
 
+		if ( progressive )
+		{
+			mapProgressive();
+			return;
+		}
+
+		// stripes are located in the target by their offset in flat
+		// iteration order
+		if ( target.iterationOrder() instanceof FlatIterationOrder )
+			valid = mapStripes( target.min( 1 ), target.max( 1 ), new Stripe()
+			{
+				@Override
+				public boolean map( final long minY, final long maxY )
+				{
+					return mapVolatileRows( minY, maxY );
+				}
+			} );
+		else
+			valid = mapVolatileRows( target.min( 1 ), target.max( 1 ) );
+	}
+
+	/**
+	 * Map the target rows {@code minY} to {@code maxY}. If these are not all
+	 * rows, the target must be in flat iteration order.
+	 *
+	 * @return true if all mapped pixels were {@link Volatile#isValid() valid}.
+	 */
+	protected boolean mapVolatileRows( final long minY, final long maxY )
+	{
+		final long width = target.dimension( 0 );
+		final long offset = ( minY - target.min( 1 ) ) * width;
+		final long size = ( maxY - minY + 1 ) * width;
+		final Converter< ? super A, B > converter = ComposedConverter.copyOf( this.converter );
+
 		final IterableInterval< A > srcIterable = Views.iterable( Views.interval( source, new FinalInterval( min, max ) ) );
 		final Cursor< B > targetCursor = target.localizingCursor();
+		targetCursor.jumpFwd( offset );
 
+		boolean allValid = true;
 		if ( target.iterationOrder().equals( srcIterable.iterationOrder() ) )
 		{
 			// use cursors
 			final Cursor< A > sourceCursor = srcIterable.cursor();
-			while ( targetCursor.hasNext() )
+			sourceCursor.jumpFwd( offset );
+			for ( long i = 0; i < size; ++i )
 			{
-				converter.convert( sourceCursor.next(), targetCursor.next() );
+				final A a = sourceCursor.next();
+				converter.convert( a, targetCursor.next() );
+				allValid &= a.isValid();
 			}
 		}
 		else
 		{
 			// use localizing cursor
 			final RandomAccess< A > sourceRandomAccess = source.randomAccess();
-			while ( targetCursor.hasNext() )
+			sourceRandomAccess.setPosition( min );
+			for ( long i = 0; i < size; ++i )
 			{
 				final B b = targetCursor.next();
 				sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), 0 );
 				sourceRandomAccess.setPosition( targetCursor.getLongPosition( 1 ), 1 );
 
-				converter.convert( sourceRandomAccess.get(), b );
+				final A a = sourceRandomAccess.get();
+				converter.convert( a, b );
+				allValid &= a.isValid();
+			}
+		}
+		return allValid;
+	}
+
+	/**
+	 * Render the pixels marked in {@link #invalidPixels}, or all pixels if
+	 * the position changed since the last progressive {@link #map()}.
+	 */
+	protected void mapProgressive()
+	{
+		final int width = ( int ) target.dimension( 0 );
+		final int height = ( int ) target.dimension( 1 );
+		if ( invalidPixels == null || !Arrays.equals( min, invalidPixelsPosition ) )
+		{
+			invalidPixels = new boolean[ width * height ];
+			Arrays.fill( invalidPixels, true );
+			invalidPerRow = new int[ height ];
+			Arrays.fill( invalidPerRow, width );
+			invalidPixelsPosition = min.clone();
+		}
+
+		final long deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+		valid = mapStripes( target.min( 1 ), target.max( 1 ), new Stripe()
+		{
+			@Override
+			public boolean map( final long minY, final long maxY )
+			{
+				return mapInvalidRows( minY, maxY, deadline );
+			}
+		} );
+	}
+
+	/**
+	 * Re-render the invalid pixels in target rows {@code minY} to
+	 * {@code maxY}, row by row until {@code deadline} (as by
+	 * {@link System#nanoTime()}) has passed. At least one row is rendered.
+	 *
+	 * @return true if all pixels in the rows are rendered and valid.
+	 */
+	protected boolean mapInvalidRows( final long minY, final long maxY, final long deadline )
+	{
+		final int width = ( int ) target.dimension( 0 );
+		final Converter< ? super A, B > converter = ComposedConverter.copyOf( this.converter );
+		final RandomAccess< A > sourceRandomAccess = source.randomAccess();
+		final RandomAccess< B > targetRandomAccess = targetInterval.randomAccess();
+		sourceRandomAccess.setPosition( min );
+		targetRandomAccess.setPosition( target.min( 0 ), 0 );
+
+		boolean allValid = true;
+		boolean rendered = false;
+		for ( long y = minY; y <= maxY; ++y )
+		{
+			final int row = ( int ) ( y - target.min( 1 ) );
+			if ( invalidPerRow[ row ] == 0 )
+				continue;
+
+			// render at least one row, so that every call makes progress
+			if ( rendered && System.nanoTime() > deadline )
+				return false;
+			rendered = true;
+
+			sourceRandomAccess.setPosition( min[ 0 ], 0 );
+			sourceRandomAccess.setPosition( y, 1 );
+			targetRandomAccess.setPosition( target.min( 0 ), 0 );
+			targetRandomAccess.setPosition( y, 1 );
+			int invalid = 0;
+			for ( int x = 0, i = row * width; x < width; ++x, ++i )
+			{
+				if ( invalidPixels[ i ] )
+				{
+					final A a = sourceRandomAccess.get();
+					converter.convert( a, targetRandomAccess.get() );
+					if ( a.isValid() )
+						invalidPixels[ i ] = false;
+					else
+						++invalid;
+				}
+				sourceRandomAccess.fwd( 0 );
+				targetRandomAccess.fwd( 0 );
 			}
+			invalidPerRow[ row ] = invalid;
+			allValid &= invalid == 0;
 		}
+		return allValid;
 	}
 }
@@ -38,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import net.imglib2.AbstractCursor;
 import net.imglib2.Cursor;
 import net.imglib2.Interval;
 import net.imglib2.Positionable;
@@ -47,24 +48,42 @@ import net.imglib2.img.Img;
 import net.imglib2.img.ImgFactory;
 import net.imglib2.img.array.ArrayImgFactory;
 import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.util.IntervalIndexer;
 
 /**
  * This class represents an n-dimensional set of counters. Histogram
  * implementations use these for tracking value counts.
+ * <p>
+ * Counts are stored densely in an {@link Img} unless the number of bins
+ * exceeds {@link #MAX_DENSE_BINS}. In that case only non-zero counts are
+ * stored, in a hash map keyed by the flat bin index. Use
+ * {@link #nonZeroCursor()} to visit the non-zero bins efficiently with
+ * either storage.
  *
  * @author Barry DeZonia
  */
 public class DiscreteFrequencyDistribution implements Img< LongType >
 {
 
+	/**
+	 * The maximum number of bins for which counts are stored densely.
+	 */
+	public static final long MAX_DENSE_BINS = 1 << 24;
+
 	// -- instance variables --
 
 	private final Img< LongType > counts;
 
+	/** {@link #counts} if they are stored sparsely, otherwise {@code null} */
+	private final SparseLongImg sparse;
+
 	private final RandomAccess< LongType > accessor;
 
 	private long totalValues;
 
+	/** incremented by every change of counts through this class */
+	private long modificationCount;
+
 	// -- public api --
 
 	/**
@@ -81,7 +100,20 @@ public class DiscreteFrequencyDistribution implements Img< LongType >
 
 		// then build object
 
-		counts = new ArrayImgFactory< LongType >().create( binCounts, new LongType() );
+		double numBins = 1;
+		for ( int i = 0; i < binCounts.length; i++ )
+			numBins *= binCounts[ i ];
+		if ( numBins > MAX_DENSE_BINS )
+		{
+			if ( numBins > Long.MAX_VALUE ) { throw new IllegalArgumentException( "too many bins" ); }
+			sparse = new SparseLongImg( binCounts );
+			counts = sparse;
+		}
+		else
+		{
+			sparse = null;
+			counts = new ArrayImgFactory< LongType >().create( binCounts, new LongType() );
+		}
 
 		accessor = counts.randomAccess();
 
@@ -95,21 +127,38 @@ public class DiscreteFrequencyDistribution implements Img< LongType >
 	public DiscreteFrequencyDistribution( final Img< LongType > img )
 	{
 		counts = img;
+		sparse = img instanceof SparseLongImg ? ( SparseLongImg ) img : null;
 		accessor = counts.randomAccess();
 		resetCounters();
 	}
 
+	/**
+	 * Returns true if only non-zero counts are stored.
+	 */
+	public boolean isSparse()
+	{
+		return sparse != null;
+	}
+
 	/**
 	 * Resets all frequency counts to zero.
 	 */
 	public void resetCounters()
 	{
+		if ( sparse != null )
+		{
+			sparse.map.clear();
+			totalValues = 0;
+			++modificationCount;
+			return;
+		}
 		final Cursor< LongType > cursor = counts.cursor();
 		while ( cursor.hasNext() )
 		{
 			cursor.next().setZero();
 		}
 		totalValues = 0;
+		++modificationCount;
 	}
 
 	/**
@@ -122,6 +171,8 @@ public class DiscreteFrequencyDistribution implements Img< LongType >
 			if ( binPos[ i ] < 0 || binPos[ i ] >= dimension( i ) )
 				return 0;
 		}
+		if ( sparse != null )
+			return sparse.map.get( sparse.index( binPos ) );
 		accessor.setPosition( binPos );
 		return accessor.get().get();
 	}
@@ -136,6 +187,7 @@ public class DiscreteFrequencyDistribution implements Img< LongType >
 		final long currentValue = accessor.get().get();
 		totalValues += ( value - currentValue );
 		accessor.get().set( value );
+		++modificationCount;
 	}
 
 	/**
@@ -153,9 +205,55 @@ public class DiscreteFrequencyDistribution implements Img< LongType >
 	 */
 	public void increment( final long[] binPos )
 	{
-		accessor.setPosition( binPos );
-		accessor.get().inc();
+		if ( sparse != null )
+			sparse.map.add( sparse.index( binPos ), 1 );
+		else
+		{
+			accessor.setPosition( binPos );
+			accessor.get().inc();
+		}
 		totalValues++;
+		++modificationCount;
+	}
+
+	/**
+	 * Adds frequency counts to all bins. The counts are given in flat order,
+	 * i.e., with the first dimension varying fastest.
+	 *
+	 * @param frequencies
+	 *            one count per bin
+	 */
+	public void addFrequencies( final long[] frequencies )
+	{
+		if ( frequencies.length != size() ) { throw new IllegalArgumentException( "expected " + size() + " frequency counts but got " + frequencies.length ); }
+		if ( sparse != null )
+		{
+			for ( int i = 0; i < frequencies.length; i++ )
+			{
+				if ( frequencies[ i ] != 0 )
+				{
+					sparse.map.add( i, frequencies[ i ] );
+					totalValues += frequencies[ i ];
+				}
+			}
+			++modificationCount;
+			return;
+		}
+		final long[] dims = new long[ numDimensions() ];
+		dimensions( dims );
+		final long[] binPos = new long[ numDimensions() ];
+		final Cursor< LongType > cursor = counts.localizingCursor();
+		long sum = 0;
+		while ( cursor.hasNext() )
+		{
+			final LongType count = cursor.next();
+			cursor.localize( binPos );
+			final long frequency = frequencies[ ( int ) IntervalIndexer.positionToIndex( binPos, dims ) ];
+			count.set( count.get() + frequency );
+			sum += frequency;
+		}
+		totalValues += sum;
+		++modificationCount;
 	}
 
 	/**
@@ -163,9 +261,24 @@ public class DiscreteFrequencyDistribution implements Img< LongType >
 	 */
 	public void decrement( final long[] binPos )
 	{
-		accessor.setPosition( binPos );
-		accessor.get().dec();
+		if ( sparse != null )
+			sparse.map.add( sparse.index( binPos ), -1 );
+		else
+		{
+			accessor.setPosition( binPos );
+			accessor.get().dec();
+		}
 		totalValues--;
+		++modificationCount;
+	}
+
+	/**
+	 * Returns a counter that changes whenever counts are changed through the
+	 * methods of this class (but not through its {@link Img} interface).
+	 */
+	long modificationCount()
+	{
+		return modificationCount;
 	}
 
 	/**
@@ -181,18 +294,22 @@ public class DiscreteFrequencyDistribution implements Img< LongType >
 	 */
 	public long modeCount()
 	{
-		final List< long[] > modes = modePositions();
-		return frequency( modes.get( 0 ) );
+		long commonValue = 0;
+		final Cursor< LongType > cursor = nonZeroCursor();
+		while ( cursor.hasNext() )
+			commonValue = Math.max( commonValue, cursor.next().get() );
+		return commonValue;
 	}
 
 	/**
-	 * Returns a list of bin positions of the highest frequency bins.
+	 * Returns a list of bin positions of the highest frequency bins. If all
+	 * counts are zero, the list is empty.
 	 */
 	public List< long[] > modePositions()
 	{
 		long commonValue = 0;
 		final List< long[] > modePositions = new ArrayList< long[] >();
-		final Cursor< LongType > cursor = localizingCursor();
+		final Cursor< LongType > cursor = nonZeroCursor();
 		while ( cursor.hasNext() )
 		{
 			final long val = cursor.next().get();
@@ -214,6 +331,17 @@ public class DiscreteFrequencyDistribution implements Img< LongType >
 		return modePositions;
 	}
 
+	/**
+	 * Returns a cursor over the bins with non-zero frequency count. The
+	 * cursor is localizing and returns a copy of the count of each bin,
+	 * writing to it does not change the distribution. For sparse storage the
+	 * bins are visited in no particular order.
+	 */
+	public Cursor< LongType > nonZeroCursor()
+	{
+		return sparse != null ? new SparseNonZeroCursor() : new DenseNonZeroCursor();
+	}
+
 	// -- Img methods --
 
 	@Override
@@ -366,4 +494,181 @@ public class DiscreteFrequencyDistribution implements Img< LongType >
 		return new DiscreteFrequencyDistribution( counts.copy() );
 	}
 
+	// -- helpers --
+
+	/**
+	 * Iterates the non-zero bins, looking ahead to the next one to implement
+	 * {@link #hasNext()}.
+	 */
+	private abstract class NonZeroCursor extends AbstractCursor< LongType >
+	{
+		protected final long[] position;
+
+		protected final long[] nextPosition;
+
+		protected long nextValue;
+
+		private final LongType value = new LongType();
+
+		private boolean hasNext;
+
+		private long steps;
+
+		NonZeroCursor()
+		{
+			super( counts.numDimensions() );
+			position = new long[ n ];
+			nextPosition = new long[ n ];
+		}
+
+		/**
+		 * Restart the underlying iteration.
+		 */
+		protected abstract void restart();
+
+		/**
+		 * Find the next non-zero bin and store it to {@link #nextPosition}
+		 * and {@link #nextValue}.
+		 *
+		 * @return false if there are no more non-zero bins.
+		 */
+		protected abstract boolean advance();
+
+		protected abstract NonZeroCursor create();
+
+		@Override
+		public void reset()
+		{
+			restart();
+			hasNext = advance();
+			steps = 0;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return hasNext;
+		}
+
+		@Override
+		public void fwd()
+		{
+			System.arraycopy( nextPosition, 0, position, 0, n );
+			value.set( nextValue );
+			hasNext = advance();
+			++steps;
+		}
+
+		@Override
+		public LongType get()
+		{
+			return value;
+		}
+
+		@Override
+		public void localize( final long[] pos )
+		{
+			System.arraycopy( position, 0, pos, 0, n );
+		}
+
+		@Override
+		public long getLongPosition( final int d )
+		{
+			return position[ d ];
+		}
+
+		@Override
+		public NonZeroCursor copy()
+		{
+			return copyCursor();
+		}
+
+		@Override
+		public NonZeroCursor copyCursor()
+		{
+			final NonZeroCursor copy = create();
+			copy.jumpFwd( steps );
+			return copy;
+		}
+	}
+
+	private final class DenseNonZeroCursor extends NonZeroCursor
+	{
+		private final Cursor< LongType > cursor = counts.localizingCursor();
+
+		DenseNonZeroCursor()
+		{
+			reset();
+		}
+
+		@Override
+		protected void restart()
+		{
+			cursor.reset();
+		}
+
+		@Override
+		protected boolean advance()
+		{
+			while ( cursor.hasNext() )
+			{
+				final long v = cursor.next().get();
+				if ( v != 0 )
+				{
+					cursor.localize( nextPosition );
+					nextValue = v;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		protected NonZeroCursor create()
+		{
+			return new DenseNonZeroCursor();
+		}
+	}
+
+	private final class SparseNonZeroCursor extends NonZeroCursor
+	{
+		private final long[] dims = new long[ n ];
+
+		private int slot;
+
+		SparseNonZeroCursor()
+		{
+			counts.dimensions( dims );
+			reset();
+		}
+
+		@Override
+		protected void restart()
+		{
+			slot = -1;
+		}
+
+		@Override
+		protected boolean advance()
+		{
+			final LongLongHashMap map = sparse.map;
+			while ( ++slot < map.capacity() )
+			{
+				final long key = map.keyAt( slot );
+				if ( key >= 0 )
+				{
+					IntervalIndexer.indexToPosition( key, dims, nextPosition );
+					nextValue = map.valueAt( slot );
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		protected NonZeroCursor create()
+		{
+			return new SparseNonZeroCursor();
+		}
+	}
 }
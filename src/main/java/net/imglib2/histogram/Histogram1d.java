@@ -34,15 +34,22 @@
 
 package net.imglib2.histogram;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 
 import net.imglib2.Cursor;
 import net.imglib2.Interval;
+import net.imglib2.IterableInterval;
 import net.imglib2.Positionable;
 import net.imglib2.RandomAccess;
 import net.imglib2.RealPositionable;
+import net.imglib2.converter.RealLUTConverter;
+import net.imglib2.display.ColorTable8;
 import net.imglib2.img.Img;
 import net.imglib2.img.ImgFactory;
+import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.LongType;
 
 /**
@@ -71,6 +78,17 @@ public class Histogram1d< T > implements Img< LongType >
 
 	private long ignoredCount;
 
+	/**
+	 * positions of the non-empty bins in ascending order, and the cumulative
+	 * counts at these bins. Valid if {@link #cumulativeModificationCount}
+	 * equals the modification count of {@link #distrib}
+	 */
+	private long[] cumulativeBins;
+
+	private long[] cumulativeCounts;
+
+	private long cumulativeModificationCount = -1;
+
 	// -- constructor --
 
 	/**
@@ -413,6 +431,165 @@ public class Histogram1d< T > implements Img< LongType >
 		return distrib;
 	}
 
+	/**
+	 * Returns the number of values in the bins up to and including
+	 * {@code binPos}. Tail bins are included. The cumulative counts are
+	 * computed once for the non-empty bins and cached until the histogram is
+	 * modified, so they need memory proportional to the number of non-empty
+	 * bins.
+	 * 
+	 * @param binPos
+	 *            The position of the bin of interest
+	 */
+	public long cumulativeCount( final long binPos )
+	{
+		if ( binPos < 0 )
+			return 0;
+		if ( binPos >= getBinCount() )
+			return distributionCount();
+		updateCumulativeCounts();
+		// number of non-empty bins up to and including binPos
+		final int i = Arrays.binarySearch( cumulativeBins, binPos );
+		final int k = i >= 0 ? i + 1 : -i - 1;
+		return k == 0 ? 0 : cumulativeCounts[ k - 1 ];
+	}
+
+	/**
+	 * Returns the cumulative distribution function at a bin, i.e., the fraction
+	 * of values in the distribution (including tails) that are in the bins up
+	 * to and including {@code binPos}.
+	 * 
+	 * @param binPos
+	 *            The position of the bin of interest
+	 */
+	public double cdf( final long binPos )
+	{
+		return ( double ) cumulativeCount( binPos ) / distributionCount();
+	}
+
+	/**
+	 * Returns the bin containing the {@code q}-quantile of the distribution
+	 * (including tails), i.e., the value with (zero-based) rank
+	 * {@code floor(q * (n - 1))} among the {@code n} values. The bin is found
+	 * by binary search of the cached cumulative counts. Returns -1 if the
+	 * distribution is empty.
+	 * 
+	 * @param q
+	 *            The quantile, in the range [0, 1]
+	 */
+	public long quantileBin( final double q )
+	{
+		if ( !( q >= 0 && q <= 1 ) ) { throw new IllegalArgumentException( "quantile must be in [0, 1]" ); }
+		final long count = distributionCount();
+		if ( count == 0 )
+			return -1;
+		final long rank = ( long ) Math.floor( q * ( count - 1 ) );
+		updateCumulativeCounts();
+		// first non-empty bin whose cumulative count exceeds rank
+		int lo = 0;
+		int hi = cumulativeCounts.length - 1;
+		while ( lo < hi )
+		{
+			final int mid = ( lo + hi ) >>> 1;
+			if ( cumulativeCounts[ mid ] > rank )
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return cumulativeBins[ lo ];
+	}
+
+	/**
+	 * Gets the center value of the bin containing the {@code q}-quantile of the
+	 * distribution.
+	 * 
+	 * @param q
+	 *            The quantile, in the range [0, 1]
+	 * @param value
+	 *            The output to fill with the center value
+	 * @see #quantileBin(double)
+	 */
+	public void quantile( final double q, final T value )
+	{
+		final long bin = quantileBin( q );
+		if ( bin < 0 ) { throw new IllegalStateException( "empty distribution" ); }
+		getCenterValue( bin, value );
+	}
+
+	/**
+	 * Creates a grayscale {@link ColorTable8} that equalizes this histogram.
+	 * The table has one entry per bin, excluding tail bins. Entry {@code b}
+	 * is {@code round(255 * (c(b) - cMin) / (n - cMin))}, where {@code c} is
+	 * the cumulative count over the non-tail bins, {@code cMin} is its
+	 * smallest non-zero value and {@code n} is the number of values in
+	 * non-tail bins.
+	 */
+	public ColorTable8 equalizationColorTable()
+	{
+		if ( getBinCount() > Integer.MAX_VALUE ) { throw new IllegalStateException( "too many bins for a color table: " + getBinCount() ); }
+		updateCumulativeCounts();
+		final int first = hasTails() ? 1 : 0;
+		final int last = ( int ) getBinCount() - 1 - first;
+		final long offset = cumulativeCount( first - 1 );
+		final long n = cumulativeCount( last ) - offset;
+
+		// index of the first non-empty bin from first on
+		int k = Arrays.binarySearch( cumulativeBins, first );
+		if ( k < 0 )
+			k = -k - 1;
+		final long cMin = k < cumulativeBins.length && cumulativeBins[ k ] <= last ? cumulativeCounts[ k ] - offset : 0;
+
+		final byte[] gray = new byte[ last - first + 1 ];
+		long c = 0;
+		for ( int b = first; b <= last; ++b )
+		{
+			for ( ; k < cumulativeBins.length && cumulativeBins[ k ] <= b; ++k )
+				c = cumulativeCounts[ k ] - offset;
+			final int v;
+			if ( c < cMin || c == 0 )
+				v = 0;
+			else if ( n == cMin )
+				v = 255;
+			else
+				v = ( int ) Math.round( 255.0 * ( c - cMin ) / ( n - cMin ) );
+			gray[ b - first ] = ( byte ) v;
+		}
+		return new ColorTable8( gray, gray.clone(), gray.clone() );
+	}
+
+	/**
+	 * Creates a {@link RealLUTConverter} that equalizes {@code histogram},
+	 * using the {@link #equalizationColorTable()}. The range of the converter
+	 * spans the non-tail bins, which must all have the same width (as for
+	 * {@link Integer1dBinMapper} and {@link Real1dBinMapper}). Values in the
+	 * tails map to the first and last entries of the table.
+	 * 
+	 * @param histogram
+	 *            The histogram to equalize
+	 * @param type
+	 *            A variable used to query the bin bounds
+	 */
+	public static < R extends RealType< R > > RealLUTConverter< R > equalizationConverter( final Histogram1d< R > histogram, final R type )
+	{
+		final long bins = histogram.getBinCount();
+		final long first = histogram.hasTails() ? 1 : 0;
+		final long last = bins - 1 - first;
+		histogram.getLowerBound( first, type );
+		final double min = type.getRealDouble();
+		final double max;
+		if ( last > first )
+		{
+			histogram.getLowerBound( first + 1, type );
+			max = min + ( last - first + 1 ) * ( type.getRealDouble() - min );
+		}
+		else
+		{
+			histogram.getUpperBound( last, type );
+			max = type.getRealDouble() > min ? type.getRealDouble() : min + 1;
+		}
+		return new RealLUTConverter< R >( min, max, histogram.equalizationColorTable() );
+	}
+
 	/**
 	 * Counts the data contained in the given data source using the underlying
 	 * bin distribution.
@@ -425,6 +602,43 @@ public class Histogram1d< T > implements Img< LongType >
 		init( data );
 	}
 
+	/**
+	 * Counts the data contained in the given data source using the underlying
+	 * bin distribution. The data is split into {@code numTasks} chunks that are
+	 * counted in parallel into partial histograms, which are then merged. Fewer
+	 * chunks are used if the partial histograms would need too much memory,
+	 * and the data is counted sequentially if it has fewer values than bins.
+	 * 
+	 * @param data
+	 *            The total data to count
+	 * @param executor
+	 *            Counts the chunks. If {@code null}, the data is counted on
+	 *            the calling thread.
+	 * @param numTasks
+	 *            The number of chunks to split the data into
+	 */
+	public void countData( final IterableInterval< T > data, final ExecutorService executor, final int numTasks )
+	{
+		if ( !PartialHistograms.useArray( mapper.getBinCount(), data.size() ) )
+		{
+			init( data );
+			return;
+		}
+
+		reset();
+		final Cursor< T > first = data.cursor();
+		if ( first.hasNext() )
+			firstValue = first.next();
+
+		final long[] frequencies = new long[ ( int ) mapper.getBinCount() ];
+		ignoredCount = PartialHistograms.count( data.size(), frequencies, ( offset, size, partial ) -> {
+			final Cursor< T > cursor = data.cursor();
+			cursor.jumpFwd( offset );
+			return count( cursor, size, mapper.copy(), partial );
+		}, executor, numTasks );
+		distrib.addFrequencies( frequencies );
+	}
+
 	/**
 	 * Counts additional data contained in a given iterable collection. One can
 	 * use this to update an existing histogram with a subset of values.
@@ -723,6 +937,48 @@ public class Histogram1d< T > implements Img< LongType >
 
 	// -- helpers --
 
+	private void updateCumulativeCounts()
+	{
+		if ( cumulativeCounts != null && cumulativeModificationCount == distrib.modificationCount() )
+			return;
+		long[] bins = new long[ 16 ];
+		long[] counts = new long[ 16 ];
+		int size = 0;
+		boolean sorted = true;
+		final Cursor< LongType > cursor = distrib.nonZeroCursor();
+		while ( cursor.hasNext() )
+		{
+			final long frequency = cursor.next().get();
+			if ( size == bins.length )
+			{
+				bins = Arrays.copyOf( bins, 2 * size );
+				counts = Arrays.copyOf( counts, 2 * size );
+			}
+			bins[ size ] = cursor.getLongPosition( 0 );
+			counts[ size ] = frequency;
+			sorted &= size == 0 || bins[ size ] > bins[ size - 1 ];
+			++size;
+		}
+		bins = Arrays.copyOf( bins, size );
+		counts = Arrays.copyOf( counts, size );
+		if ( !sorted )
+		{
+			// sparse counts are not visited in order
+			Arrays.sort( bins );
+			final long[] pos = new long[ 1 ];
+			for ( int i = 0; i < size; ++i )
+			{
+				pos[ 0 ] = bins[ i ];
+				counts[ i ] = distrib.frequency( pos );
+			}
+		}
+		for ( int i = 1; i < size; ++i )
+			counts[ i ] += counts[ i - 1 ];
+		cumulativeBins = bins;
+		cumulativeCounts = counts;
+		cumulativeModificationCount = distrib.modificationCount();
+	}
+
 	private void reset()
 	{
 		distrib.resetCounters();
@@ -743,10 +999,46 @@ public class Histogram1d< T > implements Img< LongType >
 		}
 
 		// record the rest of the elements
-		while ( iter.hasNext() )
+		final long size;
+		if ( data instanceof IterableInterval )
+			size = ( ( IterableInterval< ? > ) data ).size();
+		else if ( data instanceof Collection )
+			size = ( ( Collection< ? > ) data ).size();
+		else
+			size = 0;
+		if ( !PartialHistograms.useArray( mapper.getBinCount(), size ) )
+		{
+			while ( iter.hasNext() )
+			{
+				increment ( iter.next() );
+			}
+		}
+		else
+		{
+			final long[] frequencies = new long[ ( int ) mapper.getBinCount() ];
+			ignoredCount += count( iter, Long.MAX_VALUE, mapper, frequencies );
+			distrib.addFrequencies( frequencies );
+		}
+	}
+
+	/**
+	 * Counts at most {@code size} values of {@code iter} into
+	 * {@code frequencies}, indexed directly by bin position.
+	 * 
+	 * @return the number of values that could not be mapped to any bin.
+	 */
+	private static < T > long count( final Iterator< T > iter, final long size, final BinMapper1d< T > mapper, final long[] frequencies )
+	{
+		long ignored = 0;
+		for ( long i = 0; i < size && iter.hasNext(); ++i )
 		{
-			increment ( iter.next() );
+			final long bin = mapper.map( iter.next() );
+			if ( bin == Long.MIN_VALUE || bin == Long.MAX_VALUE )
+				++ignored;
+			else
+				++frequencies[ ( int ) bin ];
 		}
+		return ignored;
 	}
 
 	private void add( final Iterable< T > data )
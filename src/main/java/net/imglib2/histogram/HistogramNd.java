@@ -37,9 +37,11 @@ package net.imglib2.histogram;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import net.imglib2.Cursor;
 import net.imglib2.Interval;
+import net.imglib2.IterableInterval;
 import net.imglib2.Positionable;
 import net.imglib2.RandomAccess;
 import net.imglib2.RealPositionable;
@@ -188,14 +190,14 @@ public class HistogramNd< T > implements Img< LongType >
 		if ( !hasTails( dim ) )
 			return 0;
 		long sum = 0;
-		final Cursor< ? > cursor = distrib.localizingCursor();
+		final Cursor< LongType > cursor = distrib.nonZeroCursor();
 		final long[] binPos = new long[ distrib.numDimensions() ];
 		while ( cursor.hasNext() )
 		{
 			cursor.next();
 			cursor.localize( binPos );
 			if ( binPos[ dim ] == 0 )
-				sum += distrib.frequency( binPos );
+				sum += cursor.get().get();
 		}
 		return sum;
 	}
@@ -208,7 +210,7 @@ public class HistogramNd< T > implements Img< LongType >
 		if ( !hasTails() )
 			return 0;
 		long sum = 0;
-		final Cursor< ? > cursor = distrib.localizingCursor();
+		final Cursor< LongType > cursor = distrib.nonZeroCursor();
 		final long[] binPos = new long[ distrib.numDimensions() ];
 		while ( cursor.hasNext() )
 		{
@@ -218,7 +220,7 @@ public class HistogramNd< T > implements Img< LongType >
 			{
 				if ( binPos[ i ] == 0 )
 				{
-					sum += distrib.frequency( binPos );
+					sum += cursor.get().get();
 					break;
 				}
 			}
@@ -236,14 +238,14 @@ public class HistogramNd< T > implements Img< LongType >
 			return 0;
 		final long dimSize = mappers.get( dim ).getBinCount();
 		long sum = 0;
-		final Cursor< ? > cursor = distrib.localizingCursor();
+		final Cursor< LongType > cursor = distrib.nonZeroCursor();
 		final long[] binPos = new long[ distrib.numDimensions() ];
 		while ( cursor.hasNext() )
 		{
 			cursor.next();
 			cursor.localize( binPos );
 			if ( binPos[ dim ] == dimSize - 1 )
-				sum += distrib.frequency( binPos );
+				sum += cursor.get().get();
 		}
 		return sum;
 	}
@@ -256,7 +258,7 @@ public class HistogramNd< T > implements Img< LongType >
 		if ( !hasTails() )
 			return 0;
 		long sum = 0;
-		final Cursor< ? > cursor = distrib.localizingCursor();
+		final Cursor< LongType > cursor = distrib.nonZeroCursor();
 		final long[] binPos = new long[ distrib.numDimensions() ];
 		while ( cursor.hasNext() )
 		{
@@ -266,7 +268,7 @@ public class HistogramNd< T > implements Img< LongType >
 			{
 				if ( binPos[ i ] == mappers.get( i ).getBinCount() - 1 )
 				{
-					sum += distrib.frequency( binPos );
+					sum += cursor.get().get();
 					break;
 				}
 			}
@@ -283,7 +285,7 @@ public class HistogramNd< T > implements Img< LongType >
 		final boolean hasTails = hasTails( dim );
 		final long dimSize = mappers.get( dim ).getBinCount();
 		long sum = 0;
-		final Cursor< ? > cursor = distrib.localizingCursor();
+		final Cursor< LongType > cursor = distrib.nonZeroCursor();
 		final long[] binPos = new long[ distrib.numDimensions() ];
 		while ( cursor.hasNext() )
 		{
@@ -295,7 +297,7 @@ public class HistogramNd< T > implements Img< LongType >
 				inTail = true;
 			}
 			if ( !inTail )
-				sum += distrib.frequency( binPos );
+				sum += cursor.get().get();
 		}
 		return sum;
 	}
@@ -312,7 +314,7 @@ public class HistogramNd< T > implements Img< LongType >
 		if ( !hasTails() )
 			return distributionCount();
 		long sum = 0;
-		final Cursor< ? > cursor = distrib.localizingCursor();
+		final Cursor< LongType > cursor = distrib.nonZeroCursor();
 		final long[] binPos = new long[ distrib.numDimensions() ];
 		while ( cursor.hasNext() )
 		{
@@ -328,7 +330,7 @@ public class HistogramNd< T > implements Img< LongType >
 				}
 			}
 			if ( !inTail )
-				sum += distrib.frequency( binPos );
+				sum += cursor.get().get();
 		}
 		return sum;
 	}
@@ -341,7 +343,7 @@ public class HistogramNd< T > implements Img< LongType >
 	public long distributionCount( final int dim, final long dimVal )
 	{
 		long sum = 0;
-		final Cursor< ? > cursor = distrib.localizingCursor();
+		final Cursor< LongType > cursor = distrib.nonZeroCursor();
 		final long[] binPos = new long[ distrib.numDimensions() ];
 		while ( cursor.hasNext() )
 		{
@@ -349,7 +351,7 @@ public class HistogramNd< T > implements Img< LongType >
 			cursor.localize( binPos );
 			if ( binPos[ dim ] != dimVal )
 				continue;
-			sum += distrib.frequency( binPos );
+			sum += cursor.get().get();
 		}
 		return sum;
 	}
@@ -756,6 +758,77 @@ public class HistogramNd< T > implements Img< LongType >
 		init( data );
 	}
 
+	/**
+	 * Counts the data contained in the given data sources using the underlying
+	 * bin distribution. Each source provides the values of one dimension; the
+	 * sources are iterated in lockstep. The data is split into
+	 * {@code numTasks} chunks that are counted in parallel into partial
+	 * histograms, which are then merged. Fewer chunks are used if the partial
+	 * histograms would need too much memory, and the data is counted
+	 * sequentially if it has fewer values than bins.
+	 * 
+	 * @param data
+	 *            The total data to count
+	 * @param executor
+	 *            Counts the chunks. If {@code null}, the data is counted on
+	 *            the calling thread.
+	 * @param numTasks
+	 *            The number of chunks to split the data into
+	 */
+	public void countData( final List< ? extends IterableInterval< T >> data, final ExecutorService executor, final int numTasks )
+	{
+		long size = Long.MAX_VALUE;
+		for ( final IterableInterval< T > d : data )
+			size = Math.min( size, d.size() );
+		if ( !PartialHistograms.useArray( distrib.size(), size ) )
+		{
+			init( new ArrayList< Iterable< T >>( data ) );
+			return;
+		}
+
+		reset();
+
+		final long[] binCounts = new long[ mappers.size() ];
+		distrib.dimensions( binCounts );
+		final long[] frequencies = new long[ ( int ) distrib.size() ];
+		ignoredCount = PartialHistograms.count( size, frequencies, ( offset, chunkSize, partial ) -> {
+			final int n = mappers.size();
+			final List< BinMapper1d< T >> chunkMappers = new ArrayList< BinMapper1d< T >>( n );
+			final List< Cursor< T >> cursors = new ArrayList< Cursor< T >>( n );
+			for ( int i = 0; i < n; i++ )
+			{
+				chunkMappers.add( mappers.get( i ).copy() );
+				final Cursor< T > cursor = data.get( i ).cursor();
+				cursor.jumpFwd( offset );
+				cursors.add( cursor );
+			}
+			long ignored = 0;
+			for ( long j = 0; j < chunkSize; ++j )
+			{
+				long index = 0;
+				for ( int i = n - 1; i >= 0; i-- )
+				{
+					final long bin = chunkMappers.get( i ).map( cursors.get( i ).next() );
+					if ( bin == Long.MIN_VALUE || bin == Long.MAX_VALUE )
+					{
+						// advance the remaining cursors in lockstep
+						for ( int k = i - 1; k >= 0; k-- )
+							cursors.get( k ).fwd();
+						index = -1;
+						break;
+					}
+					index = index * binCounts[ i ] + bin;
+				}
+				if ( index < 0 )
+					++ignored;
+				else
+					++partial[ ( int ) index ];
+			}
+			return ignored;
+		}, executor, numTasks );
+		distrib.addFrequencies( frequencies );
+	}
+
 	/**
 	 * Counts additional data contained in a given iterable collection. One can
 	 * use this to update an existing histogram with a subset of values.
@@ -0,0 +1,254 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.histogram;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative {@code long} keys to
+ * {@code long} values, using linear probing. Entries with value 0 are not
+ * stored; {@link #get(long)} returns 0 for absent keys.
+ */
+final class LongLongHashMap
+{
+	private static final long EMPTY = -1;
+
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private long[] keys;
+
+	private long[] values;
+
+	private int mask;
+
+	private int size;
+
+	LongLongHashMap()
+	{
+		this( 16 );
+	}
+
+	LongLongHashMap( final int capacity )
+	{
+		allocate( Integer.highestOneBit( Math.max( 2, capacity - 1 ) ) << 1 );
+	}
+
+	private LongLongHashMap( final LongLongHashMap map )
+	{
+		keys = map.keys.clone();
+		values = map.values.clone();
+		mask = map.mask;
+		size = map.size;
+	}
+
+	private void allocate( final int capacity )
+	{
+		keys = new long[ capacity ];
+		Arrays.fill( keys, EMPTY );
+		values = new long[ capacity ];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	private int hash( final long key )
+	{
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return ( int ) ( h ^ ( h >>> 32 ) ) & mask;
+	}
+
+	/**
+	 * @return the slot containing {@code key}, or the empty slot where it
+	 *         would be inserted.
+	 */
+	private int find( final long key )
+	{
+		int slot = hash( key );
+		while ( keys[ slot ] != EMPTY && keys[ slot ] != key )
+			slot = ( slot + 1 ) & mask;
+		return slot;
+	}
+
+	/**
+	 * Returns the value of {@code key}, or 0 if it is absent.
+	 */
+	long get( final long key )
+	{
+		return values[ find( key ) ];
+	}
+
+	/**
+	 * Sets the value of {@code key}. Setting 0 removes the key.
+	 */
+	void put( final long key, final long value )
+	{
+		final int slot = find( key );
+		if ( keys[ slot ] == EMPTY )
+		{
+			if ( value != 0 )
+				insert( slot, key, value );
+		}
+		else if ( value == 0 )
+			remove( slot );
+		else
+			values[ slot ] = value;
+	}
+
+	/**
+	 * Adds {@code delta} to the value of {@code key}. If the resulting value
+	 * is 0, the key is removed.
+	 *
+	 * @return the new value
+	 */
+	long add( final long key, final long delta )
+	{
+		final int slot = find( key );
+		if ( keys[ slot ] == EMPTY )
+		{
+			if ( delta != 0 )
+				insert( slot, key, delta );
+			return delta;
+		}
+		final long value = values[ slot ] + delta;
+		if ( value == 0 )
+			remove( slot );
+		else
+			values[ slot ] = value;
+		return value;
+	}
+
+	private void insert( final int slot, final long key, final long value )
+	{
+		if ( key < 0 ) { throw new IllegalArgumentException( "negative key " + key ); }
+		keys[ slot ] = key;
+		values[ slot ] = value;
+		if ( ++size > keys.length / 2 )
+			grow();
+	}
+
+	private void grow()
+	{
+		if ( keys.length >= MAX_CAPACITY ) { throw new IllegalStateException( "hash map is full" ); }
+		final long[] oldKeys = keys;
+		final long[] oldValues = values;
+		allocate( oldKeys.length * 2 );
+		for ( int i = 0; i < oldKeys.length; ++i )
+		{
+			if ( oldKeys[ i ] != EMPTY )
+			{
+				final int slot = find( oldKeys[ i ] );
+				keys[ slot ] = oldKeys[ i ];
+				values[ slot ] = oldValues[ i ];
+				++size;
+			}
+		}
+	}
+
+	/**
+	 * Remove the entry at {@code slot}, shifting back entries of the same
+	 * probe sequence so that no tombstones are needed.
+	 */
+	private void remove( final int slot )
+	{
+		int hole = slot;
+		int i = slot;
+		while ( true )
+		{
+			i = ( i + 1 ) & mask;
+			if ( keys[ i ] == EMPTY )
+				break;
+			final int ideal = hash( keys[ i ] );
+			// the entry at i may move to the hole, unless its ideal slot
+			// lies cyclically in (hole, i]
+			final boolean stays = i > hole ? ( ideal > hole && ideal <= i ) : ( ideal > hole || ideal <= i );
+			if ( !stays )
+			{
+				keys[ hole ] = keys[ i ];
+				values[ hole ] = values[ i ];
+				hole = i;
+			}
+		}
+		keys[ hole ] = EMPTY;
+		values[ hole ] = 0;
+		--size;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear()
+	{
+		Arrays.fill( keys, EMPTY );
+		Arrays.fill( values, 0 );
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of (non-zero) entries.
+	 */
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the number of slots. Entries can be enumerated by
+	 * {@link #keyAt(int)} and {@link #valueAt(int)} for all slots.
+	 */
+	int capacity()
+	{
+		return keys.length;
+	}
+
+	/**
+	 * Returns the key stored in {@code slot}, or -1 if the slot is empty.
+	 */
+	long keyAt( final int slot )
+	{
+		return keys[ slot ];
+	}
+
+	/**
+	 * Returns the value stored in {@code slot}.
+	 */
+	long valueAt( final int slot )
+	{
+		return values[ slot ];
+	}
+
+	LongLongHashMap copy()
+	{
+		return new LongLongHashMap( this );
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Counts data into primitive {@code long[]} frequency arrays, optionally in
+ * parallel. The data is split into contiguous chunks, each chunk is counted
+ * into its own partial histogram, and the partial histograms are summed.
+ */
+final class PartialHistograms
+{
+	/**
+	 * Maximum number of bins for which frequencies are counted into a
+	 * {@code long[]} array. Histograms with more bins are counted directly
+	 * into their {@link DiscreteFrequencyDistribution}.
+	 */
+	static final int MAX_BINS = 1 << 24;
+
+	/**
+	 * Maximum total number of elements of the partial histograms allocated by
+	 * one parallel count (256 MB). Fewer tasks are used for histograms with
+	 * many bins.
+	 */
+	static final long MAX_PARTIAL_ELEMENTS = 1 << 25;
+
+	/**
+	 * Counts one chunk of the data.
+	 */
+	interface Chunk
+	{
+		/**
+		 * Count {@code size} elements, starting at {@code offset}, into
+		 * {@code frequencies} (in flat bin order).
+		 *
+		 * @return the number of elements that could not be mapped to any bin.
+		 */
+		long count( long offset, long size, long[] frequencies );
+	}
+
+	private PartialHistograms()
+	{}
+
+	/**
+	 * Whether to count {@code size} values into a {@code long[]} array of
+	 * {@code bins} bins and merge it, rather than incrementing the
+	 * distribution per value. This is the case if the bins fit into an array
+	 * and there are at least as many values as bins, so that allocating and
+	 * merging the array does not cost more than the counting.
+	 */
+	static boolean useArray( final long bins, final long size )
+	{
+		return bins <= MAX_BINS && size >= bins;
+	}
+
+	/**
+	 * The number of chunks to split {@code size} elements into for counting
+	 * into {@code bins} bins: at most {@code numTasks} and {@code size}, and
+	 * such that the partial histograms stay within
+	 * {@link #MAX_PARTIAL_ELEMENTS}. If this is 1, the elements are counted
+	 * directly into the result without partial histograms.
+	 */
+	static int numChunks( final long size, final int bins, final int numTasks )
+	{
+		final long budget = MAX_PARTIAL_ELEMENTS / ( bins + 1L );
+		return ( int ) Math.max( 1, Math.min( Math.min( numTasks, size ), budget ) );
+	}
+
+	/**
+	 * Count {@code size} elements, split into at most {@code numTasks}
+	 * chunks (see {@link #numChunks(long, int, int)}), into
+	 * {@code frequencies}. If {@code executor == null} the chunks are counted
+	 * on the calling thread.
+	 *
+	 * @return the number of elements that could not be mapped to any bin.
+	 */
+	static long count( final long size, final long[] frequencies, final Chunk chunk, final ExecutorService executor, final int numTasks )
+	{
+		final int n = numChunks( size, frequencies.length, numTasks );
+		if ( executor == null || n == 1 )
+			return chunk.count( 0, size, frequencies );
+
+		final List< Future< long[] > > futures = new ArrayList<>();
+		for ( int t = 0; t < n; ++t )
+		{
+			final long offset = size * t / n;
+			final long chunkSize = size * ( t + 1 ) / n - offset;
+			futures.add( executor.submit( () -> {
+				// the last element holds the ignored count
+				final long[] partial = new long[ frequencies.length + 1 ];
+				partial[ frequencies.length ] = chunk.count( offset, chunkSize, partial );
+				return partial;
+			} ) );
+		}
+
+		long ignored = 0;
+		try
+		{
+			for ( final Future< long[] > future : futures )
+			{
+				final long[] partial = future.get();
+				for ( int i = 0; i < frequencies.length; ++i )
+					frequencies[ i ] += partial[ i ];
+				ignored += partial[ frequencies.length ];
+			}
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+		catch ( final ExecutionException e )
+		{
+			final Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? ( RuntimeException ) cause : new RuntimeException( cause );
+		}
+		return ignored;
+	}
+}
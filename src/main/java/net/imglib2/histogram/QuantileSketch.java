@@ -0,0 +1,544 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.histogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.type.numeric.RealType;
+
+/**
+ * A streaming, mergeable sketch of the distribution of real values, for
+ * approximate quantile and rank queries in bounded memory. This is the KLL
+ * sketch of Karnin, Lang and Liberty ("Optimal Quantile Approximation in
+ * Streams", 2016).
+ * <p>
+ * The sketch keeps a hierarchy of buffers ("compactors"). Items at level
+ * {@code h} have weight {@code 2^h}. When a buffer is full it is sorted and
+ * every other item (starting at a random offset) is promoted to the next
+ * level. The top level holds up to {@code k} items, lower levels
+ * geometrically fewer, so the sketch stores {@code O(k log(n/k))} values for
+ * {@code n} input values.
+ * <p>
+ * Error bound: with a probability of at least 99%, the rank of a value
+ * returned by {@link #quantile(double)} differs from the requested rank by
+ * at most {@code eps * n}, and {@link #rank(double)} differs from the true
+ * normalized rank by at most {@code eps}, where {@code eps} is
+ * {@link #getNormalizedRankError()}. {@code eps} is approximately
+ * {@code 2.296 / k^0.9723}, an empirical fit (also used by the Apache
+ * DataSketches library), i.e., about 1.3% for the default {@code k = 200}.
+ * The bound holds for merged sketches as well. As long as fewer than
+ * {@code k} values have been added, the sketch is exact.
+ * <p>
+ * Sketches can be computed independently, e.g., per cell or per thread, and
+ * combined with {@link #merge(QuantileSketch)}. The minimum and maximum are
+ * tracked exactly. This class is not thread-safe.
+ */
+public class QuantileSketch
+{
+	/**
+	 * The default accuracy parameter.
+	 */
+	public static final int DEFAULT_K = 200;
+
+	private static final int MIN_CAPACITY = 8;
+
+	private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+	private final int k;
+
+	private final Random random;
+
+	/** items per level */
+	private double[][] levels;
+
+	/** number of items per level */
+	private int[] sizes;
+
+	private int numLevels;
+
+	private long count;
+
+	private double min = Double.NaN;
+
+	private double max = Double.NaN;
+
+	/** sorted items and cumulative weights, {@code null} if outdated */
+	private double[] sortedValues;
+
+	private long[] cumulativeWeights;
+
+	/**
+	 * Create an empty sketch with {@link #DEFAULT_K}.
+	 */
+	public QuantileSketch()
+	{
+		this( DEFAULT_K );
+	}
+
+	/**
+	 * Create an empty sketch.
+	 *
+	 * @param k
+	 *            accuracy parameter, the capacity of the top level. Larger
+	 *            values give smaller errors and larger sketches.
+	 */
+	public QuantileSketch( final int k )
+	{
+		this( k, new Random() );
+	}
+
+	/**
+	 * Create an empty sketch with reproducible compaction.
+	 *
+	 * @param k
+	 *            accuracy parameter, the capacity of the top level. Larger
+	 *            values give smaller errors and larger sketches.
+	 * @param seed
+	 *            seed for the random choices made during compaction
+	 */
+	public QuantileSketch( final int k, final long seed )
+	{
+		this( k, new Random( seed ) );
+	}
+
+	private QuantileSketch( final int k, final Random random )
+	{
+		if ( k < MIN_CAPACITY ) { throw new IllegalArgumentException( "k must be >= " + MIN_CAPACITY ); }
+		this.k = k;
+		this.random = random;
+		levels = new double[ 1 ][ k ];
+		sizes = new int[ 1 ];
+		numLevels = 1;
+	}
+
+	/**
+	 * Create a sketch of all values in {@code data}. {@code data} is split into
+	 * {@code numTasks} chunks that are sketched in parallel and merged.
+	 *
+	 * @param data
+	 *            the values to sketch
+	 * @param k
+	 *            accuracy parameter
+	 * @param executor
+	 *            sketches the chunks. If {@code null}, the data is sketched
+	 *            on the calling thread.
+	 * @param numTasks
+	 *            the number of chunks to split the data into
+	 */
+	public static < T extends RealType< T > > QuantileSketch create( final IterableInterval< T > data, final int k, final ExecutorService executor, final int numTasks )
+	{
+		final long size = data.size();
+		final int n = ( int ) Math.max( 1, Math.min( numTasks, size ) );
+		final QuantileSketch sketch = new QuantileSketch( k );
+		if ( executor == null || n == 1 )
+		{
+			sketch.update( data );
+			return sketch;
+		}
+
+		final List< Future< QuantileSketch > > futures = new ArrayList<>();
+		for ( int t = 0; t < n; ++t )
+		{
+			final long offset = size * t / n;
+			final long chunkSize = size * ( t + 1 ) / n - offset;
+			futures.add( executor.submit( () -> {
+				final QuantileSketch partial = new QuantileSketch( k );
+				final Cursor< T > cursor = data.cursor();
+				cursor.jumpFwd( offset );
+				for ( long i = 0; i < chunkSize; ++i )
+					partial.update( cursor.next().getRealDouble() );
+				return partial;
+			} ) );
+		}
+
+		try
+		{
+			for ( final Future< QuantileSketch > future : futures )
+				sketch.merge( future.get() );
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+		catch ( final ExecutionException e )
+		{
+			final Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? ( RuntimeException ) cause : new RuntimeException( cause );
+		}
+		return sketch;
+	}
+
+	/**
+	 * Returns the accuracy parameter.
+	 */
+	public int getK()
+	{
+		return k;
+	}
+
+	/**
+	 * Returns the approximate normalized rank error {@code eps} (with 99%
+	 * confidence) of a sketch with accuracy parameter {@code k}.
+	 */
+	public static double getNormalizedRankError( final int k )
+	{
+		return 2.296 / Math.pow( k, 0.9723 );
+	}
+
+	/**
+	 * Returns the approximate normalized rank error {@code eps} (with 99%
+	 * confidence) of this sketch.
+	 */
+	public double getNormalizedRankError()
+	{
+		return getNormalizedRankError( k );
+	}
+
+	/**
+	 * Returns the number of values added to the sketch.
+	 */
+	public long count()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns the smallest value added to the sketch, or {@code NaN} if it is
+	 * empty.
+	 */
+	public double min()
+	{
+		return min;
+	}
+
+	/**
+	 * Returns the largest value added to the sketch, or {@code NaN} if it is
+	 * empty.
+	 */
+	public double max()
+	{
+		return max;
+	}
+
+	/**
+	 * Returns the number of values retained by the sketch.
+	 */
+	public int numRetained()
+	{
+		int n = 0;
+		for ( int h = 0; h < numLevels; ++h )
+			n += sizes[ h ];
+		return n;
+	}
+
+	/**
+	 * Adds a value to the sketch. {@code NaN} values are ignored.
+	 */
+	public void update( final double value )
+	{
+		if ( Double.isNaN( value ) )
+			return;
+		if ( count == 0 )
+			min = max = value;
+		else if ( value < min )
+			min = value;
+		else if ( value > max )
+			max = value;
+		++count;
+		append( 0, value );
+		if ( sizes[ 0 ] >= capacity( 0 ) )
+			compress();
+		sortedValues = null;
+	}
+
+	/**
+	 * Adds all values of {@code values} to the sketch.
+	 */
+	public < T extends RealType< T > > void update( final Iterable< T > values )
+	{
+		for ( final T value : values )
+			update( value.getRealDouble() );
+	}
+
+	/**
+	 * Adds all values summarized by {@code other} to this sketch. The
+	 * accuracy of the result is that of the smaller {@code k} of both
+	 * sketches.
+	 */
+	public void merge( final QuantileSketch other )
+	{
+		if ( other == this ) { throw new IllegalArgumentException( "cannot merge a sketch with itself" ); }
+		if ( other.count == 0 )
+			return;
+		if ( count == 0 )
+		{
+			min = other.min;
+			max = other.max;
+		}
+		else
+		{
+			min = Math.min( min, other.min );
+			max = Math.max( max, other.max );
+		}
+		count += other.count;
+		for ( int h = 0; h < other.numLevels; ++h )
+		{
+			while ( h >= numLevels )
+				addLevel();
+			for ( int i = 0; i < other.sizes[ h ]; ++i )
+				append( h, other.levels[ h ][ i ] );
+		}
+		compress();
+		sortedValues = null;
+	}
+
+	/**
+	 * Returns an approximation of the {@code q}-quantile, i.e., of the value
+	 * with (zero-based) rank {@code floor(q * (n - 1))} among the {@code n}
+	 * values. Returns {@code NaN} if the sketch is empty.
+	 *
+	 * @param q
+	 *            in the range [0, 1]
+	 */
+	public double quantile( final double q )
+	{
+		if ( !( q >= 0 && q <= 1 ) ) { throw new IllegalArgumentException( "quantile must be in [0, 1]" ); }
+		if ( count == 0 )
+			return Double.NaN;
+		if ( q == 0 )
+			return min;
+		if ( q == 1 )
+			return max;
+		sort();
+		final long rank = ( long ) Math.floor( q * ( count - 1 ) );
+		// first item whose cumulative weight exceeds rank
+		int lo = 0;
+		int hi = cumulativeWeights.length - 1;
+		while ( lo < hi )
+		{
+			final int mid = ( lo + hi ) >>> 1;
+			if ( cumulativeWeights[ mid ] > rank )
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return sortedValues[ lo ];
+	}
+
+	/**
+	 * Returns approximations of several quantiles.
+	 *
+	 * @see #quantile(double)
+	 */
+	public double[] quantiles( final double... q )
+	{
+		final double[] values = new double[ q.length ];
+		for ( int i = 0; i < q.length; ++i )
+			values[ i ] = quantile( q[ i ] );
+		return values;
+	}
+
+	/**
+	 * Returns an approximation of the normalized rank of {@code value}, i.e.,
+	 * the fraction of values that are less than or equal to {@code value}.
+	 * Returns {@code NaN} if the sketch is empty.
+	 */
+	public double rank( final double value )
+	{
+		if ( count == 0 )
+			return Double.NaN;
+		sort();
+		// number of items <= value
+		int lo = 0;
+		int hi = sortedValues.length;
+		while ( lo < hi )
+		{
+			final int mid = ( lo + hi ) >>> 1;
+			if ( sortedValues[ mid ] <= value )
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo == 0 ? 0 : ( double ) cumulativeWeights[ lo - 1 ] / count;
+	}
+
+	// -- helpers --
+
+	private int capacity( final int level )
+	{
+		final int depth = numLevels - 1 - level;
+		return Math.max( MIN_CAPACITY, ( int ) Math.ceil( k * Math.pow( CAPACITY_DECAY, depth ) ) );
+	}
+
+	private void addLevel()
+	{
+		if ( numLevels == levels.length )
+		{
+			levels = Arrays.copyOf( levels, numLevels * 2 );
+			sizes = Arrays.copyOf( sizes, numLevels * 2 );
+		}
+		levels[ numLevels ] = new double[ MIN_CAPACITY ];
+		sizes[ numLevels ] = 0;
+		++numLevels;
+	}
+
+	private void append( final int level, final double value )
+	{
+		double[] items = levels[ level ];
+		final int size = sizes[ level ];
+		if ( size == items.length )
+			levels[ level ] = items = Arrays.copyOf( items, Math.max( MIN_CAPACITY, size * 2 ) );
+		items[ size ] = value;
+		sizes[ level ] = size + 1;
+	}
+
+	/**
+	 * Compact levels that reached their capacity, from the bottom up.
+	 */
+	private void compress()
+	{
+		for ( int h = 0; h < numLevels; ++h )
+		{
+			final int size = sizes[ h ];
+			if ( size < capacity( h ) )
+				continue;
+			if ( h + 1 == numLevels )
+				addLevel();
+
+			// sort, keep the smallest item if the size is odd, and promote
+			// every other of the remaining items
+			final double[] items = levels[ h ];
+			Arrays.sort( items, 0, size );
+			final int keep = size & 1;
+			for ( int i = keep + ( random.nextBoolean() ? 1 : 0 ); i < size; i += 2 )
+				append( h + 1, items[ i ] );
+			sizes[ h ] = keep;
+		}
+	}
+
+	private void sort()
+	{
+		if ( sortedValues != null )
+			return;
+		final int n = numRetained();
+		final double[] values = new double[ n ];
+		final int[] valueLevels = new int[ n ];
+		int j = 0;
+		for ( int h = 0; h < numLevels; ++h )
+		{
+			for ( int i = 0; i < sizes[ h ]; ++i, ++j )
+			{
+				values[ j ] = levels[ h ][ i ];
+				valueLevels[ j ] = h;
+			}
+		}
+
+		// sort values and their levels (weights 2^h) together
+		sort( values, valueLevels, 0, n - 1 );
+		cumulativeWeights = new long[ n ];
+		long sum = 0;
+		for ( int i = 0; i < n; ++i )
+		{
+			sum += 1L << valueLevels[ i ];
+			cumulativeWeights[ i ] = sum;
+		}
+		sortedValues = values;
+	}
+
+	/**
+	 * Sort {@code keys[i..j]} (inclusive) ascending, permuting
+	 * {@code values[i..j]} in sync.
+	 */
+	private static void sort( final double[] keys, final int[] values, int i, int j )
+	{
+		while ( j - i > 16 )
+		{
+			final double pivot = keys[ i + ( j - i ) / 2 ];
+			int l = i;
+			int r = j;
+			while ( l <= r )
+			{
+				while ( keys[ l ] < pivot )
+					++l;
+				while ( keys[ r ] > pivot )
+					--r;
+				if ( l <= r )
+				{
+					final double tk = keys[ l ];
+					keys[ l ] = keys[ r ];
+					keys[ r ] = tk;
+					final int tv = values[ l ];
+					values[ l ] = values[ r ];
+					values[ r ] = tv;
+					++l;
+					--r;
+				}
+			}
+			// recurse into the smaller part, iterate on the larger one
+			if ( r - i < j - l )
+			{
+				sort( keys, values, i, r );
+				i = l;
+			}
+			else
+			{
+				sort( keys, values, l, j );
+				j = r;
+			}
+		}
+		for ( int a = i + 1; a <= j; ++a )
+		{
+			final double k = keys[ a ];
+			final int v = values[ a ];
+			int b = a - 1;
+			for ( ; b >= i && keys[ b ] > k; --b )
+			{
+				keys[ b + 1 ] = keys[ b ];
+				values[ b + 1 ] = values[ b ];
+			}
+			keys[ b + 1 ] = k;
+			values[ b + 1 ] = v;
+		}
+	}
+}
@@ -0,0 +1,458 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.histogram;
+
+import java.util.Arrays;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+
+/**
+ * Computes rank filters (median, percentiles) over rectangular windows with
+ * sliding histograms, following Huang and Perreault &amp; H&eacute;bert.
+ * <p>
+ * Values are binned with a {@link BinMapper1d}, as in {@link Histogram1d}.
+ * The window of radius {@code r[d]} is moved along dimension 0, and the
+ * window histogram is updated with one of two strategies, whichever touches
+ * fewer values:
+ * <ul>
+ * <li>If a window column (the window in dimensions 1 to n-1) holds fewer than
+ * half as many pixels as there are bins, the pixels of the leaving column are
+ * removed from and those of the entering column are added to the window
+ * histogram (Huang). The cost per pixel depends on the window height, but not
+ * on the number of bins.</li>
+ * <li>Otherwise, the window is maintained as a set of column histograms, one
+ * per position along dimension 0. When moving to the next row along
+ * dimension 1 the column histograms are updated by removing the leaving and
+ * adding the entering pixels. Along a row, the window histogram is updated by
+ * removing one column histogram and adding another one (Perreault &amp;
+ * H&eacute;bert). The cost per pixel depends on the number of bins, but not on
+ * the window size.</li>
+ * </ul>
+ * In both cases the bin containing the requested rank is moved incrementally
+ * from its previous position, skipping over blocks of bins using a coarse
+ * histogram.
+ * <p>
+ * The result at each pixel is the center value of the bin containing the
+ * requested rank. With one bin per value (e.g., an {@link Integer1dBinMapper}
+ * covering the full range of an 8-bit or 16-bit type) the result is exact.
+ * Values that are not mapped to any bin are ignored. Pixels whose window
+ * contains no mapped value are not written.
+ * <p>
+ * The source is accessed in the window around the target interval, so it
+ * must be defined there, e.g., by extending it with an out-of-bounds
+ * strategy.
+ */
+public class SlidingWindowRankFilter< T >
+{
+	private final BinMapper1d< T > mapper;
+
+	private final long[] radius;
+
+	/**
+	 * @param mapper
+	 *            maps values to bins
+	 * @param radius
+	 *            the radius of the window in each dimension. The window has
+	 *            size {@code 2 * radius[d] + 1} in dimension {@code d}.
+	 */
+	public SlidingWindowRankFilter( final BinMapper1d< T > mapper, final long... radius )
+	{
+		if ( mapper.getBinCount() > Integer.MAX_VALUE ) { throw new IllegalArgumentException( "too many bins: " + mapper.getBinCount() ); }
+		for ( final long r : radius )
+			if ( r < 0 ) { throw new IllegalArgumentException( "invalid radius (< 0)" ); }
+		this.mapper = mapper;
+		this.radius = radius.clone();
+	}
+
+	/**
+	 * Write the median of the window around each pixel of {@code target} to
+	 * {@code target}.
+	 */
+	public void median( final RandomAccessible< T > source, final RandomAccessibleInterval< T > target )
+	{
+		filter( source, target, 0.5 );
+	}
+
+	/**
+	 * Write the {@code quantile} of the window around each pixel of
+	 * {@code target} to {@code target}. The quantile of {@code k} values is
+	 * the value with (zero-based) rank {@code floor(quantile * (k - 1))}, so
+	 * 0 gives the minimum, 1 gives the maximum.
+	 *
+	 * @param source
+	 *            the values to filter
+	 * @param target
+	 *            receives the filtered values
+	 * @param quantile
+	 *            in the range [0, 1]
+	 */
+	public void filter( final RandomAccessible< T > source, final RandomAccessibleInterval< T > target, final double quantile )
+	{
+		final int n = target.numDimensions();
+		if ( source.numDimensions() != n || radius.length != n ) { throw new IllegalArgumentException( "dimensionality mismatch" ); }
+		if ( !( quantile >= 0 && quantile <= 1 ) ) { throw new IllegalArgumentException( "quantile must be in [0, 1]" ); }
+
+		final int bins = ( int ) mapper.getBinCount();
+		final int width = ( int ) target.dimension( 0 );
+		final int windowWidth = ( int ) ( 2 * radius[ 0 ] + 1 );
+		final long numColumns = width + windowWidth - 1;
+		long windowHeight = 1;
+		for ( int d = 1; d < n; ++d )
+			windowHeight *= 2 * radius[ d ] + 1;
+		final boolean perPixel = 2 * windowHeight < bins;
+		if ( !perPixel && numColumns * bins > Integer.MAX_VALUE ) { throw new IllegalArgumentException( "column histograms too large: " + numColumns + " x " + bins + " bins" ); }
+
+		final long[] sourceMin = new long[ n ];
+		final long[] sourceMax = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			sourceMin[ d ] = target.min( d ) - radius[ d ];
+			sourceMax[ d ] = target.max( d ) + radius[ d ];
+		}
+		final RandomAccess< T > in = source.randomAccess( new FinalInterval( sourceMin, sourceMax ) );
+		final RandomAccess< T > out = target.randomAccess();
+		final BinMapper1d< T > m = mapper.copy();
+
+		final Columns columns = perPixel ? null : new Columns( ( int ) numColumns, bins );
+		final Window window = new Window( bins );
+
+		// position of the current row in dimensions 1 to n-1
+		final long[] row = new long[ n ];
+		target.min( row );
+		final long[] rowMin = new long[ n ];
+		final long[] rowMax = new long[ n ];
+		rowMin[ 0 ] = rowMax[ 0 ] = sourceMin[ 0 ];
+
+		while ( true )
+		{
+			if ( perPixel )
+			{
+				for ( int d = 1; d < n; ++d )
+				{
+					rowMin[ d ] = row[ d ] - radius[ d ];
+					rowMax[ d ] = row[ d ] + radius[ d ];
+				}
+				filterRow( in, rowMin, rowMax, window, windowWidth, width, quantile, m, out, row );
+			}
+			else
+			{
+				if ( n > 1 && row[ 1 ] > target.min( 1 ) )
+				{
+					// move the column histograms down by one row
+					for ( int d = 2; d < n; ++d )
+					{
+						rowMin[ d ] = row[ d ] - radius[ d ];
+						rowMax[ d ] = row[ d ] + radius[ d ];
+					}
+					rowMin[ 1 ] = rowMax[ 1 ] = row[ 1 ] - radius[ 1 ] - 1;
+					columns.add( in, m, rowMin, rowMax, -1 );
+					rowMin[ 1 ] = rowMax[ 1 ] = row[ 1 ] + radius[ 1 ];
+					columns.add( in, m, rowMin, rowMax, 1 );
+				}
+				else
+				{
+					columns.clear();
+					for ( int d = 1; d < n; ++d )
+					{
+						rowMin[ d ] = row[ d ] - radius[ d ];
+						rowMax[ d ] = row[ d ] + radius[ d ];
+					}
+					columns.add( in, m, rowMin, rowMax, 1 );
+				}
+				filterRow( columns, window, windowWidth, width, quantile, m, out, row );
+			}
+
+			// next row
+			int d = 1;
+			for ( ; d < n; ++d )
+			{
+				if ( ++row[ d ] <= target.max( d ) )
+					break;
+				row[ d ] = target.min( d );
+			}
+			if ( d >= n )
+				break;
+		}
+	}
+
+	/**
+	 * Slide the window histogram along one row, adding and removing the pixels
+	 * of the entering and leaving columns, and write the results.
+	 */
+	private static < T > void filterRow( final RandomAccess< T > in, final long[] rowMin, final long[] rowMax, final Window window, final int windowWidth, final int width, final double quantile, final BinMapper1d< T > mapper, final RandomAccess< T > out, final long[] row )
+	{
+		final long x0 = rowMin[ 0 ];
+		final long[] position = new long[ rowMin.length ];
+
+		window.clear();
+		for ( int c = 0; c < windowWidth; ++c )
+			window.addColumn( in, mapper, rowMin, rowMax, x0 + c, 1, position );
+
+		out.setPosition( row );
+		for ( int x = 0; x < width; ++x )
+		{
+			if ( window.total > 0 )
+				mapper.getCenterValue( window.find( ( long ) Math.floor( quantile * ( window.total - 1 ) ) ), out.get() );
+			out.fwd( 0 );
+
+			if ( x + 1 < width )
+			{
+				window.addColumn( in, mapper, rowMin, rowMax, x0 + x, -1, position );
+				window.addColumn( in, mapper, rowMin, rowMax, x0 + x + windowWidth, 1, position );
+			}
+		}
+	}
+
+	/**
+	 * Slide the window histogram along one row, adding and removing column
+	 * histograms, and write the results.
+	 */
+	private static < T > void filterRow( final Columns columns, final Window window, final int windowWidth, final int width, final double quantile, final BinMapper1d< T > mapper, final RandomAccess< T > out, final long[] row )
+	{
+		final int bins = columns.bins;
+		final int[] counts = columns.counts;
+
+		window.clear();
+		for ( int c = 0; c < windowWidth; ++c )
+			window.addHistogram( counts, c * bins, columns.totals[ c ], 1 );
+
+		out.setPosition( row );
+		for ( int x = 0; x < width; ++x )
+		{
+			if ( window.total > 0 )
+				mapper.getCenterValue( window.find( ( long ) Math.floor( quantile * ( window.total - 1 ) ) ), out.get() );
+			out.fwd( 0 );
+
+			if ( x + 1 < width )
+			{
+				window.addHistogram( counts, x * bins, columns.totals[ x ], -1 );
+				window.addHistogram( counts, ( x + windowWidth ) * bins, columns.totals[ x + windowWidth ], 1 );
+			}
+		}
+	}
+
+	/**
+	 * The window histogram, with a coarse histogram over blocks of
+	 * {@code 2^shift} bins, and the bin containing the last requested rank.
+	 */
+	private static final class Window
+	{
+		final int[] fine;
+
+		final int[] coarse;
+
+		final int shift;
+
+		long total;
+
+		// bin containing the last requested rank, and number of values in bins
+		// below
+		int bin;
+
+		long below;
+
+		Window( final int bins )
+		{
+			fine = new int[ bins ];
+			shift = ( 33 - Integer.numberOfLeadingZeros( Math.max( bins - 1, 0 ) ) ) / 2;
+			coarse = new int[ ( Math.max( bins - 1, 0 ) >> shift ) + 1 ];
+		}
+
+		void clear()
+		{
+			Arrays.fill( fine, 0 );
+			Arrays.fill( coarse, 0 );
+			total = 0;
+			bin = 0;
+			below = 0;
+		}
+
+		void add( final int b, final int delta )
+		{
+			fine[ b ] += delta;
+			coarse[ b >> shift ] += delta;
+			total += delta;
+			if ( b < bin )
+				below += delta;
+		}
+
+		/**
+		 * Add {@code delta} times the histogram {@code counts[offset ...]}
+		 * with {@code sum} values.
+		 */
+		void addHistogram( final int[] counts, final int offset, final long sum, final int delta )
+		{
+			if ( sum == 0 )
+				return;
+			for ( int b = 0; b < fine.length; ++b )
+			{
+				final int c = delta * counts[ offset + b ];
+				fine[ b ] += c;
+				coarse[ b >> shift ] += c;
+				if ( b < bin )
+					below += c;
+			}
+			total += delta * sum;
+		}
+
+		/**
+		 * Add {@code delta} for each pixel in the column at {@code x} of the
+		 * rows {@code rowMin} to {@code rowMax} (in dimensions 1 to n-1).
+		 */
+		< T > void addColumn( final RandomAccess< T > in, final BinMapper1d< T > mapper, final long[] rowMin, final long[] rowMax, final long x, final int delta, final long[] position )
+		{
+			final int n = rowMin.length;
+			System.arraycopy( rowMin, 0, position, 0, n );
+			position[ 0 ] = x;
+			final long height = n > 1 ? rowMax[ 1 ] - rowMin[ 1 ] + 1 : 1;
+			while ( true )
+			{
+				in.setPosition( position );
+				for ( long y = 0; y < height; ++y )
+				{
+					final long b = mapper.map( in.get() );
+					if ( b != Long.MIN_VALUE && b != Long.MAX_VALUE )
+						add( ( int ) b, delta );
+					if ( n > 1 )
+						in.fwd( 1 );
+				}
+
+				int d = 2;
+				for ( ; d < n; ++d )
+				{
+					if ( ++position[ d ] <= rowMax[ d ] )
+						break;
+					position[ d ] = rowMin[ d ];
+				}
+				if ( d >= n )
+					return;
+			}
+		}
+
+		/**
+		 * Get the bin containing the value with the given {@code rank}
+		 * ({@code 0 <= rank < total}).
+		 */
+		int find( final long rank )
+		{
+			final int mask = ( 1 << shift ) - 1;
+			while ( below + fine[ bin ] <= rank )
+			{
+				below += fine[ bin++ ];
+				while ( ( bin & mask ) == 0 && below + coarse[ bin >> shift ] <= rank )
+				{
+					below += coarse[ bin >> shift ];
+					bin += mask + 1;
+				}
+			}
+			while ( below > rank )
+			{
+				if ( ( bin & mask ) == 0 && below - coarse[ ( bin >> shift ) - 1 ] > rank )
+				{
+					bin -= mask + 1;
+					below -= coarse[ bin >> shift ];
+				}
+				else
+					below -= fine[ --bin ];
+			}
+			return bin;
+		}
+	}
+
+	/**
+	 * One histogram per column (position along dimension 0), stored in one
+	 * flat array.
+	 */
+	private static final class Columns
+	{
+		final int[] counts;
+
+		final long[] totals;
+
+		final int bins;
+
+		Columns( final int numColumns, final int bins )
+		{
+			this.bins = bins;
+			counts = new int[ numColumns * bins ];
+			totals = new long[ numColumns ];
+		}
+
+		void clear()
+		{
+			Arrays.fill( counts, 0 );
+			Arrays.fill( totals, 0 );
+		}
+
+		/**
+		 * Add {@code delta} to the column histograms for each pixel in the
+		 * rows {@code rowMin} to {@code rowMax} (in dimensions 1 to n-1).
+		 * {@code rowMin[0]} is the source position of the first column.
+		 */
+		< T > void add( final RandomAccess< T > in, final BinMapper1d< T > mapper, final long[] rowMin, final long[] rowMax, final int delta )
+		{
+			final int n = rowMin.length;
+			final int numColumns = totals.length;
+			final long[] position = rowMin.clone();
+			while ( true )
+			{
+				in.setPosition( position );
+				for ( int c = 0; c < numColumns; ++c )
+				{
+					final long bin = mapper.map( in.get() );
+					if ( bin != Long.MIN_VALUE && bin != Long.MAX_VALUE )
+					{
+						counts[ c * bins + ( int ) bin ] += delta;
+						totals[ c ] += delta;
+					}
+					in.fwd( 0 );
+				}
+
+				int d = 1;
+				for ( ; d < n; ++d )
+				{
+					if ( ++position[ d ] <= rowMax[ d ] )
+						break;
+					position[ d ] = rowMin[ d ];
+				}
+				if ( d >= n )
+					return;
+			}
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.histogram;
+
+import net.imglib2.Cursor;
+import net.imglib2.FlatIterationOrder;
+import net.imglib2.Interval;
+import net.imglib2.Point;
+import net.imglib2.RandomAccess;
+import net.imglib2.exception.IncompatibleTypeException;
+import net.imglib2.img.AbstractImg;
+import net.imglib2.img.Img;
+import net.imglib2.img.ImgFactory;
+import net.imglib2.img.basictypeaccess.LongAccess;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.view.RandomAccessibleIntervalCursor;
+
+/**
+ * An {@link Img} of {@link LongType} that stores only non-zero values, in a
+ * {@link LongLongHashMap} keyed by flat index. Used by
+ * {@link DiscreteFrequencyDistribution} for histograms with many bins.
+ */
+final class SparseLongImg extends AbstractImg< LongType >
+{
+	final LongLongHashMap map;
+
+	SparseLongImg( final long[] dimensions )
+	{
+		this( dimensions, new LongLongHashMap() );
+	}
+
+	private SparseLongImg( final long[] dimensions, final LongLongHashMap map )
+	{
+		super( dimensions );
+		this.map = map;
+	}
+
+	long index( final long[] position )
+	{
+		return IntervalIndexer.positionToIndex( position, dimension );
+	}
+
+	@Override
+	public RandomAccess< LongType > randomAccess()
+	{
+		return new SparseRandomAccess();
+	}
+
+	@Override
+	public RandomAccess< LongType > randomAccess( final Interval interval )
+	{
+		return randomAccess();
+	}
+
+	@Override
+	public Cursor< LongType > cursor()
+	{
+		return new RandomAccessibleIntervalCursor< LongType >( this );
+	}
+
+	@Override
+	public Cursor< LongType > localizingCursor()
+	{
+		return cursor();
+	}
+
+	@Override
+	public Object iterationOrder()
+	{
+		return new FlatIterationOrder( this );
+	}
+
+	@Override
+	public ImgFactory< LongType > factory()
+	{
+		return new Factory();
+	}
+
+	@Override
+	public SparseLongImg copy()
+	{
+		return new SparseLongImg( dimension, map.copy() );
+	}
+
+	private static final class Factory extends ImgFactory< LongType >
+	{
+		@Override
+		public Img< LongType > create( final long[] dim, final LongType type )
+		{
+			return new SparseLongImg( dim );
+		}
+
+		@SuppressWarnings( "unchecked" )
+		@Override
+		public < S > ImgFactory< S > imgFactory( final S type ) throws IncompatibleTypeException
+		{
+			if ( type instanceof LongType )
+				return ( ImgFactory< S > ) this;
+			throw new IncompatibleTypeException( this, type.getClass().getCanonicalName() + " is not supported." );
+		}
+	}
+
+	/**
+	 * Reads and writes the map entry at the flat index of the current
+	 * position. The {@link LongType} index is ignored.
+	 */
+	private final class SparseRandomAccess extends Point implements RandomAccess< LongType >
+	{
+		private final LongType type;
+
+		private long index;
+
+		SparseRandomAccess()
+		{
+			super( SparseLongImg.this.n );
+			type = new LongType( new LongAccess()
+			{
+				@Override
+				public long getValue( final int i )
+				{
+					return map.get( index );
+				}
+
+				@Override
+				public void setValue( final int i, final long value )
+				{
+					map.put( index, value );
+				}
+			} );
+		}
+
+		@Override
+		public LongType get()
+		{
+			index = index( position );
+			return type;
+		}
+
+		@Override
+		public SparseRandomAccess copy()
+		{
+			return copyRandomAccess();
+		}
+
+		@Override
+		public SparseRandomAccess copyRandomAccess()
+		{
+			final SparseRandomAccess copy = new SparseRandomAccess();
+			copy.setPosition( this );
+			return copy;
+		}
+	}
+}
@@ -34,12 +34,17 @@
 
 package net.imglib2.img.cell;
 
+import net.imglib2.Cursor;
+import net.imglib2.FlatIterationOrder;
+import net.imglib2.Interval;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessible;
 import net.imglib2.img.AbstractNativeImg;
 import net.imglib2.img.Img;
 import net.imglib2.type.NativeType;
 import net.imglib2.util.Fraction;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.iteration.SubIntervalIterable;
 
 /**
  * Abstract superclass for {@link Img} types that divide their underlying data
@@ -54,6 +59,7 @@ public abstract class AbstractCellImg<
 				C extends Cell< A >,
 				I extends RandomAccessible< C > & IterableInterval< C > >
 		extends AbstractNativeImg< T, A >
+		implements SubIntervalIterable< T >
 {
 	protected final CellGrid grid;
 
@@ -110,6 +116,66 @@ public abstract class AbstractCellImg<
 		return new CellIterationOrder( this );
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean supportsOptimizedCursor( final Interval interval )
+	{
+		return !Intervals.isEmpty( interval ) && Intervals.contains( this, interval );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If the interval lies within a single cell, or if only cells along one
+	 * dimension intersect the interval and the interval is a single slice in
+	 * all higher dimensions, the iteration order is flat.
+	 * </p>
+	 */
+	@Override
+	public Object subIntervalIterationOrder( final Interval interval )
+	{
+		int splitDim = -1;
+		for ( int d = 0; d < n; ++d )
+		{
+			if ( interval.min( d ) / grid.cellDimension( d ) != interval.max( d ) / grid.cellDimension( d ) )
+			{
+				if ( splitDim >= 0 )
+					return new CellIntervalIterationOrder( grid, interval );
+				splitDim = d;
+			}
+		}
+		if ( splitDim < 0 )
+			return new FlatIterationOrder( interval );
+		for ( int d = splitDim + 1; d < n; ++d )
+			if ( interval.dimension( d ) != 1 )
+				return new CellIntervalIterationOrder( grid, interval );
+		return new FlatIterationOrder( interval );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Cursor< T > cursor( final Interval interval )
+	{
+		assert supportsOptimizedCursor( interval );
+
+		return new CellSubIntervalCursor<>( this, interval );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Cursor< T > localizingCursor( final Interval interval )
+	{
+		assert supportsOptimizedCursor( interval );
+
+		return new CellSubIntervalCursor<>( this, interval );
+	}
+
 	/**
 	 * Get the underlying image of cells which gives access to the individual
 	 * {@link Cell}s through Cursors and RandomAccesses.
@@ -0,0 +1,203 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.img.cell;
+
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+
+/**
+ * A {@link LazyCellImg.Get} that memoizes the {@link Cell}s produced by
+ * another {@link LazyCellImg.Get}, keeping at most a given number of bytes of
+ * cell data. When the budget is exceeded, the least recently used cells are
+ * evicted and will be recomputed when they are requested again.
+ * <p>
+ * The cache is thread-safe. A cell requested concurrently by several threads
+ * is computed only once.
+ *
+ * @param <A>
+ *            access type of the cells
+ */
+public class BoundedCellCache< A > implements LazyCellImg.Get< Cell< A > >
+{
+	private final LazyCellImg.Get< Cell< A > > loader;
+
+	private final long maxBytes;
+
+	private long bytes;
+
+	private final LinkedHashMap< Long, Cell< A > > cells;
+
+	private final ConcurrentHashMap< Long, FutureTask< Cell< A > > > loading;
+
+	/**
+	 * @param loader
+	 *            computes cells that are not in the cache.
+	 * @param maxBytes
+	 *            maximum total size of the cached cell data in bytes. The
+	 *            most recently used cell is always kept, even if it exceeds
+	 *            the budget.
+	 */
+	public BoundedCellCache( final LazyCellImg.Get< Cell< A > > loader, final long maxBytes )
+	{
+		this.loader = loader;
+		this.maxBytes = maxBytes;
+		cells = new LinkedHashMap<>( 16, 0.75f, true );
+		loading = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public Cell< A > get( final long index )
+	{
+		final Long key = index;
+		Cell< A > cell = getCached( key );
+		if ( cell != null )
+			return cell;
+
+		final FutureTask< Cell< A > > task = new FutureTask<>( () -> loader.get( index ) );
+		FutureTask< Cell< A > > running = loading.putIfAbsent( key, task );
+		if ( running == null )
+		{
+			// the cell may have been added while we were not looking
+			cell = getCached( key );
+			if ( cell != null )
+			{
+				loading.remove( key );
+				return cell;
+			}
+			running = task;
+			task.run();
+		}
+
+		try
+		{
+			cell = running.get();
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+		catch ( final ExecutionException e )
+		{
+			final Throwable cause = e.getCause();
+			if ( running == task )
+				loading.remove( key );
+			throw cause instanceof RuntimeException ? ( RuntimeException ) cause : new RuntimeException( cause );
+		}
+
+		if ( running == task )
+		{
+			put( key, cell );
+			loading.remove( key );
+		}
+		return cell;
+	}
+
+	/**
+	 * @return whether the cell with the given flattened grid index is
+	 *         currently cached.
+	 */
+	public synchronized boolean isCached( final long index )
+	{
+		return cells.containsKey( index );
+	}
+
+	/**
+	 * @return the total size of the currently cached cell data in bytes.
+	 */
+	public synchronized long getSizeInBytes()
+	{
+		return bytes;
+	}
+
+	/**
+	 * Remove all cells from the cache.
+	 */
+	public synchronized void invalidateAll()
+	{
+		cells.clear();
+		bytes = 0;
+	}
+
+	private synchronized Cell< A > getCached( final Long key )
+	{
+		return cells.get( key );
+	}
+
+	private synchronized void put( final Long key, final Cell< A > cell )
+	{
+		final Cell< A > previous = cells.put( key, cell );
+		if ( previous != null )
+			bytes -= sizeInBytes( previous );
+		bytes += sizeInBytes( cell );
+
+		final Iterator< Map.Entry< Long, Cell< A > > > eldest = cells.entrySet().iterator();
+		while ( bytes > maxBytes && cells.size() > 1 )
+		{
+			bytes -= sizeInBytes( eldest.next().getValue() );
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * Size of the primitive array backing a cell. Cells that are not backed
+	 * by an {@link ArrayDataAccess} are counted as one byte per pixel.
+	 */
+	static long sizeInBytes( final Cell< ? > cell )
+	{
+		final Object data = cell.getData();
+		if ( data instanceof ArrayDataAccess )
+		{
+			final Object array = ( ( ArrayDataAccess< ? > ) data ).getCurrentStorageArray();
+			final Class< ? > component = array.getClass().getComponentType();
+			final long length = Array.getLength( array );
+			if ( component == long.class || component == double.class )
+				return 8 * length;
+			if ( component == int.class || component == float.class )
+				return 4 * length;
+			if ( component == short.class || component == char.class )
+				return 2 * length;
+			return length;
+		}
+		return cell.size();
+	}
+}
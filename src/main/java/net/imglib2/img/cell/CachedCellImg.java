@@ -0,0 +1,225 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.img.cell;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+/**
+ * A {@link LazyCellImg} that memoizes a {@link RandomAccessibleInterval}. Each
+ * cell is computed by copying the source in the interval of the cell into a
+ * primitive array when it is first accessed, and kept in a
+ * {@link BoundedCellCache} until it is evicted.
+ * <p>
+ * The image has the dimensions of the source and its min is at the origin.
+ * Use {@link Views#cached(RandomAccessibleInterval, int[], long)} to obtain a
+ * view with the same interval as the source.
+ *
+ * @param <T>
+ *            pixel type
+ * @param <A>
+ *            access type
+ */
+public class CachedCellImg< T extends NativeType< T >, A > extends LazyCellImg< T, A >
+{
+	private final BoundedCellCache< A > cache;
+
+	/**
+	 * @param source
+	 *            the source to memoize. Its values are copied with
+	 *            {@link net.imglib2.type.Type#set(net.imglib2.type.Type)}, so
+	 *            the source must be safe to read from several threads if cells
+	 *            are computed in parallel.
+	 * @param cellDimensions
+	 *            dimensions of a cell.
+	 * @param maxBytes
+	 *            maximum total size of the cached cell data in bytes.
+	 */
+	public CachedCellImg( final RandomAccessibleInterval< T > source, final int[] cellDimensions, final long maxBytes )
+	{
+		this( new CellGrid( Intervals.dimensionsAsLongArray( source ), cellDimensions ), Util.getTypeFromInterval( source ).createVariable(), source, maxBytes );
+	}
+
+	private CachedCellImg( final CellGrid grid, final T type, final RandomAccessibleInterval< T > source, final long maxBytes )
+	{
+		this( grid, type, new BoundedCellCache<>( new Loader< T, A >( grid, type, Views.zeroMin( source ) ), maxBytes ) );
+	}
+
+	private CachedCellImg( final CellGrid grid, final T type, final BoundedCellCache< A > cache )
+	{
+		super( grid, type, cache );
+		this.cache = cache;
+	}
+
+	/**
+	 * @return the cache holding the computed cells.
+	 */
+	public BoundedCellCache< A > getCache()
+	{
+		return cache;
+	}
+
+	/**
+	 * Compute all cells intersecting {@code interval} in parallel, and wait
+	 * until they are computed. Cells are kept only while they fit into the
+	 * budget of the cache.
+	 *
+	 * @param interval
+	 *            interval in the coordinates of this image.
+	 * @param executor
+	 *            executes the computation of the cells.
+	 */
+	public void prefetch( final Interval interval, final ExecutorService executor )
+	{
+		final int n = numDimensions();
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			min[ d ] = Math.max( 0, interval.min( d ) ) / grid.cellDimension( d );
+			max[ d ] = Math.min( dimension( d ) - 1, interval.max( d ) ) / grid.cellDimension( d );
+			if ( min[ d ] > max[ d ] )
+				return;
+		}
+
+		final long[] gridDimensions = grid.getGridDimensions();
+		final List< Future< ? > > futures = new ArrayList<>();
+		final long[] gridPosition = min.clone();
+		for ( long i = Intervals.numElements( new FinalInterval( min, max ) ); i > 0; --i )
+		{
+			final long index = IntervalIndexer.positionToIndex( gridPosition, gridDimensions );
+			if ( !cache.isCached( index ) )
+				futures.add( executor.submit( () -> cache.get( index ) ) );
+			for ( int d = 0; d < n; ++d )
+			{
+				if ( ++gridPosition[ d ] <= max[ d ] )
+					break;
+				gridPosition[ d ] = min[ d ];
+			}
+		}
+
+		try
+		{
+			for ( final Future< ? > future : futures )
+				future.get();
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+		catch ( final ExecutionException e )
+		{
+			final Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? ( RuntimeException ) cause : new RuntimeException( cause );
+		}
+	}
+
+	/**
+	 * Computes a cell by copying the source into a new {@link ArrayImg}, row by
+	 * row through a {@link RandomAccess}.
+	 */
+	private static class Loader< T extends NativeType< T >, A > implements LazyCellImg.Get< Cell< A > >
+	{
+		private final CellGrid grid;
+
+		private final T type;
+
+		private final RandomAccessibleInterval< T > source;
+
+		Loader( final CellGrid grid, final T type, final RandomAccessibleInterval< T > source )
+		{
+			this.grid = grid;
+			this.type = type;
+			this.source = source;
+		}
+
+		@Override
+		@SuppressWarnings( "unchecked" )
+		public Cell< A > get( final long index )
+		{
+			final int n = grid.numDimensions();
+			final long[] cellMin = new long[ n ];
+			final int[] cellDims = new int[ n ];
+			grid.getCellDimensions( index, cellMin, cellDims );
+
+			final long[] dimensions = new long[ n ];
+			final long[] cellMax = new long[ n ];
+			for ( int d = 0; d < n; ++d )
+			{
+				dimensions[ d ] = cellDims[ d ];
+				cellMax[ d ] = cellMin[ d ] + cellDims[ d ] - 1;
+			}
+
+			final ArrayImg< T, ? > data = new ArrayImgFactory< T >().create( dimensions, type );
+			final RandomAccess< T > in = source.randomAccess( new FinalInterval( cellMin, cellMax ) );
+			final Cursor< T > out = data.cursor();
+			final long[] position = cellMin.clone();
+			while ( out.hasNext() )
+			{
+				in.setPosition( position );
+				for ( int x = 0; x < cellDims[ 0 ]; ++x )
+				{
+					out.next().set( in.get() );
+					in.fwd( 0 );
+				}
+				for ( int d = 1; d < n; ++d )
+				{
+					if ( ++position[ d ] <= cellMax[ d ] )
+						break;
+					position[ d ] = cellMin[ d ];
+				}
+			}
+
+			return new Cell<>( cellDims, cellMin, ( A ) data.update( null ) );
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.img.cell;
+
+import java.util.Arrays;
+
+import net.imglib2.Interval;
+
+/**
+ * Iteration order for a sub-interval of an {@link AbstractCellImg}, as
+ * iterated by {@link CellSubIntervalCursor}. The cells intersecting the
+ * interval are iterated in flat order of the cell grid, where the intersection
+ * of each cell with the interval is iterated in flat iteration order.
+ *
+ * @author Tobias Pietzsch
+ */
+public class CellIntervalIterationOrder
+{
+	private final CellGrid grid;
+
+	private final long[] min;
+
+	private final long[] max;
+
+	public CellIntervalIterationOrder( final CellGrid grid, final Interval interval )
+	{
+		this.grid = grid;
+		final int n = interval.numDimensions();
+		min = new long[ n ];
+		max = new long[ n ];
+		interval.min( min );
+		interval.max( max );
+	}
+
+	/**
+	 * To be equal an object has to be a {@link CellIntervalIterationOrder} on
+	 * the same interval of a {@link CellGrid} of the same dimensions and
+	 * cell-dimensions.
+	 *
+	 * @return true, if obj is a compatible {@link CellIntervalIterationOrder}.
+	 */
+	@Override
+	public boolean equals( final Object obj )
+	{
+		if ( !( obj instanceof CellIntervalIterationOrder ) )
+			return false;
+
+		final CellIntervalIterationOrder other = ( CellIntervalIterationOrder ) obj;
+		return other.grid.equals( grid )
+				&& Arrays.equals( other.min, min )
+				&& Arrays.equals( other.max, max );
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * ( 31 * grid.hashCode() + Arrays.hashCode( min ) ) + Arrays.hashCode( max );
+	}
+}
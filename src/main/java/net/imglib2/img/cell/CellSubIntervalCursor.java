@@ -0,0 +1,323 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.img.cell;
+
+import net.imglib2.AbstractLocalizingCursor;
+import net.imglib2.Cursor;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.type.NativeType;
+
+/**
+ * Localizing {@link Cursor} over a sub-interval of an {@link AbstractCellImg}.
+ * The cells intersecting the interval are visited in flat order of the cell
+ * grid, and the intersection of each cell with the interval is iterated in
+ * flat order. Within a row of a cell the index is incremented contiguously.
+ * Cells are only accessed when the cursor enters them, so cells skipped by
+ * {@link #jumpFwd(long)} are never loaded.
+ */
+public class CellSubIntervalCursor< T extends NativeType< T >, C extends Cell< ? > >
+		extends AbstractLocalizingCursor< T >
+		implements AbstractCellImg.CellImgSampler< C >
+{
+	protected final T type;
+
+	protected final CellGrid grid;
+
+	protected final RandomAccess< C > randomAccessOnCells;
+
+	/**
+	 * Minimum and maximum of the iterated interval.
+	 */
+	protected final long[] min;
+
+	protected final long[] max;
+
+	/**
+	 * Range of grid coordinates of the cells intersecting the interval.
+	 */
+	protected final long[] gridMin;
+
+	protected final long[] gridMax;
+
+	/**
+	 * Grid coordinates of the current cell.
+	 */
+	protected final long[] gridPosition;
+
+	/**
+	 * Intersection of the current cell with the interval.
+	 */
+	protected final long[] regionMin;
+
+	protected final long[] regionMax;
+
+	protected long regionSize;
+
+	protected C cell;
+
+	protected int lastIndexInRegion;
+
+	/**
+	 * The current index of the type. It is faster to duplicate this here than
+	 * to access it through type.getIndex().
+	 */
+	protected int index;
+
+	/**
+	 * Whether the current cell is not the last cell intersecting the interval.
+	 */
+	protected boolean isNotLastCell;
+
+	private final long[] tmpCellMin;
+
+	private final int[] tmpCellDims;
+
+	protected CellSubIntervalCursor( final CellSubIntervalCursor< T, C > cursor )
+	{
+		super( cursor.numDimensions() );
+
+		type = cursor.type.duplicateTypeOnSameNativeImg();
+		grid = cursor.grid;
+		randomAccessOnCells = cursor.randomAccessOnCells.copyRandomAccess();
+		min = cursor.min;
+		max = cursor.max;
+		gridMin = cursor.gridMin;
+		gridMax = cursor.gridMax;
+		gridPosition = cursor.gridPosition.clone();
+		regionMin = cursor.regionMin.clone();
+		regionMax = cursor.regionMax.clone();
+		regionSize = cursor.regionSize;
+		cell = cursor.cell;
+		lastIndexInRegion = cursor.lastIndexInRegion;
+		index = cursor.index;
+		isNotLastCell = cursor.isNotLastCell;
+		tmpCellMin = new long[ n ];
+		tmpCellDims = new int[ n ];
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = cursor.position[ d ];
+
+		type.updateContainer( this );
+		type.updateIndex( index );
+	}
+
+	/**
+	 * @param img
+	 *            the image to iterate.
+	 * @param interval
+	 *            the interval to iterate. Must be contained in {@code img}.
+	 */
+	public CellSubIntervalCursor( final AbstractCellImg< T, ?, C, ? > img, final Interval interval )
+	{
+		super( img.numDimensions() );
+
+		type = img.createLinkedType();
+		grid = img.getCellGrid();
+		randomAccessOnCells = img.getCells().randomAccess();
+		min = new long[ n ];
+		max = new long[ n ];
+		gridMin = new long[ n ];
+		gridMax = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			min[ d ] = interval.min( d );
+			max[ d ] = interval.max( d );
+			gridMin[ d ] = min[ d ] / grid.cellDimension( d );
+			gridMax[ d ] = max[ d ] / grid.cellDimension( d );
+		}
+		gridPosition = new long[ n ];
+		regionMin = new long[ n ];
+		regionMax = new long[ n ];
+		tmpCellMin = new long[ n ];
+		tmpCellDims = new int[ n ];
+
+		reset();
+	}
+
+	@Override
+	public C getCell()
+	{
+		return cell;
+	}
+
+	@Override
+	public T get()
+	{
+		return type;
+	}
+
+	@Override
+	public CellSubIntervalCursor< T, C > copy()
+	{
+		return new CellSubIntervalCursor<>( this );
+	}
+
+	@Override
+	public CellSubIntervalCursor< T, C > copyCursor()
+	{
+		return copy();
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return isNotLastCell || ( index < lastIndexInRegion );
+	}
+
+	@Override
+	public void fwd()
+	{
+		if ( ++position[ 0 ] <= regionMax[ 0 ] )
+		{
+			type.updateIndex( ++index );
+			return;
+		}
+
+		position[ 0 ] = regionMin[ 0 ];
+		for ( int d = 1; d < n; ++d )
+		{
+			if ( ++position[ d ] <= regionMax[ d ] )
+			{
+				index = cell.globalPositionToIndex( position );
+				type.updateIndex( index );
+				return;
+			}
+			position[ d ] = regionMin[ d ];
+		}
+
+		nextGridPosition();
+		updateRegion();
+		updateCell();
+		position[ 0 ] = regionMin[ 0 ];
+		type.updateIndex( ++index );
+	}
+
+	@Override
+	public void jumpFwd( final long steps )
+	{
+		// linear index of the current position in the current region
+		long i = 0;
+		for ( int d = n - 1; d >= 0; --d )
+			i = i * ( regionMax[ d ] - regionMin[ d ] + 1 ) + position[ d ] - regionMin[ d ];
+		i += steps;
+
+		if ( i >= regionSize )
+		{
+			while ( i >= regionSize )
+			{
+				i -= regionSize;
+				nextGridPosition();
+				updateRegion();
+			}
+			updateCell();
+		}
+
+		for ( int d = 0; d < n; ++d )
+		{
+			final long size = regionMax[ d ] - regionMin[ d ] + 1;
+			final long j = i / size;
+			position[ d ] = regionMin[ d ] + i - j * size;
+			i = j;
+		}
+		index = cell.globalPositionToIndex( position );
+		type.updateIndex( index );
+	}
+
+	@Override
+	public void reset()
+	{
+		for ( int d = 0; d < n; ++d )
+			gridPosition[ d ] = gridMin[ d ];
+		isNotLastCell = !isLastGridPosition();
+		updateRegion();
+		updateCell();
+		type.updateIndex( index );
+	}
+
+	/**
+	 * Move {@link #gridPosition} to the next cell intersecting the interval.
+	 */
+	private void nextGridPosition()
+	{
+		for ( int d = 0; d < n; ++d )
+		{
+			if ( ++gridPosition[ d ] <= gridMax[ d ] )
+				break;
+			gridPosition[ d ] = gridMin[ d ];
+		}
+		isNotLastCell = !isLastGridPosition();
+	}
+
+	private boolean isLastGridPosition()
+	{
+		for ( int d = 0; d < n; ++d )
+			if ( gridPosition[ d ] != gridMax[ d ] )
+				return false;
+		return true;
+	}
+
+	/**
+	 * Compute the intersection of the cell at {@link #gridPosition} with the
+	 * interval, without accessing the cell.
+	 */
+	private void updateRegion()
+	{
+		grid.getCellDimensions( gridPosition, tmpCellMin, tmpCellDims );
+		long size = 1;
+		for ( int d = 0; d < n; ++d )
+		{
+			regionMin[ d ] = Math.max( min[ d ], tmpCellMin[ d ] );
+			regionMax[ d ] = Math.min( max[ d ], tmpCellMin[ d ] + tmpCellDims[ d ] - 1 );
+			size *= regionMax[ d ] - regionMin[ d ] + 1;
+		}
+		regionSize = size;
+	}
+
+	/**
+	 * Access the cell at {@link #gridPosition} and move the cursor right
+	 * before the first element of the current region.
+	 */
+	private void updateCell()
+	{
+		randomAccessOnCells.setPosition( gridPosition );
+		cell = randomAccessOnCells.get();
+		lastIndexInRegion = cell.globalPositionToIndex( regionMax );
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = regionMin[ d ];
+		index = cell.globalPositionToIndex( position ) - 1;
+		--position[ 0 ];
+		type.updateContainer( this );
+	}
+}
@@ -1,6 +1,5 @@
 package net.imglib2.img.cell;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 
 import net.imglib2.img.Img;
@@ -35,14 +34,7 @@ public class LazyCellImg< T extends NativeType< T >, A >
 	public LazyCellImg( final CellGrid grid, final T type, final Get< Cell< A > > get )
 	{
 		super( grid, new LazyCells<>( grid.getGridDimensions(), get ), type.getEntitiesPerPixel() );
-		try
-		{
-			linkType( type, this );
-		}
-		catch ( NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e )
-		{
-			throw new RuntimeException( e );
-		}
+		setLinkedType( type.createLinkedType( this ) );
 	}
 
 	public LazyCellImg( final CellGrid grid, final Fraction entitiesPerPixel, final Get< Cell< A > > get )
@@ -99,11 +91,10 @@ public class LazyCellImg< T extends NativeType< T >, A >
 
 
 	/**
-	 * Reflection hack because there is no {@code T NativeType
-	 * <T>.create(NativeImg<?, A>)} method in ImgLib2 Note that for this method
-	 * to be introduced, NativeType would need an additional generic parameter A
-	 * that specifies the accepted family of access objects that can be used in
-	 * the NativeImg... big change
+	 * Link a type of the same kind as {@code t} to {@code img}.
+	 *
+	 * @deprecated Use {@link NativeType#createLinkedType(NativeImg)} which
+	 *             does not need reflection for the built-in types.
 	 *
 	 * @throws SecurityException
 	 * @throws NoSuchMethodException
@@ -112,14 +103,10 @@ public class LazyCellImg< T extends NativeType< T >, A >
 	 * @throws IllegalAccessException
 	 * @throws InstantiationException
 	 */
+	@Deprecated
 	@SuppressWarnings( { "rawtypes", "unchecked" } )
 	public static void linkType( final NativeType t, final NativeImg img ) throws NoSuchMethodException, SecurityException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException
 	{
-		final Constructor constructor = t.getClass().getDeclaredConstructor( NativeImg.class );
-		if ( constructor != null )
-		{
-			final NativeType linkedType = ( NativeType )constructor.newInstance( img );
-			img.setLinkedType( linkedType );
-		}
+		img.setLinkedType( t.createLinkedType( img ) );
 	}
 }
@@ -307,8 +307,7 @@ public class PlanarImg< T extends NativeType< T >, A extends ArrayDataAccess< A
 	@Override
 	public boolean supportsOptimizedCursor( final Interval interval )
 	{
-		// we want to optimize exactly one plane
-		return Intervals.contains( this, interval ) && correspondsToPlane( interval );
+		return Intervals.contains( this, interval );
 	}
 
 	/**
@@ -328,7 +327,9 @@ public class PlanarImg< T extends NativeType< T >, A extends ArrayDataAccess< A
 	{
 		assert ( supportsOptimizedCursor( interval ) );
 
-		return new PlanarPlaneSubsetCursor< T >( this, interval );
+		if ( correspondsToPlane( interval ) )
+			return new PlanarPlaneSubsetCursor< T >( this, interval );
+		return new PlanarSubIntervalCursor< T >( this, interval );
 	}
 
 	private boolean correspondsToPlane( final Interval interval )
@@ -360,6 +361,8 @@ public class PlanarImg< T extends NativeType< T >, A extends ArrayDataAccess< A
 	{
 		assert ( supportsOptimizedCursor( interval ) );
 
-		return new PlanarPlaneSubsetLocalizingCursor< T >( this, interval );
+		if ( correspondsToPlane( interval ) )
+			return new PlanarPlaneSubsetLocalizingCursor< T >( this, interval );
+		return new PlanarSubIntervalCursor< T >( this, interval );
 	}
 }
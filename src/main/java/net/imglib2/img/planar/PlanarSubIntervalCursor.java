@@ -0,0 +1,297 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.img.planar;
+
+import net.imglib2.AbstractLocalizingCursorInt;
+import net.imglib2.Interval;
+import net.imglib2.type.NativeType;
+
+/**
+ * Localizing cursor over an arbitrary sub-interval of a {@link PlanarImg}. The
+ * interval is iterated in flat iteration order. Rows are traversed
+ * contiguously, the index is adjusted at the end of each row, and the
+ * underlying plane is switched only at the end of each plane.
+ *
+ * @param <T>
+ */
+public class PlanarSubIntervalCursor< T extends NativeType< T > >
+		extends AbstractLocalizingCursorInt< T > implements PlanarImg.PlanarContainerSampler
+{
+	/**
+	 * Access to the type
+	 */
+	private final T type;
+
+	/**
+	 * Container
+	 */
+	private final PlanarImg< T, ? > container;
+
+	/**
+	 * Minimum of the iterated interval.
+	 */
+	private final int[] min;
+
+	/**
+	 * Maximum of the iterated interval.
+	 */
+	private final int[] max;
+
+	/**
+	 * Index increment from the end of one row to the start of the next row.
+	 */
+	private final int rowSkip;
+
+	/**
+	 * Index of the first element of the interval within a plane.
+	 */
+	private final int firstIndexInPlane;
+
+	/**
+	 * Index of the last element of the interval within a plane.
+	 */
+	private final int lastIndexInPlane;
+
+	/**
+	 * Index of the last plane of the interval.
+	 */
+	private final int lastSliceIndex;
+
+	/**
+	 * Current slice index
+	 */
+	private int sliceIndex;
+
+	/**
+	 * Copy Constructor
+	 *
+	 * @param cursor
+	 *            PlanarSubIntervalCursor to copy from
+	 */
+	protected PlanarSubIntervalCursor( final PlanarSubIntervalCursor< T > cursor )
+	{
+		super( cursor.numDimensions() );
+
+		container = cursor.container;
+		type = container.createLinkedType();
+
+		min = cursor.min;
+		max = cursor.max;
+		rowSkip = cursor.rowSkip;
+		firstIndexInPlane = cursor.firstIndexInPlane;
+		lastIndexInPlane = cursor.lastIndexInPlane;
+		lastSliceIndex = cursor.lastSliceIndex;
+		sliceIndex = cursor.sliceIndex;
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = cursor.position[ d ];
+
+		type.updateContainer( this );
+		type.updateIndex( cursor.type.getIndex() );
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param container
+	 *            PlanarImg this cursor shall work on.
+	 * @param interval
+	 *            Interval over which shall be iterated. Must be contained in
+	 *            the container.
+	 */
+	public PlanarSubIntervalCursor( final PlanarImg< T, ? > container, final Interval interval )
+	{
+		super( container.numDimensions() );
+
+		this.container = container;
+		this.type = container.createLinkedType();
+
+		min = new int[ n ];
+		max = new int[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			min[ d ] = ( int ) interval.min( d );
+			max[ d ] = ( int ) interval.max( d );
+		}
+
+		final int dimX = container.dimensions[ 0 ];
+		rowSkip = dimX - ( max[ 0 ] - min[ 0 ] );
+		firstIndexInPlane = n > 1 ? min[ 1 ] * dimX + min[ 0 ] : min[ 0 ];
+		lastIndexInPlane = n > 1 ? max[ 1 ] * dimX + max[ 0 ] : max[ 0 ];
+		lastSliceIndex = sliceIndex( max );
+
+		reset();
+	}
+
+	private int sliceIndex( final int[] pos )
+	{
+		int s = 0;
+		for ( int d = 2; d < n; ++d )
+			s += pos[ d ] * container.sliceSteps[ d ];
+		return s;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final int getCurrentSliceIndex()
+	{
+		return sliceIndex;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final T get()
+	{
+		return type;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PlanarSubIntervalCursor< T > copy()
+	{
+		return new PlanarSubIntervalCursor< T >( this );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PlanarSubIntervalCursor< T > copyCursor()
+	{
+		return copy();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final boolean hasNext()
+	{
+		return type.getIndex() < lastIndexInPlane || sliceIndex < lastSliceIndex;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void fwd()
+	{
+		if ( ++position[ 0 ] <= max[ 0 ] || n == 1 )
+		{
+			type.incIndex();
+			return;
+		}
+
+		position[ 0 ] = min[ 0 ];
+		if ( ++position[ 1 ] <= max[ 1 ] )
+		{
+			type.incIndex( rowSkip );
+			return;
+		}
+
+		position[ 1 ] = min[ 1 ];
+		for ( int d = 2; d < n; ++d )
+		{
+			if ( ++position[ d ] <= max[ d ] )
+				break;
+			position[ d ] = min[ d ];
+		}
+		sliceIndex = sliceIndex( position );
+		type.updateContainer( this );
+		type.updateIndex( firstIndexInPlane );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void jumpFwd( final long steps )
+	{
+		// linear index of the current position in the interval
+		long i = 0;
+		for ( int d = n - 1; d >= 0; --d )
+			i = i * ( max[ d ] - min[ d ] + 1 ) + position[ d ] - min[ d ];
+		i += steps;
+
+		for ( int d = 0; d < n; ++d )
+		{
+			final long size = max[ d ] - min[ d ] + 1;
+			if ( d == n - 1 )
+				position[ d ] = ( int ) ( min[ d ] + i );
+			else
+			{
+				final long j = i / size;
+				position[ d ] = ( int ) ( min[ d ] + i - j * size );
+				i = j;
+			}
+		}
+
+		final int newSliceIndex = sliceIndex( position );
+		if ( newSliceIndex != sliceIndex )
+		{
+			sliceIndex = newSliceIndex;
+			type.updateContainer( this );
+		}
+		type.updateIndex( n > 1 ? position[ 1 ] * container.dimensions[ 0 ] + position[ 0 ] : position[ 0 ] );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void reset()
+	{
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = min[ d ];
+		--position[ 0 ];
+		sliceIndex = sliceIndex( position );
+		type.updateContainer( this );
+		type.updateIndex( firstIndexInPlane - 1 );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return type.toString();
+	}
+}
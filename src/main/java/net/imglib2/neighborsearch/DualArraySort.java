@@ -0,0 +1,158 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.neighborsearch;
+
+/**
+ * Sorts an array of square distances ascending and permutes a parallel array
+ * of neighbors (node indices or node references) in sync, without boxing or
+ * allocation.
+ */
+final class DualArraySort
+{
+	private DualArraySort()
+	{}
+
+	/**
+	 * Sort {@code keys[i..j]} (inclusive) ascending, permuting
+	 * {@code values[i..j]} in sync.
+	 */
+	static void sort( final double[] keys, final int[] values, int i, int j )
+	{
+		while ( j - i > 16 )
+		{
+			final double pivot = keys[ i + ( j - i ) / 2 ];
+			int l = i;
+			int r = j;
+			while ( l <= r )
+			{
+				while ( keys[ l ] < pivot )
+					++l;
+				while ( keys[ r ] > pivot )
+					--r;
+				if ( l <= r )
+				{
+					final double tk = keys[ l ];
+					keys[ l ] = keys[ r ];
+					keys[ r ] = tk;
+					final int tv = values[ l ];
+					values[ l ] = values[ r ];
+					values[ r ] = tv;
+					++l;
+					--r;
+				}
+			}
+			// recurse into the smaller part, iterate on the larger one
+			if ( r - i < j - l )
+			{
+				sort( keys, values, i, r );
+				i = l;
+			}
+			else
+			{
+				sort( keys, values, l, j );
+				j = r;
+			}
+		}
+		for ( int a = i + 1; a <= j; ++a )
+		{
+			final double k = keys[ a ];
+			final int v = values[ a ];
+			int b = a - 1;
+			for ( ; b >= i && keys[ b ] > k; --b )
+			{
+				keys[ b + 1 ] = keys[ b ];
+				values[ b + 1 ] = values[ b ];
+			}
+			keys[ b + 1 ] = k;
+			values[ b + 1 ] = v;
+		}
+	}
+
+	/**
+	 * Sort {@code keys[i..j]} (inclusive) ascending, permuting
+	 * {@code values[i..j]} in sync.
+	 */
+	static < V > void sort( final double[] keys, final V[] values, int i, int j )
+	{
+		while ( j - i > 16 )
+		{
+			final double pivot = keys[ i + ( j - i ) / 2 ];
+			int l = i;
+			int r = j;
+			while ( l <= r )
+			{
+				while ( keys[ l ] < pivot )
+					++l;
+				while ( keys[ r ] > pivot )
+					--r;
+				if ( l <= r )
+				{
+					final double tk = keys[ l ];
+					keys[ l ] = keys[ r ];
+					keys[ r ] = tk;
+					final V tv = values[ l ];
+					values[ l ] = values[ r ];
+					values[ r ] = tv;
+					++l;
+					--r;
+				}
+			}
+			// recurse into the smaller part, iterate on the larger one
+			if ( r - i < j - l )
+			{
+				sort( keys, values, i, r );
+				i = l;
+			}
+			else
+			{
+				sort( keys, values, l, j );
+				j = r;
+			}
+		}
+		for ( int a = i + 1; a <= j; ++a )
+		{
+			final double k = keys[ a ];
+			final V v = values[ a ];
+			int b = a - 1;
+			for ( ; b >= i && keys[ b ] > k; --b )
+			{
+				keys[ b + 1 ] = keys[ b ];
+				values[ b + 1 ] = values[ b ];
+			}
+			keys[ b + 1 ] = k;
+			values[ b + 1 ] = v;
+		}
+	}
+}
@@ -0,0 +1,309 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.neighborsearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.IterableRealInterval;
+import net.imglib2.RealCursor;
+
+/**
+ * k-nearest neighbor search for many query points at once on a
+ * {@link FlatKDTree}.
+ *
+ * <p>
+ * Results are stored in flat arrays: for query {@code q}, the input index
+ * (see {@link FlatKDTree#getInputIndex(int)}) and square distance of the
+ * <em>i</em><sup>th</sup> nearest neighbor are at index {@code q*k+i} of
+ * {@link #getIndices()} and {@link #getSquareDistances()}. The arrays are
+ * reused by subsequent searches with the same or fewer queries.
+ * </p>
+ *
+ * <p>
+ * Queries are split into contiguous chunks that are searched in parallel,
+ * each with its own {@link KNearestNeighborSearchOnFlatKDTree}. Optionally,
+ * queries are first ordered along a Z-order curve, so that consecutive
+ * queries of a chunk visit similar parts of the tree.
+ * </p>
+ */
+public class KNearestNeighborBatchSearchOnFlatKDTree< T >
+{
+	protected final FlatKDTree< T > tree;
+
+	protected final int n;
+
+	protected final int k;
+
+	protected int numQueries;
+
+	protected int[] indices;
+
+	protected double[] squDistances;
+
+	public KNearestNeighborBatchSearchOnFlatKDTree( final FlatKDTree< T > tree, final int k )
+	{
+		this.tree = tree;
+		this.n = tree.numDimensions();
+		this.k = k;
+		this.indices = new int[ 0 ];
+		this.squDistances = new double[ 0 ];
+	}
+
+	/**
+	 * Find the k nearest neighbors of each of the given query points.
+	 *
+	 * @param queries
+	 *            query coordinates, {@code queries[q][d]} is coordinate
+	 *            {@code d} of query {@code q}.
+	 * @param executor
+	 *            used to search chunks of queries in parallel. If
+	 *            {@code null}, the search runs on the calling thread.
+	 * @param numTasks
+	 *            number of chunks to split the queries into.
+	 * @param sortQueries
+	 *            whether to order queries by spatial locality before
+	 *            searching.
+	 */
+	public void search( final double[][] queries, final ExecutorService executor, final int numTasks, final boolean sortQueries )
+	{
+		final double[] flat = new double[ queries.length * n ];
+		for ( int q = 0; q < queries.length; ++q )
+			System.arraycopy( queries[ q ], 0, flat, q * n, n );
+		search( flat, executor, numTasks, sortQueries );
+	}
+
+	/**
+	 * Find the k nearest neighbors of the positions of the given query
+	 * samples, in iteration order (for example a
+	 * {@link net.imglib2.RealPointSampleList}).
+	 *
+	 * @see #search(double[][], ExecutorService, int, boolean)
+	 */
+	public void search( final IterableRealInterval< ? > queries, final ExecutorService executor, final int numTasks, final boolean sortQueries )
+	{
+		final double[] flat = new double[ ( int ) queries.size() * n ];
+		final RealCursor< ? > cursor = queries.localizingCursor();
+		for ( int o = 0; cursor.hasNext(); )
+		{
+			cursor.fwd();
+			for ( int d = 0; d < n; ++d )
+				flat[ o++ ] = cursor.getDoublePosition( d );
+		}
+		search( flat, executor, numTasks, sortQueries );
+	}
+
+	/**
+	 * Find the k nearest neighbors of each of the given query points.
+	 *
+	 * @param queries
+	 *            interleaved query coordinates, coordinate {@code d} of query
+	 *            {@code q} is at {@code queries[n*q+d]}.
+	 *
+	 * @see #search(double[][], ExecutorService, int, boolean)
+	 */
+	public void search( final double[] queries, final ExecutorService executor, final int numTasks, final boolean sortQueries )
+	{
+		numQueries = queries.length / n;
+		if ( indices.length < numQueries * k )
+		{
+			indices = new int[ numQueries * k ];
+			squDistances = new double[ numQueries * k ];
+		}
+
+		final int[] order = sortQueries ? zOrder( queries ) : null;
+
+		final int numChunks = Math.max( 1, Math.min( numTasks, numQueries ) );
+		if ( executor == null || numChunks == 1 )
+		{
+			searchChunk( queries, order, 0, numQueries );
+			return;
+		}
+
+		final List< Future< ? > > futures = new ArrayList<>();
+		for ( int t = 0; t < numChunks; ++t )
+		{
+			final int from = ( int ) ( ( long ) numQueries * t / numChunks );
+			final int to = ( int ) ( ( long ) numQueries * ( t + 1 ) / numChunks );
+			futures.add( executor.submit( () -> searchChunk( queries, order, from, to ) ) );
+		}
+		try
+		{
+			for ( final Future< ? > future : futures )
+				future.get();
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+		catch ( final ExecutionException e )
+		{
+			final Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? ( RuntimeException ) cause : new RuntimeException( cause );
+		}
+	}
+
+	/**
+	 * Search queries {@code order[from]} to {@code order[to-1]} (or
+	 * {@code from} to {@code to-1} if {@code order == null}) with a new
+	 * per-task search object.
+	 */
+	private void searchChunk( final double[] queries, final int[] order, final int from, final int to )
+	{
+		final KNearestNeighborSearchOnFlatKDTree< T > search = new KNearestNeighborSearchOnFlatKDTree< T >( tree, k );
+		final double[] query = new double[ n ];
+		for ( int i = from; i < to; ++i )
+		{
+			final int q = order == null ? i : order[ i ];
+			System.arraycopy( queries, q * n, query, 0, n );
+			search.search( query );
+			final int o = q * k;
+			for ( int j = 0; j < k; ++j )
+			{
+				final int node = search.getIndex( j );
+				indices[ o + j ] = node < 0 ? -1 : tree.getInputIndex( node );
+				squDistances[ o + j ] = search.getSquareDistance( j );
+			}
+		}
+	}
+
+	/**
+	 * Get the permutation that orders the queries along a Z-order (Morton)
+	 * curve over the bounding box of the tree. Each coordinate is quantized to
+	 * {@code 31/n} bits, so that the curve index and query index can be packed
+	 * into a {@code long} and sorted as primitives.
+	 */
+	private int[] zOrder( final double[] queries )
+	{
+		final int bits = 31 / n;
+		if ( bits == 0 )
+			return null;
+
+		final int cells = 1 << bits;
+		final double[] min = new double[ n ];
+		final double[] scale = new double[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			min[ d ] = tree.realMin( d );
+			final double extent = tree.realMax( d ) - min[ d ];
+			scale[ d ] = extent > 0 ? cells / extent : 0;
+		}
+
+		final long[] keys = new long[ numQueries ];
+		final int[] cell = new int[ n ];
+		for ( int q = 0; q < numQueries; ++q )
+		{
+			for ( int d = 0; d < n; ++d )
+			{
+				final double x = ( queries[ q * n + d ] - min[ d ] ) * scale[ d ];
+				cell[ d ] = x <= 0 ? 0 : ( x >= cells ? cells - 1 : ( int ) x );
+			}
+			long code = 0;
+			for ( int b = bits - 1; b >= 0; --b )
+				for ( int d = 0; d < n; ++d )
+					code = ( code << 1 ) | ( ( cell[ d ] >> b ) & 1 );
+			keys[ q ] = ( code << 32 ) | q;
+		}
+		Arrays.sort( keys );
+
+		final int[] order = new int[ numQueries ];
+		for ( int i = 0; i < numQueries; ++i )
+			order[ i ] = ( int ) keys[ i ];
+		return order;
+	}
+
+	public int numDimensions()
+	{
+		return n;
+	}
+
+	public int getK()
+	{
+		return k;
+	}
+
+	/**
+	 * Get the number of queries of the last search.
+	 */
+	public int numQueries()
+	{
+		return numQueries;
+	}
+
+	/**
+	 * Get the input indices of the neighbors found in the last search. The
+	 * <em>i</em><sup>th</sup> nearest neighbor of query {@code q} is at
+	 * {@code q*k+i}, neighbors that do not exist (if the tree has fewer than
+	 * {@code k} nodes) are -1. The array may be longer than
+	 * {@code numQueries()*k}.
+	 */
+	public int[] getIndices()
+	{
+		return indices;
+	}
+
+	/**
+	 * Get the square distances of the neighbors found in the last search,
+	 * arranged like {@link #getIndices()}.
+	 */
+	public double[] getSquareDistances()
+	{
+		return squDistances;
+	}
+
+	/**
+	 * Get the input index of the <em>i</em><sup>th</sup> nearest neighbor of
+	 * query {@code q}.
+	 */
+	public int getIndex( final int q, final int i )
+	{
+		return indices[ q * k + i ];
+	}
+
+	/**
+	 * Get the square distance of the <em>i</em><sup>th</sup> nearest neighbor
+	 * of query {@code q}.
+	 */
+	public double getSquareDistance( final int q, final int i )
+	{
+		return squDistances[ q * k + i ];
+	}
+}
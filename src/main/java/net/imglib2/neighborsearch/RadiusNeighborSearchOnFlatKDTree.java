@@ -0,0 +1,257 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.neighborsearch;
+
+import java.util.Arrays;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.RealLocalizable;
+import net.imglib2.Sampler;
+
+/**
+ * Implementation of {@link RadiusNeighborSearch} search for
+ * {@link FlatKDTree}s. Found neighbors are recorded as node indices and
+ * square distances in primitive arrays that are reused between searches.
+ * Neighbors can also be counted ({@link #count(RealLocalizable, double)}) or
+ * passed to a {@link NeighborVisitor}
+ * ({@link #search(RealLocalizable, double, NeighborVisitor)}) without being
+ * recorded.
+ */
+public class RadiusNeighborSearchOnFlatKDTree< T > implements RadiusNeighborSearch< T >
+{
+	/**
+	 * Receives the neighbors found by
+	 * {@link RadiusNeighborSearchOnFlatKDTree#search(RealLocalizable, double, NeighborVisitor)}
+	 * in arbitrary order.
+	 */
+	public interface NeighborVisitor
+	{
+		public void visit( int node, double squDistance );
+	}
+
+	protected FlatKDTree< T > tree;
+
+	protected final int n;
+
+	protected final int size;
+
+	protected final double[] positions;
+
+	protected final double[] pos;
+
+	protected int numNeighbors;
+
+	protected int[] resultIndices;
+
+	protected double[] resultSquDistances;
+
+	public RadiusNeighborSearchOnFlatKDTree( final FlatKDTree< T > tree )
+	{
+		this.tree = tree;
+		this.n = tree.numDimensions();
+		this.size = ( int ) tree.size();
+		this.positions = tree.getFlatPositions();
+		this.pos = new double[ n ];
+		this.resultIndices = new int[ 16 ];
+		this.resultSquDistances = new double[ 16 ];
+	}
+
+	@Override
+	public void search( final RealLocalizable reference, final double radius, final boolean sortResults )
+	{
+		assert radius >= 0;
+		reference.localize( pos );
+		numNeighbors = 0;
+		if ( size > 0 )
+			searchNode( 0, 0, radius * radius );
+		if ( sortResults )
+			DualArraySort.sort( resultSquDistances, resultIndices, 0, numNeighbors - 1 );
+	}
+
+	/**
+	 * Count the points within radius about a reference coordinate, without
+	 * recording them. This does not change the results of the last
+	 * {@link #search(RealLocalizable, double, boolean)}.
+	 *
+	 * @param reference
+	 *            the reference coordinate.
+	 * @param radius
+	 *            the radius about the reference coordinate.
+	 * @return the number of points whose distance to the reference is smaller
+	 *         or equal the radius.
+	 */
+	public int count( final RealLocalizable reference, final double radius )
+	{
+		assert radius >= 0;
+		reference.localize( pos );
+		return size > 0 ? countNode( 0, 0, radius * radius ) : 0;
+	}
+
+	/**
+	 * Pass every point within radius about a reference coordinate to a
+	 * visitor, without recording it. This does not change the results of the
+	 * last {@link #search(RealLocalizable, double, boolean)}.
+	 *
+	 * @param reference
+	 *            the reference coordinate.
+	 * @param radius
+	 *            the radius about the reference coordinate.
+	 * @param visitor
+	 *            receives the index of each node within radius and its square
+	 *            distance to the reference.
+	 */
+	public void search( final RealLocalizable reference, final double radius, final NeighborVisitor visitor )
+	{
+		assert radius >= 0;
+		reference.localize( pos );
+		if ( size > 0 )
+			visitNode( 0, 0, radius * radius, visitor );
+	}
+
+	@Override
+	public int numDimensions()
+	{
+		return n;
+	}
+
+	protected void searchNode( final int current, final int d, final double squRadius )
+	{
+		// consider the current node
+		final double squDistance = tree.squDistance( current, pos );
+		if ( squDistance <= squRadius )
+		{
+			if ( numNeighbors == resultIndices.length )
+			{
+				resultIndices = Arrays.copyOf( resultIndices, 2 * numNeighbors );
+				resultSquDistances = Arrays.copyOf( resultSquDistances, 2 * numNeighbors );
+			}
+			resultIndices[ numNeighbors ] = current;
+			resultSquDistances[ numNeighbors ] = squDistance;
+			++numNeighbors;
+		}
+
+		final double axisDiff = pos[ d ] - positions[ current * n + d ];
+		final double axisSquDistance = axisDiff * axisDiff;
+		final boolean leftIsNearBranch = axisDiff < 0;
+
+		// search the near branch
+		final int left = FlatKDTree.left( current );
+		final int right = left + 1;
+		final int nearChild = leftIsNearBranch ? left : right;
+		final int awayChild = leftIsNearBranch ? right : left;
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		if ( nearChild < size )
+			searchNode( nearChild, dChild, squRadius );
+
+		// search the away branch - maybe
+		if ( ( axisSquDistance <= squRadius ) && ( awayChild < size ) )
+			searchNode( awayChild, dChild, squRadius );
+	}
+
+	private int countNode( final int current, final int d, final double squRadius )
+	{
+		int count = tree.squDistance( current, pos ) <= squRadius ? 1 : 0;
+
+		final double axisDiff = pos[ d ] - positions[ current * n + d ];
+		final boolean leftIsNearBranch = axisDiff < 0;
+		final int left = FlatKDTree.left( current );
+		final int right = left + 1;
+		final int nearChild = leftIsNearBranch ? left : right;
+		final int awayChild = leftIsNearBranch ? right : left;
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		if ( nearChild < size )
+			count += countNode( nearChild, dChild, squRadius );
+		if ( ( axisDiff * axisDiff <= squRadius ) && ( awayChild < size ) )
+			count += countNode( awayChild, dChild, squRadius );
+		return count;
+	}
+
+	private void visitNode( final int current, final int d, final double squRadius, final NeighborVisitor visitor )
+	{
+		final double squDistance = tree.squDistance( current, pos );
+		if ( squDistance <= squRadius )
+			visitor.visit( current, squDistance );
+
+		final double axisDiff = pos[ d ] - positions[ current * n + d ];
+		final boolean leftIsNearBranch = axisDiff < 0;
+		final int left = FlatKDTree.left( current );
+		final int right = left + 1;
+		final int nearChild = leftIsNearBranch ? left : right;
+		final int awayChild = leftIsNearBranch ? right : left;
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		if ( nearChild < size )
+			visitNode( nearChild, dChild, squRadius, visitor );
+		if ( ( axisDiff * axisDiff <= squRadius ) && ( awayChild < size ) )
+			visitNode( awayChild, dChild, squRadius, visitor );
+	}
+
+	@Override
+	public int numNeighbors()
+	{
+		return numNeighbors;
+	}
+
+	/**
+	 * Get the index of the <em>i</em><sup>th</sup> neighbor node in the tree.
+	 */
+	public int getIndex( final int i )
+	{
+		return resultIndices[ i ];
+	}
+
+	@Override
+	public Sampler< T > getSampler( final int i )
+	{
+		return tree.getNode( resultIndices[ i ] );
+	}
+
+	@Override
+	public RealLocalizable getPosition( final int i )
+	{
+		return tree.getNode( resultIndices[ i ] );
+	}
+
+	@Override
+	public double getSquareDistance( final int i )
+	{
+		return resultSquDistances[ i ];
+	}
+
+	@Override
+	public double getDistance( final int i )
+	{
+		return Math.sqrt( resultSquDistances[ i ] );
+	}
+}
@@ -34,37 +34,60 @@
 
 package net.imglib2.neighborsearch;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 
 import net.imglib2.KDTree;
 import net.imglib2.KDTreeNode;
 import net.imglib2.RealLocalizable;
 import net.imglib2.Sampler;
-import net.imglib2.util.ValuePair;
 
 /**
  * Implementation of {@link RadiusNeighborSearch} search for kd-trees.
  * 
+ * <p>
+ * Found neighbors are recorded as node references and square distances in
+ * arrays that are reused between searches (and grown as necessary), so a
+ * search does not allocate per neighbor. In addition to
+ * {@link #search(RealLocalizable, double, boolean)}, neighbors can be counted
+ * ({@link #count(RealLocalizable, double)}) or passed to a
+ * {@link NeighborVisitor} ({@link #search(RealLocalizable, double, NeighborVisitor)})
+ * without being recorded.
+ * </p>
+ *
  * @author Tobias Pietzsch
  */
 public class RadiusNeighborSearchOnKDTree< T > implements RadiusNeighborSearch< T >
 {
+	/**
+	 * Receives the neighbors found by
+	 * {@link RadiusNeighborSearchOnKDTree#search(RealLocalizable, double, NeighborVisitor)}
+	 * in arbitrary order.
+	 */
+	public interface NeighborVisitor< T >
+	{
+		public void visit( KDTreeNode< T > node, double squDistance );
+	}
+
 	protected KDTree< T > tree;
 
 	protected final int n;
 
 	protected final double[] pos;
 
-	protected ArrayList< ValuePair< KDTreeNode< T >, Double > > resultPoints;
+	protected int numNeighbors;
+
+	protected KDTreeNode< T >[] resultNodes;
+
+	protected double[] resultSquDistances;
 
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	public RadiusNeighborSearchOnKDTree( final KDTree< T > tree )
 	{
 		this.tree = tree;
 		this.n = tree.numDimensions();
 		this.pos = new double[ n ];
-		this.resultPoints = new ArrayList< ValuePair< KDTreeNode< T >, Double > >();
+		this.resultNodes = new KDTreeNode[ 16 ];
+		this.resultSquDistances = new double[ 16 ];
 	}
 
 	@Override
@@ -72,19 +95,49 @@ public class RadiusNeighborSearchOnKDTree< T > implements RadiusNeighborSearch<
 	{
 		assert radius >= 0;
 		reference.localize( pos );
-		resultPoints.clear();
+		numNeighbors = 0;
 		searchNode( tree.getRoot(), radius * radius );
 		if ( sortResults )
-		{
-			Collections.sort( resultPoints, new Comparator< ValuePair< KDTreeNode< T >, Double > >()
-			{
-				@Override
-				public int compare( final ValuePair< KDTreeNode< T >, Double > o1, final ValuePair< KDTreeNode< T >, Double > o2 )
-				{
-					return Double.compare( o1.b, o2.b );
-				}
-			} );
-		}
+			DualArraySort.sort( resultSquDistances, resultNodes, 0, numNeighbors - 1 );
+	}
+
+	/**
+	 * Count the points within radius about a reference coordinate, without
+	 * recording them. This does not change the results of the last
+	 * {@link #search(RealLocalizable, double, boolean)}.
+	 *
+	 * @param reference
+	 *            the reference coordinate.
+	 * @param radius
+	 *            the radius about the reference coordinate.
+	 * @return the number of points whose distance to the reference is smaller
+	 *         or equal the radius.
+	 */
+	public int count( final RealLocalizable reference, final double radius )
+	{
+		assert radius >= 0;
+		reference.localize( pos );
+		return countNode( tree.getRoot(), pos, radius * radius );
+	}
+
+	/**
+	 * Pass every point within radius about a reference coordinate to a
+	 * visitor, without recording it. This does not change the results of the
+	 * last {@link #search(RealLocalizable, double, boolean)}.
+	 *
+	 * @param reference
+	 *            the reference coordinate.
+	 * @param radius
+	 *            the radius about the reference coordinate.
+	 * @param visitor
+	 *            receives each node within radius and its square distance to
+	 *            the reference.
+	 */
+	public void search( final RealLocalizable reference, final double radius, final NeighborVisitor< T > visitor )
+	{
+		assert radius >= 0;
+		reference.localize( pos );
+		visitNode( tree.getRoot(), pos, radius * radius, visitor );
 	}
 
 	@Override
@@ -99,7 +152,14 @@ public class RadiusNeighborSearchOnKDTree< T > implements RadiusNeighborSearch<
 		final double squDistance = current.squDistanceTo( pos );
 		if ( squDistance <= squRadius )
 		{
-			resultPoints.add( new ValuePair< KDTreeNode< T >, Double >( current, squDistance ) );
+			if ( numNeighbors == resultNodes.length )
+			{
+				resultNodes = Arrays.copyOf( resultNodes, 2 * numNeighbors );
+				resultSquDistances = Arrays.copyOf( resultSquDistances, 2 * numNeighbors );
+			}
+			resultNodes[ numNeighbors ] = current;
+			resultSquDistances[ numNeighbors ] = squDistance;
+			++numNeighbors;
 		}
 
 		final double axisDiff = pos[ current.getSplitDimension() ] - current.getSplitCoordinate();
@@ -117,33 +177,64 @@ public class RadiusNeighborSearchOnKDTree< T > implements RadiusNeighborSearch<
 			searchNode( awayChild, squRadius );
 	}
 
+	private static < T > int countNode( final KDTreeNode< T > current, final double[] p, final double squRadius )
+	{
+		int count = current.squDistanceTo( p ) <= squRadius ? 1 : 0;
+
+		final double axisDiff = p[ current.getSplitDimension() ] - current.getSplitCoordinate();
+		final boolean leftIsNearBranch = axisDiff < 0;
+		final KDTreeNode< T > nearChild = leftIsNearBranch ? current.left : current.right;
+		final KDTreeNode< T > awayChild = leftIsNearBranch ? current.right : current.left;
+		if ( nearChild != null )
+			count += countNode( nearChild, p, squRadius );
+		if ( ( axisDiff * axisDiff <= squRadius ) && ( awayChild != null ) )
+			count += countNode( awayChild, p, squRadius );
+		return count;
+	}
+
+	private static < T > void visitNode( final KDTreeNode< T > current, final double[] p, final double squRadius, final NeighborVisitor< T > visitor )
+	{
+		final double squDistance = current.squDistanceTo( p );
+		if ( squDistance <= squRadius )
+			visitor.visit( current, squDistance );
+
+		final double axisDiff = p[ current.getSplitDimension() ] - current.getSplitCoordinate();
+		final boolean leftIsNearBranch = axisDiff < 0;
+		final KDTreeNode< T > nearChild = leftIsNearBranch ? current.left : current.right;
+		final KDTreeNode< T > awayChild = leftIsNearBranch ? current.right : current.left;
+		if ( nearChild != null )
+			visitNode( nearChild, p, squRadius, visitor );
+		if ( ( axisDiff * axisDiff <= squRadius ) && ( awayChild != null ) )
+			visitNode( awayChild, p, squRadius, visitor );
+	}
+
 	@Override
 	public int numNeighbors()
 	{
-		return resultPoints.size();
+		return numNeighbors;
 	}
 
 	@Override
 	public Sampler< T > getSampler( final int i )
 	{
-		return resultPoints.get( i ).a;
+		return resultNodes[ i ];
 	}
 
 	@Override
 	public RealLocalizable getPosition( final int i )
 	{
-		return resultPoints.get( i ).a;
+		return resultNodes[ i ];
 	}
 
 	@Override
 	public double getSquareDistance( final int i )
 	{
-		return resultPoints.get( i ).b;
+		return resultSquDistances[ i ];
 	}
 
 	@Override
 	public double getDistance( final int i )
 	{
-		return Math.sqrt( resultPoints.get( i ).b );
+		return Math.sqrt( resultSquDistances[ i ] );
 	}
 }
@@ -41,6 +41,7 @@ import net.imglib2.img.NativeImgFactory;
 import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.cell.CellCursor;
 import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.cell.LazyCellImg;
 import net.imglib2.util.Fraction;
 
 /**
@@ -109,6 +110,39 @@ public interface NativeType< T extends NativeType< T >> extends Type< T >
 	 */
 	public T duplicateTypeOnSameNativeImg();
 
+	/**
+	 * Creates a new {@link NativeType} of the same kind as this one which
+	 * stores in the physical arrays of {@code img}. This is used to link a
+	 * type to a {@link NativeImg} that was not created by
+	 * {@link #createSuitableNativeImg(NativeImgFactory, long[])}, for example a
+	 * {@link LazyCellImg}.
+	 *
+	 * <p>
+	 * The default implementation looks up a constructor taking a single
+	 * {@link NativeImg} argument via reflection. Implementations should
+	 * override it to call their constructor directly, which is much cheaper
+	 * when many small images are created.
+	 * </p>
+	 *
+	 * @param img
+	 *            the {@link NativeImg} providing the storage arrays. Its
+	 *            access type must match this {@link NativeType}.
+	 *
+	 * @return a new {@link NativeType} instance working on {@code img}
+	 */
+	@SuppressWarnings( "unchecked" )
+	public default T createLinkedType( final NativeImg< T, ? > img )
+	{
+		try
+		{
+			return ( T ) getClass().getDeclaredConstructor( NativeImg.class ).newInstance( img );
+		}
+		catch ( final ReflectiveOperationException | SecurityException e )
+		{
+			throw new RuntimeException( e );
+		}
+	}
+
 	/**
 	 * This method is used by an accessor (e.g., a {@link Cursor}) to request an
 	 * update of the current data array.
@@ -87,6 +87,10 @@ public class BasePairBitType extends AbstractBit64Type< BasePairBitType > implem
 	@Override
 	public BasePairBitType duplicateTypeOnSameNativeImg() { return new BasePairBitType( img ); }
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public BasePairBitType createLinkedType( final NativeImg< BasePairBitType, ? > nativeImg ) { return new BasePairBitType( ( NativeImg< ?, ? extends LongAccess > ) nativeImg ); }
+
 
 	@Override
 	public void set( final Base base )
@@ -115,6 +115,13 @@ public class BasePairCharType extends AbstractNativeType< BasePairCharType > imp
 		return new BasePairCharType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public BasePairCharType createLinkedType( final NativeImg< BasePairCharType, ? > nativeImg )
+	{
+		return new BasePairCharType( ( NativeImg< ?, ? extends CharAccess > ) nativeImg );
+	}
+
 	public char getChar()
 	{
 		return dataAccess.getValue( i );
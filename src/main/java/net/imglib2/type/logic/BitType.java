@@ -116,6 +116,13 @@ public class BitType extends AbstractIntegerType< BitType > implements BooleanTy
 		return new BitType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public BitType createLinkedType( final NativeImg< BitType, ? > nativeImg )
+	{
+		return new BitType( ( NativeImg< ?, ? extends LongAccess > ) nativeImg );
+	}
+
 	@Override
 	public boolean get()
 	{
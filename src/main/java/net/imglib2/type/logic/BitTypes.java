@@ -0,0 +1,451 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.type.logic;
+
+import java.util.ArrayList;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.LongAccess;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * Bulk logical operations, population count and first-set-bit search for
+ * {@link BitType} images.
+ * <p>
+ * For {@link ArrayImg}s, {@link PlanarImg}s and {@link AbstractCellImg}s of
+ * {@link BitType}, the operations work directly on the 64-bit words of the
+ * backing {@link LongAccess}es (per plane or per cell), i.e. on 64 pixels at a
+ * time. Binary operations take this fast path if both images have the same
+ * storage layout (same dimensions, and the same {@link AbstractCellImg#getCellGrid()
+ * cell grid} for cell images). All other combinations fall back to
+ * iterating both images in flat iteration order pixel by pixel.
+ * <p>
+ * The operations are not synchronized; the caller must make sure that the
+ * images are not modified concurrently.
+ */
+public class BitTypes
+{
+	private static final int AND = 0;
+
+	private static final int OR = 1;
+
+	private static final int XOR = 2;
+
+	private static final int ANDNOT = 3;
+
+	/**
+	 * Compute {@code target = target & source} for every pixel.
+	 */
+	public static void and( final RandomAccessibleInterval< BitType > target, final RandomAccessibleInterval< BitType > source )
+	{
+		combine( target, source, AND );
+	}
+
+	/**
+	 * Compute {@code target = target | source} for every pixel.
+	 */
+	public static void or( final RandomAccessibleInterval< BitType > target, final RandomAccessibleInterval< BitType > source )
+	{
+		combine( target, source, OR );
+	}
+
+	/**
+	 * Compute {@code target = target ^ source} for every pixel.
+	 */
+	public static void xor( final RandomAccessibleInterval< BitType > target, final RandomAccessibleInterval< BitType > source )
+	{
+		combine( target, source, XOR );
+	}
+
+	/**
+	 * Compute {@code target = target & !source} for every pixel, i.e. clear all
+	 * pixels of {@code target} that are set in {@code source}.
+	 */
+	public static void andNot( final RandomAccessibleInterval< BitType > target, final RandomAccessibleInterval< BitType > source )
+	{
+		combine( target, source, ANDNOT );
+	}
+
+	/**
+	 * Invert every pixel of {@code target}.
+	 */
+	public static void not( final RandomAccessibleInterval< BitType > target )
+	{
+		final Segments segments = Segments.of( target );
+		if ( segments == null )
+		{
+			for ( final BitType t : Views.flatIterable( target ) )
+				t.not();
+			return;
+		}
+
+		for ( int s = 0; s < segments.size(); ++s )
+		{
+			final LongAccess access = segments.access( s );
+			final long numBits = segments.numBits( s );
+			final int numWords = numWords( numBits );
+			if ( numWords == 0 )
+				continue;
+			if ( access instanceof LongArray )
+			{
+				final long[] words = ( ( LongArray ) access ).getCurrentStorageArray();
+				for ( int w = 0; w < numWords; ++w )
+					words[ w ] = ~words[ w ];
+			}
+			else
+			{
+				for ( int w = 0; w < numWords; ++w )
+					access.setValue( w, ~access.getValue( w ) );
+			}
+			// keep the unused bits of the last word cleared
+			final int last = numWords - 1;
+			access.setValue( last, access.getValue( last ) & lastWordMask( numBits ) );
+		}
+	}
+
+	/**
+	 * Count the pixels of {@code img} that are set.
+	 *
+	 * @return the number of {@code true} pixels.
+	 */
+	public static long cardinality( final RandomAccessibleInterval< BitType > img )
+	{
+		final Segments segments = Segments.of( img );
+		if ( segments == null )
+		{
+			long count = 0;
+			for ( final BitType t : Views.flatIterable( img ) )
+				if ( t.get() )
+					++count;
+			return count;
+		}
+
+		long count = 0;
+		for ( int s = 0; s < segments.size(); ++s )
+		{
+			final LongAccess access = segments.access( s );
+			final long numBits = segments.numBits( s );
+			final int numWords = numWords( numBits );
+			if ( numWords == 0 )
+				continue;
+			final int last = numWords - 1;
+			if ( access instanceof LongArray )
+			{
+				final long[] words = ( ( LongArray ) access ).getCurrentStorageArray();
+				for ( int w = 0; w < last; ++w )
+					count += Long.bitCount( words[ w ] );
+			}
+			else
+			{
+				for ( int w = 0; w < last; ++w )
+					count += Long.bitCount( access.getValue( w ) );
+			}
+			count += Long.bitCount( access.getValue( last ) & lastWordMask( numBits ) );
+		}
+		return count;
+	}
+
+	/**
+	 * Find the first pixel of {@code img} that is set, in the iteration order
+	 * of {@code img} (flat order for {@link ArrayImg} and {@link PlanarImg},
+	 * cell by cell for {@link AbstractCellImg}, flat order for everything
+	 * else).
+	 *
+	 * @param img
+	 *            the image to search.
+	 * @param position
+	 *            if not {@code null} and a set pixel is found, its position is
+	 *            written into this array.
+	 * @return the index of the first set pixel in iteration order, or -1 if
+	 *         no pixel is set.
+	 */
+	public static long firstSetBit( final RandomAccessibleInterval< BitType > img, final long[] position )
+	{
+		final Segments segments = Segments.of( img );
+		if ( segments == null )
+		{
+			final Cursor< BitType > c = Views.flatIterable( img ).cursor();
+			for ( long index = 0; c.hasNext(); ++index )
+			{
+				if ( c.next().get() )
+				{
+					if ( position != null )
+						c.localize( position );
+					return index;
+				}
+			}
+			return -1;
+		}
+
+		long offset = 0;
+		for ( int s = 0; s < segments.size(); ++s )
+		{
+			final LongAccess access = segments.access( s );
+			final long numBits = segments.numBits( s );
+			final int numWords = numWords( numBits );
+			final int last = numWords - 1;
+			for ( int w = 0; w < numWords; ++w )
+			{
+				long word = access.getValue( w );
+				if ( w == last )
+					word &= lastWordMask( numBits );
+				if ( word != 0 )
+				{
+					final long indexInSegment = ( ( long ) w << 6 ) + Long.numberOfTrailingZeros( word );
+					if ( position != null )
+						segments.localize( s, indexInSegment, position );
+					return offset + indexInSegment;
+				}
+			}
+			offset += numBits;
+		}
+		return -1;
+	}
+
+	private static void combine( final RandomAccessibleInterval< BitType > target, final RandomAccessibleInterval< BitType > source, final int op )
+	{
+		if ( !Intervals.equalDimensions( target, source ) )
+			throw new IllegalArgumentException( "Images must have the same dimensions." );
+
+		final Segments targetSegments = Segments.of( target );
+		final Segments sourceSegments = Segments.of( source );
+		if ( targetSegments == null || sourceSegments == null || !targetSegments.sameLayout( sourceSegments ) )
+		{
+			combinePixelwise( target, source, op );
+			return;
+		}
+
+		for ( int s = 0; s < targetSegments.size(); ++s )
+		{
+			final LongAccess t = targetSegments.access( s );
+			final LongAccess a = sourceSegments.access( s );
+			final int numWords = numWords( targetSegments.numBits( s ) );
+			if ( t instanceof LongArray && a instanceof LongArray )
+				combine( ( ( LongArray ) t ).getCurrentStorageArray(), ( ( LongArray ) a ).getCurrentStorageArray(), numWords, op );
+			else
+				combine( t, a, numWords, op );
+		}
+	}
+
+	private static void combine( final long[] t, final long[] s, final int numWords, final int op )
+	{
+		switch ( op )
+		{
+		case AND:
+			for ( int w = 0; w < numWords; ++w )
+				t[ w ] &= s[ w ];
+			break;
+		case OR:
+			for ( int w = 0; w < numWords; ++w )
+				t[ w ] |= s[ w ];
+			break;
+		case XOR:
+			for ( int w = 0; w < numWords; ++w )
+				t[ w ] ^= s[ w ];
+			break;
+		case ANDNOT:
+			for ( int w = 0; w < numWords; ++w )
+				t[ w ] &= ~s[ w ];
+			break;
+		}
+	}
+
+	private static void combine( final LongAccess t, final LongAccess s, final int numWords, final int op )
+	{
+		for ( int w = 0; w < numWords; ++w )
+			t.setValue( w, apply( t.getValue( w ), s.getValue( w ), op ) );
+	}
+
+	private static void combinePixelwise( final RandomAccessibleInterval< BitType > target, final RandomAccessibleInterval< BitType > source, final int op )
+	{
+		final Cursor< BitType > t = Views.flatIterable( target ).cursor();
+		final Cursor< BitType > s = Views.flatIterable( source ).cursor();
+		while ( t.hasNext() )
+		{
+			final BitType bt = t.next();
+			final boolean bs = s.next().get();
+			switch ( op )
+			{
+			case AND:
+				if ( !bs )
+					bt.set( false );
+				break;
+			case OR:
+				if ( bs )
+					bt.set( true );
+				break;
+			case XOR:
+				if ( bs )
+					bt.not();
+				break;
+			case ANDNOT:
+				if ( bs )
+					bt.set( false );
+				break;
+			}
+		}
+	}
+
+	private static long apply( final long t, final long s, final int op )
+	{
+		switch ( op )
+		{
+		case AND:
+			return t & s;
+		case OR:
+			return t | s;
+		case XOR:
+			return t ^ s;
+		default:
+			return t & ~s;
+		}
+	}
+
+	private static int numWords( final long numBits )
+	{
+		return ( int ) ( ( numBits + 63 ) >>> 6 );
+	}
+
+	/**
+	 * Mask of the bits of the last word that belong to pixels.
+	 */
+	private static long lastWordMask( final long numBits )
+	{
+		final int r = ( int ) ( numBits & 63 );
+		return r == 0 ? -1l : ( 1l << r ) - 1;
+	}
+
+	/**
+	 * The {@link LongAccess}es backing a {@link BitType} image in iteration
+	 * order, with the number of pixels stored in each.
+	 */
+	private static class Segments
+	{
+		private final RandomAccessibleInterval< BitType > img;
+
+		private final ArrayList< LongAccess > accesses = new ArrayList< LongAccess >();
+
+		private final ArrayList< Cell< ? > > cells = new ArrayList< Cell< ? > >();
+
+		private long segmentSize;
+
+		private Segments( final RandomAccessibleInterval< BitType > img )
+		{
+			this.img = img;
+		}
+
+		/**
+		 * @return the segments of {@code img} or {@code null} if
+		 *         {@code img} is not a supported native image.
+		 */
+		static Segments of( final RandomAccessibleInterval< BitType > img )
+		{
+			final Segments segments = new Segments( img );
+			if ( img instanceof ArrayImg )
+			{
+				final Object access = ( ( ArrayImg< ?, ? > ) img ).update( null );
+				if ( !( access instanceof LongAccess ) )
+					return null;
+				segments.accesses.add( ( LongAccess ) access );
+				segments.segmentSize = Intervals.numElements( img );
+			}
+			else if ( img instanceof PlanarImg )
+			{
+				final PlanarImg< ?, ? > planar = ( PlanarImg< ?, ? > ) img;
+				for ( int i = 0; i < planar.numSlices(); ++i )
+				{
+					final Object access = planar.getPlane( i );
+					if ( !( access instanceof LongAccess ) )
+						return null;
+					segments.accesses.add( ( LongAccess ) access );
+				}
+				segments.segmentSize = img.dimension( 0 ) * ( img.numDimensions() > 1 ? img.dimension( 1 ) : 1 );
+			}
+			else if ( img instanceof AbstractCellImg )
+			{
+				for ( final Cell< ? > cell : ( ( AbstractCellImg< ?, ?, ?, ? > ) img ).getCells() )
+				{
+					final Object access = cell.getData();
+					if ( !( access instanceof LongAccess ) )
+						return null;
+					segments.accesses.add( ( LongAccess ) access );
+					segments.cells.add( cell );
+				}
+			}
+			else
+				return null;
+			return segments;
+		}
+
+		int size()
+		{
+			return accesses.size();
+		}
+
+		LongAccess access( final int s )
+		{
+			return accesses.get( s );
+		}
+
+		long numBits( final int s )
+		{
+			return cells.isEmpty() ? segmentSize : cells.get( s ).size();
+		}
+
+		boolean sameLayout( final Segments other )
+		{
+			if ( img instanceof AbstractCellImg )
+				return other.img instanceof AbstractCellImg &&
+						( ( AbstractCellImg< ?, ?, ?, ? > ) img ).getCellGrid().equals( ( ( AbstractCellImg< ?, ?, ?, ? > ) other.img ).getCellGrid() );
+			return img.getClass() == other.img.getClass() && Intervals.equalDimensions( img, other.img );
+		}
+
+		void localize( final int s, final long indexInSegment, final long[] position )
+		{
+			if ( cells.isEmpty() )
+				IntervalIndexer.indexToPosition( s * segmentSize + indexInSegment, Intervals.dimensionsAsLongArray( img ), position );
+			else
+				cells.get( s ).indexToGlobalPosition( ( int ) indexInSegment, position );
+		}
+	}
+}
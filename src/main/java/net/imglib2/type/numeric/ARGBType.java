@@ -114,6 +114,13 @@ public class ARGBType extends AbstractNativeType< ARGBType > implements NumericT
 		return new ARGBType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public ARGBType createLinkedType( final NativeImg< ARGBType, ? > nativeImg )
+	{
+		return new ARGBType( ( NativeImg< ?, ? extends IntAccess > ) nativeImg );
+	}
+
 	final public static int rgba( final int r, final int g, final int b, final int a )
 	{
 		return ( ( r & 0xff ) << 16 ) | ( ( g & 0xff ) << 8 ) | ( b & 0xff ) | ( ( a & 0xff ) << 24 );
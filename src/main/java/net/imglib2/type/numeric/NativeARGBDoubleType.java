@@ -101,6 +101,13 @@ public class NativeARGBDoubleType extends AbstractARGBDoubleType< NativeARGBDoub
 		return new NativeARGBDoubleType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public NativeARGBDoubleType createLinkedType( final NativeImg< NativeARGBDoubleType, ? > nativeImg )
+	{
+		return new NativeARGBDoubleType( ( NativeImg< ?, ? extends DoubleAccess > ) nativeImg );
+	}
+
 	@Override
 	public double getA()
 	{
@@ -113,6 +113,13 @@ public class ComplexDoubleType extends AbstractComplexType< ComplexDoubleType >
 		return new ComplexDoubleType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public ComplexDoubleType createLinkedType( final NativeImg< ComplexDoubleType, ? > nativeImg )
+	{
+		return new ComplexDoubleType( ( NativeImg< ?, ? extends DoubleAccess > ) nativeImg );
+	}
+
 	@Override
 	public float getRealFloat()
 	{
@@ -113,6 +113,13 @@ public class ComplexFloatType extends AbstractComplexType< ComplexFloatType > im
 		return new ComplexFloatType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public ComplexFloatType createLinkedType( final NativeImg< ComplexFloatType, ? > nativeImg )
+	{
+		return new ComplexFloatType( ( NativeImg< ?, ? extends FloatAccess > ) nativeImg );
+	}
+
 	@Override
 	public float getRealFloat()
 	{
@@ -94,6 +94,13 @@ public class ByteType extends GenericByteType< ByteType >
 		return new ByteType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public ByteType createLinkedType( final NativeImg< ByteType, ? > nativeImg )
+	{
+		return new ByteType( ( NativeImg< ?, ? extends ByteAccess > ) nativeImg );
+	}
+
 	public byte get()
 	{
 		return getByte();
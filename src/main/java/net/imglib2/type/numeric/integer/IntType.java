@@ -94,6 +94,13 @@ public class IntType extends GenericIntType< IntType >
 		return new IntType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public IntType createLinkedType( final NativeImg< IntType, ? > nativeImg )
+	{
+		return new IntType( ( NativeImg< ?, ? extends IntAccess > ) nativeImg );
+	}
+
 	public int get()
 	{
 		return getInt();
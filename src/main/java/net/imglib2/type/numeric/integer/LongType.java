@@ -95,6 +95,13 @@ public class LongType extends GenericLongType<LongType>
 		return new LongType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public LongType createLinkedType( final NativeImg< LongType, ? > nativeImg )
+	{
+		return new LongType( ( NativeImg< ?, ? extends LongAccess > ) nativeImg );
+	}
+
 	public long get()
 	{
 		return dataAccess.getValue( i );
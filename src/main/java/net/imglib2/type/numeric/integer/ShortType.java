@@ -94,6 +94,13 @@ public class ShortType extends GenericShortType< ShortType >
 		return new ShortType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public ShortType createLinkedType( final NativeImg< ShortType, ? > nativeImg )
+	{
+		return new ShortType( ( NativeImg< ?, ? extends ShortAccess > ) nativeImg );
+	}
+
 	public short get()
 	{
 		return getShort();
@@ -51,7 +51,8 @@ import net.imglib2.util.Fraction;
  * A {@link Type} with a bit depth of 128.
  * Each value is stored in two adjacent long in an array,
  * with the lower long first, then the upper long.
- * Currently the math methods defined in the superinterface {@link NumericType} are implemented using {@link BigInteger} and {@link BigDecimal}.
+ * The math methods defined in the superinterface {@link NumericType} operate directly on the two longs
+ * and wrap around modulo {@code 2^128}; no {@link BigInteger} or {@link BigDecimal} is created.
  * This class is not {@link Thread}-safe; do a {@link #copy()} first to operate on a different {@link Thread}.
  *
  * @author Albert Cardona
@@ -121,6 +122,10 @@ public class Unsigned128BitType extends AbstractIntegerType<Unsigned128BitType>
 	@Override
 	public Unsigned128BitType duplicateTypeOnSameNativeImg() { return new Unsigned128BitType( img ); }
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public Unsigned128BitType createLinkedType( final NativeImg< Unsigned128BitType, ? > nativeImg ) { return new Unsigned128BitType( ( NativeImg< ?, ? extends LongAccess > ) nativeImg ); }
+
 	private final void intoBytes( final long lower, final long upper ) {
 		bytes[ 0] = 0; // so the number is non-negative
 		bytes[ 1] = (byte)((upper >>> 56) & 0xffL);
@@ -323,48 +328,231 @@ public class Unsigned128BitType extends AbstractIntegerType<Unsigned128BitType>
 		mul( (double)c );
 	}
 
-	/** Implemented using {@link BigDecimal#multiply(BigDecimal)} and {@link BigDecimal#toBigInteger()}. */
+	/**
+	 * Multiplies by {@code c}, truncating the exact product towards zero
+	 * and wrapping it modulo {@code 2^128}.
+	 *
+	 * The {@code double} is decomposed into its 53-bit significand and binary
+	 * exponent, so that the product can be computed exactly on 64-bit words
+	 * without intermediate {@link BigDecimal} objects.
+	 *
+	 * @throws NumberFormatException
+	 *             when c is infinite or NaN.
+	 */
 	@Override
 	public void mul( final double c ) {
-		set( new BigDecimal( get() ).multiply( new BigDecimal( c ) ).toBigInteger() );
+		if ( Double.isNaN( c ) || Double.isInfinite( c ) )
+			throw new NumberFormatException( "Infinite or NaN" );
+
+		final int k = i * 2;
+		final long lower = dataAccess.getValue( k );
+		final long upper = dataAccess.getValue( k + 1 );
+
+		final long bits = Double.doubleToRawLongBits( c );
+		final int biasedExponent = ( int ) ( ( bits >>> 52 ) & 0x7ffL );
+		final long fraction = bits & 0x000fffffffffffffL;
+		final long significand = biasedExponent == 0 ? fraction : fraction | 0x0010000000000000L;
+		// c == significand * 2^exponent
+		final int exponent = ( biasedExponent == 0 ? 1 : biasedExponent ) - 1075;
+
+		// 192-bit product of the value and the significand
+		final long p0 = lower * significand;
+		final long carry0 = multiplyHighUnsigned( lower, significand );
+		final long p1Low = upper * significand;
+		final long p1 = p1Low + carry0;
+		final long p2 = multiplyHighUnsigned( upper, significand ) + ( UnsignedLongType.compare( p1, p1Low ) < 0 ? 1 : 0 );
+
+		long resultLower, resultUpper;
+		if ( exponent >= 0 )
+		{
+			// only the lowest 128 bits of the shifted product are kept
+			if ( exponent >= 128 )
+			{
+				resultLower = 0;
+				resultUpper = 0;
+			}
+			else if ( exponent >= 64 )
+			{
+				resultLower = 0;
+				resultUpper = p0 << ( exponent - 64 );
+			}
+			else
+			{
+				resultLower = p0 << exponent;
+				resultUpper = exponent == 0 ? p1 : ( p1 << exponent ) | ( p0 >>> ( 64 - exponent ) );
+			}
+		}
+		else
+		{
+			// bits [ shift, shift + 128 ) of the 192-bit product
+			final int shift = -exponent;
+			if ( shift >= 192 )
+			{
+				resultLower = 0;
+				resultUpper = 0;
+			}
+			else if ( shift >= 128 )
+			{
+				resultLower = p2 >>> ( shift - 128 );
+				resultUpper = 0;
+			}
+			else if ( shift >= 64 )
+			{
+				final int s = shift - 64;
+				resultLower = s == 0 ? p1 : ( p1 >>> s ) | ( p2 << ( 64 - s ) );
+				resultUpper = s == 0 ? p2 : p2 >>> s;
+			}
+			else
+			{
+				resultLower = ( p0 >>> shift ) | ( p1 << ( 64 - shift ) );
+				resultUpper = ( p1 >>> shift ) | ( p2 << ( 64 - shift ) );
+			}
+		}
+
+		if ( c < 0 )
+		{
+			// two's complement negation modulo 2^128
+			resultLower = ~resultLower + 1;
+			resultUpper = resultLower == 0 ? ~resultUpper + 1 : ~resultUpper;
+		}
+
+		dataAccess.setValue( k, resultLower );
+		dataAccess.setValue( k + 1, resultUpper );
 	}
 
-	/** Relies on {@link BigInteger#add(BigInteger)}. */
+	/** Addition modulo {@code 2^128}. */
 	@Override
 	public void add(final Unsigned128BitType t) {
-		set( get().add( t.get() ).toByteArray() );
+		final int k = i * 2;
+		final int kt = t.i * 2;
+		final long lower1 = dataAccess.getValue( k );
+		final long lower = lower1 + t.dataAccess.getValue( kt );
+		final long carry = UnsignedLongType.compare( lower, lower1 ) < 0 ? 1 : 0;
+		dataAccess.setValue( k + 1, dataAccess.getValue( k + 1 ) + t.dataAccess.getValue( kt + 1 ) + carry );
+		dataAccess.setValue( k, lower );
 	}
 
-	/** Relies on {@link BigInteger#subtract(BigInteger)}. */
+	/** Subtraction modulo {@code 2^128}. */
 	@Override
 	public void sub(final Unsigned128BitType t) {
-		set( get().subtract( t.get() ).toByteArray() );
+		final int k = i * 2;
+		final int kt = t.i * 2;
+		final long lower1 = dataAccess.getValue( k );
+		final long lower2 = t.dataAccess.getValue( kt );
+		final long borrow = UnsignedLongType.compare( lower1, lower2 ) < 0 ? 1 : 0;
+		dataAccess.setValue( k + 1, dataAccess.getValue( k + 1 ) - t.dataAccess.getValue( kt + 1 ) - borrow );
+		dataAccess.setValue( k, lower1 - lower2 );
 	}
 
-	/** Relies on {@link BigInteger#multiply(BigInteger)}. */
+	/** Multiplication modulo {@code 2^128}. */
 	@Override
 	public void mul(final Unsigned128BitType t) {
-		set( get().multiply( t.get() ).toByteArray() );
-	}
-
-	/** Relies on {@link BigInteger#divide(BigInteger)}. */
+		final int k = i * 2;
+		final int kt = t.i * 2;
+		final long lower1 = dataAccess.getValue( k );
+		final long upper1 = dataAccess.getValue( k + 1 );
+		final long lower2 = t.dataAccess.getValue( kt );
+		final long upper2 = t.dataAccess.getValue( kt + 1 );
+		dataAccess.setValue( k + 1, multiplyHighUnsigned( lower1, lower2 ) + lower1 * upper2 + upper1 * lower2 );
+		dataAccess.setValue( k, lower1 * lower2 );
+	}
+
+	/**
+	 * Unsigned integer division, implemented by shift-and-subtract on the two
+	 * 64-bit words. Dividends and divisors that both fit into 64 bit are
+	 * delegated to {@link Long#divideUnsigned(long, long)}.
+	 *
+	 * @throws ArithmeticException
+	 *             when t equals zero.
+	 */
 	@Override
 	public void div(final Unsigned128BitType t) {
-		set( get().divide( t.get() ).toByteArray() );
+		final int k = i * 2;
+		final int kt = t.i * 2;
+		long remLower = dataAccess.getValue( k );
+		long remUpper = dataAccess.getValue( k + 1 );
+		long divLower = t.dataAccess.getValue( kt );
+		long divUpper = t.dataAccess.getValue( kt + 1 );
+
+		if ( divLower == 0 && divUpper == 0 )
+			throw new ArithmeticException( "/ by zero" );
+
+		if ( remUpper == 0 && divUpper == 0 )
+		{
+			set( Long.divideUnsigned( remLower, divLower ), 0 );
+			return;
+		}
+
+		if ( compare( remLower, remUpper, divLower, divUpper ) < 0 )
+		{
+			set( 0, 0 );
+			return;
+		}
+
+		// align the most significant bit of the divisor with that of the dividend
+		final int shift = numberOfLeadingZeros( divLower, divUpper ) - numberOfLeadingZeros( remLower, remUpper );
+		if ( shift >= 64 )
+		{
+			divUpper = divLower << ( shift - 64 );
+			divLower = 0;
+		}
+		else if ( shift > 0 )
+		{
+			divUpper = ( divUpper << shift ) | ( divLower >>> ( 64 - shift ) );
+			divLower <<= shift;
+		}
+
+		long quotLower = 0;
+		long quotUpper = 0;
+		for ( int s = shift; s >= 0; --s )
+		{
+			quotUpper = ( quotUpper << 1 ) | ( quotLower >>> 63 );
+			quotLower <<= 1;
+			if ( compare( remLower, remUpper, divLower, divUpper ) >= 0 )
+			{
+				final long borrow = UnsignedLongType.compare( remLower, divLower ) < 0 ? 1 : 0;
+				remLower -= divLower;
+				remUpper -= divUpper + borrow;
+				quotLower |= 1;
+			}
+			divLower = ( divLower >>> 1 ) | ( divUpper << 63 );
+			divUpper >>>= 1;
+		}
+
+		set( quotLower, quotUpper );
+	}
+
+	/**
+	 * The upper 64 bits of the unsigned 128-bit product of {@code a} and
+	 * {@code b}, the unsigned counterpart of {@code Math.multiplyHigh}.
+	 */
+	static private final long multiplyHighUnsigned( final long a, final long b )
+	{
+		final long a0 = a & 0xffffffffL, a1 = a >>> 32;
+		final long b0 = b & 0xffffffffL, b1 = b >>> 32;
+		final long p01 = a0 * b1;
+		final long p10 = a1 * b0;
+		final long middle = ( ( a0 * b0 ) >>> 32 ) + ( p01 & 0xffffffffL ) + ( p10 & 0xffffffffL );
+		return a1 * b1 + ( p01 >>> 32 ) + ( p10 >>> 32 ) + ( middle >>> 32 );
+	}
+
+	static private final int numberOfLeadingZeros( final long lower, final long upper )
+	{
+		return upper == 0 ? 64 + Long.numberOfLeadingZeros( lower ) : Long.numberOfLeadingZeros( upper );
+	}
+
+	static private final int compare( final long lower1, final long upper1, final long lower2, final long upper2 )
+	{
+		return upper1 == upper2 ? UnsignedLongType.compare( lower1, lower2 ) : UnsignedLongType.compare( upper1, upper2 );
 	}
 
 	@Override
 	public int compareTo( final Unsigned128BitType t ) {
-		final long upper1 = dataAccess.getValue( i * 2 + 1 ),
-		            upper2 = t.dataAccess.getValue( t.i * 2 + 1 );
-		if ( -1 == UnsignedLongType.compare( upper1, upper2 ) ) {
-			return -1;
-		} else if ( upper1 == upper2 ) {
-			final long lower1 = dataAccess.getValue( i * 2 ),
-			            lower2 = t.dataAccess.getValue( t.i * 2 );
-			return UnsignedLongType.compare( lower1, lower2 );
-		}
-		return 1;
+		final int k = i * 2;
+		final int kt = t.i * 2;
+		return compare(
+				dataAccess.getValue( k ), dataAccess.getValue( k + 1 ),
+				t.dataAccess.getValue( kt ), t.dataAccess.getValue( kt + 1 ) );
 	}
 
 	@Override
@@ -96,6 +96,10 @@ public class Unsigned12BitType extends AbstractIntegerBitType< Unsigned12BitType
 	@Override
 	public Unsigned12BitType duplicateTypeOnSameNativeImg() { return new Unsigned12BitType( img ); }
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public Unsigned12BitType createLinkedType( final NativeImg< Unsigned12BitType, ? > nativeImg ) { return new Unsigned12BitType( ( NativeImg< ?, ? extends LongAccess > ) nativeImg ); }
+
 	@Override
 	public long get() {
 		final long k = i * 12;
@@ -96,6 +96,10 @@ public class Unsigned2BitType extends AbstractIntegerBitType<Unsigned2BitType>
 	@Override
 	public Unsigned2BitType duplicateTypeOnSameNativeImg() { return new Unsigned2BitType( img ); }
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public Unsigned2BitType createLinkedType( final NativeImg< Unsigned2BitType, ? > nativeImg ) { return new Unsigned2BitType( ( NativeImg< ?, ? extends LongAccess > ) nativeImg ); }
+
 	@Override
 	public long get() {
 		/*
@@ -96,6 +96,10 @@ public class Unsigned4BitType extends AbstractIntegerBitType<Unsigned4BitType>
 	@Override
 	public Unsigned4BitType duplicateTypeOnSameNativeImg() { return new Unsigned4BitType( img ); }
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public Unsigned4BitType createLinkedType( final NativeImg< Unsigned4BitType, ? > nativeImg ) { return new Unsigned4BitType( ( NativeImg< ?, ? extends LongAccess > ) nativeImg ); }
+
 	@Override
 	public long get() {
 		return (dataAccess.getValue((int)(i >>> 4)) >>> ((i & 15) << 2)) & mask;
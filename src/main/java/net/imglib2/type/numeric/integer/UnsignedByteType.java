@@ -115,6 +115,13 @@ public class UnsignedByteType extends GenericByteType< UnsignedByteType >
 		return new UnsignedByteType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public UnsignedByteType createLinkedType( final NativeImg< UnsignedByteType, ? > nativeImg )
+	{
+		return new UnsignedByteType( ( NativeImg< ?, ? extends ByteAccess > ) nativeImg );
+	}
+
 	@Override
 	public void mul( final float c )
 	{
@@ -115,6 +115,13 @@ public class UnsignedIntType extends GenericIntType< UnsignedIntType >
 		return new UnsignedIntType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public UnsignedIntType createLinkedType( final NativeImg< UnsignedIntType, ? > nativeImg )
+	{
+		return new UnsignedIntType( ( NativeImg< ?, ? extends IntAccess > ) nativeImg );
+	}
+
 	@Override
 	public void mul( final float c )
 	{
@@ -106,6 +106,13 @@ public class UnsignedLongType extends GenericLongType< UnsignedLongType >
 		return new UnsignedLongType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public UnsignedLongType createLinkedType( final NativeImg< UnsignedLongType, ? > nativeImg )
+	{
+		return new UnsignedLongType( ( NativeImg< ?, ? extends LongAccess > ) nativeImg );
+	}
+
 	@Override
 	public void mul( final float c )
 	{
@@ -115,6 +115,13 @@ public class UnsignedShortType extends GenericShortType< UnsignedShortType >
 		return new UnsignedShortType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public UnsignedShortType createLinkedType( final NativeImg< UnsignedShortType, ? > nativeImg )
+	{
+		return new UnsignedShortType( ( NativeImg< ?, ? extends ShortAccess > ) nativeImg );
+	}
+
 	@Override
 	public void mul( final float c )
 	{
@@ -98,6 +98,10 @@ public class UnsignedVariableBitLengthType extends AbstractBit64Type<UnsignedVar
 	@Override
 	public UnsignedVariableBitLengthType duplicateTypeOnSameNativeImg() { return new UnsignedVariableBitLengthType( img, nBits ); }
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public UnsignedVariableBitLengthType createLinkedType( final NativeImg< UnsignedVariableBitLengthType, ? > nativeImg ) { return new UnsignedVariableBitLengthType( ( NativeImg< ?, ? extends LongAccess > ) nativeImg, nBits ); }
+
 	@Override
 	public UnsignedVariableBitLengthType createVariable(){ return new UnsignedVariableBitLengthType( nBits ); }
 
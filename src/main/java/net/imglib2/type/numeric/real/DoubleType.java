@@ -110,6 +110,13 @@ public class DoubleType extends AbstractRealType< DoubleType > implements Native
 		return new DoubleType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public DoubleType createLinkedType( final NativeImg< DoubleType, ? > nativeImg )
+	{
+		return new DoubleType( ( NativeImg< ?, ? extends DoubleAccess > ) nativeImg );
+	}
+
 	public double get()
 	{
 		return dataAccess.getValue( i );
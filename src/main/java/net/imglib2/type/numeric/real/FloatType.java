@@ -110,6 +110,13 @@ public class FloatType extends AbstractRealType< FloatType > implements NativeTy
 		return new FloatType( img );
 	}
 
+	@Override
+	@SuppressWarnings( "unchecked" )
+	public FloatType createLinkedType( final NativeImg< FloatType, ? > nativeImg )
+	{
+		return new FloatType( ( NativeImg< ?, ? extends FloatAccess > ) nativeImg );
+	}
+
 	public float get()
 	{
 		return dataAccess.getValue( i );
@@ -0,0 +1,224 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.util.Intervals;
+
+/**
+ * Splits an interval of positions, at which a neighborhood operation reads an
+ * extended {@link RandomAccessibleInterval}, into an interior block and border
+ * blocks.
+ * <p>
+ * In the interior block, the whole neighborhood of every position lies inside
+ * the source, so it can be processed with {@link RandomAccess}es of the source
+ * itself, without any out-of-bounds logic. Only the thin border blocks need
+ * {@link RandomAccess}es of the extended source. The blocks are disjoint and
+ * cover the interval exactly.
+ * </p>
+ * <p>
+ * Neighborhoods are given as an {@link Interval} of offsets relative to the
+ * center position, e.g. {@code [-1, 1]} in every dimension for a 3x3 kernel.
+ * </p>
+ */
+public class InteriorBorderSplit
+{
+	/**
+	 * An interval of positions together with the {@link RandomAccessible} to
+	 * read their neighborhoods from.
+	 */
+	public static class Block< T >
+	{
+		private final FinalInterval interval;
+
+		private final RandomAccessible< T > source;
+
+		private final boolean interior;
+
+		public Block( final Interval interval, final RandomAccessible< T > source, final boolean interior )
+		{
+			this.interval = new FinalInterval( interval );
+			this.source = source;
+			this.interior = interior;
+		}
+
+		/**
+		 * @return the positions of this block.
+		 */
+		public FinalInterval getInterval()
+		{
+			return interval;
+		}
+
+		/**
+		 * @return the source for the interior block, the extended source for
+		 *         border blocks.
+		 */
+		public RandomAccessible< T > getSource()
+		{
+			return source;
+		}
+
+		/**
+		 * @return whether the neighborhoods of all positions of this block
+		 *         lie inside the source.
+		 */
+		public boolean isInterior()
+		{
+			return interior;
+		}
+	}
+
+	/**
+	 * Compute the positions of {@code interval} whose {@code neighborhood}
+	 * lies completely inside {@code source}.
+	 *
+	 * @return the interior, which may be empty.
+	 */
+	public static FinalInterval interior( final Interval source, final Interval interval, final Interval neighborhood )
+	{
+		final int n = interval.numDimensions();
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			min[ d ] = Math.max( interval.min( d ), source.min( d ) - neighborhood.min( d ) );
+			max[ d ] = Math.min( interval.max( d ), source.max( d ) - neighborhood.max( d ) );
+		}
+		return new FinalInterval( min, max );
+	}
+
+	/**
+	 * Split the part of {@code interval} outside of {@code interior} into
+	 * disjoint blocks. Blocks are split off along the highest dimension first,
+	 * so that most blocks span complete rows of {@code interval}.
+	 *
+	 * @param interval
+	 *            the interval to split.
+	 * @param interior
+	 *            an interval contained in {@code interval}. If it is empty,
+	 *            the result is {@code interval} itself.
+	 * @return the border blocks.
+	 */
+	public static List< FinalInterval > border( final Interval interval, final Interval interior )
+	{
+		final List< FinalInterval > blocks = new ArrayList<>();
+		if ( Intervals.isEmpty( interval ) )
+			return blocks;
+		if ( Intervals.isEmpty( interior ) )
+		{
+			blocks.add( new FinalInterval( interval ) );
+			return blocks;
+		}
+
+		final int n = interval.numDimensions();
+		final long[] min = Intervals.minAsLongArray( interval );
+		final long[] max = Intervals.maxAsLongArray( interval );
+		for ( int d = n - 1; d >= 0; --d )
+		{
+			if ( min[ d ] < interior.min( d ) )
+			{
+				final long[] blockMax = max.clone();
+				blockMax[ d ] = interior.min( d ) - 1;
+				blocks.add( new FinalInterval( min, blockMax ) );
+			}
+			if ( max[ d ] > interior.max( d ) )
+			{
+				final long[] blockMin = min.clone();
+				blockMin[ d ] = interior.max( d ) + 1;
+				blocks.add( new FinalInterval( blockMin, max ) );
+			}
+			min[ d ] = interior.min( d );
+			max[ d ] = interior.max( d );
+		}
+		return blocks;
+	}
+
+	/**
+	 * Split {@code interval} into an interior block, which reads
+	 * {@code source} directly, and border blocks, which read {@code source}
+	 * extended by {@code factory}.
+	 *
+	 * @param source
+	 *            the source.
+	 * @param factory
+	 *            out-of-bounds strategy for the border blocks.
+	 * @param interval
+	 *            the positions to split.
+	 * @param neighborhood
+	 *            offsets of the neighborhood relative to a position.
+	 * @return the interior block (if not empty) followed by the border
+	 *         blocks.
+	 */
+	public static < T, F extends RandomAccessibleInterval< T > > List< Block< T > > split( final F source, final OutOfBoundsFactory< T, ? super F > factory, final Interval interval, final Interval neighborhood )
+	{
+		return split( new ExtendedRandomAccessibleInterval< T, F >( source, factory ), interval, neighborhood );
+	}
+
+	/**
+	 * Split {@code interval} into an interior block, which reads the source of
+	 * {@code extended} directly, and border blocks, which read
+	 * {@code extended}.
+	 *
+	 * @param extended
+	 *            the extended source.
+	 * @param interval
+	 *            the positions to split.
+	 * @param neighborhood
+	 *            offsets of the neighborhood relative to a position.
+	 * @return the interior block (if not empty) followed by the border
+	 *         blocks.
+	 */
+	public static < T > List< Block< T > > split( final ExtendedRandomAccessibleInterval< T, ? > extended, final Interval interval, final Interval neighborhood )
+	{
+		final RandomAccessibleInterval< T > source = extended.getSource();
+		final FinalInterval interior = interior( source, interval, neighborhood );
+
+		final List< Block< T > > blocks = new ArrayList<>();
+		if ( !Intervals.isEmpty( interior ) )
+			blocks.add( new Block< T >( interior, source, true ) );
+		for ( final FinalInterval border : border( interval, interior ) )
+			blocks.add( new Block< T >( border, extended, false ) );
+		return blocks;
+	}
+}
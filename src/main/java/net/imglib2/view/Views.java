@@ -49,6 +49,7 @@ import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.RealRandomAccessible;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.cell.CachedCellImg;
 import net.imglib2.interpolation.Interpolant;
 import net.imglib2.interpolation.InterpolatorFactory;
 import net.imglib2.outofbounds.OutOfBoundsBorderFactory;
@@ -64,6 +65,7 @@ import net.imglib2.transform.integer.permutation.PermutationTransform;
 import net.imglib2.transform.integer.permutation.SingleDimensionPermutationTransform;
 import net.imglib2.transform.integer.shear.InverseShearTransform;
 import net.imglib2.transform.integer.shear.ShearTransform;
+import net.imglib2.type.NativeType;
 import net.imglib2.type.Type;
 import net.imglib2.type.numeric.NumericType;
 import net.imglib2.type.numeric.RealType;
@@ -1487,4 +1489,35 @@ public class Views
 		return Views.stack( mode, hyperSlices );
 	}
 
+	/**
+	 * Memoize a {@link RandomAccessibleInterval}. The result is divided into
+	 * cells of the given size. Each cell is computed from the source when it is
+	 * first accessed and stored in a primitive array. Computed cells are kept
+	 * until their total size exceeds {@code maxBytes}, at which point the
+	 * least recently used cells are evicted and will be recomputed on the next
+	 * access.
+	 * <p>
+	 * This is useful for expensive lazy sources (converted, interpolated or
+	 * composite views) that are accessed many times. To compute cells in
+	 * parallel, create a {@link CachedCellImg} and use
+	 * {@link CachedCellImg#prefetch(Interval, java.util.concurrent.ExecutorService)}.
+	 * </p>
+	 *
+	 * @param source
+	 *            the source to memoize.
+	 * @param cellDimensions
+	 *            dimensions of a cell.
+	 * @param maxBytes
+	 *            maximum total size of the cached cell data in bytes.
+	 * @return a view with the interval and values of {@code source}.
+	 */
+	public static < T extends NativeType< T > > RandomAccessibleInterval< T > cached( final RandomAccessibleInterval< T > source, final int[] cellDimensions, final long maxBytes )
+	{
+		final CachedCellImg< T, ? > img = new CachedCellImg<>( source, cellDimensions, maxBytes );
+		final long[] min = Intervals.minAsLongArray( source );
+		for ( final long m : min )
+			if ( m != 0 )
+				return Views.translate( img, min );
+		return img;
+	}
 }
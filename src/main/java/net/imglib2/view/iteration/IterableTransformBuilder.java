@@ -43,6 +43,7 @@ import net.imglib2.Interval;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessible;
 import net.imglib2.transform.integer.BoundingBox;
+import net.imglib2.transform.integer.Mixed;
 import net.imglib2.transform.integer.SlicingTransform;
 import net.imglib2.util.Intervals;
 import net.imglib2.view.IterableRandomAccessibleInterval;
@@ -221,6 +222,154 @@ public class IterableTransformBuilder< T > extends TransformBuilder< T >
 		}
 	}
 
+	/**
+	 * An {@link IterableInterval} on a bijective {@link Mixed} transform (axis
+	 * permutation, inversion and translation) of a source that is iterated in
+	 * its own (memory) order.
+	 */
+	private class Permutation extends AbstractWrappedInterval< Interval > implements IterableInterval< T >
+	{
+		final long numElements;
+
+		/**
+		 * Used if the source is iterated on {@link #sourceInterval}.
+		 */
+		final SubIntervalIterable< T > subIntervalSource;
+
+		/**
+		 * Used if the source is completely iterated.
+		 */
+		final IterableInterval< T > iterableSource;
+
+		final Interval sourceInterval;
+
+		final Mixed transformToSource;
+
+		public Permutation( final SubIntervalIterable< T > subIntervalSource, final IterableInterval< T > iterableSource, final Interval sourceInterval, final Mixed transformToSource )
+		{
+			super( interval );
+			numElements = Intervals.numElements( interval );
+			this.subIntervalSource = subIntervalSource;
+			this.iterableSource = iterableSource;
+			this.sourceInterval = sourceInterval;
+			this.transformToSource = transformToSource;
+		}
+
+		@Override
+		public long size()
+		{
+			return numElements;
+		}
+
+		@Override
+		public T firstElement()
+		{
+			return cursor().next();
+		}
+
+		@Override
+		public Object iterationOrder()
+		{
+			final Object sourceOrder = subIntervalSource != null
+					? subIntervalSource.subIntervalIterationOrder( sourceInterval )
+					: iterableSource.iterationOrder();
+			if ( FlatIterationOrder.class.isInstance( sourceOrder ) && isTranslation( transformToSource ) )
+				return new FlatIterationOrder( interval );
+			return new PermutationIterationOrder( sourceOrder, transformToSource );
+		}
+
+		@Override
+		public Iterator< T > iterator()
+		{
+			return cursor();
+		}
+
+		@Override
+		public Cursor< T > cursor()
+		{
+			return new MixedTransformCursor< T >( subIntervalSource != null
+					? subIntervalSource.cursor( sourceInterval )
+					: iterableSource.cursor(), transformToSource );
+		}
+
+		@Override
+		public Cursor< T > localizingCursor()
+		{
+			return new MixedTransformCursor< T >( subIntervalSource != null
+					? subIntervalSource.localizingCursor( sourceInterval )
+					: iterableSource.localizingCursor(), transformToSource );
+		}
+	}
+
+	/**
+	 * Iteration order of a {@link Permutation}. Two orders are equal if the
+	 * source iteration orders are equal and the transforms are equal, such
+	 * that cursors return the same position in each iteration step.
+	 */
+	private static class PermutationIterationOrder
+	{
+		private final Object sourceOrder;
+
+		private final int[] component;
+
+		private final boolean[] inversion;
+
+		private final long[] translation;
+
+		PermutationIterationOrder( final Object sourceOrder, final Mixed transform )
+		{
+			this.sourceOrder = sourceOrder;
+			final int m = transform.numTargetDimensions();
+			component = new int[ m ];
+			inversion = new boolean[ m ];
+			translation = new long[ m ];
+			transform.getComponentMapping( component );
+			transform.getComponentInversion( inversion );
+			transform.getTranslation( translation );
+		}
+
+		@Override
+		public boolean equals( final Object obj )
+		{
+			if ( !( obj instanceof PermutationIterationOrder ) )
+				return false;
+			final PermutationIterationOrder o = ( PermutationIterationOrder ) obj;
+			return sourceOrder.equals( o.sourceOrder )
+					&& Arrays.equals( component, o.component )
+					&& Arrays.equals( inversion, o.inversion )
+					&& Arrays.equals( translation, o.translation );
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * Arrays.hashCode( component ) + Arrays.hashCode( inversion );
+		}
+	}
+
+	/**
+	 * Check whether {@code t} maps every source dimension to exactly one target
+	 * dimension, i.e., is a bijective axis permutation with optional
+	 * inversions and translation.
+	 */
+	static boolean isBijective( final Mixed t )
+	{
+		final int n = t.numSourceDimensions();
+		if ( t.numTargetDimensions() != n )
+			return false;
+		final boolean[] mapped = new boolean[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			if ( t.getComponentZero( d ) )
+				return false;
+			final int e = t.getComponentMapping( d );
+			if ( e < 0 || e >= n || mapped[ e ] )
+				return false;
+			mapped[ e ] = true;
+		}
+		return true;
+	}
+
 	/**
 	 * Create an {@link IterableInterval} on the {@link Interval} specified in
 	 * the constructor of the {@link RandomAccessible} specified in the
@@ -228,6 +377,30 @@ public class IterableTransformBuilder< T > extends TransformBuilder< T >
 	 */
 	public IterableInterval< T > buildIterableInterval()
 	{
+		if ( boundingBox != null && transforms.size() == 1 && Mixed.class.isInstance( transforms.get( 0 ) ) )
+		{
+			// A bijective axis permutation can be iterated in the order of
+			// the source. This is much more cache-friendly than strided
+			// random access into the source.
+			final Mixed t = ( Mixed ) transforms.get( 0 );
+			if ( isBijective( t ) )
+			{
+				final Interval sourceInterval = t.transform( new BoundingBox( interval ) ).getInterval();
+				if ( SubIntervalIterable.class.isInstance( source ) )
+				{
+					@SuppressWarnings( "unchecked" )
+					final SubIntervalIterable< T > iterableSource = ( SubIntervalIterable< T > ) source;
+					if ( iterableSource.supportsOptimizedCursor( sourceInterval ) )
+						return new Permutation( iterableSource, null, sourceInterval, t );
+				}
+				if ( IterableInterval.class.isInstance( source ) && Intervals.equals( ( Interval ) source, sourceInterval ) )
+				{
+					@SuppressWarnings( "unchecked" )
+					final IterableInterval< T > iterableSource = ( IterableInterval< T > ) source;
+					return new Permutation( null, iterableSource, sourceInterval, t );
+				}
+			}
+		}
 		if ( boundingBox != null && SubIntervalIterable.class.isInstance( source ) )
 		{
 			@SuppressWarnings( "unchecked" )
@@ -0,0 +1,275 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.view.iteration;
+
+import net.imglib2.AbstractEuclideanSpace;
+import net.imglib2.Cursor;
+import net.imglib2.Localizable;
+import net.imglib2.transform.integer.Mixed;
+
+/**
+ * Wrap a cursor that runs on the source of a bijective {@link Mixed}
+ * transform, i.e., an axis permutation with optional inversions and
+ * translation, and apply the inverse transform on localize calls.
+ *
+ * <p>
+ * This allows to iterate a permuted, rotated or translated view in the memory
+ * order of the underlying source.
+ * </p>
+ */
+public class MixedTransformCursor< T > extends AbstractEuclideanSpace implements Cursor< T >
+{
+	/**
+	 * source Cursor. note that this is the <em>target</em> of the
+	 * transformToSource.
+	 */
+	private final Cursor< T > s;
+
+	/**
+	 * for each component of the view position: from which source component it
+	 * is taken.
+	 */
+	private final int[] sourceComponent;
+
+	/**
+	 * for each component of the view position: whether the source component
+	 * is inverted.
+	 */
+	private final boolean[] inverted;
+
+	/**
+	 * for each component of the view position: the offset that is added to
+	 * the (possibly inverted) source component.
+	 */
+	private final long[] offset;
+
+	/**
+	 * Create a Cursor that forwards all {@link Cursor} methods to
+	 * {@code source}, except {@link Localizable} methods. Localize calls are
+	 * propagated through the inverse of {@code transformToSource}, which must
+	 * be a bijective axis permutation, i.e., have no zero components.
+	 */
+	MixedTransformCursor( final Cursor< T > source, final Mixed transformToSource )
+	{
+		super( transformToSource.numSourceDimensions() );
+
+		assert source.numDimensions() == transformToSource.numTargetDimensions();
+		assert n == transformToSource.numTargetDimensions();
+
+		s = source;
+		sourceComponent = new int[ n ];
+		inverted = new boolean[ n ];
+		offset = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			final int e = transformToSource.getComponentMapping( d );
+			sourceComponent[ e ] = d;
+			inverted[ e ] = transformToSource.getComponentInversion( d );
+			offset[ e ] = inverted[ e ] ? transformToSource.getTranslation( d ) : -transformToSource.getTranslation( d );
+		}
+	}
+
+	protected MixedTransformCursor( final MixedTransformCursor< T > cursor )
+	{
+		super( cursor.numDimensions() );
+		s = cursor.s.copyCursor();
+		sourceComponent = cursor.sourceComponent;
+		inverted = cursor.inverted;
+		offset = cursor.offset;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void localize( final int[] position )
+	{
+		assert position.length >= n;
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = getIntPosition( d );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void localize( final long[] position )
+	{
+		assert position.length >= n;
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = getLongPosition( d );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIntPosition( final int d )
+	{
+		return ( int ) getLongPosition( d );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLongPosition( final int d )
+	{
+		assert d < n;
+		final long p = s.getLongPosition( sourceComponent[ d ] );
+		return ( inverted[ d ] ? -p : p ) + offset[ d ];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void localize( final float[] position )
+	{
+		assert position.length >= n;
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = getFloatPosition( d );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void localize( final double[] position )
+	{
+		assert position.length >= n;
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = getDoublePosition( d );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public float getFloatPosition( final int d )
+	{
+		return getLongPosition( d );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getDoublePosition( final int d )
+	{
+		return getLongPosition( d );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T get()
+	{
+		return s.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MixedTransformCursor< T > copy()
+	{
+		return new MixedTransformCursor< T >( this );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MixedTransformCursor< T > copyCursor()
+	{
+		return copy();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void jumpFwd( final long steps )
+	{
+		s.jumpFwd( steps );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void fwd()
+	{
+		s.fwd();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset()
+	{
+		s.reset();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		return s.hasNext();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T next()
+	{
+		return s.next();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void remove()
+	{
+		return;
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.Converters;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.BenchmarkHelper;
+import net.imglib2.view.Views;
+
+/**
+ * Compares {@link RealBlocks#copy(RandomAccessible, Interval, float[])} with
+ * copying through a cursor, for blocks of views on {@link Img}s.
+ */
+public class RealBlocksBenchmark
+{
+	static float[] block;
+
+	static void copyCursor( final RandomAccessible< UnsignedShortType > source, final Interval interval )
+	{
+		final Cursor< UnsignedShortType > c = Views.flatIterable( Views.interval( source, interval ) ).cursor();
+		for ( int i = 0; c.hasNext(); ++i )
+			block[ i ] = c.next().getRealFloat();
+	}
+
+	static void copyBlocks( final RandomAccessible< UnsignedShortType > source, final Interval interval )
+	{
+		RealBlocks.copy( source, interval, block );
+	}
+
+	static void benchmark( final String name, final RandomAccessible< UnsignedShortType > source, final Interval interval )
+	{
+		final int numRuns = 20;
+		final boolean printIndividualTimes = false;
+
+		System.out.println( name + " | cursor" );
+		BenchmarkHelper.benchmarkAndPrint( numRuns, printIndividualTimes, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				copyCursor( source, interval );
+			}
+		} );
+
+		System.out.println( name + " | blocks" );
+		BenchmarkHelper.benchmarkAndPrint( numRuns, printIndividualTimes, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				copyBlocks( source, interval );
+			}
+		} );
+	}
+
+	public static void main( final String[] args )
+	{
+		final long[] dimensions = new long[] { 256, 256, 128 };
+		final Img< UnsignedShortType > array = ArrayImgs.unsignedShorts( dimensions );
+		final Img< UnsignedShortType > cells = new CellImgFactory< UnsignedShortType >( 64 ).create( dimensions, new UnsignedShortType() );
+
+		final Interval crop = new FinalInterval( new long[] { 10, 20, 30 }, new long[] { 209, 219, 89 } );
+		final Interval extended = new FinalInterval( new long[] { -20, -20, -10 }, new long[] { 275, 275, 137 } );
+		block = new float[ ( int ) ( 296 * 296 * 148 ) ];
+
+		final Converter< UnsignedShortType, UnsignedShortType > converter = new Converter< UnsignedShortType, UnsignedShortType >()
+		{
+			@Override
+			public void convert( final UnsignedShortType input, final UnsignedShortType output )
+			{
+				output.set( 65535 - input.get() );
+			}
+		};
+
+		for ( int i = 0; i < 2; ++i )
+		{
+			benchmark( "array img | crop", array, crop );
+			benchmark( "cell img | crop", cells, crop );
+			benchmark( "array img | permuted crop", Views.permute( array, 0, 2 ), new FinalInterval( new long[] { 30, 20, 10 }, new long[] { 89, 219, 209 } ) );
+			benchmark( "cell img | translated, extended by zero", Views.translate( Views.extendZero( cells ), 20, 20, 10 ), new FinalInterval( new long[] { 0, 0, 0 }, new long[] { 295, 295, 147 } ) );
+			benchmark( "cell img | extended by mirroring", Views.extendMirrorSingle( cells ), extended );
+			benchmark( "array img | converted crop", Converters.convert( ( RandomAccessible< UnsignedShortType > ) array, converter, new UnsignedShortType() ), crop );
+		}
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.RealARGBConverter;
+import net.imglib2.img.Img;
+import net.imglib2.img.ImgFactory;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.planar.PlanarImgFactory;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedIntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link RealBlocks} against copying through cursors.
+ */
+public class RealBlocksTest
+{
+	private final long[] dimensions = new long[] { 31, 19, 7 };
+
+	private final Interval interval = new FinalInterval( new long[] { 3, 2, 1 }, new long[] { 27, 17, 5 } );
+
+	@SuppressWarnings( "unchecked" )
+	private < T extends NativeType< T > & RealType< T > > Img< T >[] create( final T type )
+	{
+		final ImgFactory< T >[] factories = new ImgFactory[] {
+				new ArrayImgFactory< T >(),
+				new PlanarImgFactory< T >(),
+				new CellImgFactory< T >( 8, 5, 3 )
+		};
+		final Img< T >[] imgs = new Img[ factories.length ];
+		for ( int i = 0; i < factories.length; ++i )
+		{
+			imgs[ i ] = factories[ i ].create( dimensions, type );
+			final Random rnd = new Random( 1 );
+			for ( final T t : imgs[ i ] )
+				t.setReal( rnd.nextInt( 1000 ) - 300 + 0.25 );
+		}
+		return imgs;
+	}
+
+	private static < T extends RealType< T > > double[] expected( final RandomAccessibleInterval< T > img, final Interval interval )
+	{
+		final double[] values = new double[ ( int ) ( interval.dimension( 0 ) * interval.dimension( 1 ) * interval.dimension( 2 ) ) ];
+		int i = 0;
+		for ( final T t : Views.flatIterable( Views.interval( img, interval ) ) )
+			values[ i++ ] = t.getRealDouble();
+		return values;
+	}
+
+	private < T extends NativeType< T > & RealType< T > > void testCopy( final T type )
+	{
+		for ( final Img< T > img : create( type ) )
+		{
+			final double[] expected = expected( img, interval );
+
+			final double[] doubles = new double[ expected.length ];
+			RealBlocks.copy( img, interval, doubles );
+			assertArrayEquals( expected, doubles, 0 );
+
+			final float[] floats = new float[ expected.length ];
+			RealBlocks.copy( img, interval, floats );
+			for ( int i = 0; i < expected.length; ++i )
+				assertEquals( ( float ) expected[ i ], floats[ i ], 0 );
+
+			final double[] viaView = new double[ expected.length ];
+			RealBlocks.copy( Views.translate( img, 0, 0, 0 ), interval, viaView );
+			assertArrayEquals( expected, viaView, 0 );
+		}
+	}
+
+	private < T extends NativeType< T > & RealType< T > > void testWrite( final T type )
+	{
+		for ( final Img< T > img : create( type ) )
+		{
+			final Img< T > reference = img.copy();
+			final double[] values = new double[ ( int ) ( interval.dimension( 0 ) * interval.dimension( 1 ) * interval.dimension( 2 ) ) ];
+			for ( int i = 0; i < values.length; ++i )
+				values[ i ] = i * 0.7 - 100;
+
+			RealBlocks.copy( values, img, interval );
+			final Cursor< T > c = Views.flatIterable( Views.interval( reference, interval ) ).cursor();
+			for ( int i = 0; c.hasNext(); ++i )
+				c.next().setReal( values[ i ] );
+
+			final Cursor< T > ci = Views.flatIterable( img ).cursor();
+			final Cursor< T > cr = Views.flatIterable( reference ).cursor();
+			while ( ci.hasNext() )
+				assertEquals( cr.next().getRealDouble(), ci.next().getRealDouble(), 0 );
+		}
+	}
+
+	private static < T extends RealType< T > > void testView( final RandomAccessible< T > view, final Interval interval )
+	{
+		final int n = interval.numDimensions();
+		final double[] expected = new double[ ( int ) Intervals.numElements( interval ) ];
+		final RandomAccess< T > access = view.randomAccess();
+		final long[] position = new long[ n ];
+		interval.min( position );
+		for ( int i = 0; i < expected.length; ++i )
+		{
+			access.setPosition( position );
+			expected[ i ] = access.get().getRealDouble();
+			for ( int d = 0; d < n; ++d )
+			{
+				if ( ++position[ d ] <= interval.max( d ) )
+					break;
+				position[ d ] = interval.min( d );
+			}
+		}
+
+		final double[] doubles = new double[ expected.length ];
+		RealBlocks.copy( view, interval, doubles );
+		assertArrayEquals( expected, doubles, 0 );
+
+		final float[] floats = new float[ expected.length ];
+		RealBlocks.copy( view, interval, floats );
+		for ( int i = 0; i < expected.length; ++i )
+			assertEquals( ( float ) expected[ i ], floats[ i ], 0 );
+	}
+
+	private < T extends NativeType< T > & RealType< T > > void testCopyViews( final T type )
+	{
+		final Interval permuted = new FinalInterval( new long[] { 1, 2, 3 }, new long[] { 5, 17, 27 } );
+		final Interval outside = new FinalInterval( new long[] { -5, -3, -2 }, new long[] { 35, 22, 9 } );
+		final Interval sliced = new FinalInterval( new long[] { 2, -3 }, new long[] { 30, 17 } );
+		final Converter< T, FloatType > converter = new Converter< T, FloatType >()
+		{
+			@Override
+			public void convert( final T input, final FloatType output )
+			{
+				output.set( input.getRealFloat() * 0.5f + 1 );
+			}
+		};
+		for ( final Img< T > img : create( type ) )
+		{
+			testView( Views.permute( img, 0, 2 ), permuted );
+			testView( Views.rotate( img, 0, 1 ), new FinalInterval( new long[] { -17, 3, 1 }, new long[] { -2, 27, 5 } ) );
+			testView( Views.invertAxis( Views.translate( Views.permute( img, 1, 2 ), 4, -2, 7 ), 0 ), new FinalInterval( new long[] { -30, 0, 8 }, new long[] { -8, 4, 25 } ) );
+			testView( Views.hyperSlice( img, 1, 4 ), new FinalInterval( new long[] { 2, 1 }, new long[] { 30, 6 } ) );
+			testView( Views.hyperSlice( Views.permute( img, 0, 1 ), 2, 3 ), new FinalInterval( new long[] { 1, 2 }, new long[] { 17, 30 } ) );
+			testView( Views.addDimension( img ), new FinalInterval( new long[] { 3, 2, 1, -1 }, new long[] { 27, 17, 5, 2 } ) );
+			testView( Views.extendZero( img ), outside );
+			testView( Views.extendValue( img, type.createVariable() ), outside );
+			testView( Views.extendBorder( img ), outside );
+			testView( Views.extendMirrorSingle( img ), outside );
+			testView( Views.extendPeriodic( img ), outside );
+			testView( Views.extendBorder( img ), new FinalInterval( new long[] { 40, 2, 1 }, new long[] { 45, 7, 3 } ) );
+			testView( Views.permute( Views.extendZero( img ), 0, 1 ), outside );
+			testView( Views.hyperSlice( Views.extendMirrorSingle( Views.rotate( img, 1, 0 ) ), 2, 1 ), sliced );
+			testView( Converters.convert( ( RandomAccessibleInterval< T > ) img, converter, new FloatType() ), interval );
+			testView( Converters.convert( Views.extendZero( Views.permute( img, 0, 2 ) ), converter, new FloatType() ), outside );
+			testView( Views.permute( Converters.convert( ( RandomAccessibleInterval< T > ) img, converter, new FloatType() ), 0, 1 ), new FinalInterval( new long[] { 2, 3, 1 }, new long[] { 17, 27, 5 } ) );
+		}
+	}
+
+	@Test
+	public void testCopyViews()
+	{
+		testCopyViews( new ByteType() );
+		testCopyViews( new UnsignedShortType() );
+		testCopyViews( new UnsignedIntType() );
+		testCopyViews( new FloatType() );
+		testCopyViews( new DoubleType() );
+	}
+
+	@Test
+	public void testCopy()
+	{
+		testCopy( new ByteType() );
+		testCopy( new UnsignedByteType() );
+		testCopy( new UnsignedShortType() );
+		testCopy( new UnsignedIntType() );
+		testCopy( new FloatType() );
+		testCopy( new DoubleType() );
+	}
+
+	@Test
+	public void testWrite()
+	{
+		testWrite( new ByteType() );
+		testWrite( new UnsignedByteType() );
+		testWrite( new UnsignedShortType() );
+		testWrite( new UnsignedIntType() );
+		testWrite( new FloatType() );
+		testWrite( new DoubleType() );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testArrayTooSmall()
+	{
+		RealBlocks.copy( create( new FloatType() )[ 0 ], interval, new double[ 10 ] );
+	}
+
+	@Test
+	public void testConvert()
+	{
+		// more values than are buffered at once, so the block is split
+		final Img< UnsignedShortType > img = ArrayImgs.unsignedShorts( 300, 7, 40 );
+		final Random random = new Random( 1 );
+		for ( final UnsignedShortType t : img )
+			t.set( random.nextInt( 65536 ) );
+
+		final RealARGBConverter< UnsignedShortType > converter = new RealARGBConverter< UnsignedShortType >( 1000, 60000 );
+		final Interval block = new FinalInterval( new long[] { 10, 0, 1 }, new long[] { 289, 6, 38 } );
+		final int[] actual = new int[ ( int ) Intervals.numElements( block ) ];
+		RealBlocks.convert( img, block, converter, actual );
+
+		final int[] expected = new int[ actual.length ];
+		final ARGBType argb = new ARGBType();
+		final Cursor< UnsignedShortType > c = Views.flatIterable( Views.interval( img, block ) ).cursor();
+		for ( int i = 0; c.hasNext(); ++i )
+		{
+			converter.convert( c.next(), argb );
+			expected[ i ] = argb.get();
+		}
+		assertArrayEquals( expected, actual );
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.display.ColorTable8;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Tests that {@link BatchConverter} implementations produce the same values
+ * as per-sample conversion.
+ */
+public class BatchConverterTest
+{
+	private static final int n = 1000;
+
+	private static final int offset = 3;
+
+	private static double[] values()
+	{
+		final Random random = new Random( 42 );
+		final double[] values = new double[ n + offset ];
+		for ( int i = 0; i < values.length; ++i )
+			values[ i ] = random.nextDouble() * 400 - 100;
+		values[ offset ] = Double.NaN;
+		values[ offset + 1 ] = -0.0;
+		values[ offset + 2 ] = 1e300;
+		return values;
+	}
+
+	private static int[] argbs( final Converter< DoubleType, ARGBType > converter, final double[] values )
+	{
+		final int[] argbs = new int[ n ];
+		final DoubleType a = new DoubleType();
+		final ARGBType b = new ARGBType();
+		for ( int i = 0; i < n; ++i )
+		{
+			a.set( values[ offset + i ] );
+			converter.convert( a, b );
+			argbs[ i ] = b.get();
+		}
+		return argbs;
+	}
+
+	@Test
+	public void testRealARGBConverter()
+	{
+		final double[] values = values();
+		final RealARGBConverter< DoubleType > converter = new RealARGBConverter< DoubleType >( -20, 250 );
+		final int[] actual = new int[ n + 1 ];
+		converter.convert( values, offset, actual, 1, n );
+		assertArrayEquals( argbs( converter, values ), Arrays.copyOfRange( actual, 1, n + 1 ) );
+	}
+
+	@Test
+	public void testRealLUTConverter()
+	{
+		final double[] values = values();
+		final byte[] ramp = new byte[ 256 ];
+		for ( int i = 0; i < 256; ++i )
+			ramp[ i ] = ( byte ) ( 255 - i );
+		final RealLUTConverter< DoubleType > converter = new RealLUTConverter< DoubleType >( 0, 200, new ColorTable8( ramp, ramp, ramp ) );
+		final int[] actual = new int[ n ];
+		converter.convert( values, offset, actual, 0, n );
+		assertArrayEquals( argbs( converter, values ), actual );
+	}
+
+	@Test
+	public void testRealUnsignedByteConverter()
+	{
+		final double[] values = values();
+		final RealUnsignedByteConverter< DoubleType > converter = new RealUnsignedByteConverter< DoubleType >( 10, 90 );
+		final byte[] actual = new byte[ n ];
+		converter.convert( values, offset, actual, 0, n );
+
+		final byte[] expected = new byte[ n ];
+		final DoubleType a = new DoubleType();
+		final UnsignedByteType b = new UnsignedByteType();
+		for ( int i = 0; i < n; ++i )
+		{
+			a.set( values[ offset + i ] );
+			converter.convert( a, b );
+			expected[ i ] = ( byte ) b.get();
+		}
+		assertArrayEquals( expected, actual );
+	}
+
+	@Test
+	public void testRealFloatConverter()
+	{
+		final double[] values = values();
+		final RealFloatConverter< DoubleType > converter = new RealFloatConverter< DoubleType >();
+		final float[] actual = new float[ n ];
+		converter.convert( values, offset, actual, 0, n );
+
+		final float[] expected = new float[ n ];
+		final DoubleType a = new DoubleType();
+		final FloatType b = new FloatType();
+		for ( int i = 0; i < n; ++i )
+		{
+			a.set( values[ offset + i ] );
+			converter.convert( a, b );
+			expected[ i ] = b.get();
+		}
+		assertArrayEquals( expected, actual, 0 );
+	}
+
+	@Test
+	public void testIsApplicable()
+	{
+		assertTrue( BatchConverter.isApplicable( new RealARGBConverter< DoubleType >( 0, 1 ) ) );
+		assertTrue( BatchConverter.isApplicable( new LookupRealARGBConverter< UnsignedByteType >( 8 ) ) );
+		assertFalse( BatchConverter.isApplicable( new TypeIdentity< ARGBType >() ) );
+
+		// subclasses that override the per-sample conversion opt out
+		assertFalse( BatchConverter.isApplicable( new VolatileRealTypeARGBConverter() ) );
+		assertFalse( BatchConverter.isApplicable( new RealARGBConverter< DoubleType >( 0, 1 )
+		{
+			@Override
+			public void convert( final DoubleType input, final ARGBType output )
+			{
+				output.set( 0 );
+			}
+
+			@Override
+			public boolean supportsBatch()
+			{
+				return false;
+			}
+		} ) );
+	}
+}
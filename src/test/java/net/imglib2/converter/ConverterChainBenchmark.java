@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.converter;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.read.ConvertedRandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.BenchmarkHelper;
+import net.imglib2.view.Views;
+
+/**
+ * Compares reading through a chain of nested converted views with reading
+ * through the single view that {@link Converters} fuses them into.
+ */
+public class ConverterChainBenchmark
+{
+	static double sum;
+
+	static final Converter< FloatType, FloatType > plusOne = new Converter< FloatType, FloatType >()
+	{
+		@Override
+		public void convert( final FloatType input, final FloatType output )
+		{
+			output.set( input.get() + 1 );
+		}
+	};
+
+	static void read( final RandomAccessibleInterval< FloatType > source )
+	{
+		double s = 0;
+		final Cursor< FloatType > c = Views.flatIterable( source ).cursor();
+		while ( c.hasNext() )
+			s += c.next().get();
+		sum += s;
+	}
+
+	static RandomAccessibleInterval< FloatType > nested( final RandomAccessibleInterval< FloatType > source, final int levels )
+	{
+		RandomAccessibleInterval< FloatType > converted = source;
+		for ( int i = 0; i < levels; ++i )
+			converted = new ConvertedRandomAccessibleInterval< FloatType, FloatType >( converted, plusOne, new FloatType() );
+		return converted;
+	}
+
+	static RandomAccessibleInterval< FloatType > fused( final RandomAccessibleInterval< FloatType > source, final int levels )
+	{
+		RandomAccessibleInterval< FloatType > converted = source;
+		for ( int i = 0; i < levels; ++i )
+			converted = Converters.convert( converted, plusOne, new FloatType() );
+		return converted;
+	}
+
+	static void benchmark( final String name, final RandomAccessibleInterval< FloatType > view )
+	{
+		System.out.println( name );
+		BenchmarkHelper.benchmarkAndPrint( 20, false, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				read( view );
+			}
+		} );
+	}
+
+	public static void main( final String[] args )
+	{
+		final RandomAccessibleInterval< FloatType > img = ArrayImgs.floats( 256, 256, 64 );
+		for ( int i = 0; i < 2; ++i )
+		{
+			for ( int levels = 1; levels <= 4; ++levels )
+			{
+				benchmark( levels + " levels | nested", nested( img, levels ) );
+				benchmark( levels + " levels | fused", fused( img, levels ) );
+			}
+		}
+		System.out.println( sum );
+	}
+}
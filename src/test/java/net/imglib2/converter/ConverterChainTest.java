@@ -0,0 +1,209 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.Sampler;
+import net.imglib2.converter.read.ConvertedIterableInterval;
+import net.imglib2.converter.read.ConvertedRandomAccessible;
+import net.imglib2.converter.read.ConvertedRandomAccessibleInterval;
+import net.imglib2.converter.readwrite.ComposedSamplerConverter;
+import net.imglib2.converter.readwrite.RealDoubleSamplerConverter;
+import net.imglib2.converter.readwrite.RealFloatSamplerConverter;
+import net.imglib2.converter.readwrite.SamplerConverter;
+import net.imglib2.converter.readwrite.WriteConvertedRandomAccess;
+import net.imglib2.converter.readwrite.WriteConvertedRandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Tests that {@link Converters} fuse nested conversions into one view over the
+ * original source.
+ */
+public class ConverterChainTest
+{
+	private static final Converter< UnsignedByteType, FloatType > plusOne = new Converter< UnsignedByteType, FloatType >()
+	{
+		@Override
+		public void convert( final UnsignedByteType input, final FloatType output )
+		{
+			output.set( input.get() + 1 );
+		}
+	};
+
+	private static final Converter< FloatType, DoubleType > timesTwo = new Converter< FloatType, DoubleType >()
+	{
+		@Override
+		public void convert( final FloatType input, final DoubleType output )
+		{
+			output.set( 2 * input.get() );
+		}
+	};
+
+	private static final Converter< DoubleType, FloatType > negate = new Converter< DoubleType, FloatType >()
+	{
+		@Override
+		public void convert( final DoubleType input, final FloatType output )
+		{
+			output.set( ( float ) -input.get() );
+		}
+	};
+
+	private static ArrayImg< UnsignedByteType, ByteArray > createImg()
+	{
+		final ArrayImg< UnsignedByteType, ByteArray > img = ArrayImgs.unsignedBytes( 7, 5 );
+		int i = 0;
+		for ( final UnsignedByteType t : img )
+			t.set( i++ );
+		return img;
+	}
+
+	@Test
+	public void testFuseRandomAccessibleInterval()
+	{
+		final ArrayImg< UnsignedByteType, ByteArray > img = createImg();
+		final RandomAccessibleInterval< DoubleType > converted = Converters.convert(
+				Converters.convert( ( RandomAccessibleInterval< UnsignedByteType > ) img, plusOne, new FloatType() ),
+				timesTwo, new DoubleType() );
+
+		assertTrue( converted instanceof ConvertedRandomAccessibleInterval );
+		assertSame( img, ( ( ConvertedRandomAccessibleInterval< ?, ? > ) converted ).getSource() );
+
+		final Cursor< UnsignedByteType > c = img.localizingCursor();
+		final RandomAccess< DoubleType > a = converted.randomAccess();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			a.setPosition( c );
+			assertEquals( 2 * ( c.get().get() + 1 ), a.get().get(), 0 );
+		}
+	}
+
+	@Test
+	public void testFuseThreeLevels()
+	{
+		final ArrayImg< UnsignedByteType, ByteArray > img = createImg();
+		final RandomAccessible< FloatType > converted = Converters.convert(
+				Converters.convert(
+						Converters.convert( ( RandomAccessible< UnsignedByteType > ) img, plusOne, new FloatType() ),
+						timesTwo, new DoubleType() ),
+				negate, new FloatType() );
+
+		assertTrue( converted instanceof ConvertedRandomAccessible );
+		assertSame( img, ( ( ConvertedRandomAccessible< ?, ? > ) converted ).getSource() );
+
+		final RandomAccess< FloatType > a = converted.randomAccess();
+		final RandomAccess< FloatType > b = a.copyRandomAccess();
+		a.setPosition( new long[] { 3, 2 } );
+		b.setPosition( new long[] { 6, 4 } );
+		final FloatType va = a.get();
+		final FloatType vb = b.get();
+		assertEquals( -2 * ( 17 + 1 ), va.get(), 0 );
+		assertEquals( -2 * ( 34 + 1 ), vb.get(), 0 );
+	}
+
+	@Test
+	public void testFuseIterableInterval()
+	{
+		final ArrayImg< UnsignedByteType, ByteArray > img = createImg();
+		final IterableInterval< DoubleType > converted = Converters.convert(
+				Converters.convert( ( IterableInterval< UnsignedByteType > ) img, plusOne, new FloatType() ),
+				timesTwo, new DoubleType() );
+
+		assertTrue( converted instanceof ConvertedIterableInterval );
+		assertSame( img, ( ( ConvertedIterableInterval< ?, ? > ) converted ).getSource() );
+
+		final Cursor< UnsignedByteType > c = img.cursor();
+		for ( final DoubleType t : converted )
+			assertEquals( 2 * ( c.next().get() + 1 ), t.get(), 0 );
+	}
+
+	@Test
+	public void testFuseSamplerConverters()
+	{
+		final RandomAccessibleInterval< ARGBType > argb = ArrayImgs.argbs( 4, 3 );
+		final WriteConvertedRandomAccessibleInterval< ARGBType, UnsignedByteType > red = Converters.argbChannel( argb, 1 );
+		final WriteConvertedRandomAccessibleInterval< UnsignedByteType, FloatType > floats = Converters.convert( ( RandomAccessibleInterval< UnsignedByteType > ) red, new RealFloatSamplerConverter< UnsignedByteType >() );
+		final WriteConvertedRandomAccessibleInterval< FloatType, DoubleType > doubles = Converters.convert( ( RandomAccessibleInterval< FloatType > ) floats, new RealDoubleSamplerConverter< FloatType >() );
+
+		assertSame( floats, doubles.getSource() );
+
+		final WriteConvertedRandomAccess< FloatType, DoubleType > a = doubles.randomAccess();
+		a.setPosition( new long[] { 2, 1 } );
+		a.get().set( 200 );
+		final WriteConvertedRandomAccess< FloatType, DoubleType > b = a.copy();
+		b.setPosition( new long[] { 3, 2 } );
+		b.get().set( 17 );
+
+		final RandomAccess< ARGBType > s = argb.randomAccess();
+		s.setPosition( new long[] { 2, 1 } );
+		assertEquals( 200, ARGBType.red( s.get().get() ) );
+		s.setPosition( new long[] { 3, 2 } );
+		assertEquals( 17, ARGBType.red( s.get().get() ) );
+
+		assertEquals( 200, a.get().get(), 0 );
+		assertEquals( 17, b.get().get(), 0 );
+	}
+
+	@Test
+	public void testComposedSamplerConverterCopy()
+	{
+		// a converter that keeps an independent copy of its sampler
+		final SamplerConverter< FloatType, Sampler< ? extends FloatType > > snapshot = sampler -> sampler.copy();
+		final ComposedSamplerConverter< UnsignedByteType, FloatType, Sampler< ? extends FloatType > > composed =
+				new ComposedSamplerConverter<>( new RealFloatSamplerConverter< UnsignedByteType >(), snapshot );
+
+		final RandomAccess< UnsignedByteType > access = createImg().randomAccess();
+		access.setPosition( new long[] { 3, 2 } );
+		final Sampler< ? extends FloatType > copy = composed.convert( access );
+		access.setPosition( new long[] { 6, 4 } );
+		assertEquals( 17, copy.get().get(), 0 );
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.converter;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.imglib2.display.ColorTable16;
+import net.imglib2.display.ColorTable8;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+
+/**
+ * Tests that the table-driven converters match {@link RealARGBConverter} and
+ * {@link RealLUTConverter} for all inputs.
+ */
+public class LookupARGBConverterTest
+{
+	private static void assertSameMapping( final Converter< UnsignedShortType, ARGBType > expected, final AbstractLookupARGBConverter< UnsignedShortType > actual, final int numValues )
+	{
+		final UnsignedShortType in = new UnsignedShortType();
+		final ARGBType e = new ARGBType();
+		final ARGBType a = new ARGBType();
+		final double[] values = new double[ numValues ];
+		final int[] batch = new int[ numValues ];
+		for ( int i = 0; i < numValues; ++i )
+			values[ i ] = i;
+		actual.convert( values, 0, batch, 0, numValues );
+		for ( int i = 0; i < numValues; ++i )
+		{
+			in.set( i );
+			expected.convert( in, e );
+			actual.convert( in, a );
+			assertEquals( "value " + i, e.get(), a.get() );
+			assertEquals( "value " + i, e.get(), batch[ i ] );
+		}
+	}
+
+	@Test
+	public void testRealARGB()
+	{
+		final RealARGBConverter< UnsignedShortType > expected = new RealARGBConverter< UnsignedShortType >( 100, 40000 );
+		final LookupRealARGBConverter< UnsignedShortType > actual = new LookupRealARGBConverter< UnsignedShortType >( 16, 100, 40000 );
+		assertSameMapping( expected, actual, 65536 );
+
+		expected.setMin( 30000 );
+		expected.setMax( 2000 );
+		actual.setMin( 30000 );
+		actual.setMax( 2000 );
+		assertSameMapping( expected, actual, 65536 );
+	}
+
+	@Test
+	public void testRealLUT()
+	{
+		final byte[] r = new byte[ 256 ];
+		final byte[] g = new byte[ 256 ];
+		for ( int i = 0; i < 256; ++i )
+		{
+			r[ i ] = ( byte ) i;
+			g[ i ] = ( byte ) ( i * 7 );
+		}
+		final ColorTable8 lut8 = new ColorTable8( r, g, r );
+		final RealLUTConverter< UnsignedShortType > expected = new RealLUTConverter< UnsignedShortType >( 10, 200, lut8 );
+		final LookupRealLUTConverter< UnsignedShortType > actual = new LookupRealLUTConverter< UnsignedShortType >( 8, 10, 200, lut8 );
+		assertSameMapping( expected, actual, 256 );
+
+		final short[] ramp = new short[ 65536 ];
+		for ( int i = 0; i < ramp.length; ++i )
+			ramp[ i ] = ( short ) ( 65535 - i );
+		final ColorTable16 lut16 = new ColorTable16( ramp, ramp, ramp );
+		expected.setLUT( lut16 );
+		actual.setLUT( lut16 );
+		expected.setMax( 100 );
+		actual.setMax( 100 );
+		assertSameMapping( expected, actual, 256 );
+	}
+
+	@Test
+	public void testUnsignedByte()
+	{
+		final LookupRealARGBConverter< UnsignedByteType > converter = new LookupRealARGBConverter< UnsignedByteType >( 8, 0, 255 );
+		final ARGBType argb = new ARGBType();
+		converter.convert( new UnsignedByteType( 255 ), argb );
+		assertEquals( 0xffffffff, argb.get() );
+		converter.setMax( 510 );
+		converter.convert( new UnsignedByteType( 255 ), argb );
+		assertEquals( 128, ARGBType.blue( argb.get() ) );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testTooManyBits()
+	{
+		new LookupRealARGBConverter< UnsignedShortType >( 17 );
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.display.projector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.RealARGBConverter;
+import net.imglib2.converter.VolatileRealTypeARGBConverter;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.volatiles.VolatileRealType;
+
+/**
+ * Tests that {@link IterableIntervalProjector2D} renders the same with and
+ * without batch conversion.
+ */
+public class IterableIntervalProjector2DTest
+{
+	private final RealARGBConverter< UnsignedShortType > batch = new RealARGBConverter< UnsignedShortType >( 100, 50000 );
+
+	/** the same conversion, hiding the batch implementation */
+	private final Converter< UnsignedShortType, ARGBType > perSample = new Converter< UnsignedShortType, ARGBType >()
+	{
+		@Override
+		public void convert( final UnsignedShortType input, final ARGBType output )
+		{
+			batch.convert( input, output );
+		}
+	};
+
+	private static Img< UnsignedShortType > createSource()
+	{
+		final Img< UnsignedShortType > img = new CellImgFactory< UnsignedShortType >( 16 ).create( new long[] { 40, 30, 5 }, new UnsignedShortType() );
+		final Random random = new Random( 7 );
+		for ( final UnsignedShortType t : img )
+			t.set( random.nextInt( 65536 ) );
+		return img;
+	}
+
+	private int[] render( final Img< UnsignedShortType > source, final int dimX, final int dimY, final Converter< UnsignedShortType, ARGBType > converter )
+	{
+		final ArrayImg< ARGBType, IntArray > target = ArrayImgs.argbs( source.dimension( dimX ), source.dimension( dimY ) );
+		final IterableIntervalProjector2D< UnsignedShortType, ARGBType > projector = new IterableIntervalProjector2D< UnsignedShortType, ARGBType >( dimX, dimY, source, target, converter );
+		projector.setPosition( 2, 1 );
+		projector.setPosition( 3, 2 );
+		projector.map();
+		return target.update( null ).getCurrentStorageArray();
+	}
+
+	@Test
+	public void testBatchXY()
+	{
+		final Img< UnsignedShortType > source = createSource();
+		assertArrayEquals( render( source, 0, 1, perSample ), render( source, 0, 1, batch ) );
+	}
+
+	@Test
+	public void testVolatileConverter()
+	{
+		// every other value is invalid and must be rendered as background
+		final Img< UnsignedShortType > img = ArrayImgs.unsignedShorts( 4, 3 );
+		int i = 0;
+		for ( final UnsignedShortType t : img )
+			t.set( 1000 * i++ );
+		final RandomAccessibleInterval< VolatileRealType< UnsignedShortType > > source = Converters.convert( ( RandomAccessibleInterval< UnsignedShortType > ) img, ( in, out ) -> {
+			out.get().set( in );
+			out.setValid( in.get() % 2000 == 0 );
+		}, new VolatileRealType< UnsignedShortType >( new UnsignedShortType() ) );
+
+		final VolatileRealTypeARGBConverter converter = new VolatileRealTypeARGBConverter( 0, 11000, new ARGBType( 0xff000040 ) );
+		final ArrayImg< ARGBType, IntArray > target = ArrayImgs.argbs( 4, 3 );
+		new IterableIntervalProjector2D< VolatileRealType< UnsignedShortType >, ARGBType >( 0, 1, source, target, converter ).map();
+
+		final int[] expected = new int[ 12 ];
+		final ARGBType argb = new ARGBType();
+		final VolatileRealType< UnsignedShortType > v = new VolatileRealType< UnsignedShortType >( new UnsignedShortType() );
+		for ( int j = 0; j < 12; ++j )
+		{
+			v.get().set( 1000 * j );
+			v.setValid( j % 2 == 0 );
+			converter.convert( v, argb );
+			expected[ j ] = argb.get();
+		}
+		assertEquals( 0xff000040, expected[ 1 ] );
+		assertArrayEquals( expected, target.update( null ).getCurrentStorageArray() );
+	}
+
+	@Test
+	public void testBatchZX()
+	{
+		final Img< UnsignedShortType > source = createSource();
+		assertArrayEquals( render( source, 2, 0, perSample ), render( source, 2, 0, batch ) );
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.display.projector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.RealARGBConverter;
+import net.imglib2.display.projector.composite.CompositeXYProjector;
+import net.imglib2.display.projector.volatiles.Volatile2DRandomAccessibleProjector;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.volatiles.VolatileRealType;
+
+/**
+ * Tests that projectors render the same with several stripes on an
+ * {@link ExecutorService} as on the calling thread.
+ */
+public class MultiThreadedProjectorTest
+{
+	private static ExecutorService executor;
+
+	private static final int numTasks = 7;
+
+	private static final long[] dimensions = new long[] { 50, 43, 3 };
+
+	private final RealARGBConverter< UnsignedShortType > converter = new RealARGBConverter< UnsignedShortType >( 100, 50000 );
+
+	/** the same conversion, hiding the batch implementation */
+	private final Converter< UnsignedShortType, ARGBType > perSample = new Converter< UnsignedShortType, ARGBType >()
+	{
+		@Override
+		public void convert( final UnsignedShortType input, final ARGBType output )
+		{
+			converter.convert( input, output );
+		}
+	};
+
+	@BeforeClass
+	public static void setUp()
+	{
+		executor = Executors.newFixedThreadPool( 3 );
+	}
+
+	@AfterClass
+	public static void tearDown()
+	{
+		executor.shutdown();
+	}
+
+	private static Img< UnsignedShortType > createSource()
+	{
+		final Img< UnsignedShortType > img = new CellImgFactory< UnsignedShortType >( 16 ).create( dimensions, new UnsignedShortType() );
+		final Random random = new Random( 3 );
+		for ( final UnsignedShortType t : img )
+			t.set( random.nextInt( 65536 ) );
+		return img;
+	}
+
+	private static ArrayImg< ARGBType, IntArray > createTarget()
+	{
+		return ArrayImgs.argbs( dimensions[ 0 ], dimensions[ 1 ] );
+	}
+
+	private static int[] render( final AbstractProjector2D projector, final ArrayImg< ARGBType, IntArray > target, final boolean parallel )
+	{
+		projector.setExecutorService( parallel ? executor : null, numTasks );
+		projector.setPosition( 1, 2 );
+		projector.map();
+		return target.update( null ).getCurrentStorageArray().clone();
+	}
+
+	@Test
+	public void testIterableIntervalProjector2D()
+	{
+		final Img< UnsignedShortType > source = createSource();
+		for ( final Converter< UnsignedShortType, ARGBType > c : new ArrayList< Converter< UnsignedShortType, ARGBType > >()
+		{
+			{
+				add( converter );
+				add( perSample );
+			}
+		} )
+		{
+			final ArrayImg< ARGBType, IntArray > target = createTarget();
+			final IterableIntervalProjector2D< UnsignedShortType, ARGBType > projector = new IterableIntervalProjector2D< UnsignedShortType, ARGBType >( 0, 1, source, target, c );
+			assertArrayEquals( render( projector, target, false ), render( projector, target, true ) );
+		}
+	}
+
+	@Test
+	public void testRandomAccessibleProjector2D()
+	{
+		final Img< UnsignedShortType > source = createSource();
+		final ArrayImg< ARGBType, IntArray > target = createTarget();
+		final RandomAccessibleProjector2D< UnsignedShortType, ARGBType > projector = new RandomAccessibleProjector2D< UnsignedShortType, ARGBType >( 0, 1, source, target, perSample );
+		assertArrayEquals( render( projector, target, false ), render( projector, target, true ) );
+	}
+
+	@Test
+	public void testCompositeXYProjector()
+	{
+		final Img< UnsignedShortType > source = createSource();
+		final ArrayImg< ARGBType, IntArray > target = createTarget();
+		final ArrayList< Converter< UnsignedShortType, ARGBType > > converters = new ArrayList<>();
+		for ( int i = 0; i < dimensions[ 2 ]; ++i )
+			converters.add( new RealARGBConverter< UnsignedShortType >( 1000 * i, 20000 + 1000 * i ) );
+		final CompositeXYProjector< UnsignedShortType > projector = new CompositeXYProjector< UnsignedShortType >( source, target, converters, 2 );
+		projector.setComposite( true );
+		assertArrayEquals( render( projector, target, false ), render( projector, target, true ) );
+		projector.setComposite( false );
+		assertArrayEquals( render( projector, target, false ), render( projector, target, true ) );
+	}
+
+	@Test
+	public void testVolatile2DRandomAccessibleProjector()
+	{
+		final Img< UnsignedShortType > source = createSource();
+		final int[] invalidValue = new int[] { -1 };
+		final RandomAccessible< VolatileRealType< UnsignedShortType > > volatileSource = Converters.convert(
+				( RandomAccessible< UnsignedShortType > ) source,
+				new Converter< UnsignedShortType, VolatileRealType< UnsignedShortType > >()
+				{
+					@Override
+					public void convert( final UnsignedShortType input, final VolatileRealType< UnsignedShortType > output )
+					{
+						output.get().set( input );
+						output.setValid( input.get() != invalidValue[ 0 ] );
+					}
+				},
+				new VolatileRealType< UnsignedShortType >( new UnsignedShortType() ) );
+		final Converter< VolatileRealType< UnsignedShortType >, ARGBType > volatileConverter = new Converter< VolatileRealType< UnsignedShortType >, ARGBType >()
+		{
+			@Override
+			public void convert( final VolatileRealType< UnsignedShortType > input, final ARGBType output )
+			{
+				converter.convert( input.get(), output );
+			}
+		};
+
+		final ArrayImg< ARGBType, IntArray > target = createTarget();
+		final Volatile2DRandomAccessibleProjector< UnsignedShortType, VolatileRealType< UnsignedShortType >, ARGBType > projector =
+				new Volatile2DRandomAccessibleProjector< UnsignedShortType, VolatileRealType< UnsignedShortType >, ARGBType >( 0, 1, volatileSource, target, volatileConverter );
+		assertArrayEquals( render( projector, target, false ), render( projector, target, true ) );
+		assertTrue( projector.isValid() );
+
+		// make one pixel in the last stripe invalid
+		final RandomAccess< UnsignedShortType > access = source.randomAccess();
+		access.setPosition( new long[] { 20, 42, 1 } );
+		invalidValue[ 0 ] = access.get().get();
+		render( projector, target, false );
+		assertFalse( projector.isValid() );
+		render( projector, target, true );
+		assertFalse( projector.isValid() );
+	}
+
+	@Test
+	public void testMapOnSameExecutor() throws Exception
+	{
+		final Img< UnsignedShortType > source = createSource();
+		final ArrayImg< ARGBType, IntArray > target = createTarget();
+		final IterableIntervalProjector2D< UnsignedShortType, ARGBType > projector = new IterableIntervalProjector2D< UnsignedShortType, ARGBType >( 0, 1, source, target, perSample );
+		final int[] expected = render( projector, target, false );
+
+		// map() on the only thread of the executor that renders the stripes
+		final ExecutorService single = Executors.newSingleThreadExecutor();
+		try
+		{
+			projector.setExecutorService( single, numTasks );
+			single.submit( () -> projector.map() ).get( 10, TimeUnit.SECONDS );
+			assertArrayEquals( expected, target.update( null ).getCurrentStorageArray() );
+		}
+		finally
+		{
+			single.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.display.projector.composite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.RealARGBConverter;
+import net.imglib2.converter.RealLUTConverter;
+import net.imglib2.converter.VolatileRealTypeARGBConverter;
+import net.imglib2.display.ColorTable8;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.planar.PlanarImgFactory;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.volatiles.VolatileRealType;
+
+/**
+ * Tests {@link CompositeXYProjector} against a per-pixel reference
+ * composite.
+ */
+public class CompositeXYProjectorTest
+{
+	private static Img< UnsignedShortType > createSource( final long... dimensions )
+	{
+		final Img< UnsignedShortType > img = new CellImgFactory< UnsignedShortType >( 16 ).create( dimensions, new UnsignedShortType() );
+		final Random random = new Random( 7 );
+		for ( final UnsignedShortType t : img )
+			t.set( random.nextInt( 65536 ) );
+		return img;
+	}
+
+	private static ArrayList< Converter< UnsignedShortType, ARGBType > > createConverters( final int numChannels, final boolean batch )
+	{
+		final ArrayList< Converter< UnsignedShortType, ARGBType > > converters = new ArrayList<>();
+		for ( int i = 0; i < numChannels; ++i )
+		{
+			final byte[] lut = new byte[ 256 ];
+			for ( int j = 0; j < 256; ++j )
+				lut[ j ] = ( byte ) ( j * ( i + 1 ) / numChannels );
+			final Converter< UnsignedShortType, ARGBType > c = i % 2 == 0
+					? new RealARGBConverter< UnsignedShortType >( 1000 * i, 30000 + 1000 * i )
+					: new RealLUTConverter< UnsignedShortType >( 0, 40000, new ColorTable8( lut, new byte[ 256 ], lut ) );
+			if ( batch )
+				converters.add( c );
+			else
+				converters.add( new Converter< UnsignedShortType, ARGBType >()
+				{
+					@Override
+					public void convert( final UnsignedShortType input, final ARGBType output )
+					{
+						c.convert( input, output );
+					}
+				} );
+		}
+		return converters;
+	}
+
+	private static void assertComposite( final Img< UnsignedShortType > source, final IterableInterval< ARGBType > target, final ArrayList< Converter< UnsignedShortType, ARGBType > > converters, final boolean[] composite )
+	{
+		final CompositeXYProjector< UnsignedShortType > projector = new CompositeXYProjector< UnsignedShortType >( source, target, converters, 2 );
+		for ( int i = 0; i < composite.length; ++i )
+			projector.setComposite( i, composite[ i ] );
+		projector.setPosition( 1, 2 );
+		projector.map();
+
+		final RandomAccess< UnsignedShortType > access = source.randomAccess();
+		final ARGBType argb = new ARGBType();
+		final Cursor< ARGBType > cursor = target.localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			access.setPosition( cursor.getLongPosition( 0 ), 0 );
+			access.setPosition( cursor.getLongPosition( 1 ), 1 );
+			int a = 0, r = 0, g = 0, b = 0;
+			boolean any = false;
+			for ( int i = 0; i < composite.length; ++i )
+				any |= composite[ i ];
+			for ( int i = 0; i < composite.length; ++i )
+			{
+				if ( any ? !composite[ i ] : i != 1 )
+					continue;
+				access.setPosition( i, 2 );
+				converters.get( i ).convert( access.get(), argb );
+				a += ARGBType.alpha( argb.get() );
+				r += ARGBType.red( argb.get() );
+				g += ARGBType.green( argb.get() );
+				b += ARGBType.blue( argb.get() );
+			}
+			final int expected = ARGBType.rgba( Math.min( r, 255 ), Math.min( g, 255 ), Math.min( b, 255 ), Math.min( a, 255 ) );
+			assertEquals( expected, cursor.get().get() );
+		}
+	}
+
+	@Test
+	public void testArrayImgTarget()
+	{
+		final Img< UnsignedShortType > source = createSource( 50, 43, 4 );
+		for ( final boolean batch : new boolean[] { true, false } )
+		{
+			final ArrayList< Converter< UnsignedShortType, ARGBType > > converters = createConverters( 4, batch );
+			assertComposite( source, ArrayImgs.argbs( 50, 43 ), converters, new boolean[] { true, true, true, true } );
+			assertComposite( source, ArrayImgs.argbs( 50, 43 ), converters, new boolean[] { false, true, false, true } );
+			assertComposite( source, ArrayImgs.argbs( 50, 43 ), converters, new boolean[] { false, false, true, false } );
+			assertComposite( source, ArrayImgs.argbs( 50, 43 ), converters, new boolean[] { false, false, false, false } );
+		}
+	}
+
+	@Test
+	public void testWideTarget()
+	{
+		// rows that are wider than one chunk
+		final Img< UnsignedShortType > source = createSource( 20000, 3, 3 );
+		final ArrayList< Converter< UnsignedShortType, ARGBType > > converters = createConverters( 3, true );
+		assertComposite( source, ArrayImgs.argbs( 20000, 3 ), converters, new boolean[] { true, true, true } );
+	}
+
+	@Test
+	public void testCursorTarget()
+	{
+		final Img< UnsignedShortType > source = createSource( 50, 43, 3 );
+		final ArrayList< Converter< UnsignedShortType, ARGBType > > converters = createConverters( 3, true );
+		assertComposite( source, new PlanarImgFactory< ARGBType >().create( new long[] { 50, 43 }, new ARGBType() ), converters, new boolean[] { true, false, true } );
+		assertComposite( source, new CellImgFactory< ARGBType >( 8 ).create( new long[] { 50, 43 }, new ARGBType() ), converters, new boolean[] { true, true, true } );
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	@Test
+	public void testVolatileChannels()
+	{
+		// odd values are invalid and must be rendered as background
+		final Img< UnsignedShortType > img = createSource( 30, 20, 2 );
+		final RandomAccessibleInterval< VolatileRealType< ? > > source = ( RandomAccessibleInterval ) Converters.convert( ( RandomAccessibleInterval< UnsignedShortType > ) img, ( in, out ) -> {
+			out.get().set( in );
+			out.setValid( in.get() % 2 == 0 );
+		}, new VolatileRealType< UnsignedShortType >( new UnsignedShortType() ) );
+
+		final ArrayList< Converter< VolatileRealType< ? >, ARGBType > > converters = new ArrayList<>();
+		converters.add( new VolatileRealTypeARGBConverter( 0, 65535, new ARGBType( 0xff000040 ) ) );
+		converters.add( new VolatileRealTypeARGBConverter( 0, 30000, new ARGBType( 0xff000040 ) ) );
+
+		final Img< ARGBType > target = ArrayImgs.argbs( 30, 20 );
+		final CompositeXYProjector< VolatileRealType< ? > > projector = new CompositeXYProjector< VolatileRealType< ? > >( source, target, converters, 2 );
+		projector.setComposite( 0, true );
+		projector.setComposite( 1, true );
+		projector.map();
+
+		final RandomAccess< VolatileRealType< ? > > access = source.randomAccess();
+		final ARGBType argb = new ARGBType();
+		final Cursor< ARGBType > cursor = target.localizingCursor();
+		int numBackground = 0;
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			access.setPosition( cursor.getLongPosition( 0 ), 0 );
+			access.setPosition( cursor.getLongPosition( 1 ), 1 );
+			int a = 0, r = 0, g = 0, b = 0;
+			for ( int i = 0; i < 2; ++i )
+			{
+				access.setPosition( i, 2 );
+				converters.get( i ).convert( access.get(), argb );
+				if ( !access.get().isValid() )
+					++numBackground;
+				a += ARGBType.alpha( argb.get() );
+				r += ARGBType.red( argb.get() );
+				g += ARGBType.green( argb.get() );
+				b += ARGBType.blue( argb.get() );
+			}
+			final int expected = ARGBType.rgba( Math.min( r, 255 ), Math.min( g, 255 ), Math.min( b, 255 ), Math.min( a, 255 ) );
+			assertEquals( expected, cursor.get().get() );
+		}
+		assertTrue( numBackground > 0 );
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.display.projector.volatiles;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.imglib2.RandomAccessible;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.Converters;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.volatiles.VolatileRealType;
+
+/**
+ * Tests progressive rendering of {@link Volatile2DRandomAccessibleProjector}.
+ */
+public class Volatile2DRandomAccessibleProjectorTest
+{
+	private static final int width = 30;
+
+	private static final int height = 20;
+
+	/** samples with a value below this are valid */
+	private int loaded = 0;
+
+	/** number of samples converted to ARGB */
+	private int numConverted = 0;
+
+	private final ArrayImg< UnsignedShortType, ShortArray > img = ArrayImgs.unsignedShorts( width, height, 2 );
+	{
+		int i = 0;
+		for ( final UnsignedShortType t : img )
+			t.set( i++ );
+	}
+
+	private final RandomAccessible< VolatileRealType< UnsignedShortType > > source = Converters.convert(
+			( RandomAccessible< UnsignedShortType > ) img,
+			new Converter< UnsignedShortType, VolatileRealType< UnsignedShortType > >()
+			{
+				@Override
+				public void convert( final UnsignedShortType input, final VolatileRealType< UnsignedShortType > output )
+				{
+					output.get().set( input );
+					output.setValid( input.get() < loaded );
+				}
+			},
+			new VolatileRealType< UnsignedShortType >( new UnsignedShortType() ) );
+
+	private final Converter< VolatileRealType< UnsignedShortType >, ARGBType > converter = new Converter< VolatileRealType< UnsignedShortType >, ARGBType >()
+	{
+		@Override
+		public void convert( final VolatileRealType< UnsignedShortType > input, final ARGBType output )
+		{
+			++numConverted;
+			output.set( input.isValid() ? input.get().get() : -1 );
+		}
+	};
+
+	private final ArrayImg< ARGBType, IntArray > target = ArrayImgs.argbs( width, height );
+
+	private final Volatile2DRandomAccessibleProjector< UnsignedShortType, VolatileRealType< UnsignedShortType >, ARGBType > projector =
+			new Volatile2DRandomAccessibleProjector< UnsignedShortType, VolatileRealType< UnsignedShortType >, ARGBType >( 0, 1, source, target, converter );
+
+	private int[] expected( final int z )
+	{
+		final int[] expected = new int[ width * height ];
+		for ( int i = 0; i < expected.length; ++i )
+		{
+			final int value = z * width * height + i;
+			expected[ i ] = value < loaded ? value : -1;
+		}
+		return expected;
+	}
+
+	@Test
+	public void testProgressive()
+	{
+		projector.setProgressive( true );
+
+		loaded = 250;
+		projector.map();
+		assertEquals( width * height, numConverted );
+		assertFalse( projector.isValid() );
+		assertArrayEquals( expected( 0 ), target.update( null ).getCurrentStorageArray() );
+
+		// only the pixels that were invalid are rendered again
+		numConverted = 0;
+		loaded = 400;
+		projector.map();
+		assertEquals( width * height - 250, numConverted );
+		assertFalse( projector.isValid() );
+		assertArrayEquals( expected( 0 ), target.update( null ).getCurrentStorageArray() );
+
+		numConverted = 0;
+		loaded = width * height;
+		projector.map();
+		assertEquals( width * height - 400, numConverted );
+		assertTrue( projector.isValid() );
+		assertArrayEquals( expected( 0 ), target.update( null ).getCurrentStorageArray() );
+
+		numConverted = 0;
+		projector.map();
+		assertEquals( 0, numConverted );
+		assertTrue( projector.isValid() );
+
+		// a new position renders everything
+		numConverted = 0;
+		projector.setPosition( 1, 2 );
+		projector.map();
+		assertEquals( width * height, numConverted );
+		assertArrayEquals( expected( 1 ), target.update( null ).getCurrentStorageArray() );
+
+		// so does invalidateAll()
+		numConverted = 0;
+		projector.invalidateAll();
+		projector.map();
+		assertEquals( width * height, numConverted );
+	}
+
+	@Test
+	public void testTimeBudget()
+	{
+		projector.setProgressive( true );
+		projector.setTimeBudget( 1, TimeUnit.NANOSECONDS );
+		loaded = 2 * width * height;
+
+		// the budget is exceeded after the first row, but each call renders
+		// at least one row
+		for ( int i = 0; i < height; ++i )
+		{
+			assertFalse( projector.isValid() );
+			projector.map();
+			assertEquals( ( i + 1 ) * width, numConverted );
+		}
+		assertTrue( projector.isValid() );
+		assertEquals( width * height, numConverted );
+		assertArrayEquals( expected( 0 ), target.update( null ).getCurrentStorageArray() );
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.histogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.util.IntervalIndexer;
+
+/**
+ * Tests dense and sparse storage of {@link DiscreteFrequencyDistribution}.
+ */
+public class DiscreteFrequencyDistributionTest
+{
+	@Test
+	public void testStorageSelection()
+	{
+		assertFalse( new DiscreteFrequencyDistribution( new long[] { 256, 256 } ).isSparse() );
+		assertTrue( new DiscreteFrequencyDistribution( new long[] { 256, 256, 256, 256 } ).isSparse() );
+	}
+
+	@Test
+	public void testSparse()
+	{
+		final long[] dims = { 256, 256, 256, 256 };
+		final DiscreteFrequencyDistribution dfd = new DiscreteFrequencyDistribution( dims );
+		final Map< Long, Long > expected = new HashMap< Long, Long >();
+		final Random random = new Random( 23 );
+		final long[] pos = new long[ 4 ];
+		for ( int i = 0; i < 10000; ++i )
+		{
+			for ( int d = 0; d < 4; ++d )
+				pos[ d ] = random.nextInt( 8 ) * 31;
+			dfd.increment( pos );
+			final long index = IntervalIndexer.positionToIndex( pos, dims );
+			expected.put( index, expected.getOrDefault( index, 0L ) + 1 );
+		}
+		assertEquals( 10000, dfd.totalValues() );
+
+		long max = 0;
+		long sum = 0;
+		int n = 0;
+		final Cursor< LongType > cursor = dfd.nonZeroCursor();
+		while ( cursor.hasNext() )
+		{
+			final long frequency = cursor.next().get();
+			cursor.localize( pos );
+			assertEquals( expected.get( IntervalIndexer.positionToIndex( pos, dims ) ).longValue(), frequency );
+			assertEquals( frequency, dfd.frequency( pos ) );
+			max = Math.max( max, frequency );
+			sum += frequency;
+			++n;
+		}
+		assertEquals( expected.size(), n );
+		assertEquals( 10000, sum );
+		assertEquals( max, dfd.modeCount() );
+		for ( final long[] mode : dfd.modePositions() )
+			assertEquals( max, dfd.frequency( mode ) );
+
+		// writing through the Img interface
+		final RandomAccess< LongType > access = dfd.randomAccess();
+		access.setPosition( new long[] { 1, 2, 3, 4 } );
+		assertEquals( 0, access.get().get() );
+		access.get().set( 5 );
+		assertEquals( 5, dfd.frequency( new long[] { 1, 2, 3, 4 } ) );
+
+		dfd.resetCounters();
+		assertEquals( 0, dfd.totalValues() );
+		assertFalse( dfd.nonZeroCursor().hasNext() );
+	}
+
+	@Test
+	public void testModesOfEmptyDistribution()
+	{
+		for ( final long[] dims : new long[][] { { 7, 5 }, { 256, 256, 256, 256 } } )
+		{
+			final DiscreteFrequencyDistribution dfd = new DiscreteFrequencyDistribution( dims );
+			assertEquals( 0, dfd.modeCount() );
+			assertTrue( dfd.modePositions().isEmpty() );
+			dfd.increment( new long[ dims.length ] );
+			dfd.decrement( new long[ dims.length ] );
+			assertTrue( dfd.modePositions().isEmpty() );
+		}
+	}
+
+	@Test
+	public void testNonZeroCursorDense()
+	{
+		final DiscreteFrequencyDistribution dfd = new DiscreteFrequencyDistribution( new long[] { 7, 5 } );
+		dfd.increment( new long[] { 6, 0 } );
+		dfd.increment( new long[] { 2, 3 } );
+		dfd.increment( new long[] { 2, 3 } );
+		final Cursor< LongType > cursor = dfd.nonZeroCursor();
+		final long[] pos = new long[ 2 ];
+		assertTrue( cursor.hasNext() );
+		assertEquals( 1, cursor.next().get() );
+		cursor.localize( pos );
+		assertArrayEquals( new long[] { 6, 0 }, pos );
+		final Cursor< LongType > copy = cursor.copyCursor();
+		assertEquals( 2, cursor.next().get() );
+		cursor.localize( pos );
+		assertArrayEquals( new long[] { 2, 3 }, pos );
+		assertFalse( cursor.hasNext() );
+		assertEquals( 6, copy.getLongPosition( 0 ) );
+		assertEquals( 2, copy.next().get() );
+	}
+
+	@Test
+	public void testJointHistogram()
+	{
+		// a joint histogram of four 8-bit channels
+		final List< Img< UnsignedByteType > > channels = new ArrayList< Img< UnsignedByteType > >();
+		final Random random = new Random( 29 );
+		for ( int c = 0; c < 4; ++c )
+		{
+			final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 64, 64 );
+			for ( final UnsignedByteType t : img )
+				t.set( random.nextInt( 256 ) );
+			channels.add( img );
+		}
+		final HistogramNd< UnsignedByteType > hist = Integer1dBinMapper.histogramNd(
+				new long[] { 0, 0, 0, 10 }, new long[] { 256, 256, 256, 236 }, new boolean[] { false, false, false, true } );
+		assertTrue( hist.dfd().isSparse() );
+		hist.countData( new ArrayList< Iterable< UnsignedByteType > >( channels ) );
+		assertEquals( 64 * 64, hist.totalCount() );
+
+		long lower = 0, upper = 0, atValue = 0;
+		final List< Cursor< UnsignedByteType > > cursors = new ArrayList< Cursor< UnsignedByteType > >();
+		for ( final Img< UnsignedByteType > img : channels )
+			cursors.add( img.cursor() );
+		while ( cursors.get( 0 ).hasNext() )
+		{
+			final int[] v = new int[ 4 ];
+			for ( int c = 0; c < 4; ++c )
+				v[ c ] = cursors.get( c ).next().get();
+			if ( v[ 3 ] < 10 )
+				++lower;
+			if ( v[ 3 ] > 10 + 236 - 3 )
+				++upper;
+			if ( v[ 1 ] == 17 )
+				++atValue;
+		}
+		assertEquals( lower, hist.lowerTailCount( 3 ) );
+		assertEquals( upper, hist.upperTailCount( 3 ) );
+		assertEquals( atValue, hist.distributionCount( 1, 17 ) );
+	}
+}
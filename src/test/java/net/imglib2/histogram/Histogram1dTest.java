@@ -35,11 +35,25 @@
 package net.imglib2.histogram;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import net.imglib2.converter.RealLUTConverter;
+import net.imglib2.display.ColorTable8;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
 
 import org.junit.Test;
 
@@ -104,6 +118,164 @@ public class Histogram1dTest
 		assertEquals( 0, hist.upperTailCount() );
 	}
 
+	@Test
+	public void testParallelCountData()
+	{
+		final Img< UnsignedShortType > img = ArrayImgs.unsignedShorts( 317, 211 );
+		final Random random = new Random( 5 );
+		for ( final UnsignedShortType t : img )
+			t.set( random.nextInt( 65536 ) );
+
+		final ExecutorService executor = Executors.newFixedThreadPool( 3 );
+		try
+		{
+			final List< BinMapper1d< UnsignedShortType > > mappers = new ArrayList< BinMapper1d< UnsignedShortType > >();
+			mappers.add( new Integer1dBinMapper< UnsignedShortType >( 1000, 50000, true ) );
+			mappers.add( new Integer1dBinMapper< UnsignedShortType >( 1000, 50000, false ) );
+			mappers.add( new Real1dBinMapper< UnsignedShortType >( 100, 60000, 77, true ) );
+			mappers.add( new Real1dBinMapper< UnsignedShortType >( 100, 60000, 77, false ) );
+			for ( final BinMapper1d< UnsignedShortType > mapper : mappers )
+			{
+				final Histogram1d< UnsignedShortType > expected = new Histogram1d< UnsignedShortType >( mapper );
+				for ( final UnsignedShortType t : img )
+					expected.increment( t );
+
+				final Histogram1d< UnsignedShortType > sequential = new Histogram1d< UnsignedShortType >( img, mapper );
+				final Histogram1d< UnsignedShortType > parallel = new Histogram1d< UnsignedShortType >( mapper );
+				parallel.countData( img, executor, 7 );
+				for ( final Histogram1d< UnsignedShortType > hist : Arrays.asList( sequential, parallel ) )
+				{
+					assertEquals( expected.ignoredCount(), hist.ignoredCount() );
+					assertEquals( expected.distributionCount(), hist.distributionCount() );
+					for ( long bin = 0; bin < mapper.getBinCount(); ++bin )
+						assertEquals( expected.frequency( bin ), hist.frequency( bin ) );
+				}
+				assertEquals( img.firstElement().get(), parallel.firstDataValue().get() );
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testPartialHistogramLimits()
+	{
+		// partial histograms stay within the memory budget
+		assertEquals( 16, PartialHistograms.numChunks( 1 << 30, 65536, 16 ) );
+		assertEquals( 1, PartialHistograms.numChunks( 1 << 30, PartialHistograms.MAX_BINS, 16 ) );
+		final int bins = 1 << 22;
+		final int n = PartialHistograms.numChunks( 1 << 30, bins, 16 );
+		assertTrue( n > 1 && n < 16 && n * ( bins + 1L ) <= PartialHistograms.MAX_PARTIAL_ELEMENTS );
+		assertEquals( 3, PartialHistograms.numChunks( 3, 256, 16 ) );
+
+		// few values are counted without an array
+		assertTrue( PartialHistograms.useArray( 65536, 1 << 20 ) );
+		assertFalse( PartialHistograms.useArray( 65536, 100 ) );
+		assertFalse( PartialHistograms.useArray( PartialHistograms.MAX_BINS + 1L, Long.MAX_VALUE ) );
+	}
+
+	@Test
+	public void testCumulative()
+	{
+		final Img< UnsignedShortType > img = ArrayImgs.unsignedShorts( 123, 77 );
+		final Random random = new Random( 13 );
+		for ( final UnsignedShortType t : img )
+			t.set( ( int ) Math.abs( random.nextGaussian() * 300 ) );
+		final int[] sorted = new int[ ( int ) img.size() ];
+		int i = 0;
+		for ( final UnsignedShortType t : img )
+			sorted[ i++ ] = t.get();
+		Arrays.sort( sorted );
+
+		final Histogram1d< UnsignedShortType > hist = new Histogram1d< UnsignedShortType >( img, new Integer1dBinMapper< UnsignedShortType >( 0, 1002, true ) );
+		long sum = 0;
+		for ( long bin = 0; bin < hist.getBinCount(); ++bin )
+		{
+			sum += hist.frequency( bin );
+			assertEquals( sum, hist.cumulativeCount( bin ) );
+			assertEquals( ( double ) sum / hist.distributionCount(), hist.cdf( bin ), 0 );
+		}
+		assertEquals( 0, hist.cumulativeCount( -1 ) );
+
+		final UnsignedShortType value = new UnsignedShortType();
+		for ( final double q : new double[] { 0.05, 0.25, 0.5, 0.75, 0.95 } )
+		{
+			hist.quantile( q, value );
+			assertEquals( sorted[ ( int ) Math.floor( q * ( sorted.length - 1 ) ) ], value.get() );
+		}
+		assertEquals( hist.map( new UnsignedShortType( sorted[ 0 ] ) ), hist.quantileBin( 0 ) );
+		assertEquals( hist.map( new UnsignedShortType( sorted[ sorted.length - 1 ] ) ), hist.quantileBin( 1 ) );
+
+		// cached counts are invalidated by modifications
+		final long before = hist.cumulativeCount( 500 );
+		hist.increment( new UnsignedShortType( 200 ) );
+		assertEquals( before + 1, hist.cumulativeCount( 500 ) );
+		hist.decrement( new UnsignedShortType( 200 ) );
+		assertEquals( before, hist.cumulativeCount( 500 ) );
+		hist.countData( Arrays.asList( new UnsignedShortType( 300 ) ) );
+		assertEquals( 0, hist.cumulativeCount( 200 ) );
+		assertEquals( 1, hist.cumulativeCount( 500 ) );
+	}
+
+	@Test
+	public void testCumulativeSparse()
+	{
+		// more bins than fit into an array
+		final long bins = 1L << 40;
+		final Histogram1d< DoubleType > hist = new Histogram1d< DoubleType >( new Real1dBinMapper< DoubleType >( 0, bins, bins, false ) );
+		assertTrue( hist.dfd().isSparse() );
+		final long[] values = { 1L << 35, 3, 1L << 38, 3, 1000, bins - 1 };
+		for ( final long v : values )
+			hist.increment( new DoubleType( v + 0.5 ) );
+		final long[] sorted = values.clone();
+		Arrays.sort( sorted );
+
+		assertEquals( 0, hist.cumulativeCount( 2 ) );
+		assertEquals( 2, hist.cumulativeCount( 3 ) );
+		assertEquals( 2, hist.cumulativeCount( 999 ) );
+		assertEquals( 3, hist.cumulativeCount( 1000 ) );
+		assertEquals( 4, hist.cumulativeCount( ( 1L << 38 ) - 1 ) );
+		assertEquals( 6, hist.cumulativeCount( bins - 1 ) );
+		for ( int i = 0; i < sorted.length; ++i )
+			assertEquals( sorted[ i ], hist.quantileBin( ( double ) i / ( sorted.length - 1 ) ) );
+	}
+
+	@Test
+	public void testEqualization()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 64, 64 );
+		final Random random = new Random( 19 );
+		for ( final UnsignedByteType t : img )
+			t.set( Math.min( 255, ( int ) Math.abs( random.nextGaussian() * 40 ) ) );
+
+		for ( final boolean tails : new boolean[] { false, true } )
+		{
+			final Histogram1d< UnsignedByteType > hist = new Histogram1d< UnsignedByteType >( img, new Integer1dBinMapper< UnsignedByteType >( 0, tails ? 258 : 256, tails ) );
+			final ColorTable8 table = hist.equalizationColorTable();
+			assertEquals( 256, table.getLength() );
+			for ( int b = 1; b < 256; ++b )
+				assertTrue( table.get( 0, b ) >= table.get( 0, b - 1 ) );
+			assertEquals( 255, table.get( 0, 255 ) );
+
+			final RealLUTConverter< UnsignedByteType > converter = Histogram1d.equalizationConverter( hist, new UnsignedByteType() );
+			final ARGBType argb = new ARGBType();
+			for ( int v = 0; v < 256; ++v )
+			{
+				converter.convert( new UnsignedByteType( v ), argb );
+				assertEquals( table.get( 0, v ), ARGBType.red( argb.get() ) );
+			}
+		}
+
+		final Histogram1d< FloatType > hist = new Histogram1d< FloatType >( new Real1dBinMapper< FloatType >( 0, 10, 20, false ) );
+		for ( int i = 0; i < 100; ++i )
+			hist.increment( new FloatType( i % 10 ) );
+		final RealLUTConverter< FloatType > converter = Histogram1d.equalizationConverter( hist, new FloatType() );
+		assertEquals( 0, converter.getMin(), 0 );
+		assertEquals( 10, converter.getMax(), 1e-9 );
+	}
+
 	private List< UnsignedByteType > getData1()
 	{
 		final List< UnsignedByteType > data = new ArrayList< UnsignedByteType >();
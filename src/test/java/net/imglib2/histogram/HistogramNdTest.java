@@ -40,12 +40,18 @@ import static org.junit.Assert.assertNotNull;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.LongType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 
 import org.junit.Test;
@@ -380,4 +386,44 @@ public class HistogramNdTest
 		}
 
 	}
+	@Test
+	public void testParallelCountData()
+	{
+		final Img< UnsignedByteType > img1 = ArrayImgs.unsignedBytes( 201, 117 );
+		final Img< UnsignedByteType > img2 = ArrayImgs.unsignedBytes( 201, 117 );
+		final Random random = new Random( 9 );
+		for ( final UnsignedByteType t : img1 )
+			t.set( random.nextInt( 256 ) );
+		for ( final UnsignedByteType t : img2 )
+			t.set( random.nextInt( 256 ) );
+		final List< Img< UnsignedByteType > > data = new ArrayList< Img< UnsignedByteType > >();
+		data.add( img1 );
+		data.add( img2 );
+
+		final HistogramNd< UnsignedByteType > expected =
+				Integer1dBinMapper.histogramNd( new long[] { 20, 0 }, new long[] { 200, 64 }, new boolean[] { false, true } );
+		expected.countData( new ArrayList< Iterable< UnsignedByteType > >( data ) );
+
+		final ExecutorService executor = Executors.newFixedThreadPool( 3 );
+		try
+		{
+			final HistogramNd< UnsignedByteType > hist =
+					Integer1dBinMapper.histogramNd( new long[] { 20, 0 }, new long[] { 200, 64 }, new boolean[] { false, true } );
+			hist.countData( data, executor, 5 );
+			assertEquals( expected.ignoredCount(), hist.ignoredCount() );
+			assertEquals( expected.distributionCount(), hist.distributionCount() );
+			final Cursor< LongType > e = expected.localizingCursor();
+			final RandomAccess< LongType > h = hist.randomAccess();
+			while ( e.hasNext() )
+			{
+				e.fwd();
+				h.setPosition( e );
+				assertEquals( e.get().get(), h.get().get() );
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
 }
@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.histogram;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link LongLongHashMap} against a {@link HashMap}.
+ */
+public class LongLongHashMapTest
+{
+	@Test
+	public void testRandomOperations()
+	{
+		final LongLongHashMap map = new LongLongHashMap();
+		final Map< Long, Long > expected = new HashMap< Long, Long >();
+		final Random random = new Random( 17 );
+		for ( int i = 0; i < 200000; ++i )
+		{
+			// few distinct keys, so that entries are removed frequently
+			final long key = random.nextInt( 2000 ) * 1000003L;
+			final long delta = random.nextInt( 3 ) - 1;
+			final long value = map.add( key, delta );
+			final long e = expected.getOrDefault( key, 0L ) + delta;
+			if ( e == 0 )
+				expected.remove( key );
+			else
+				expected.put( key, e );
+			assertEquals( e, value );
+			if ( i % 1000 == 0 )
+			{
+				final long k = random.nextInt( 2000 ) * 1000003L;
+				final long v = random.nextInt( 2 );
+				map.put( k, v );
+				if ( v == 0 )
+					expected.remove( k );
+				else
+					expected.put( k, v );
+			}
+		}
+
+		assertEquals( expected.size(), map.size() );
+		for ( final Map.Entry< Long, Long > entry : expected.entrySet() )
+			assertEquals( entry.getValue().longValue(), map.get( entry.getKey() ) );
+		int n = 0;
+		for ( int slot = 0; slot < map.capacity(); ++slot )
+		{
+			final long key = map.keyAt( slot );
+			if ( key >= 0 )
+			{
+				assertEquals( expected.get( key ).longValue(), map.valueAt( slot ) );
+				++n;
+			}
+		}
+		assertEquals( expected.size(), n );
+
+		map.clear();
+		assertEquals( 0, map.size() );
+		assertEquals( 0, map.get( 1000003L ) );
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.histogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Tests {@link QuantileSketch} against exact quantiles.
+ */
+public class QuantileSketchTest
+{
+	private static final double[] QUANTILES = { 0, 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1 };
+
+	/**
+	 * Checks that the ranks of the sketched quantiles in {@code sorted} are
+	 * within the error bound of the requested ranks.
+	 */
+	private static void assertQuantiles( final QuantileSketch sketch, final double[] sorted )
+	{
+		final int n = sorted.length;
+		assertEquals( n, sketch.count() );
+		assertEquals( sorted[ 0 ], sketch.min(), 0 );
+		assertEquals( sorted[ n - 1 ], sketch.max(), 0 );
+		final double tolerance = sketch.getNormalizedRankError() * n;
+		for ( final double q : QUANTILES )
+		{
+			final double value = sketch.quantile( q );
+			final long expectedRank = ( long ) Math.floor( q * ( n - 1 ) );
+			// range of ranks of value in sorted
+			final int first = lowerBound( sorted, value );
+			final int last = lowerBound( sorted, Math.nextUp( value ) ) - 1;
+			assertTrue( "quantile " + q, first - tolerance <= expectedRank && expectedRank <= last + tolerance );
+
+			final double exactRank = ( double ) ( last + 1 ) / n;
+			assertEquals( exactRank, sketch.rank( value ), sketch.getNormalizedRankError() );
+		}
+	}
+
+	private static int lowerBound( final double[] sorted, final double value )
+	{
+		int i = Arrays.binarySearch( sorted, value );
+		if ( i < 0 )
+			return -i - 1;
+		while ( i > 0 && sorted[ i - 1 ] == value )
+			--i;
+		return i;
+	}
+
+	private static double[] randomValues( final int n, final long seed )
+	{
+		final Random random = new Random( seed );
+		final double[] values = new double[ n ];
+		for ( int i = 0; i < n; ++i )
+			values[ i ] = random.nextGaussian() * 100 + ( i % 3 == 0 ? 1000 : 0 );
+		return values;
+	}
+
+	@Test
+	public void testExactForSmallInput()
+	{
+		final double[] values = randomValues( 150, 1 );
+		final QuantileSketch sketch = new QuantileSketch();
+		for ( final double v : values )
+			sketch.update( v );
+		final double[] sorted = values.clone();
+		Arrays.sort( sorted );
+		for ( final double q : QUANTILES )
+			assertEquals( sorted[ ( int ) Math.floor( q * ( sorted.length - 1 ) ) ], sketch.quantile( q ), 0 );
+	}
+
+	@Test
+	public void testStreaming()
+	{
+		final double[] values = randomValues( 1000000, 2 );
+		final QuantileSketch sketch = new QuantileSketch( QuantileSketch.DEFAULT_K, 5 );
+		for ( final double v : values )
+			sketch.update( v );
+		assertTrue( sketch.numRetained() < 3 * QuantileSketch.DEFAULT_K + 20 * 8 );
+		Arrays.sort( values );
+		assertQuantiles( sketch, values );
+	}
+
+	@Test
+	public void testMerge()
+	{
+		final double[] values = randomValues( 300000, 3 );
+		final QuantileSketch sketch = new QuantileSketch( 100, 6 );
+		for ( int part = 0; part < 13; ++part )
+		{
+			final QuantileSketch partial = new QuantileSketch( 100, part );
+			for ( int i = part; i < values.length; i += 13 )
+				partial.update( values[ i ] );
+			sketch.merge( partial );
+		}
+		Arrays.sort( values );
+		assertQuantiles( sketch, values );
+	}
+
+	@Test
+	public void testParallelCreate()
+	{
+		final Img< FloatType > img = ArrayImgs.floats( 512, 300 );
+		final Random random = new Random( 4 );
+		for ( final FloatType t : img )
+			t.set( ( float ) random.nextDouble() );
+		final double[] sorted = new double[ ( int ) img.size() ];
+		int i = 0;
+		for ( final FloatType t : img )
+			sorted[ i++ ] = t.get();
+		Arrays.sort( sorted );
+
+		final ExecutorService executor = Executors.newFixedThreadPool( 3 );
+		try
+		{
+			assertQuantiles( QuantileSketch.create( img, 200, executor, 8 ), sorted );
+			assertQuantiles( QuantileSketch.create( img, 200, null, 8 ), sorted );
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
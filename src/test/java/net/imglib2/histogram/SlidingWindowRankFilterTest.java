@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.histogram;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * Tests {@link SlidingWindowRankFilter} against sorting the values of each
+ * window.
+ */
+public class SlidingWindowRankFilterTest
+{
+	private static Img< UnsignedByteType > createImg( final long... dimensions )
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( dimensions );
+		final Random random = new Random( 11 );
+		for ( final UnsignedByteType t : img )
+			t.set( random.nextInt( 256 ) );
+		return img;
+	}
+
+	private static < T extends IntegerType< T > > void assertRank( final RandomAccessible< T > source, final RandomAccessibleInterval< T > target, final long[] radius, final double quantile, final int minValue, final int maxValue )
+	{
+		final int n = target.numDimensions();
+		final Cursor< T > cursor = Views.iterable( target ).localizingCursor();
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			for ( int d = 0; d < n; ++d )
+			{
+				min[ d ] = cursor.getLongPosition( d ) - radius[ d ];
+				max[ d ] = cursor.getLongPosition( d ) + radius[ d ];
+			}
+			final FinalInterval interval = new FinalInterval( min, max );
+			final Cursor< T > window = Views.flatIterable( Views.interval( source, interval ) ).cursor();
+			final int[] values = new int[ ( int ) Intervals.numElements( interval ) ];
+			int k = 0;
+			while ( window.hasNext() )
+			{
+				final int v = window.next().getInteger();
+				if ( v >= minValue && v <= maxValue )
+					values[ k++ ] = v;
+			}
+			if ( k == 0 )
+				continue;
+			Arrays.sort( values, 0, k );
+			assertEquals( values[ ( int ) Math.floor( quantile * ( k - 1 ) ) ], cursor.get().getInteger() );
+		}
+	}
+
+	@Test
+	public void testMedian2D()
+	{
+		final Img< UnsignedByteType > img = createImg( 37, 29 );
+		final RandomAccessible< UnsignedByteType > source = Views.extendMirrorSingle( img );
+		final Img< UnsignedByteType > target = ArrayImgs.unsignedBytes( 37, 29 );
+		final long[] radius = { 3, 2 };
+		new SlidingWindowRankFilter< UnsignedByteType >( new Integer1dBinMapper< UnsignedByteType >( 0, 256, false ), radius ).median( source, target );
+		assertRank( source, target, radius, 0.5, 0, 255 );
+	}
+
+	@Test
+	public void testQuantiles3D()
+	{
+		final Img< UnsignedByteType > img = createImg( 13, 11, 7 );
+		final RandomAccessible< UnsignedByteType > source = Views.extendBorder( img );
+		final long[] radius = { 1, 2, 1 };
+		final SlidingWindowRankFilter< UnsignedByteType > filter = new SlidingWindowRankFilter< UnsignedByteType >( new Integer1dBinMapper< UnsignedByteType >( 0, 256, false ), radius );
+		for ( final double quantile : new double[] { 0, 0.1, 0.5, 0.75, 1 } )
+		{
+			// an interval that does not start at the origin
+			final RandomAccessibleInterval< UnsignedByteType > target = Views.translate( ArrayImgs.unsignedBytes( 10, 9, 5 ), 2, 1, 1 );
+			filter.filter( source, target, quantile );
+			assertRank( source, target, radius, quantile, 0, 255 );
+		}
+	}
+
+	@Test
+	public void testIgnoredValues()
+	{
+		final Img< UnsignedByteType > img = createImg( 23, 19 );
+		final RandomAccessible< UnsignedByteType > source = Views.extendZero( img );
+		final Img< UnsignedByteType > target = ArrayImgs.unsignedBytes( 23, 19 );
+		final long[] radius = { 2, 4 };
+		new SlidingWindowRankFilter< UnsignedByteType >( new Integer1dBinMapper< UnsignedByteType >( 50, 100, false ), radius ).filter( source, target, 0.3 );
+		assertRank( source, target, radius, 0.3, 50, 149 );
+	}
+
+	@Test
+	public void test1D()
+	{
+		final Img< UnsignedByteType > img = createImg( 100 );
+		final RandomAccessible< UnsignedByteType > source = Views.extendMirrorDouble( img );
+		final Img< UnsignedByteType > target = ArrayImgs.unsignedBytes( 100 );
+		final long[] radius = { 5 };
+		new SlidingWindowRankFilter< UnsignedByteType >( new Integer1dBinMapper< UnsignedByteType >( 0, 256, false ), radius ).median( source, target );
+		assertRank( source, target, radius, 0.5, 0, 255 );
+	}
+
+	@Test
+	public void testColumnHistograms()
+	{
+		// window columns are higher than half the number of bins
+		final Img< UnsignedByteType > img = createImg( 31, 45 );
+		final RandomAccessible< UnsignedByteType > source = Views.extendMirrorSingle( img );
+		final Img< UnsignedByteType > target = ArrayImgs.unsignedBytes( 31, 45 );
+		final long[] radius = { 4, 20 };
+		new SlidingWindowRankFilter< UnsignedByteType >( new Integer1dBinMapper< UnsignedByteType >( 100, 64, false ), radius ).filter( source, target, 0.6 );
+		assertRank( source, target, radius, 0.6, 100, 163 );
+	}
+
+	@Test
+	public void testMedian16Bit()
+	{
+		final Img< UnsignedShortType > img = ArrayImgs.unsignedShorts( 64, 48 );
+		final Random random = new Random( 13 );
+		for ( final UnsignedShortType t : img )
+			t.set( random.nextInt( 65536 ) );
+		final RandomAccessible< UnsignedShortType > source = Views.extendMirrorSingle( img );
+		final Img< UnsignedShortType > target = ArrayImgs.unsignedShorts( 64, 48 );
+		final long[] radius = { 3, 3 };
+		new SlidingWindowRankFilter< UnsignedShortType >( new Integer1dBinMapper< UnsignedShortType >( 0, 65536, false ), radius ).median( source, target );
+		assertRank( source, target, radius, 0.5, 0, 65535 );
+	}
+}
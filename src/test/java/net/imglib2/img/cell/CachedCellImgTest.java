@@ -0,0 +1,164 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.img.cell;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.Converters;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+import org.junit.Test;
+
+public class CachedCellImgTest
+{
+	private final AtomicLong numConversions = new AtomicLong();
+
+	private RandomAccessibleInterval< FloatType > createSource()
+	{
+		final RandomAccessibleInterval< IntType > ints = Views.translate( ArrayImgs.ints( 30, 20, 10 ), 5, -3, 2 );
+		int i = 0;
+		for ( final IntType t : Views.flatIterable( ints ) )
+			t.set( i++ );
+		return Converters.convert( ints, new Converter< IntType, FloatType >()
+		{
+			@Override
+			public void convert( final IntType input, final FloatType output )
+			{
+				numConversions.incrementAndGet();
+				output.set( input.get() * 0.5f );
+			}
+		}, new FloatType() );
+	}
+
+	@Test
+	public void testValues()
+	{
+		final RandomAccessibleInterval< FloatType > source = createSource();
+		final RandomAccessibleInterval< FloatType > cached = Views.cached( source, new int[] { 8, 8, 4 }, Long.MAX_VALUE );
+
+		for ( int d = 0; d < 3; ++d )
+		{
+			assertEquals( source.min( d ), cached.min( d ) );
+			assertEquals( source.max( d ), cached.max( d ) );
+		}
+
+		final RandomAccess< FloatType > ra = source.randomAccess();
+		final Cursor< FloatType > c = Views.iterable( cached ).localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			ra.setPosition( c );
+			assertEquals( ra.get().get(), c.get().get(), 0 );
+		}
+	}
+
+	@Test
+	public void testMemoization()
+	{
+		final RandomAccessibleInterval< FloatType > cached = Views.cached( createSource(), new int[] { 8, 8, 4 }, Long.MAX_VALUE );
+
+		numConversions.set( 0 );
+		for ( final FloatType t : Views.iterable( cached ) )
+			t.get();
+		assertEquals( 30 * 20 * 10, numConversions.get() );
+
+		for ( final FloatType t : Views.iterable( cached ) )
+			t.get();
+		assertEquals( 30 * 20 * 10, numConversions.get() );
+	}
+
+	@Test
+	public void testEviction()
+	{
+		// room for two full cells of 8 * 8 * 4 floats
+		final long budget = 2 * 8 * 8 * 4 * 4;
+		final CachedCellImg< FloatType, ? > img = new CachedCellImg<>( createSource(), new int[] { 8, 8, 4 }, budget );
+
+		numConversions.set( 0 );
+		for ( final FloatType t : img )
+			t.get();
+		assertTrue( img.getCache().getSizeInBytes() <= budget );
+
+		for ( final FloatType t : img )
+			t.get();
+		assertEquals( 2 * 30 * 20 * 10, numConversions.get() );
+
+		// a single cell is computed once, however often it is accessed
+		numConversions.set( 0 );
+		final RandomAccess< FloatType > ra = img.randomAccess();
+		for ( int i = 0; i < 100; ++i )
+		{
+			ra.setPosition( new long[] { i % 8, i % 5, 1 } );
+			ra.get().get();
+		}
+		assertEquals( 8 * 8 * 4, numConversions.get() );
+	}
+
+	@Test
+	public void testPrefetch() throws InterruptedException
+	{
+		final CachedCellImg< FloatType, ? > img = new CachedCellImg<>( createSource(), new int[] { 8, 8, 4 }, Long.MAX_VALUE );
+		final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		try
+		{
+			numConversions.set( 0 );
+			img.prefetch( new FinalInterval( new long[] { -5, 0, 0 }, new long[] { 100, 100, 100 } ), executor );
+			assertEquals( 30 * 20 * 10, numConversions.get() );
+			img.prefetch( img, executor );
+			assertEquals( 30 * 20 * 10, numConversions.get() );
+
+			for ( final FloatType t : img )
+				t.get();
+			assertEquals( 30 * 20 * 10, numConversions.get() );
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.img.cell;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.FlatIterationOrder;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.AbstractSubIntervalIterableCursorTest;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.view.Views;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CellIterableSubIntervalCursorTest extends AbstractSubIntervalIterableCursorTest< CellImg< IntType, ? > >
+{
+	private final int[] cellDimensions = new int[] { 20, 8, 4, 3, 2 };
+
+	/** Interval crossing cell borders in every dimension */
+	private Interval intervalCrop;
+
+	@Before
+	public void createSourceData()
+	{
+		dimensions = new long[] { 23, 31, 11, 7, 3 };
+
+		intervalShifted = new FinalInterval( new long[] { 0, 0, 3, 5, 1 }, new long[] { dimensions[ 0 ] - 1, dimensions[ 1 ] - 1, 4, 5, 1 } );
+
+		intervalFast = new FinalInterval( new long[] { dimensions[ 0 ], dimensions[ 1 ], 5, 1, 1 } );
+
+		intervalCrop = new FinalInterval( new long[] { 3, 5, 2, 1, 0 }, new long[] { 21, 27, 9, 5, 2 } );
+
+		int numValues = 1;
+		for ( int d = 0; d < dimensions.length; ++d )
+			numValues *= dimensions[ d ];
+
+		intData = new int[ numValues ];
+		final Random random = new Random( 0 );
+		for ( int i = 0; i < numValues; ++i )
+			intData[ i ] = random.nextInt();
+
+		img = new CellImgFactory< IntType >( cellDimensions ).create( dimensions, new IntType() );
+
+		final long[] pos = new long[ dimensions.length ];
+		final RandomAccess< IntType > a = img.randomAccess();
+		for ( int i = 0; i < numValues; ++i )
+		{
+			IntervalIndexer.indexToPosition( i, dimensions, pos );
+			a.setPosition( pos );
+			a.get().set( intData[ i ] );
+		}
+	}
+
+	@Test
+	public void testOptimizable()
+	{
+		assertTrue( Views.interval( img, intervalCrop ).cursor() instanceof CellSubIntervalCursor );
+		assertTrue( Views.interval( img, intervalCrop ).localizingCursor() instanceof CellSubIntervalCursor );
+	}
+
+	@Test
+	public void testIterationCrop()
+	{
+		testCursorIteration( Views.interval( img, intervalCrop ).cursor(), intervalCrop );
+		testCursorIteration( Views.interval( img, intervalCrop ).localizingCursor(), intervalCrop );
+	}
+
+	@Test
+	public void testJumpFwdCrop()
+	{
+		final Cursor< IntType > reference = Views.interval( img, intervalCrop ).cursor();
+		final Cursor< IntType > cursor = reference.copyCursor();
+		final long[] expected = new long[ img.numDimensions() ];
+		final long[] actual = new long[ img.numDimensions() ];
+		long remaining = getIntervalSize( intervalCrop );
+		for ( int steps = 1; steps < remaining; steps = 3 * steps + 1 )
+		{
+			for ( int i = 0; i < steps; ++i )
+				reference.fwd();
+			cursor.jumpFwd( steps );
+			remaining -= steps;
+			reference.localize( expected );
+			cursor.localize( actual );
+			assertArrayEquals( expected, actual );
+			assertEquals( reference.get().get(), cursor.get().get() );
+			assertEquals( reference.hasNext(), cursor.hasNext() );
+		}
+	}
+
+	@Test
+	public void testCopyCursor()
+	{
+		final Cursor< IntType > cursor = Views.interval( img, intervalCrop ).cursor();
+		cursor.jumpFwd( 1234 );
+		final Cursor< IntType > copy = cursor.copyCursor();
+		while ( cursor.hasNext() )
+		{
+			assertTrue( copy.hasNext() );
+			assertEquals( cursor.next().get(), copy.next().get() );
+			assertEquals( cursor.getLongPosition( 1 ), copy.getLongPosition( 1 ) );
+		}
+		assertFalse( copy.hasNext() );
+	}
+
+	@Test
+	public void testIterationOrder()
+	{
+		assertFalse( Views.iterable( Views.interval( img, intervalCrop ) ).iterationOrder() instanceof FlatIterationOrder );
+		assertEquals( Views.iterable( Views.interval( img, intervalCrop ) ).iterationOrder(), Views.iterable( Views.interval( img, intervalCrop ) ).iterationOrder() );
+
+		// within a single cell
+		final Interval inCell = new FinalInterval( new long[] { 1, 9, 4, 3, 0 }, new long[] { 18, 14, 7, 5, 1 } );
+		assertTrue( Views.iterable( Views.interval( img, inCell ) ).iterationOrder() instanceof FlatIterationOrder );
+
+		// crossing cells only along dimension 1
+		final Interval slab = new FinalInterval( new long[] { 0, 0, 3, 5, 1 }, new long[] { 19, 30, 3, 5, 1 } );
+		assertTrue( Views.iterable( Views.interval( img, slab ) ).iterationOrder() instanceof FlatIterationOrder );
+		final Cursor< IntType > c = Views.interval( img, slab ).localizingCursor();
+		final Cursor< IntType > f = Views.flatIterable( Views.interval( img, slab ) ).localizingCursor();
+		while ( f.hasNext() )
+		{
+			f.fwd();
+			c.fwd();
+			assertEquals( f.getLongPosition( 0 ), c.getLongPosition( 0 ) );
+			assertEquals( f.getLongPosition( 1 ), c.getLongPosition( 1 ) );
+		}
+	}
+}
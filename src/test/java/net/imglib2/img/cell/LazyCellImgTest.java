@@ -0,0 +1,102 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.img.cell;
+
+import static org.junit.Assert.assertEquals;
+
+import net.imglib2.Cursor;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.type.numeric.integer.UnsignedVariableBitLengthType;
+import net.imglib2.type.numeric.real.FloatType;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LazyCellImg}.
+ */
+public class LazyCellImgTest
+{
+	private final CellGrid grid = new CellGrid( new long[] { 20, 15 }, new int[] { 8, 4 } );
+
+	private final long[] cellMin = new long[ 2 ];
+
+	private final int[] cellDims = new int[ 2 ];
+
+	@Test
+	public void testFloatType()
+	{
+		final LazyCellImg< FloatType, FloatArray > img = new LazyCellImg<>( grid, new FloatType(), index -> {
+			grid.getCellDimensions( index, cellMin, cellDims );
+			final FloatArray data = new FloatArray( cellDims[ 0 ] * cellDims[ 1 ] );
+			for ( int i = 0; i < cellDims[ 0 ] * cellDims[ 1 ]; ++i )
+				data.setValue( i, index );
+			return new Cell<>( cellDims, cellMin, data );
+		} );
+
+		final long[] position = new long[ 2 ];
+		final long[] cellPosition = new long[ 2 ];
+		final Cursor< FloatType > c = img.localizingCursor();
+		while ( c.hasNext() )
+		{
+			final float value = c.next().get();
+			c.localize( position );
+			grid.getCellPosition( position, cellPosition );
+			assertEquals( cellPosition[ 0 ] + grid.gridDimension( 0 ) * cellPosition[ 1 ], value, 0 );
+		}
+	}
+
+	/**
+	 * {@link UnsignedVariableBitLengthType} has no constructor taking only a
+	 * {@link net.imglib2.img.NativeImg}, so it can only be linked through
+	 * {@link net.imglib2.type.NativeType#createLinkedType(net.imglib2.img.NativeImg)}.
+	 */
+	@Test
+	public void testVariableBitLengthType()
+	{
+		final UnsignedVariableBitLengthType type = new UnsignedVariableBitLengthType( 7 );
+		final LazyCellImg< UnsignedVariableBitLengthType, LongArray > img = new LazyCellImg<>( grid, type, index -> {
+			grid.getCellDimensions( index, cellMin, cellDims );
+			final long numEntities = type.getEntitiesPerPixel().mulCeil( cellDims[ 0 ] * cellDims[ 1 ] );
+			return new Cell<>( cellDims, cellMin, new LongArray( ( int ) numEntities ) );
+		} );
+
+		for ( final UnsignedVariableBitLengthType t : img )
+		{
+			assertEquals( 7, t.getBitsPerPixel() );
+			assertEquals( 0, t.get() );
+		}
+	}
+}
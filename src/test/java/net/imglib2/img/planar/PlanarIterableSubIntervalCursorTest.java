@@ -33,6 +33,8 @@
  */
 package net.imglib2.img.planar;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -45,6 +47,7 @@ import net.imglib2.RandomAccess;
 import net.imglib2.img.AbstractSubIntervalIterableCursorTest;
 import net.imglib2.type.numeric.integer.IntType;
 import net.imglib2.util.IntervalIndexer;
+import net.imglib2.view.IterableRandomAccessibleInterval;
 import net.imglib2.view.Views;
 
 import org.junit.Before;
@@ -64,6 +67,8 @@ public class PlanarIterableSubIntervalCursorTest extends AbstractSubIntervalIter
 
 	private FinalInterval intervalLine;
 
+	private FinalInterval intervalCrop;
+
 	@Before
 	public void createSourceData()
 	{
@@ -71,6 +76,8 @@ public class PlanarIterableSubIntervalCursorTest extends AbstractSubIntervalIter
 
 		intervalLine = new FinalInterval( new long[] { 0, 12, 3, 5, 1 }, new long[] { dimensions[ 0 ] - 1, 13, 3, 5, 1 } );
 
+		intervalCrop = new FinalInterval( new long[] { 3, 5, 2, 1, 0 }, new long[] { 21, 27, 9, 5, 2 } );
+
 		intervalShifted = new FinalInterval( new long[] { 0, 0, 3, 5, 1 }, new long[] { dimensions[ 0 ] - 1, dimensions[ 1 ] - 1, 4, 5, 1 } );
 
 		intervalFast = new FinalInterval( new long[] { dimensions[ 0 ], dimensions[ 1 ], 5, 1, 1 } );
@@ -130,6 +137,12 @@ public class PlanarIterableSubIntervalCursorTest extends AbstractSubIntervalIter
 
 		// Testing Localizing Cursor
 		assertFalse( ( Views.interval( img, intervalFastPart ).localizingCursor() instanceof PlanarPlaneSubsetLocalizingCursor ) );
+
+		// Testing Cursor
+		assertTrue( ( Views.interval( img, intervalCrop ).cursor() instanceof PlanarSubIntervalCursor ) );
+
+		// Testing Localizing Cursor
+		assertTrue( ( Views.interval( img, intervalCrop ).localizingCursor() instanceof PlanarSubIntervalCursor ) );
 	}
 
 	@Test
@@ -189,4 +202,33 @@ public class PlanarIterableSubIntervalCursorTest extends AbstractSubIntervalIter
 
 		testCursorIteration( cursor, intervalSinglePlaneFull );
 	}
+
+	@Test
+	public void testIterationCrop()
+	{
+		Cursor< IntType > cursor = Views.interval( img, intervalCrop ).cursor();
+
+		testCursorIteration( cursor, intervalCrop );
+	}
+
+	@Test
+	public void testJumpFwdCrop()
+	{
+		final Cursor< IntType > reference = new IterableRandomAccessibleInterval< IntType >( Views.interval( img, intervalCrop ) ).cursor();
+		final Cursor< IntType > cursor = Views.interval( img, intervalCrop ).cursor();
+		final long[] expected = new long[ img.numDimensions() ];
+		final long[] actual = new long[ img.numDimensions() ];
+		long remaining = getIntervalSize( intervalCrop );
+		for ( int steps = 1; steps < remaining; steps = 3 * steps + 1 )
+		{
+			reference.jumpFwd( steps );
+			cursor.jumpFwd( steps );
+			remaining -= steps + 1;
+			reference.localize( expected );
+			cursor.localize( actual );
+			assertArrayEquals( expected, actual );
+			assertEquals( reference.get().get(), cursor.get().get() );
+			assertEquals( reference.next().get(), cursor.next().get() );
+		}
+	}
 }
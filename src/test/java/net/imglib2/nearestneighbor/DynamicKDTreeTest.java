@@ -0,0 +1,197 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.nearestneighbor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import net.imglib2.DynamicKDTree;
+import net.imglib2.RealLocalizable;
+import net.imglib2.RealPoint;
+import net.imglib2.neighborsearch.KNearestNeighborSearchOnDynamicKDTree;
+import net.imglib2.neighborsearch.NearestNeighborSearchOnDynamicKDTree;
+import net.imglib2.neighborsearch.RadiusNeighborSearchOnDynamicKDTree;
+
+import org.junit.Test;
+
+public class DynamicKDTreeTest
+{
+	private static RealPoint randomPoint( final Random rnd )
+	{
+		return new RealPoint( rnd.nextDouble() * 10, rnd.nextDouble() * 10, rnd.nextDouble() * 10 );
+	}
+
+	private static double squDistance( final RealLocalizable a, final RealLocalizable b )
+	{
+		double sum = 0;
+		for ( int d = 0; d < a.numDimensions(); ++d )
+		{
+			final double diff = a.getDoublePosition( d ) - b.getDoublePosition( d );
+			sum += diff * diff;
+		}
+		return sum;
+	}
+
+	private static double[] sortedSquDistances( final List< DynamicKDTree< Integer >.Entry > entries, final RealLocalizable q )
+	{
+		final double[] distances = new double[ entries.size() ];
+		for ( int i = 0; i < distances.length; ++i )
+			distances[ i ] = squDistance( entries.get( i ), q );
+		Arrays.sort( distances );
+		return distances;
+	}
+
+	private static void verifySearches( final DynamicKDTree< Integer > tree, final List< DynamicKDTree< Integer >.Entry > live, final Random rnd )
+	{
+		assertEquals( live.size(), tree.size() );
+		final int k = 4;
+		final double radius = 2;
+		final NearestNeighborSearchOnDynamicKDTree< Integer > nn = new NearestNeighborSearchOnDynamicKDTree< Integer >( tree );
+		final KNearestNeighborSearchOnDynamicKDTree< Integer > knn = new KNearestNeighborSearchOnDynamicKDTree< Integer >( tree, k );
+		final RadiusNeighborSearchOnDynamicKDTree< Integer > rn = new RadiusNeighborSearchOnDynamicKDTree< Integer >( tree );
+		for ( int t = 0; t < 50; ++t )
+		{
+			final RealPoint q = randomPoint( rnd );
+			final double[] distances = sortedSquDistances( live, q );
+
+			nn.search( q );
+			if ( live.isEmpty() )
+				assertNull( nn.getEntry() );
+			else
+			{
+				assertEquals( distances[ 0 ], nn.getSquareDistance(), 0 );
+				assertTrue( live.contains( nn.getEntry() ) );
+			}
+
+			knn.search( q );
+			for ( int i = 0; i < Math.min( k, live.size() ); ++i )
+			{
+				assertEquals( distances[ i ], knn.getSquareDistance( i ), 0 );
+				assertEquals( distances[ i ], squDistance( knn.getPosition( i ), q ), 0 );
+				assertTrue( live.contains( knn.getEntry( i ) ) );
+			}
+
+			rn.search( q, radius, true );
+			int expected = 0;
+			while ( expected < distances.length && distances[ expected ] <= radius * radius )
+				++expected;
+			assertEquals( expected, rn.numNeighbors() );
+			for ( int i = 0; i < expected; ++i )
+			{
+				assertEquals( distances[ i ], rn.getSquareDistance( i ), 0 );
+				assertTrue( live.contains( rn.getEntry( i ) ) );
+			}
+		}
+	}
+
+	@Test
+	public void testInsertRemoveMove()
+	{
+		final Random rnd = new Random( 1 );
+		final DynamicKDTree< Integer > tree = new DynamicKDTree< Integer >( 3 );
+		final List< DynamicKDTree< Integer >.Entry > live = new ArrayList< DynamicKDTree< Integer >.Entry >();
+		verifySearches( tree, live, rnd );
+
+		int value = 0;
+		for ( int round = 0; round < 20; ++round )
+		{
+			for ( int i = 0; i < 100; ++i )
+				live.add( tree.insert( randomPoint( rnd ), value++ ) );
+			for ( int i = 0; i < 60 && !live.isEmpty(); ++i )
+				assertTrue( tree.remove( live.remove( rnd.nextInt( live.size() ) ) ) );
+			for ( int i = 0; i < 50; ++i )
+			{
+				final DynamicKDTree< Integer >.Entry entry = live.get( rnd.nextInt( live.size() ) );
+				final RealPoint target;
+				if ( rnd.nextBoolean() )
+					target = randomPoint( rnd );
+				else
+				{
+					// small displacement, often handled in place
+					target = new RealPoint( entry );
+					for ( int d = 0; d < 3; ++d )
+						target.move( ( rnd.nextDouble() - 0.5 ) * 0.01, d );
+				}
+				tree.move( entry, target );
+				assertEquals( 0, squDistance( entry, target ), 0 );
+			}
+			verifySearches( tree, live, rnd );
+		}
+	}
+
+	@Test
+	public void testRemoveAndClear()
+	{
+		final Random rnd = new Random( 2 );
+		final DynamicKDTree< Integer > tree = new DynamicKDTree< Integer >( 3 );
+		final List< DynamicKDTree< Integer >.Entry > live = new ArrayList< DynamicKDTree< Integer >.Entry >();
+		for ( int i = 0; i < 1000; ++i )
+			live.add( tree.insert( randomPoint( rnd ), i ) );
+
+		final DynamicKDTree< Integer >.Entry entry = live.remove( 10 );
+		assertTrue( tree.remove( entry ) );
+		assertFalse( entry.isInTree() );
+		assertFalse( tree.remove( entry ) );
+		try
+		{
+			tree.move( entry, randomPoint( rnd ) );
+			assertTrue( false );
+		}
+		catch ( final IllegalArgumentException e )
+		{}
+
+		// remove almost everything, forcing buckets to be rebuilt
+		while ( live.size() > 3 )
+			assertTrue( tree.remove( live.remove( live.size() - 1 ) ) );
+		verifySearches( tree, live, rnd );
+
+		final DynamicKDTree< Integer >.Entry other = new DynamicKDTree< Integer >( 3 ).insert( randomPoint( rnd ), -1 );
+		assertFalse( tree.remove( other ) );
+
+		tree.clear();
+		assertEquals( 0, tree.size() );
+		for ( final DynamicKDTree< Integer >.Entry e : live )
+			assertFalse( e.isInTree() );
+		live.clear();
+		verifySearches( tree, live, rnd );
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.nearestneighbor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.KDTree;
+import net.imglib2.RealPoint;
+import net.imglib2.neighborsearch.KNearestNeighborBatchSearchOnFlatKDTree;
+import net.imglib2.neighborsearch.KNearestNeighborSearchOnFlatKDTree;
+import net.imglib2.neighborsearch.KNearestNeighborSearchOnKDTree;
+import net.imglib2.util.BenchmarkHelper;
+
+/**
+ * Compares memory use, construction time, and k-nearest neighbor query time of
+ * {@link KDTree} and {@link FlatKDTree}, and batched queries on the
+ * {@link FlatKDTree}.
+ */
+public class FlatKDTreeBenchmark
+{
+	static final int numDimensions = 3;
+
+	static final int numPoints = 1000000;
+
+	static final int numQueries = 200000;
+
+	static final int k = 8;
+
+	static List< RealPoint > points;
+
+	static List< RealPoint > queries;
+
+	static KDTree< RealPoint > kdtree;
+
+	static FlatKDTree< RealPoint > flatKdtree;
+
+	static List< RealPoint > randomPoints( final int num, final Random rnd )
+	{
+		final ArrayList< RealPoint > list = new ArrayList< RealPoint >( num );
+		final double[] p = new double[ numDimensions ];
+		for ( int i = 0; i < num; ++i )
+		{
+			for ( int d = 0; d < numDimensions; ++d )
+				p[ d ] = rnd.nextDouble() * 1000;
+			list.add( new RealPoint( p ) );
+		}
+		return list;
+	}
+
+	static long usedMemory()
+	{
+		final Runtime runtime = Runtime.getRuntime();
+		for ( int i = 0; i < 3; ++i )
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	public static void main( final String[] args )
+	{
+		final Random rnd = new Random( 1 );
+		points = randomPoints( numPoints, rnd );
+		queries = randomPoints( numQueries, rnd );
+
+		long before = usedMemory();
+		kdtree = new KDTree< RealPoint >( points, points );
+		System.out.println( "KDTree memory:     " + ( usedMemory() - before ) / ( 1024 * 1024 ) + " MB" );
+		kdtree = null;
+
+		before = usedMemory();
+		flatKdtree = new FlatKDTree< RealPoint >( points, points );
+		System.out.println( "FlatKDTree memory: " + ( usedMemory() - before ) / ( 1024 * 1024 ) + " MB" );
+
+		final int numRuns = 5;
+		final boolean printIndividualTimes = false;
+
+		System.out.println( "KDTree | build" );
+		BenchmarkHelper.benchmarkAndPrint( numRuns, printIndividualTimes, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				kdtree = new KDTree< RealPoint >( points, points );
+			}
+		} );
+
+		System.out.println( "FlatKDTree | build" );
+		BenchmarkHelper.benchmarkAndPrint( numRuns, printIndividualTimes, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				flatKdtree = new FlatKDTree< RealPoint >( points, points );
+			}
+		} );
+
+		System.out.println( "KDTree | " + k + "-nearest neighbors" );
+		BenchmarkHelper.benchmarkAndPrint( numRuns, printIndividualTimes, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				final KNearestNeighborSearchOnKDTree< RealPoint > search = new KNearestNeighborSearchOnKDTree< RealPoint >( kdtree, k );
+				for ( final RealPoint q : queries )
+					search.search( q );
+			}
+		} );
+
+		System.out.println( "FlatKDTree | " + k + "-nearest neighbors" );
+		BenchmarkHelper.benchmarkAndPrint( numRuns, printIndividualTimes, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				final KNearestNeighborSearchOnFlatKDTree< RealPoint > search = new KNearestNeighborSearchOnFlatKDTree< RealPoint >( flatKdtree, k );
+				for ( final RealPoint q : queries )
+					search.search( q );
+			}
+		} );
+
+		final double[][] queryArray = new double[ numQueries ][ numDimensions ];
+		for ( int q = 0; q < numQueries; ++q )
+			queries.get( q ).localize( queryArray[ q ] );
+		final int numThreads = Runtime.getRuntime().availableProcessors();
+		final ExecutorService executor = Executors.newFixedThreadPool( numThreads );
+		final KNearestNeighborBatchSearchOnFlatKDTree< RealPoint > batch = new KNearestNeighborBatchSearchOnFlatKDTree< RealPoint >( flatKdtree, k );
+		for ( final boolean sortQueries : new boolean[] { false, true } )
+		{
+			System.out.println( "FlatKDTree | batch " + k + "-nearest neighbors, " + numThreads + " threads, sortQueries = " + sortQueries );
+			BenchmarkHelper.benchmarkAndPrint( numRuns, printIndividualTimes, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					batch.search( queryArray, executor, numThreads, sortQueries );
+				}
+			} );
+		}
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.nearestneighbor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.RealCursor;
+import net.imglib2.RealPoint;
+import net.imglib2.RealPointSampleList;
+import net.imglib2.neighborsearch.KNearestNeighborBatchSearchOnFlatKDTree;
+import net.imglib2.neighborsearch.KNearestNeighborSearchOnFlatKDTree;
+import net.imglib2.neighborsearch.NearestNeighborSearchOnFlatKDTree;
+import net.imglib2.neighborsearch.RadiusNeighborSearchOnFlatKDTree;
+import net.imglib2.type.numeric.integer.IntType;
+
+import org.junit.Test;
+
+public class FlatKDTreeTest
+{
+	private static List< RealPoint > randomPoints( final int numPoints, final int numDimensions, final Random rnd )
+	{
+		final ArrayList< RealPoint > points = new ArrayList< RealPoint >();
+		final double[] p = new double[ numDimensions ];
+		for ( int i = 0; i < numPoints; ++i )
+		{
+			for ( int d = 0; d < numDimensions; ++d )
+				p[ d ] = rnd.nextInt( 20 ) + rnd.nextDouble();
+			points.add( new RealPoint( p ) );
+		}
+		return points;
+	}
+
+	private static double[] squDistances( final List< RealPoint > points, final RealPoint q )
+	{
+		final double[] distances = new double[ points.size() ];
+		for ( int i = 0; i < distances.length; ++i )
+		{
+			double sum = 0;
+			for ( int d = 0; d < q.numDimensions(); ++d )
+			{
+				final double diff = points.get( i ).getDoublePosition( d ) - q.getDoublePosition( d );
+				sum += diff * diff;
+			}
+			distances[ i ] = sum;
+		}
+		return distances;
+	}
+
+	@Test
+	public void testTreeLayout()
+	{
+		final Random rnd = new Random( 1 );
+		for ( final int numPoints : new int[] { 1, 2, 3, 7, 10, 100, 1023, 1024 } )
+		{
+			final List< RealPoint > points = randomPoints( numPoints, 3, rnd );
+			final FlatKDTree< RealPoint > tree = new FlatKDTree< RealPoint >( points, points );
+			assertEquals( numPoints, tree.size() );
+			for ( int i = 0; i < numPoints; ++i )
+			{
+				// node values are permuted along with coordinates
+				final RealPoint value = tree.getValue( i );
+				for ( int d = 0; d < 3; ++d )
+					assertEquals( value.getDoublePosition( d ), tree.getDoublePosition( i, d ), 0 );
+				// all nodes in the left subtree are <= and all nodes in the
+				// right subtree are >= the split coordinate
+				final int sd = tree.getSplitDimension( i );
+				final double split = tree.getDoublePosition( i, sd );
+				assertSubtree( tree, FlatKDTree.left( i ), sd, Double.NEGATIVE_INFINITY, split );
+				assertSubtree( tree, FlatKDTree.right( i ), sd, split, Double.POSITIVE_INFINITY );
+			}
+		}
+	}
+
+	private static void assertSubtree( final FlatKDTree< ? > tree, final int node, final int d, final double min, final double max )
+	{
+		if ( node >= tree.size() )
+			return;
+		final double x = tree.getDoublePosition( node, d );
+		assertTrue( x >= min && x <= max );
+		assertSubtree( tree, FlatKDTree.left( node ), d, min, max );
+		assertSubtree( tree, FlatKDTree.right( node ), d, min, max );
+	}
+
+	@Test
+	public void testNearestNeighbor()
+	{
+		final Random rnd = new Random( 2 );
+		final List< RealPoint > points = randomPoints( 1000, 3, rnd );
+		final FlatKDTree< RealPoint > tree = new FlatKDTree< RealPoint >( points, points );
+		final NearestNeighborSearchOnFlatKDTree< RealPoint > search = new NearestNeighborSearchOnFlatKDTree< RealPoint >( tree );
+		for ( final RealPoint q : randomPoints( 200, 3, rnd ) )
+		{
+			search.search( q );
+			final double[] distances = squDistances( points, q );
+			Arrays.sort( distances );
+			assertEquals( distances[ 0 ], search.getSquareDistance(), 0 );
+			assertEquals( distances[ 0 ], squDistances( Arrays.asList( search.getSampler().get() ), q )[ 0 ], 0 );
+		}
+	}
+
+	@Test
+	public void testKNearestNeighbor()
+	{
+		final Random rnd = new Random( 3 );
+		final int k = 7;
+		final List< RealPoint > points = randomPoints( 1000, 2, rnd );
+		final FlatKDTree< RealPoint > tree = new FlatKDTree< RealPoint >( points, points );
+		final KNearestNeighborSearchOnFlatKDTree< RealPoint > search = new KNearestNeighborSearchOnFlatKDTree< RealPoint >( tree, k );
+		for ( final RealPoint q : randomPoints( 200, 2, rnd ) )
+		{
+			search.search( q );
+			final double[] distances = squDistances( points, q );
+			Arrays.sort( distances );
+			for ( int i = 0; i < k; ++i )
+			{
+				assertEquals( distances[ i ], search.getSquareDistance( i ), 0 );
+				assertSame( tree.getValue( search.getIndex( i ) ), search.getSampler( i ).get() );
+			}
+		}
+	}
+
+	@Test
+	public void testKNearestNeighborFewerPoints()
+	{
+		final List< RealPoint > points = randomPoints( 3, 2, new Random( 4 ) );
+		final FlatKDTree< RealPoint > tree = new FlatKDTree< RealPoint >( points, points );
+		final KNearestNeighborSearchOnFlatKDTree< RealPoint > search = new KNearestNeighborSearchOnFlatKDTree< RealPoint >( tree, 5 );
+		search.search( new RealPoint( 1.0, 2.0 ) );
+		for ( int i = 0; i < 3; ++i )
+			assertSame( tree.getValue( search.getIndex( i ) ), search.getSampler( i ).get() );
+		for ( int i = 3; i < 5; ++i )
+		{
+			assertEquals( -1, search.getIndex( i ) );
+			assertNull( search.getSampler( i ) );
+			assertNull( search.getPosition( i ) );
+		}
+	}
+
+	@Test
+	public void testBatchKNearestNeighbor() throws InterruptedException
+	{
+		final Random rnd = new Random( 6 );
+		final int k = 5;
+		final List< RealPoint > points = randomPoints( 2000, 3, rnd );
+		final FlatKDTree< RealPoint > tree = new FlatKDTree< RealPoint >( points, points );
+		final List< RealPoint > queryPoints = randomPoints( 500, 3, rnd );
+		final double[][] queries = new double[ queryPoints.size() ][ 3 ];
+		final RealPointSampleList< IntType > querySamples = new RealPointSampleList< IntType >( 3 );
+		for ( int q = 0; q < queries.length; ++q )
+		{
+			queryPoints.get( q ).localize( queries[ q ] );
+			querySamples.add( queryPoints.get( q ), new IntType( q ) );
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool( 3 );
+		final KNearestNeighborBatchSearchOnFlatKDTree< RealPoint > batch = new KNearestNeighborBatchSearchOnFlatKDTree< RealPoint >( tree, k );
+		for ( final boolean sortQueries : new boolean[] { false, true } )
+		{
+			for ( int pass = 0; pass < 2; ++pass )
+			{
+				if ( pass == 0 )
+					batch.search( queries, executor, 7, sortQueries );
+				else
+					batch.search( querySamples, executor, 7, sortQueries );
+				assertEquals( queries.length, batch.numQueries() );
+				for ( int q = 0; q < queries.length; ++q )
+				{
+					final double[] distances = squDistances( points, queryPoints.get( q ) );
+					final double[] sorted = distances.clone();
+					Arrays.sort( sorted );
+					for ( int i = 0; i < k; ++i )
+					{
+						assertEquals( sorted[ i ], batch.getSquareDistance( q, i ), 0 );
+						assertEquals( sorted[ i ], distances[ batch.getIndex( q, i ) ], 0 );
+					}
+				}
+			}
+		}
+		executor.shutdown();
+		executor.awaitTermination( 1, TimeUnit.MINUTES );
+
+		batch.search( queries, null, 1, true );
+		assertEquals( distanceToNearest( points, queryPoints.get( 0 ) ), batch.getSquareDistances()[ 0 ], 0 );
+	}
+
+	private static double distanceToNearest( final List< RealPoint > points, final RealPoint q )
+	{
+		final double[] distances = squDistances( points, q );
+		Arrays.sort( distances );
+		return distances[ 0 ];
+	}
+
+	@Test
+	public void testRadiusNeighbor()
+	{
+		final Random rnd = new Random( 4 );
+		final List< RealPoint > points = randomPoints( 1000, 3, rnd );
+		final FlatKDTree< RealPoint > tree = new FlatKDTree< RealPoint >( points, points );
+		final RadiusNeighborSearchOnFlatKDTree< RealPoint > search = new RadiusNeighborSearchOnFlatKDTree< RealPoint >( tree );
+		final double radius = 4;
+		for ( final RealPoint q : randomPoints( 200, 3, rnd ) )
+		{
+			final double[] distances = squDistances( points, q );
+			Arrays.sort( distances );
+			int expected = 0;
+			while ( expected < distances.length && distances[ expected ] <= radius * radius )
+				++expected;
+
+			search.search( q, radius, true );
+			assertEquals( expected, search.numNeighbors() );
+			final double[] found = new double[ expected ];
+			for ( int i = 0; i < expected; ++i )
+				found[ i ] = search.getSquareDistance( i );
+			assertArrayEquals( Arrays.copyOf( distances, expected ), found, 0 );
+
+			search.search( q, radius, false );
+			assertEquals( expected, search.numNeighbors() );
+
+			assertEquals( expected, search.count( q, radius ) );
+			final int[] visited = new int[ 1 ];
+			search.search( q, radius, ( node, squDistance ) -> {
+				assertEquals( squDistances( Arrays.asList( tree.getValue( node ) ), q )[ 0 ], squDistance, 0 );
+				assertTrue( squDistance <= radius * radius );
+				++visited[ 0 ];
+			} );
+			assertEquals( expected, visited[ 0 ] );
+		}
+	}
+
+	@Test
+	public void testSampleList()
+	{
+		final Random rnd = new Random( 5 );
+		final RealPointSampleList< IntType > samples = new RealPointSampleList< IntType >( 2 );
+		for ( int i = 0; i < 100; ++i )
+			samples.add( new RealPoint( rnd.nextDouble(), rnd.nextDouble() ), new IntType( i ) );
+
+		final FlatKDTree< IntType > tree = new FlatKDTree< IntType >( samples );
+		assertEquals( 100, tree.size() );
+		final boolean[] seen = new boolean[ 100 ];
+		final RealCursor< IntType > c = tree.cursor();
+		while ( c.hasNext() )
+			seen[ c.next().get() ] = true;
+		for ( final boolean s : seen )
+			assertTrue( s );
+
+		final NearestNeighborSearchOnFlatKDTree< IntType > search = new NearestNeighborSearchOnFlatKDTree< IntType >( tree );
+		final RealCursor< IntType > sc = samples.localizingCursor();
+		while ( sc.hasNext() )
+		{
+			sc.fwd();
+			search.search( sc );
+			assertEquals( 0, search.getSquareDistance(), 0 );
+			assertEquals( sc.get().get(), search.getSampler().get().get() );
+		}
+	}
+}
@@ -34,6 +34,7 @@
 
 package net.imglib2.nearestneighbor;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -42,6 +43,7 @@ import java.util.Comparator;
 import java.util.Random;
 
 import net.imglib2.KDTree;
+import net.imglib2.KDTreeNode;
 import net.imglib2.RealPoint;
 import net.imglib2.neighborsearch.KNearestNeighborSearchOnKDTree;
 import net.imglib2.neighborsearch.NearestNeighborSearchOnKDTree;
@@ -436,6 +438,68 @@ public class KDTreeTest
 		assertTrue( testRadiusNeighbor( 3, 1000, 100, -5, 5 ) );
 	}
 
+	@Test
+	public void testKDTreeRadiusNeighborCountAndVisit()
+	{
+		final ArrayList< RealPoint > points = new ArrayList< RealPoint >();
+		final Random rnd = new Random( 11 );
+		for ( int i = 0; i < 2000; ++i )
+			points.add( new RealPoint( rnd.nextDouble(), rnd.nextDouble(), rnd.nextDouble() ) );
+		final KDTree< RealPoint > kdTree = new KDTree< RealPoint >( points, points );
+		final RadiusNeighborSearchOnKDTree< RealPoint > kd = new RadiusNeighborSearchOnKDTree< RealPoint >( kdTree );
+		final double radius = 0.3;
+		for ( int i = 0; i < 50; ++i )
+		{
+			final RealPoint t = new RealPoint( rnd.nextDouble(), rnd.nextDouble(), rnd.nextDouble() );
+			kd.search( t, radius, true );
+			final int neighbors = kd.numNeighbors();
+			final ArrayList< ValuePair< RealPoint, Double > > radiusExhaustive = findNeighborsRadiusExhaustive( points, t, radius, true );
+			assertEquals( radiusExhaustive.size(), neighbors );
+			for ( int j = 1; j < neighbors; ++j )
+				assertTrue( kd.getSquareDistance( j - 1 ) <= kd.getSquareDistance( j ) );
+
+			assertEquals( neighbors, kd.count( t, radius ) );
+			final int[] visited = new int[ 1 ];
+			kd.search( t, radius, ( node, squDistance ) -> {
+				assertEquals( node.squDistanceTo( t ), squDistance, 0 );
+				assertTrue( squDistance <= radius * radius );
+				++visited[ 0 ];
+			} );
+			assertEquals( neighbors, visited[ 0 ] );
+
+			// count and visit do not change the recorded results
+			assertEquals( neighbors, kd.numNeighbors() );
+		}
+	}
+
+	@Test
+	public void testKDTreeParallelBuild()
+	{
+		// large enough for subtrees to be built in parallel
+		assertTrue( testNearestNeighbor( 3, 100000, 100, -5, 5 ) );
+
+		final ArrayList< RealPoint > points = new ArrayList< RealPoint >();
+		final Random rnd = new Random( 12 );
+		for ( int i = 0; i < 100000; ++i )
+			points.add( new RealPoint( rnd.nextInt( 100 ), rnd.nextDouble() ) );
+		final KDTree< RealPoint > kdTree = new KDTree< RealPoint >( points, points );
+		assertTrue( kdTree.size() == countAndVerify( kdTree.getRoot(), Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY ) );
+	}
+
+	private static long countAndVerify( final KDTreeNode< RealPoint > node, final double minX, final double maxX, final double minY, final double maxY )
+	{
+		if ( node == null )
+			return 0;
+		final double x = node.getDoublePosition( 0 );
+		final double y = node.getDoublePosition( 1 );
+		assertTrue( x >= minX && x <= maxX && y >= minY && y <= maxY );
+		assertTrue( node.get().getDoublePosition( 0 ) == x && node.get().getDoublePosition( 1 ) == y );
+		if ( node.getSplitDimension() == 0 )
+			return 1 + countAndVerify( node.left, minX, x, minY, maxY ) + countAndVerify( node.right, x, maxX, minY, maxY );
+		else
+			return 1 + countAndVerify( node.left, minX, maxX, minY, y ) + countAndVerify( node.right, minX, maxX, y, maxY );
+	}
+
 	public static void main( final String[] args )
 	{
 		for ( int i = 0; i < 5; ++i )
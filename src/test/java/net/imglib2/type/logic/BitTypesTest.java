@@ -0,0 +1,177 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.type.logic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.planar.PlanarImgFactory;
+import net.imglib2.view.Views;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link BitTypes} against pixel-wise {@link BitType} operations.
+ */
+public class BitTypesTest
+{
+	private final long[] dimensions = new long[] { 37, 23, 5 };
+
+	private Img< BitType > create( final int layout, final long seed )
+	{
+		final Img< BitType > img;
+		if ( layout == 0 )
+			img = new ArrayImgFactory< BitType >().create( dimensions, new BitType() );
+		else if ( layout == 1 )
+			img = new PlanarImgFactory< BitType >().create( dimensions, new BitType() );
+		else if ( layout == 2 )
+			img = new CellImgFactory< BitType >( 10, 7, 3 ).create( dimensions, new BitType() );
+		else
+			img = new CellImgFactory< BitType >( 16, 16, 2 ).create( dimensions, new BitType() );
+		final Random rnd = new Random( seed );
+		for ( final BitType t : img )
+			t.set( rnd.nextBoolean() );
+		return img;
+	}
+
+	private static boolean expected( final boolean t, final boolean s, final int op )
+	{
+		switch ( op )
+		{
+		case 0:
+			return t & s;
+		case 1:
+			return t | s;
+		case 2:
+			return t ^ s;
+		default:
+			return t & !s;
+		}
+	}
+
+	@Test
+	public void testBinaryOperations()
+	{
+		for ( int targetLayout = 0; targetLayout < 4; ++targetLayout )
+		{
+			for ( int sourceLayout = 0; sourceLayout < 4; ++sourceLayout )
+			{
+				for ( int op = 0; op < 4; ++op )
+				{
+					final Img< BitType > target = create( targetLayout, 1 );
+					final Img< BitType > reference = create( targetLayout, 1 );
+					final Img< BitType > source = create( sourceLayout, 2 );
+					switch ( op )
+					{
+					case 0:
+						BitTypes.and( target, source );
+						break;
+					case 1:
+						BitTypes.or( target, source );
+						break;
+					case 2:
+						BitTypes.xor( target, source );
+						break;
+					default:
+						BitTypes.andNot( target, source );
+					}
+
+					final Cursor< BitType > c = reference.localizingCursor();
+					final RandomAccess< BitType > rt = target.randomAccess();
+					final RandomAccess< BitType > rs = source.randomAccess();
+					while ( c.hasNext() )
+					{
+						final boolean r = c.next().get();
+						rt.setPosition( c );
+						rs.setPosition( c );
+						assertEquals( expected( r, rs.get().get(), op ), rt.get().get() );
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNotAndCardinality()
+	{
+		for ( int layout = 0; layout < 4; ++layout )
+		{
+			final Img< BitType > img = create( layout, 3 );
+			long count = 0;
+			for ( final BitType t : img )
+				if ( t.get() )
+					++count;
+			assertEquals( count, BitTypes.cardinality( img ) );
+			assertEquals( count, BitTypes.cardinality( Views.interval( img, img ) ) );
+
+			BitTypes.not( img );
+			assertEquals( img.size() - count, BitTypes.cardinality( img ) );
+		}
+	}
+
+	@Test
+	public void testFirstSetBit()
+	{
+		for ( int layout = 0; layout < 4; ++layout )
+		{
+			final Img< BitType > img = create( layout, 4 );
+			for ( final BitType t : img )
+				t.setZero();
+			assertEquals( -1, BitTypes.firstSetBit( img, null ) );
+
+			final long[] expected = new long[] { 31, 17, 3 };
+			final RandomAccess< BitType > ra = img.randomAccess();
+			ra.setPosition( expected );
+			ra.get().setOne();
+			ra.setPosition( new long[] { 36, 22, 4 } );
+			ra.get().setOne();
+
+			final long[] position = new long[ 3 ];
+			final long index = BitTypes.firstSetBit( img, position );
+			assertArrayEquals( expected, position );
+
+			final Cursor< BitType > c = img.cursor();
+			c.jumpFwd( index + 1 );
+			assertEquals( true, c.get().get() );
+		}
+	}
+}
@@ -35,6 +35,7 @@ package net.imglib2.type.numeric.integer;
 
 import static org.junit.Assert.*;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Random;
 
@@ -163,4 +164,88 @@ public class Unsigned128BitTypeTest
 		assertEquals( l.get(), bi );
 	}
 
+	/**
+	 * Tests {@link Unsigned128BitType#add(Unsigned128BitType)},
+	 * {@link Unsigned128BitType#sub(Unsigned128BitType)},
+	 * {@link Unsigned128BitType#mul(Unsigned128BitType)},
+	 * {@link Unsigned128BitType#div(Unsigned128BitType)} and
+	 * {@link Unsigned128BitType#compareTo(Unsigned128BitType)} against
+	 * {@link BigInteger} arithmetic modulo {@code 2^128}.
+	 */
+	@Test
+	public void testArithmeticRandom()
+	{
+		final BigInteger mod = BigInteger.ONE.shiftLeft( 128 );
+		final Random rnd = new Random( 4096 );
+
+		for ( int n = 0; n < 10000; ++n )
+		{
+			final BigInteger a = new BigInteger( rnd.nextInt( 129 ), rnd );
+			final BigInteger b = new BigInteger( rnd.nextInt( 129 ), rnd );
+			final Unsigned128BitType ta = new Unsigned128BitType( a );
+			final Unsigned128BitType tb = new Unsigned128BitType( b );
+
+			Unsigned128BitType t = ta.copy();
+			t.add( tb );
+			assertEquals( a.add( b ).mod( mod ), t.get() );
+
+			t = ta.copy();
+			t.sub( tb );
+			assertEquals( a.subtract( b ).mod( mod ), t.get() );
+
+			t = ta.copy();
+			t.mul( tb );
+			assertEquals( a.multiply( b ).mod( mod ), t.get() );
+
+			if ( b.signum() != 0 )
+			{
+				t = ta.copy();
+				t.div( tb );
+				assertEquals( a.divide( b ), t.get() );
+			}
+
+			assertEquals( a.compareTo( b ), ta.compareTo( tb ) );
+		}
+	}
+
+	/**
+	 * Tests {@link Unsigned128BitType#mul(double)} against
+	 * {@link BigDecimal} arithmetic.
+	 */
+	@Test
+	public void testMulDoubleRandom()
+	{
+		final BigInteger mod = BigInteger.ONE.shiftLeft( 128 );
+		final Random rnd = new Random( 4096 );
+
+		for ( int n = 0; n < 10000; ++n )
+		{
+			final BigInteger a = new BigInteger( rnd.nextInt( 129 ), rnd );
+			final double c = ( rnd.nextDouble() - 0.5 ) * Math.pow( 2, rnd.nextInt( 300 ) - 150 );
+			final Unsigned128BitType t = new Unsigned128BitType( a );
+			t.mul( c );
+			assertEquals( new BigDecimal( a ).multiply( new BigDecimal( c ) ).toBigInteger().mod( mod ), t.get() );
+		}
+	}
+
+	/**
+	 * Tests that {@link Unsigned128BitType#add(Unsigned128BitType)} and
+	 * {@link Unsigned128BitType#sub(Unsigned128BitType)} carry between the two
+	 * longs and wrap around.
+	 */
+	@Test
+	public void testCarry()
+	{
+		final Unsigned128BitType t = new Unsigned128BitType( -1, 0 );
+		t.add( new Unsigned128BitType( 1, 0 ) );
+		assertEquals( BigInteger.ONE.shiftLeft( 64 ), t.get() );
+
+		t.sub( new Unsigned128BitType( 1, 0 ) );
+		assertEquals( BigInteger.ONE.shiftLeft( 64 ).subtract( BigInteger.ONE ), t.get() );
+
+		final Unsigned128BitType max = new Unsigned128BitType( -1, -1 );
+		max.add( new Unsigned128BitType( 1, 0 ) );
+		assertEquals( BigInteger.ZERO, max.get() );
+	}
+
 }
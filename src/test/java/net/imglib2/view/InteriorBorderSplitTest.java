@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.outofbounds.OutOfBoundsBorderFactory;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.util.Intervals;
+
+import org.junit.Test;
+
+public class InteriorBorderSplitTest
+{
+	private static Img< IntType > createImg( final long... dimensions )
+	{
+		final Img< IntType > img = ArrayImgs.ints( dimensions );
+		final Random rnd = new Random( 1 );
+		for ( final IntType t : img )
+			t.set( rnd.nextInt( 100 ) );
+		return img;
+	}
+
+	private static int boxSum( final RandomAccess< IntType > access, final long[] center, final Interval neighborhood )
+	{
+		final int n = center.length;
+		final long[] position = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = center[ d ] + neighborhood.min( d );
+		int sum = 0;
+		for ( long i = Intervals.numElements( neighborhood ); i > 0; --i )
+		{
+			access.setPosition( position );
+			sum += access.get().get();
+			for ( int d = 0; d < n; ++d )
+			{
+				if ( ++position[ d ] <= center[ d ] + neighborhood.max( d ) )
+					break;
+				position[ d ] = center[ d ] + neighborhood.min( d );
+			}
+		}
+		return sum;
+	}
+
+	private static void testSplit( final Img< IntType > img, final Interval interval, final Interval neighborhood )
+	{
+		final ExtendedRandomAccessibleInterval< IntType, Img< IntType > > extended = Views.extendMirrorSingle( img );
+		final List< InteriorBorderSplit.Block< IntType > > blocks = InteriorBorderSplit.split( extended, interval, neighborhood );
+
+		final Img< IntType > visits = ArrayImgs.ints( Intervals.dimensionsAsLongArray( interval ) );
+		final RandomAccess< IntType > visit = Views.translate( visits, Intervals.minAsLongArray( interval ) ).randomAccess();
+		final RandomAccess< IntType > reference = extended.randomAccess();
+		final long[] position = new long[ interval.numDimensions() ];
+		for ( final InteriorBorderSplit.Block< IntType > block : blocks )
+		{
+			assertSame( block.isInterior() ? img : extended, block.getSource() );
+			final RandomAccessible< IntType > source = block.getSource();
+			final RandomAccess< IntType > access = source.randomAccess();
+			for ( final Cursor< IntType > p = Views.flatIterable( Views.interval( Views.extendZero( visits ), block.getInterval() ) ).localizingCursor(); p.hasNext(); )
+			{
+				p.fwd();
+				p.localize( position );
+				visit.setPosition( position );
+				visit.get().inc();
+				assertEquals( boxSum( reference, position, neighborhood ), boxSum( access, position, neighborhood ) );
+			}
+		}
+
+		for ( final IntType t : visits )
+			assertEquals( 1, t.get() );
+	}
+
+	@Test
+	public void testSplit()
+	{
+		final Img< IntType > img = createImg( 20, 15, 6 );
+		testSplit( img, img, new FinalInterval( new long[] { -1, -1, -1 }, new long[] { 1, 1, 1 } ) );
+		testSplit( img, img, new FinalInterval( new long[] { -3, 0, -1 }, new long[] { 0, 2, 2 } ) );
+		testSplit( img, new FinalInterval( new long[] { -5, 2, 1 }, new long[] { 10, 20, 3 } ), new FinalInterval( new long[] { -2, -2, -2 }, new long[] { 2, 2, 2 } ) );
+	}
+
+	@Test
+	public void testEmptyInterior()
+	{
+		final Img< IntType > img = createImg( 4, 3 );
+		final FinalInterval neighborhood = new FinalInterval( new long[] { -2, -2 }, new long[] { 2, 2 } );
+		final List< InteriorBorderSplit.Block< IntType > > blocks = InteriorBorderSplit.split( img, new OutOfBoundsBorderFactory< IntType, Img< IntType > >(), img, neighborhood );
+		assertEquals( 1, blocks.size() );
+		assertFalse( blocks.get( 0 ).isInterior() );
+		assertTrue( Intervals.equals( img, blocks.get( 0 ).getInterval() ) );
+		testSplit( img, img, neighborhood );
+	}
+
+	@Test
+	public void testInterior()
+	{
+		final Interval interior = InteriorBorderSplit.interior( new FinalInterval( 10, 10 ), new FinalInterval( new long[] { -5, 3 }, new long[] { 20, 8 } ), new FinalInterval( new long[] { -1, -2 }, new long[] { 1, 2 } ) );
+		assertTrue( Intervals.equals( new FinalInterval( new long[] { 1, 3 }, new long[] { 8, 7 } ), interior ) );
+		assertEquals( 3, InteriorBorderSplit.border( new FinalInterval( new long[] { -5, 3 }, new long[] { 20, 8 } ), interior ).size() );
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2016 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.view;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import net.imglib2.Cursor;
+import net.imglib2.FlatIterationOrder;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.type.numeric.integer.IntType;
+
+import org.junit.Test;
+
+/**
+ * Tests that permuted, rotated and translated views of images are iterated
+ * in the memory order of the source, and that the localizations of the
+ * cursors are correct.
+ */
+public class PermutedViewIterationTest
+{
+	private final long[] dimensions = new long[] { 7, 5, 3 };
+
+	private Img< IntType > fill( final Img< IntType > img )
+	{
+		final Random rnd = new Random( 1 );
+		for ( final IntType t : img )
+			t.set( rnd.nextInt() );
+		return img;
+	}
+
+	private static void assertCursorConsistent( final RandomAccessibleInterval< IntType > view, final IterableInterval< IntType > iterable )
+	{
+		final RandomAccess< IntType > ra = view.randomAccess();
+		final long[] position = new long[ view.numDimensions() ];
+		long count = 0;
+		for ( final Cursor< IntType > c = iterable.localizingCursor(); c.hasNext(); ++count )
+		{
+			final int value = c.next().get();
+			c.localize( position );
+			ra.setPosition( position );
+			assertEquals( ra.get().get(), value );
+			for ( int d = 0; d < view.numDimensions(); ++d )
+				assertTrue( position[ d ] >= view.min( d ) && position[ d ] <= view.max( d ) );
+		}
+		assertEquals( iterable.size(), count );
+
+		final Cursor< IntType > c = iterable.cursor();
+		final Cursor< IntType > copy = c.copyCursor();
+		c.fwd();
+		copy.fwd();
+		c.fwd();
+		assertFalse( c.getLongPosition( 0 ) == copy.getLongPosition( 0 ) && c.getLongPosition( 1 ) == copy.getLongPosition( 1 ) && c.getLongPosition( 2 ) == copy.getLongPosition( 2 ) );
+	}
+
+	private void testViews( final Img< IntType > img )
+	{
+		@SuppressWarnings( "unchecked" )
+		final RandomAccessibleInterval< IntType >[] views = new RandomAccessibleInterval[] {
+				Views.permute( img, 0, 2 ),
+				Views.rotate( img, 0, 1 ),
+				Views.rotate( Views.permute( img, 1, 2 ), 2, 0 ),
+				Views.translate( Views.permute( img, 0, 1 ), 3, -4, 10 ),
+				Views.translate( img, 1, 2, 3 )
+		};
+		for ( final RandomAccessibleInterval< IntType > view : views )
+		{
+			final IterableInterval< IntType > iterable = Views.iterable( view );
+			assertCursorConsistent( view, iterable );
+
+			// iterates in source order
+			final Cursor< IntType > c = iterable.cursor();
+			final Cursor< IntType > s = img.cursor();
+			while ( s.hasNext() )
+				assertEquals( s.next().get(), c.next().get() );
+		}
+	}
+
+	@Test
+	public void testArrayImg()
+	{
+		testViews( fill( new ArrayImgFactory< IntType >().create( dimensions, new IntType() ) ) );
+	}
+
+	@Test
+	public void testCellImg()
+	{
+		testViews( fill( new CellImgFactory< IntType >( 4, 2, 2 ).create( dimensions, new IntType() ) ) );
+	}
+
+	@Test
+	public void testIterationOrder()
+	{
+		final Img< IntType > a = new ArrayImgFactory< IntType >().create( dimensions, new IntType() );
+		final Img< IntType > b = new ArrayImgFactory< IntType >().create( dimensions, new IntType() );
+
+		assertEquals( Views.iterable( Views.rotate( a, 0, 1 ) ).iterationOrder(), Views.iterable( Views.rotate( b, 0, 1 ) ).iterationOrder() );
+		assertFalse( Views.iterable( Views.rotate( a, 0, 1 ) ).iterationOrder().equals( Views.iterable( Views.rotate( b, 1, 0 ) ).iterationOrder() ) );
+		assertFalse( Views.iterable( Views.permute( a, 0, 1 ) ).iterationOrder() instanceof FlatIterationOrder );
+		assertTrue( Views.iterable( Views.translate( a, 2, 3, 4 ) ).iterationOrder() instanceof FlatIterationOrder );
+
+		final long[] min = new long[ 3 ];
+		final Cursor< IntType > flat = Views.flatIterable( Views.rotate( a, 0, 1 ) ).localizingCursor();
+		flat.fwd();
+		flat.localize( min );
+		assertArrayEquals( new long[] { -4, 0, 0 }, min );
+	}
+}